@@ -104,6 +104,7 @@ public class DatabaseConnectController {
     try {
       JSONObject jsonObject = getRequestBodyJson(request);
       Pair<ZonedDateTime, ZonedDateTime> timeRange = getTimeFromAndTo(jsonObject);
+      long interval = getDownsamplingInterval(jsonObject, timeRange);
       JSONArray array = (JSONArray) jsonObject.get("targets"); // []
       JSONArray result = new JSONArray();
       for (int i = 0; i < array.length(); i++) {
@@ -116,9 +117,9 @@ public class DatabaseConnectController {
         JSONObject obj = new JSONObject();
         obj.put("target", target);
         if (type.equals("table")) {
-          setJsonTable(obj, target, timeRange);
+          setJsonTable(obj, target, timeRange, interval);
         } else if (type.equals("timeserie")) {
-          setJsonTimeseries(obj, target, timeRange);
+          setJsonTimeseries(obj, target, timeRange, interval);
         }
         result.put(i, obj);
       }
@@ -139,10 +140,30 @@ public class DatabaseConnectController {
         to.atZone(ZoneId.of("Asia/Shanghai")));
   }
 
+  /**
+   * get the interval the series are downsampled by, so that a series has at most maxDataPoints
+   * intervals in the time range and an interval is not shorter than intervalMs of the request.
+   *
+   * @param jsonObject request JSON
+   * @param timeRange time range of the request
+   * @return interval in milliseconds, or 0 if the request has no maxDataPoints
+   */
+  private long getDownsamplingInterval(JSONObject jsonObject,
+      Pair<ZonedDateTime, ZonedDateTime> timeRange) {
+    long maxDataPoints = jsonObject.optLong("maxDataPoints", 0);
+    if (maxDataPoints <= 0) {
+      return 0;
+    }
+    long range = timeRange.right.toInstant().toEpochMilli()
+        - timeRange.left.toInstant().toEpochMilli();
+    long interval = (range + maxDataPoints - 1) / maxDataPoints;
+    return Math.max(1, Math.max(interval, jsonObject.optLong("intervalMs", 0)));
+  }
+
   private void setJsonTable(JSONObject obj, String target,
-      Pair<ZonedDateTime, ZonedDateTime> timeRange)
+      Pair<ZonedDateTime, ZonedDateTime> timeRange, long interval)
       throws JSONException {
-    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange);
+    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange, interval);
     JSONArray columns = new JSONArray();
     JSONObject column = new JSONObject();
     column.put("text", "Time");
@@ -164,9 +185,9 @@ public class DatabaseConnectController {
   }
 
   private void setJsonTimeseries(JSONObject obj, String target,
-      Pair<ZonedDateTime, ZonedDateTime> timeRange)
+      Pair<ZonedDateTime, ZonedDateTime> timeRange, long interval)
       throws JSONException {
-    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange);
+    List<TimeValues> timeValues = databaseConnectService.querySeries(target, timeRange, interval);
     logger.info("query size: {}", timeValues.size());
     JSONArray dataPoints = new JSONArray();
     for (TimeValues tv : timeValues) {
@@ -28,7 +28,16 @@ import org.apache.iotdb.web.grafana.bean.TimeValues;
  */
 public interface BasicDao {
 
-  List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange);
+  /**
+   * query the points of a series in the time range.
+   *
+   * @param s the series without the prefix root
+   * @param timeRange the time range, exclusive at both ends
+   * @param interval if positive, the series is downsampled by the server into the first, last,
+   * minimum and maximum points of each interval of this length in milliseconds
+   */
+  List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+      long interval);
 
   List<String> getMetaData();
 
@@ -44,6 +44,8 @@ public class BasicDaoImpl implements BasicDao {
 
   private static final Logger logger = LoggerFactory.getLogger(BasicDaoImpl.class);
 
+  private static final String M4 = "m4";
+
   private final JdbcTemplate jdbcTemplate;
 
   @Autowired
@@ -70,15 +72,29 @@ public class BasicDaoImpl implements BasicDao {
   }
 
   @Override
-  public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange) {
+  public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+      long interval) {
     Long from = zonedCovertToLong(timeRange.left);
     Long to = zonedCovertToLong(timeRange.right);
-    String sql = "SELECT " + s.substring(s.lastIndexOf('.') + 1) + " FROM root."
-        + s.substring(0, s.lastIndexOf('.')) + " WHERE time > " + from + " and time < " + to;
+    String measurement = s.substring(s.lastIndexOf('.') + 1);
+    String columnName = "root." + s;
+    String sql;
+    if (interval > 0) {
+      // the server keeps the first, last, minimum and maximum points of each interval
+      sql = "SELECT " + M4 + "(" + measurement + ")";
+      columnName = M4 + "(" + columnName + ")";
+    } else {
+      sql = "SELECT " + measurement;
+    }
+    sql += " FROM root." + s.substring(0, s.lastIndexOf('.')) + " WHERE time > " + from
+        + " and time < " + to;
+    if (interval > 0) {
+      sql += " GROUP BY(" + interval + "ms, " + from + ", [" + from + ", " + to + "])";
+    }
     logger.info(sql);
     List<TimeValues> rows = null;
     try {
-      rows = jdbcTemplate.query(sql, new TimeValuesRowMapper("root." + s));
+      rows = jdbcTemplate.query(sql, new TimeValuesRowMapper(columnName));
     } catch (Exception e) {
       logger.error(e.getMessage());
     }
@@ -19,7 +19,11 @@
 package org.apache.iotdb.cli.tool;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.iotdb.cli.exception.ArgsErrorException;
@@ -105,6 +109,27 @@ public abstract class AbstractCsvTool {
     }
   }
 
+  /**
+   * parse a time given as a timestamp in milliseconds or as an ISO8601 datetime.
+   *
+   * @param zoneId the time zone of a datetime without an offset
+   * @throws DateTimeParseException if the time is neither
+   */
+  protected static long parseTime(String time, ZoneId zoneId) {
+    try {
+      return Long.parseLong(time);
+    } catch (NumberFormatException e) {
+      // not a timestamp, but a datetime
+    }
+    try {
+      return ZonedDateTime.parse(time, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant()
+          .toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return LocalDateTime.parse(time, DateTimeFormatter.ISO_LOCAL_DATE_TIME).atZone(zoneId)
+          .toInstant().toEpochMilli();
+    }
+  }
+
   protected static boolean checkTimeFormat() {
     for (String format : SUPPORT_TIME_FORMAT) {
       if (timeFormat.equals(format)) {
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats the timestamps of exported rows. The rows of a query are in time order, so consecutive
+ * rows usually fall into the same second. The text of the second is cached and only the
+ * milliseconds are formatted for each row. Not thread safe.
+ */
+public class CachedTimeFormatter {
+
+  private static final String MILLIS_MARK = "\u0001";
+
+  private final String timeFormat;
+  private final ZoneId zoneId;
+  /**
+   * the formatter of a user-defined pattern, whose milliseconds are replaced by MILLIS_MARK if
+   * millisMarked, null for ISO8601 and timestamps.
+   */
+  private final DateTimeFormatter formatter;
+  private final boolean millisMarked;
+
+  private long cachedSecond = Long.MIN_VALUE;
+  /**
+   * the text of the cached second before and after its milliseconds. For ISO8601, prefix is the
+   * date and the minute and suffix is the offset and the zone.
+   */
+  private String prefix;
+  private String suffix;
+  private String seconds;
+
+  /**
+   * @param timeFormat ISO8601, default, timestamp, long, number or a pattern of
+   * DateTimeFormatter
+   */
+  public CachedTimeFormatter(String timeFormat, ZoneId zoneId) {
+    this.timeFormat = timeFormat;
+    this.zoneId = zoneId;
+    if (isIso8601() || isTimestamp()) {
+      formatter = null;
+      millisMarked = false;
+    } else {
+      String markedPattern = markMillis(timeFormat);
+      millisMarked = markedPattern != null;
+      formatter = DateTimeFormatter.ofPattern(millisMarked ? markedPattern : timeFormat);
+    }
+  }
+
+  /**
+   * format a timestamp the way ZonedDateTime.toString() or the pattern formats it.
+   */
+  public String format(long time) {
+    if (isTimestamp()) {
+      return String.valueOf(time);
+    }
+    if (formatter != null && !millisMarked) {
+      // the pattern has no milliseconds or formats them in a way which cannot be cached
+      return ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), zoneId).format(formatter);
+    }
+    long second = Math.floorDiv(time, 1000);
+    int millis = (int) Math.floorMod(time, 1000);
+    if (second != cachedSecond) {
+      cacheSecond(second);
+    }
+    if (formatter != null) {
+      return prefix + formatMillis(millis) + suffix;
+    }
+    // LocalDateTime.toString() omits zero seconds and milliseconds
+    if (millis != 0) {
+      return prefix + ':' + seconds + '.' + formatMillis(millis) + suffix;
+    } else if (!"00".equals(seconds)) {
+      return prefix + ':' + seconds + suffix;
+    } else {
+      return prefix + suffix;
+    }
+  }
+
+  private void cacheSecond(long second) {
+    ZonedDateTime dateTime = ZonedDateTime.ofInstant(Instant.ofEpochSecond(second), zoneId);
+    if (formatter != null) {
+      String text = dateTime.format(formatter);
+      int markIndex = text.indexOf(MILLIS_MARK);
+      prefix = text.substring(0, markIndex);
+      suffix = text.substring(markIndex + MILLIS_MARK.length());
+    } else {
+      String text = dateTime.toString();
+      // yyyy-MM-ddTHH:mm, the seconds are omitted as they are zero
+      String localText = dateTime.withSecond(0).toLocalDateTime().toString();
+      int localLength = dateTime.toLocalDateTime().toString().length();
+      prefix = localText;
+      seconds = String.format("%02d", dateTime.getSecond());
+      suffix = text.substring(localLength);
+    }
+    cachedSecond = second;
+  }
+
+  private boolean isIso8601() {
+    return AbstractCsvTool.DEFAULT_TIME_FORMAT.equals(timeFormat) || "default".equals(timeFormat);
+  }
+
+  private boolean isTimestamp() {
+    return "timestamp".equals(timeFormat) || "long".equals(timeFormat)
+        || "number".equals(timeFormat);
+  }
+
+  private static String formatMillis(int millis) {
+    if (millis >= 100) {
+      return String.valueOf(millis);
+    }
+    return millis >= 10 ? "0" + millis : "00" + millis;
+  }
+
+  /**
+   * replace the milliseconds "SSS" of a pattern by a literal mark.
+   *
+   * @return null if the pattern has no "SSS" outside quotes or has other sub-second fields
+   */
+  private static String markMillis(String pattern) {
+    StringBuilder marked = new StringBuilder();
+    boolean quoted = false;
+    int millisIndex = -1;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      } else if (!quoted && (c == 'S' || c == 'n' || c == 'N' || c == 'A')) {
+        if (millisIndex >= 0 || !pattern.startsWith("SSS", i)
+            || pattern.startsWith("SSSS", i)) {
+          return null;
+        }
+        millisIndex = i;
+        // the mark is not a letter, so it is a literal without quotes
+        marked.append(MILLIS_MARK);
+        i += 2;
+        continue;
+      }
+      marked.append(c);
+    }
+    return millisIndex < 0 ? null : marked.toString();
+  }
+}
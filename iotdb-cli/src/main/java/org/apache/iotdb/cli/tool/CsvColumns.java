@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The columns of a CSV file to import, grouped by device. Column 0 of a line is the time and the
+ * other columns are the timeseries in the header.
+ */
+public class CsvColumns {
+
+  private final List<String> devices = new ArrayList<>();
+  /**
+   * for each device, the indexes of its columns in a line.
+   */
+  private final List<List<Integer>> deviceColumns = new ArrayList<>();
+  private final String[] measurements;
+  private final String[] dataTypes;
+
+  /**
+   * @param header the timeseries of the columns, header[0] is the time column
+   * @param seriesTypes the data type of each timeseries
+   */
+  public CsvColumns(String[] header, Map<String, String> seriesTypes) {
+    measurements = new String[header.length];
+    dataTypes = new String[header.length];
+    Map<String, Integer> deviceIndexes = new HashMap<>();
+    for (int i = 1; i < header.length; i++) {
+      String series = header[i];
+      int separator = series.lastIndexOf('.');
+      String device = series.substring(0, separator);
+      Integer deviceIndex = deviceIndexes.get(device);
+      if (deviceIndex == null) {
+        deviceIndex = devices.size();
+        deviceIndexes.put(device, deviceIndex);
+        devices.add(device);
+        deviceColumns.add(new ArrayList<>());
+      }
+      deviceColumns.get(deviceIndex).add(i);
+      measurements[i] = series.substring(separator + 1);
+      dataTypes[i] = seriesTypes.get(series);
+    }
+  }
+
+  /**
+   * number of columns of a line, including the time column.
+   */
+  public int getColumnNum() {
+    return measurements.length;
+  }
+
+  public int getDeviceNum() {
+    return devices.size();
+  }
+
+  public String getDevice(int deviceIndex) {
+    return devices.get(deviceIndex);
+  }
+
+  public List<Integer> getColumns(int deviceIndex) {
+    return deviceColumns.get(deviceIndex);
+  }
+
+  public String getMeasurement(int column) {
+    return measurements[column];
+  }
+
+  public String getDataType(int column) {
+    return dataTypes[column];
+  }
+}
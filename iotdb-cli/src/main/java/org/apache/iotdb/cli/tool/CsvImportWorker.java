@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A worker of {@link ImportCsv} which imports the data of some devices. The reader of the CSV file
+ * submits batches of split lines to every worker, and a worker inserts the values of its own
+ * devices in its thread. Workers of different devices therefore run in parallel, while the rows of
+ * a device are inserted in the order of the file.
+ */
+public abstract class CsvImportWorker implements Runnable {
+
+  private static final Batch END = new Batch(null, null);
+
+  protected final CsvColumns columns;
+  /**
+   * indexes of the devices of this worker in {@link #columns}.
+   */
+  protected final List<Integer> devices;
+
+  private final BlockingQueue<Batch> queue;
+  private final BufferedWriter errorWriter;
+  private final AtomicBoolean hasErrorLine;
+  private final AtomicLong insertedRowNum = new AtomicLong();
+  private volatile Exception failure;
+
+  /**
+   * @param queueCapacity the number of batches submitted ahead of the worker, the reader blocks
+   * when the worker falls so far behind
+   * @param errorWriter where the lines and statements failed to import are written, shared by
+   * the workers of a file
+   * @param hasErrorLine set when a line or statement is written to the error writer
+   */
+  protected CsvImportWorker(CsvColumns columns, List<Integer> devices, int queueCapacity,
+      BufferedWriter errorWriter, AtomicBoolean hasErrorLine) {
+    this.columns = columns;
+    this.devices = devices;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.errorWriter = errorWriter;
+    this.hasErrorLine = hasErrorLine;
+  }
+
+  /**
+   * submit split lines, the worker never modifies them so they can be shared by workers.
+   */
+  public void submit(List<String[]> lines) throws InterruptedException {
+    queue.put(new Batch(lines, null));
+  }
+
+  /**
+   * make the worker insert everything submitted before and count down the latch.
+   */
+  public void sync(CountDownLatch latch) throws InterruptedException {
+    queue.put(new Batch(null, latch));
+  }
+
+  /**
+   * let the worker exit after everything submitted before is inserted.
+   */
+  public void finish() throws InterruptedException {
+    queue.put(END);
+  }
+
+  /**
+   * number of rows of a device inserted by this worker.
+   */
+  public long getInsertedRowNum() {
+    return insertedRowNum.get();
+  }
+
+  /**
+   * the error which stopped the worker, or null if it is working.
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
+  @Override
+  public void run() {
+    try {
+      Batch batch;
+      while ((batch = queue.take()) != END) {
+        // a failed worker still takes the batches so the reader is never blocked
+        if (failure != null) {
+          if (batch.latch != null) {
+            batch.latch.countDown();
+          }
+          continue;
+        }
+        try {
+          if (batch.lines != null) {
+            for (String[] line : batch.lines) {
+              insert(line);
+            }
+          } else {
+            flush();
+            batch.latch.countDown();
+          }
+        } catch (SQLException | IOException | RuntimeException e) {
+          failure = e;
+          if (batch.latch != null) {
+            batch.latch.countDown();
+          }
+        }
+      }
+      if (failure == null) {
+        flush();
+      }
+    } catch (InterruptedException e) {
+      failure = e;
+      Thread.currentThread().interrupt();
+    } catch (SQLException | IOException | RuntimeException e) {
+      failure = e;
+    } finally {
+      try {
+        close();
+      } catch (SQLException | IOException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+  }
+
+  /**
+   * insert the values of the devices of this worker in a line.
+   */
+  protected abstract void insert(String[] line) throws SQLException, IOException;
+
+  /**
+   * make the inserted values durable, or at least sent to the server.
+   */
+  protected abstract void flush() throws SQLException, IOException;
+
+  protected abstract void close() throws SQLException, IOException;
+
+  protected void addInsertedRows(long rowNum) {
+    insertedRowNum.addAndGet(rowNum);
+  }
+
+  /**
+   * record a line or statement failed to import, the import goes on.
+   */
+  protected void writeError(String error) throws IOException {
+    writeError(errorWriter, hasErrorLine, error);
+  }
+
+  /**
+   * record an error line to the error file shared by the reader and the workers of a csv file.
+   */
+  static void writeError(BufferedWriter errorWriter, AtomicBoolean hasErrorLine, String error)
+      throws IOException {
+    hasErrorLine.set(true);
+    synchronized (errorWriter) {
+      errorWriter.write(error);
+      errorWriter.newLine();
+    }
+  }
+
+  private static class Batch {
+
+    private final List<String[]> lines;
+    private final CountDownLatch latch;
+
+    private Batch(List<String[]> lines, CountDownLatch latch) {
+      this.lines = lines;
+      this.latch = latch;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneId;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the result of a query, usually a time slice of a larger query, into a CSV file. The
+ * slices of a query run in parallel, each on a connection taken from a shared pool.
+ */
+public class CsvSliceExporter implements Callable<Long> {
+
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+  private final String sql;
+  private final File target;
+  private final boolean writeHeader;
+  private final boolean compress;
+  private final BlockingQueue<Connection> connections;
+  private final int fetchSize;
+  private final String timeFormat;
+  private final ZoneId zoneId;
+
+  /**
+   * @param writeHeader whether the column labels are written as the first line
+   * @param compress whether the file is compressed by gzip. Compressed slices can be concatenated
+   * into one gzip file.
+   * @param connections the pool the connection of the query is taken from and returned to
+   */
+  public CsvSliceExporter(String sql, File target, boolean writeHeader, boolean compress,
+      BlockingQueue<Connection> connections, int fetchSize, String timeFormat, ZoneId zoneId) {
+    this.sql = sql;
+    this.target = target;
+    this.writeHeader = writeHeader;
+    this.compress = compress;
+    this.connections = connections;
+    this.fetchSize = fetchSize;
+    this.timeFormat = timeFormat;
+    this.zoneId = zoneId;
+  }
+
+  /**
+   * @return the number of rows exported
+   */
+  @Override
+  public Long call() throws SQLException, IOException, InterruptedException {
+    Connection connection = connections.take();
+    try (Statement statement = connection.createStatement();
+        BufferedWriter writer = openWriter()) {
+      statement.setFetchSize(fetchSize);
+      ResultSet rs = statement.executeQuery(sql);
+      ResultSetMetaData metadata = rs.getMetaData();
+      int count = metadata.getColumnCount();
+      if (writeHeader) {
+        for (int i = 1; i <= count; i++) {
+          writer.write(metadata.getColumnLabel(i));
+          writer.write(i < count ? ',' : '\n');
+        }
+      }
+      CachedTimeFormatter timeFormatter = new CachedTimeFormatter(timeFormat, zoneId);
+      long rowNum = 0;
+      while (rs.next()) {
+        String time = rs.getString(1);
+        if (time == null || time.equalsIgnoreCase("null")) {
+          writer.write(',');
+          continue;
+        }
+        writer.write(timeFormatter.format(rs.getLong(1)));
+        writer.write(',');
+        for (int j = 2; j <= count; j++) {
+          String value = rs.getString(j);
+          if (!value.equals("null")) {
+            writer.write(value);
+          }
+          writer.write(j < count ? ',' : '\n');
+        }
+        rowNum++;
+      }
+      return rowNum;
+    } finally {
+      connections.put(connection);
+    }
+  }
+
+  private BufferedWriter openWriter() throws IOException {
+    OutputStream out = new FileOutputStream(target);
+    try {
+      if (compress) {
+        out = new GZIPOutputStream(out, WRITE_BUFFER_SIZE);
+      }
+      return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+          WRITE_BUFFER_SIZE);
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+  }
+}
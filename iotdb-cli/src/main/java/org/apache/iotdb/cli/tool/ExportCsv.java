@@ -19,19 +19,28 @@
 package org.apache.iotdb.cli.tool;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.time.Instant;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -48,6 +57,10 @@ import org.apache.thrift.TException;
 /**
  * Export CSV file.
  *
+ * <p>If a time range is given, a query is split into time slices which are exported in parallel
+ * by several connections, and the slices are concatenated in time order or kept as files of their
+ * own.
+ *
  * @author aru cheng
  * @version 1.0.0 20170719
  */
@@ -59,12 +72,57 @@ public class ExportCsv extends AbstractCsvTool {
   private static final String SQL_FILE_ARGS = "s";
   private static final String SQL_FILE_NAME = "sqlfile";
 
+  private static final String START_TIME_ARGS = "st";
+  private static final String START_TIME_NAME = "startTime";
+
+  private static final String END_TIME_ARGS = "et";
+  private static final String END_TIME_NAME = "endTime";
+
+  private static final String SLICE_DURATION_ARGS = "sd";
+  private static final String SLICE_DURATION_NAME = "sliceDuration";
+
+  private static final String THREAD_NUM_ARGS = "tn";
+  private static final String THREAD_NUM_NAME = "threadNum";
+
+  private static final String FETCH_SIZE_ARGS = "fs";
+  private static final String FETCH_SIZE_NAME = "fetchSize";
+
+  private static final String SLICE_FILE_ARGS = "sf";
+
+  private static final String COMPRESS_ARGS = "gz";
+
   private static final String TSFILEDB_CLI_PREFIX = "ExportCsv";
 
   private static final String DUMP_FILE_NAME = "dump";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final int DEFAULT_THREAD_NUM = 4;
+  private static final int DEFAULT_FETCH_SIZE = 50000;
+  /**
+   * without a slice duration, the time range is split into this many slices per thread.
+   */
+  private static final int DEFAULT_SLICE_NUM_PER_THREAD = 4;
+
+  /**
+   * a query with these clauses cannot be split by time.
+   */
+  private static final Pattern UNSLICEABLE_CLAUSE = Pattern.compile(
+      "\\b(group\\s+by|fill|limit|slimit|offset|soffset)\\b");
+  private static final Pattern WHERE_CLAUSE = Pattern.compile("\\bwhere\\b");
 
   private static String targetDirectory;
 
+  private static Long startTime;
+  private static Long endTime;
+  private static long sliceDuration;
+  private static int threadNum = DEFAULT_THREAD_NUM;
+  private static int fetchSize = DEFAULT_FETCH_SIZE;
+  private static boolean sliceFile = false;
+  private static boolean compress = false;
+
+  private static ExecutorService exportPool;
+  private static BlockingQueue<Connection> connections;
+
   /**
    * main function of export csv tool.
    */
@@ -110,6 +168,7 @@ public class ExportCsv extends AbstractCsvTool {
       connection = (IoTDBConnection) DriverManager
           .getConnection(Config.IOTDB_URL_PREFIX + host + ":" + port + "/", username, password);
       setTimeZone();
+      createExportPool();
 
       if (sqlFile == null) {
         sql = reader.readLine(TSFILEDB_CLI_PREFIX + "> please input query: ");
@@ -142,13 +201,44 @@ public class ExportCsv extends AbstractCsvTool {
       if (reader != null) {
         reader.close();
       }
+      closeExportPool();
       if (connection != null) {
         connection.close();
       }
     }
   }
 
-  private static void parseSpecialParams(CommandLine commandLine, ConsoleReader reader)
+  /**
+   * create the threads and connections of the slices, the connection of the tool is the only
+   * one if queries are not sliced.
+   */
+  private static void createExportPool() throws SQLException, TException {
+    int connectionNum = startTime == null ? 1 : threadNum;
+    exportPool = Executors.newFixedThreadPool(connectionNum);
+    connections = new ArrayBlockingQueue<>(connectionNum);
+    connections.add(connection);
+    for (int i = 1; i < connectionNum; i++) {
+      IoTDBConnection sliceConnection = (IoTDBConnection) DriverManager
+          .getConnection(Config.IOTDB_URL_PREFIX + host + ":" + port + "/", username, password);
+      connections.add(sliceConnection);
+      sliceConnection.setTimeZone(zoneId.getId());
+    }
+  }
+
+  private static void closeExportPool() throws SQLException {
+    if (exportPool != null) {
+      exportPool.shutdownNow();
+    }
+    if (connections != null) {
+      for (Connection sliceConnection : connections) {
+        if (sliceConnection != connection) {
+          sliceConnection.close();
+        }
+      }
+    }
+  }
+
+  static void parseSpecialParams(CommandLine commandLine, ConsoleReader reader)
       throws ArgsErrorException {
     targetDirectory = checkRequiredArg(TARGET_FILE_ARGS, TARGET_FILE_NAME, commandLine);
     timeFormat = commandLine.getOptionValue(TIME_FORMAT_ARGS);
@@ -159,6 +249,56 @@ public class ExportCsv extends AbstractCsvTool {
     if (!targetDirectory.endsWith(File.separator)) {
       targetDirectory += File.separator;
     }
+    threadNum = (int) parsePositiveLong(commandLine, THREAD_NUM_ARGS, DEFAULT_THREAD_NUM);
+    fetchSize = (int) parsePositiveLong(commandLine, FETCH_SIZE_ARGS, DEFAULT_FETCH_SIZE);
+    sliceDuration = parsePositiveLong(commandLine, SLICE_DURATION_ARGS, 0);
+    sliceFile = commandLine.hasOption(SLICE_FILE_ARGS);
+    compress = commandLine.hasOption(COMPRESS_ARGS);
+    String start = commandLine.getOptionValue(START_TIME_ARGS);
+    String end = commandLine.getOptionValue(END_TIME_ARGS);
+    if ((start == null) != (end == null)) {
+      String msg = String.format("Options -%s and -%s should be given together", START_TIME_ARGS,
+          END_TIME_ARGS);
+      System.out.println(msg);
+      throw new ArgsErrorException(msg);
+    }
+    if (start != null) {
+      // the times are parsed in the time zone given, or the local one before connecting
+      ZoneId timeZone = timeZoneID == null ? ZoneId.systemDefault() : ZoneId.of(timeZoneID);
+      try {
+        startTime = parseTime(start.trim(), timeZone);
+        endTime = parseTime(end.trim(), timeZone);
+      } catch (DateTimeParseException e) {
+        String msg = String.format("The time range [%s, %s) should be timestamps or ISO8601 "
+            + "datetimes", start, end);
+        System.out.println(msg);
+        throw new ArgsErrorException(msg);
+      }
+      if (startTime >= endTime) {
+        String msg = String.format("The time range [%s, %s) is empty", start, end);
+        System.out.println(msg);
+        throw new ArgsErrorException(msg);
+      }
+    }
+  }
+
+  private static long parsePositiveLong(CommandLine commandLine, String arg, long defaultValue)
+      throws ArgsErrorException {
+    String str = commandLine.getOptionValue(arg);
+    if (str == null) {
+      return defaultValue;
+    }
+    try {
+      long value = Long.parseLong(str.trim());
+      if (value > 0 && value <= Integer.MAX_VALUE) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to the error
+    }
+    String msg = String.format("Option -%s should be a positive integer, but is %s", arg, str);
+    System.out.println(msg);
+    throw new ArgsErrorException(msg);
   }
 
   /**
@@ -166,7 +306,7 @@ public class ExportCsv extends AbstractCsvTool {
    *
    * @return object Options
    */
-  private static Options createOptions() {
+  static Options createOptions() {
     Options options = new Options();
 
     Option opHost = Option.builder(HOST_ARGS).longOpt(HOST_NAME).required().argName(HOST_NAME)
@@ -208,6 +348,41 @@ public class ExportCsv extends AbstractCsvTool {
         .desc("Time Zone eg. +08:00 or -01:00 (optional)").build();
     options.addOption(opTimeZone);
 
+    Option opStartTime = Option.builder(START_TIME_ARGS).argName(START_TIME_NAME).hasArg()
+        .desc("Start of the time range to export, inclusive, as a timestamp or an ISO8601 "
+            + "datetime. The queries are split into time slices exported in parallel if the "
+            + "time range is given (optional)").build();
+    options.addOption(opStartTime);
+
+    Option opEndTime = Option.builder(END_TIME_ARGS).argName(END_TIME_NAME).hasArg()
+        .desc("End of the time range to export, exclusive (optional)").build();
+    options.addOption(opEndTime);
+
+    Option opSliceDuration = Option.builder(SLICE_DURATION_ARGS).argName(SLICE_DURATION_NAME)
+        .hasArg().desc("Duration of a time slice in milliseconds, by default the time range is "
+            + "split into " + DEFAULT_SLICE_NUM_PER_THREAD + " slices per thread (optional)")
+        .build();
+    options.addOption(opSliceDuration);
+
+    Option opThreadNum = Option.builder(THREAD_NUM_ARGS).argName(THREAD_NUM_NAME).hasArg()
+        .desc("Number of time slices exported in parallel, each with a connection, default "
+            + DEFAULT_THREAD_NUM + " (optional)").build();
+    options.addOption(opThreadNum);
+
+    Option opFetchSize = Option.builder(FETCH_SIZE_ARGS).argName(FETCH_SIZE_NAME).hasArg()
+        .desc("Number of rows fetched from the server at a time, default " + DEFAULT_FETCH_SIZE
+            + " (optional)").build();
+    options.addOption(opFetchSize);
+
+    Option opSliceFile = Option.builder(SLICE_FILE_ARGS).hasArg(false)
+        .desc("Write each time slice into a file of its own instead of one file per query "
+            + "(optional)").build();
+    options.addOption(opSliceFile);
+
+    Option opCompress = Option.builder(COMPRESS_ARGS).hasArg(false)
+        .desc("Compress the files by gzip (optional)").build();
+    options.addOption(opCompress);
+
     Option opHelp = Option.builder(HELP_ARGS).longOpt(HELP_ARGS).hasArg(false)
         .desc("Display help information")
         .build();
@@ -240,92 +415,112 @@ public class ExportCsv extends AbstractCsvTool {
    */
   private static void dumpResult(String sql, int index)
       throws SQLException {
-    BufferedWriter writer = null;
-    final String path = targetDirectory + DUMP_FILE_NAME + index + ".csv";
-    try {
-      File tf = new File(path);
-      if (!tf.exists()) {
-        if (!tf.createNewFile()) {
-          System.out.println("[ERROR] Could not create target file for sql statement: " + sql);
-          return;
-        }
+    String suffix = compress ? ".csv.gz" : ".csv";
+    final String path = targetDirectory + DUMP_FILE_NAME + index + suffix;
+    List<String> sliceSqls = sliceQuery(sql);
+    boolean sliceToFile = sliceFile && sliceSqls.size() > 1;
+    long dumpStartTime = System.currentTimeMillis();
+
+    List<File> sliceFiles = new ArrayList<>();
+    List<Future<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < sliceSqls.size(); i++) {
+      File sliceTarget;
+      if (sliceToFile) {
+        sliceTarget = new File(targetDirectory + DUMP_FILE_NAME + index + "_" + i + suffix);
+      } else if (sliceSqls.size() == 1) {
+        sliceTarget = new File(path);
+      } else {
+        sliceTarget = new File(path + "." + i + TEMP_SUFFIX);
       }
-      writer = new BufferedWriter(new FileWriter(tf));
-    } catch (IOException e) {
-      System.out.println(e.getMessage());
-      return;
+      sliceFiles.add(sliceTarget);
+      futures.add(exportPool.submit(new CsvSliceExporter(sliceSqls.get(i), sliceTarget,
+          sliceToFile || i == 0, compress, connections, fetchSize, timeFormat, zoneId)));
     }
 
-    Statement statement = connection.createStatement();
-    ResultSet rs = statement.executeQuery(sql);
-    ResultSetMetaData metadata = rs.getMetaData();
-    long startTime = System.currentTimeMillis();
-    try {
-      int count = metadata.getColumnCount();
-      // write data in csv file
-      for (int i = 1; i <= count; i++) {
-        if (i < count) {
-          writer.write(metadata.getColumnLabel(i) + ",");
-        } else {
-          writer.write(metadata.getColumnLabel(i) + "\n");
-        }
-      }
-      while (rs.next()) {
-        if (rs.getString(1) == null || rs.getString(1).toLowerCase().equals("null")) {
-          writer.write(",");
-        } else {
-          ZonedDateTime dateTime;
-          switch (timeFormat) {
-            case DEFAULT_TIME_FORMAT:
-            case "default":
-              dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(rs.getLong(1)), zoneId);
-              writer.write(dateTime.toString() + ",");
-              break;
-            case "timestamp":
-            case "long":
-            case "nubmer":
-              writer.write(rs.getLong(1) + ",");
-              break;
-            default:
-              dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(rs.getLong(1)), zoneId);
-              writer.write(dateTime.format(DateTimeFormatter.ofPattern(timeFormat)) + ",");
-              break;
-          }
-
-          for (int j = 2; j <= count; j++) {
-            if (j < count) {
-              if (rs.getString(j).equals("null")) {
-                writer.write(",");
-              } else {
-                writer.write(rs.getString(j) + ",");
-              }
-            } else {
-              if (rs.getString(j).equals("null")) {
-                writer.write("\n");
-              } else {
-                writer.write(rs.getString(j) + "\n");
-              }
-            }
-          }
+    long rowNum = 0;
+    boolean concatenate = !sliceToFile && sliceSqls.size() > 1;
+    try (OutputStream out = concatenate ? new FileOutputStream(path) : null) {
+      for (int i = 0; i < futures.size(); i++) {
+        rowNum += futures.get(i).get();
+        if (concatenate) {
+          // gzip files can be concatenated as they are
+          Files.copy(sliceFiles.get(i).toPath(), out);
+          Files.delete(sliceFiles.get(i).toPath());
         }
       }
-      System.out
-          .println(String
-              .format("[INFO] Statement [%s] has dumped to file %s successfully! It costs %d ms.",
-                  sql, path, (System.currentTimeMillis() - startTime)));
     } catch (IOException e) {
       System.out.println(e.getMessage());
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted when dumping " + sql, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      System.out.println(e.getCause().getMessage());
+      return;
     } finally {
-      try {
-        writer.flush();
-        writer.close();
-      } catch (IOException e) {
-        System.out.println(e.getMessage());
+      for (Future<Long> future : futures) {
+        future.cancel(true);
       }
-      if (statement != null) {
-        statement.close();
+      if (concatenate) {
+        for (File sliceTarget : sliceFiles) {
+          sliceTarget.delete();
+        }
       }
     }
+    long elapsedTime = System.currentTimeMillis() - dumpStartTime;
+    System.out.println(String.format("[INFO] Statement [%s] has dumped to %s successfully! "
+            + "It costs %d ms, %d rows are dumped (%d rows/s).", sql,
+        sliceToFile ? sliceFiles.size() + " files" : "file " + path, elapsedTime, rowNum,
+        rowNum * 1000 / Math.max(elapsedTime, 1)));
   }
 
-}
\ No newline at end of file
+  /**
+   * split a query into time slices of the time range to export.
+   *
+   * @return the query itself if no time range is given or the query cannot be split
+   */
+  static List<String> sliceQuery(String sql) {
+    if (startTime == null) {
+      return Collections.singletonList(sql);
+    }
+    String query = sql.trim();
+    if (query.endsWith(";")) {
+      query = query.substring(0, query.length() - 1);
+    }
+    String lowerCaseSql = query.toLowerCase();
+    int fromIndex = lowerCaseSql.indexOf(" from ");
+    if (!lowerCaseSql.startsWith("select") || fromIndex < 0
+        || lowerCaseSql.substring(0, fromIndex).contains("(")
+        || UNSLICEABLE_CLAUSE.matcher(lowerCaseSql).find()) {
+      System.out.println(String.format("[WARN] Statement [%s] is not a raw data query and "
+          + "cannot be split by time, it is exported by one query", sql));
+      return Collections.singletonList(sql);
+    }
+
+    // the length of the range may exceed Long.MAX_VALUE, so it is treated as unsigned
+    long duration = sliceDuration;
+    if (duration <= 0) {
+      long sliceNum = (long) threadNum * DEFAULT_SLICE_NUM_PER_THREAD;
+      duration = Long.divideUnsigned(endTime - startTime - 1, sliceNum) + 1;
+    }
+    Matcher whereMatcher = WHERE_CLAUSE.matcher(lowerCaseSql);
+    List<String> sliceSqls = new ArrayList<>();
+    long sliceEnd;
+    for (long sliceStart = startTime; sliceStart != endTime; sliceStart = sliceEnd) {
+      sliceEnd = Long.compareUnsigned(endTime - sliceStart, duration) <= 0 ? endTime
+          : sliceStart + duration;
+      String timeFilter = String.format("time >= %d and time < %d", sliceStart, sliceEnd);
+      if (whereMatcher.find(0)) {
+        int conditionStart = whereMatcher.end();
+        sliceSqls.add(String.format("%s (%s) and %s", query.substring(0, conditionStart),
+            query.substring(conditionStart).trim(), timeFilter));
+      } else {
+        sliceSqls.add(query + " where " + timeFilter);
+      }
+    }
+    return sliceSqls;
+  }
+}
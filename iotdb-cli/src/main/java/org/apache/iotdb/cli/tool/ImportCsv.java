@@ -25,16 +25,20 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -52,6 +56,11 @@ import org.apache.thrift.TException;
 /**
  * read a CSV formatted data File and insert all the data into IoTDB.
  *
+ * <p>The lines of a file are read by one thread and inserted by several workers, each of which
+ * owns some of the devices and a connection of its own. A checkpoint of the lines imported is
+ * taken periodically, so an import which failed can be resumed from the checkpoint. The workers
+ * may also write the data into local tsfiles, which are loaded into the server later.
+ *
  * @author zhanggr
  */
 public class ImportCsv extends AbstractCsvTool {
@@ -60,14 +69,38 @@ public class ImportCsv extends AbstractCsvTool {
   private static final String FILE_NAME = "file or folder";
   private static final String FILE_SUFFIX = "csv";
 
+  private static final String THREAD_NUM_ARGS = "tn";
+  private static final String THREAD_NUM_NAME = "threadNum";
+
+  private static final String BATCH_SIZE_ARGS = "bs";
+  private static final String BATCH_SIZE_NAME = "batchSize";
+
+  private static final String RESUME_ARGS = "resume";
+
+  private static final String TSFILE_DIR_ARGS = "tsfile";
+  private static final String TSFILE_DIR_NAME = "tsfile directory";
+
   private static final String TSFILEDB_CLI_PREFIX = "ImportCsv";
   private static final String ERROR_INFO_STR = "csvInsertError.error";
+  private static final String OFFSET_INFO_STR = "csvImportOffset";
 
-  private static final String STRING_DATA_TYPE = "TEXT";
-  private static final int BATCH_EXECUTE_COUNT = 10;
+  private static final int DEFAULT_THREAD_NUM = 4;
+  private static final int DEFAULT_BATCH_SIZE = 1000;
+  /**
+   * the number of batches submitted ahead of each worker.
+   */
+  private static final int WORKER_QUEUE_CAPACITY = 4;
+  private static final long PROGRESS_INTERVAL_MS = 10_000;
+  private static final long CHECKPOINT_INTERVAL_MS = 60_000;
 
   private static String filename;
   private static String errorInsertInfo = "";
+  private static String offsetInfo = "";
+
+  private static int threadNum = DEFAULT_THREAD_NUM;
+  private static int batchSize = DEFAULT_BATCH_SIZE;
+  private static boolean resume = false;
+  private static String tsfileDir = null;
 
   /**
    * create the commandline options.
@@ -109,6 +142,26 @@ public class ImportCsv extends AbstractCsvTool {
         .desc("Time Zone eg. +08:00 or -01:00 (optional)").build();
     options.addOption(opTimeZone);
 
+    Option opThreadNum = Option.builder(THREAD_NUM_ARGS).argName(THREAD_NUM_NAME).hasArg()
+        .desc("Number of workers inserting the devices in parallel, each with a connection, "
+            + "default " + DEFAULT_THREAD_NUM + " (optional)").build();
+    options.addOption(opThreadNum);
+
+    Option opBatchSize = Option.builder(BATCH_SIZE_ARGS).argName(BATCH_SIZE_NAME).hasArg()
+        .desc("Number of insert statements executed by a batch, default " + DEFAULT_BATCH_SIZE
+            + " (optional)").build();
+    options.addOption(opBatchSize);
+
+    Option opResume = Option.builder(RESUME_ARGS).hasArg(false)
+        .desc("Skip the lines imported by the last run of a file, which did not complete "
+            + "(optional)").build();
+    options.addOption(opResume);
+
+    Option opTsFileDir = Option.builder(TSFILE_DIR_ARGS).argName(TSFILE_DIR_NAME).hasArg()
+        .desc("Write the data into tsfiles under this directory instead of the server, "
+            + "which can be loaded later (optional)").build();
+    options.addOption(opTsFileDir);
+
     return options;
   }
 
@@ -116,11 +169,13 @@ public class ImportCsv extends AbstractCsvTool {
    * Data from csv To tsfile.
    */
   private static void loadDataFromCSV(File file, int index) {
-    Statement statement = null;
     BufferedReader br = null;
     BufferedWriter bw = null;
     File errorFile = new File(errorInsertInfo + index);
-    boolean errorFlag = true;
+    AtomicBoolean hasErrorLine = new AtomicBoolean(false);
+    List<CsvImportWorker> workers = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    boolean completed = false;
     try {
       br = new BufferedReader(new FileReader(file));
       if (!errorFile.exists()) {
@@ -137,13 +192,6 @@ public class ImportCsv extends AbstractCsvTool {
       bw.newLine();
       bw.newLine();
 
-      // storage csv table head info
-      Map<String, ArrayList<Integer>> deviceToColumn = new HashMap<>();
-      // storage csv table head info
-      List<String> colInfo = new ArrayList<>();
-      // storage csv device sensor info, corresponding csv table head
-      List<String> headInfo = new ArrayList<>();
-
       String[] strHeadInfo = header.split(",");
       if (strHeadInfo.length <= 1) {
         System.out.println("[ERROR] The CSV file" + file.getName()
@@ -165,157 +213,224 @@ public class ImportCsv extends AbstractCsvTool {
           String errorInfo = String.format("[ERROR] Database cannot find %s in %s, stop import!",
               strHeadInfo[i], file.getAbsolutePath());
           System.out.println(errorInfo);
-          bw.write(errorInfo);
-          errorFlag = false;
+          CsvImportWorker.writeError(bw, hasErrorLine, errorInfo);
           return;
         }
-        headInfo.add(strHeadInfo[i]);
-        String deviceInfo = strHeadInfo[i].substring(0, strHeadInfo[i].lastIndexOf('.'));
+      }
+      CsvColumns columns = new CsvColumns(strHeadInfo, timeseriesDataType);
 
-        if (!deviceToColumn.containsKey(deviceInfo)) {
-          deviceToColumn.put(deviceInfo, new ArrayList<>());
-        }
-        // storage every device's sensor index info
-        deviceToColumn.get(deviceInfo).add(i - 1);
-        colInfo.add(strHeadInfo[i].substring(strHeadInfo[i].lastIndexOf('.') + 1));
+      File offsetFile = new File(offsetInfo + "-" + file.getName());
+      long skippedLineNum = resume ? readOffset(offsetFile, file) : 0;
+      if (skippedLineNum > 0) {
+        System.out.println(String.format("[INFO] Resume %s from line %d", file.getName(),
+            skippedLineNum + 2));
+      }
+
+      for (int i = 0; i < Math.min(threadNum, columns.getDeviceNum()); i++) {
+        CsvImportWorker worker = createWorker(file, columns, i, bw, hasErrorLine);
+        workers.add(worker);
+        Thread thread = new Thread(worker, "csv-import-" + i);
+        threads.add(thread);
+        thread.start();
       }
 
       String line;
-      statement = connection.createStatement();
-      int count = 0;
-      List<String> tmp = new ArrayList<>();
+      long lineNum = 0;
+      long readSize = header.length() + 1L;
+      long lastProgressTime = startTime;
+      long lastCheckpointTime = startTime;
+      List<String[]> lines = new ArrayList<>(batchSize);
       while ((line = br.readLine()) != null) {
-        List<String> sqls = new ArrayList<>();
-        try {
-          sqls = createInsertSQL(line, timeseriesDataType, deviceToColumn, colInfo, headInfo);
-        } catch (Exception e) {
-          bw.write(String.format("error input line, maybe it is not complete: %s", line));
-          bw.newLine();
-          errorFlag = false;
+        readSize += line.length() + 1L;
+        lineNum++;
+        if (lineNum <= skippedLineNum) {
+          continue;
         }
-        for (String str : sqls) {
-          try {
-            count++;
-            statement.addBatch(str);
-            tmp.add(str);
-            if (count == BATCH_EXECUTE_COUNT) {
-              int[] result = statement.executeBatch();
-              for (int i = 0; i < result.length; i++) {
-                if (result[i] != Statement.SUCCESS_NO_INFO && i < tmp.size()) {
-                  bw.write(tmp.get(i));
-                  bw.newLine();
-                  errorFlag = false;
-                }
-              }
-              statement.clearBatch();
-              count = 0;
-              tmp.clear();
-            }
-          } catch (SQLException e) {
-            bw.write(e.getMessage());
-            bw.newLine();
-            errorFlag = false;
-          }
+        String[] data = line.split(",", columns.getColumnNum());
+        if (data.length < columns.getColumnNum()) {
+          // the workers write their errors to the same file concurrently
+          CsvImportWorker.writeError(bw, hasErrorLine,
+              String.format("error input line, maybe it is not complete: %s", line));
+        } else {
+          lines.add(data);
         }
-      }
-      try {
-        int[] result = statement.executeBatch();
-        for (int i = 0; i < result.length; i++) {
-          if (result[i] != Statement.SUCCESS_NO_INFO && i < tmp.size()) {
-            bw.write(tmp.get(i));
-            bw.newLine();
-            errorFlag = false;
+        if (lines.size() < batchSize) {
+          continue;
+        }
+        for (CsvImportWorker worker : workers) {
+          worker.submit(lines);
+        }
+        lines = new ArrayList<>(batchSize);
+        if (getFailure(workers) != null) {
+          break;
+        }
+
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - lastProgressTime >= PROGRESS_INTERVAL_MS) {
+          printProgress(file, readSize, getInsertedRowNum(workers), currentTime - startTime);
+          lastProgressTime = currentTime;
+        }
+        if (tsfileDir == null && currentTime - lastCheckpointTime >= CHECKPOINT_INTERVAL_MS) {
+          // every line read is inserted once all workers catch up
+          CountDownLatch latch = new CountDownLatch(workers.size());
+          for (CsvImportWorker worker : workers) {
+            worker.sync(latch);
           }
+          latch.await();
+          if (getFailure(workers) != null) {
+            break;
+          }
+          writeOffset(offsetFile, file, lineNum);
+          lastCheckpointTime = currentTime;
         }
-        statement.clearBatch();
-        count = 0;
-        tmp.clear();
-        System.out.println(String.format("[INFO] Load data from %s successfully,"
-                + " it takes %dms", file.getName(),
-            (System.currentTimeMillis() - startTime)));
-      } catch (SQLException e) {
-        bw.write(e.getMessage());
-        bw.newLine();
-        errorFlag = false;
       }
+      for (CsvImportWorker worker : workers) {
+        worker.submit(lines);
+        worker.finish();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      threads.clear();
 
+      Exception failure = getFailure(workers);
+      if (failure != null) {
+        System.out.println(String.format("[ERROR] Failed to load data from %s because %s, "
+                + "use -%s to resume the import from the last checkpoint", file.getName(),
+            failure.getMessage(), RESUME_ARGS));
+        return;
+      }
+      completed = true;
+      if (offsetFile.exists()) {
+        FileUtils.forceDelete(offsetFile);
+      }
+      long elapsedTime = System.currentTimeMillis() - startTime;
+      long insertedRowNum = getInsertedRowNum(workers);
+      System.out.println(String.format("[INFO] Load data from %s successfully,"
+              + " it takes %dms, %d rows of devices are imported (%d rows/s)", file.getName(),
+          elapsedTime, insertedRowNum, insertedRowNum * 1000 / Math.max(elapsedTime, 1)));
     } catch (FileNotFoundException e) {
       System.out.println("[ERROR] Cannot find " + file.getName());
     } catch (IOException e) {
       System.out.println("[ERROR] CSV file read exception!" + e.getMessage());
     } catch (SQLException e) {
       System.out.println("[ERROR] Database connection exception!" + e.getMessage());
+    } catch (InterruptedException e) {
+      System.out.println("[ERROR] Import of " + file.getName() + " is interrupted");
+      Thread.currentThread().interrupt();
     } finally {
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
       try {
         if (br != null) {
           br.close();
         }
         if (bw != null) {
-          bw.close();
-        }
-        if (statement != null) {
-          statement.close();
+          synchronized (bw) {
+            bw.close();
+          }
         }
-        if (errorFlag) {
+        if (!hasErrorLine.get()) {
           FileUtils.forceDelete(errorFile);
         } else {
           System.out.println(String.format(
               "[ERROR] Format of some lines in %s error, please check %s for more information",
               file.getAbsolutePath(), errorFile.getAbsolutePath()));
         }
-      } catch (SQLException e) {
-        e.printStackTrace();
+        if (!completed && tsfileDir != null) {
+          System.out.println("[ERROR] The tsfiles of " + file.getName() + " are incomplete");
+        }
       } catch (IOException e) {
         e.printStackTrace();
       }
     }
   }
 
-  private static List<String> createInsertSQL(String line, Map<String, String> timeseriesToType,
-      Map<String, ArrayList<Integer>> deviceToColumn,
-      List<String> colInfo, List<String> headInfo)
-      throws IOException {
-    String[] data = line.split(",", headInfo.size() + 1);
-    List<String> sqls = new ArrayList<>();
-    Iterator<Map.Entry<String, ArrayList<Integer>>> it = deviceToColumn.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry<String, ArrayList<Integer>> entry = it.next();
-      StringBuilder sbd = new StringBuilder();
-      ArrayList<Integer> colIndex = entry.getValue();
-      sbd.append("insert into " + entry.getKey() + "(timestamp");
-      int skipcount = 0;
-      for (int j = 0; j < colIndex.size(); ++j) {
-        if (data[entry.getValue().get(j) + 1].equals("")) {
-          skipcount++;
-          continue;
-        }
-        sbd.append(", " + colInfo.get(colIndex.get(j)));
+  /**
+   * create the worker owning the devices whose indexes modulo the worker number are workerIndex.
+   */
+  private static CsvImportWorker createWorker(File file, CsvColumns columns, int workerIndex,
+      BufferedWriter errorWriter, AtomicBoolean hasErrorLine)
+      throws SQLException, IOException {
+    int workerNum = Math.min(threadNum, columns.getDeviceNum());
+    List<Integer> devices = new ArrayList<>();
+    for (int i = workerIndex; i < columns.getDeviceNum(); i += workerNum) {
+      devices.add(i);
+    }
+    if (tsfileDir != null) {
+      String name = file.getName().substring(0, file.getName().length() - FILE_SUFFIX.length());
+      File tsFile = new File(tsfileDir, name + workerIndex + ".tsfile");
+      if (tsFile.exists()) {
+        throw new IOException(tsFile.getAbsolutePath() + " exists");
       }
-      // define every device null value' number, if the number equal the
-      // sensor number, the insert operation stop
-      if (skipcount == entry.getValue().size()) {
-        continue;
+      return new TsFileImportWorker(columns, devices, WORKER_QUEUE_CAPACITY, errorWriter,
+          hasErrorLine, tsFile, zoneId);
+    }
+    IoTDBConnection workerConnection = (IoTDBConnection) DriverManager.getConnection(
+        Config.IOTDB_URL_PREFIX + host + ":" + port + "/", username, password);
+    try {
+      workerConnection.setTimeZone(zoneId.getId());
+      return new SqlImportWorker(columns, devices, WORKER_QUEUE_CAPACITY, errorWriter,
+          hasErrorLine, workerConnection, batchSize);
+    } catch (SQLException | TException e) {
+      workerConnection.close();
+      throw new SQLException(e);
+    }
+  }
+
+  private static Exception getFailure(List<CsvImportWorker> workers) {
+    for (CsvImportWorker worker : workers) {
+      if (worker.getFailure() != null) {
+        return worker.getFailure();
       }
+    }
+    return null;
+  }
 
-      // TODO when timestampsStr is empty,
-      String timestampsStr = data[0];
-      sbd.append(") values(").append(timestampsStr.trim().equals("")
-          ? "NO TIMESTAMP" : timestampsStr);
+  private static long getInsertedRowNum(List<CsvImportWorker> workers) {
+    long rowNum = 0;
+    for (CsvImportWorker worker : workers) {
+      rowNum += worker.getInsertedRowNum();
+    }
+    return rowNum;
+  }
 
-      for (int j = 0; j < colIndex.size(); ++j) {
-        if (data[entry.getValue().get(j) + 1].equals("")) {
-          continue;
-        }
-        if (timeseriesToType.get(headInfo.get(colIndex.get(j))).equals(STRING_DATA_TYPE)) {
-          sbd.append(", \'" + data[colIndex.get(j) + 1] + "\'");
-        } else {
-          sbd.append("," + data[colIndex.get(j) + 1]);
-        }
-      }
-      sbd.append(")");
-      sqls.add(sbd.toString());
+  private static void printProgress(File file, long readSize, long insertedRowNum,
+      long elapsedTime) {
+    System.out.println(String.format("[INFO] %s: %.1f%% read, %d rows of devices imported, "
+            + "%d rows/s", file.getName(), readSize * 100.0 / Math.max(file.length(), 1),
+        insertedRowNum, insertedRowNum * 1000 / Math.max(elapsedTime, 1)));
+  }
+
+  /**
+   * read the number of lines imported by the last run of a file.
+   *
+   * @return 0 if the offset file is of another file
+   */
+  static long readOffset(File offsetFile, File file) throws IOException {
+    if (!offsetFile.exists()) {
+      return 0;
+    }
+    List<String> content = FileUtils.readLines(offsetFile, StandardCharsets.UTF_8);
+    if (content.size() < 2 || !content.get(0).equals(file.getAbsolutePath())) {
+      System.out.println(String.format("[WARN] %s is not the offset of %s, import from the start",
+          offsetFile.getAbsolutePath(), file.getAbsolutePath()));
+      return 0;
+    }
+    try {
+      return Long.parseLong(content.get(1).trim());
+    } catch (NumberFormatException e) {
+      throw new IOException("Illegal offset file " + offsetFile.getAbsolutePath(), e);
     }
-    return sqls;
+  }
+
+  static void writeOffset(File offsetFile, File file, long lineNum) throws IOException {
+    File tempFile = new File(offsetFile.getPath() + ".tmp");
+    FileUtils.writeLines(tempFile, StandardCharsets.UTF_8.name(),
+        Arrays.asList(file.getAbsolutePath(), String.valueOf(lineNum)));
+    Files.move(tempFile.toPath(), offsetFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
   }
 
   public static void main(String[] args) throws IOException, SQLException {
@@ -363,8 +478,36 @@ public class ImportCsv extends AbstractCsvTool {
     }
   }
 
-  private static void parseSpecialParams(CommandLine commandLine) {
+  private static void parseSpecialParams(CommandLine commandLine) throws ArgsErrorException {
     timeZoneID = commandLine.getOptionValue(TIME_ZONE_ARGS);
+    threadNum = parsePositiveInt(commandLine, THREAD_NUM_ARGS, DEFAULT_THREAD_NUM);
+    batchSize = parsePositiveInt(commandLine, BATCH_SIZE_ARGS, DEFAULT_BATCH_SIZE);
+    resume = commandLine.hasOption(RESUME_ARGS);
+    tsfileDir = commandLine.getOptionValue(TSFILE_DIR_ARGS);
+    if (tsfileDir != null && !new File(tsfileDir).isDirectory()) {
+      String msg = String.format("%s is not a directory", tsfileDir);
+      System.out.println(msg);
+      throw new ArgsErrorException(msg);
+    }
+  }
+
+  private static int parsePositiveInt(CommandLine commandLine, String arg, int defaultValue)
+      throws ArgsErrorException {
+    String str = commandLine.getOptionValue(arg);
+    if (str == null) {
+      return defaultValue;
+    }
+    try {
+      int value = Integer.parseInt(str.trim());
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to the error
+    }
+    String msg = String.format("Option -%s should be a positive integer, but is %s", arg, str);
+    System.out.println(msg);
+    throw new ArgsErrorException(msg);
   }
 
   public static void importCsvFromFile(String ip, String port, String username,
@@ -373,11 +516,17 @@ public class ImportCsv extends AbstractCsvTool {
     String property = System.getProperty("IOTDB_HOME");
     if (property == null) {
       errorInsertInfo = ERROR_INFO_STR;
+      offsetInfo = OFFSET_INFO_STR;
     } else {
       errorInsertInfo = property + File.separatorChar + ERROR_INFO_STR;
+      offsetInfo = property + File.separatorChar + OFFSET_INFO_STR;
     }
     try {
       Class.forName(Config.JDBC_DRIVER_NAME);
+      host = ip;
+      ImportCsv.port = port;
+      ImportCsv.username = username;
+      ImportCsv.password = password;
       connection = (IoTDBConnection) DriverManager.getConnection(Config.IOTDB_URL_PREFIX
               + ip + ":" + port + "/",
           username, password);
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A worker which inserts the values of its devices through a connection of its own, by batches of
+ * insert statements.
+ */
+public class SqlImportWorker extends CsvImportWorker {
+
+  private static final String STRING_DATA_TYPE = "TEXT";
+
+  private final Connection connection;
+  private final Statement statement;
+  private final int batchSize;
+  private final List<String> batchSqls = new ArrayList<>();
+
+  /**
+   * @param connection the connection of this worker, closed when the worker exits
+   * @param batchSize the number of insert statements executed by one batch
+   */
+  public SqlImportWorker(CsvColumns columns, List<Integer> devices, int queueCapacity,
+      BufferedWriter errorWriter, AtomicBoolean hasErrorLine, Connection connection,
+      int batchSize) throws SQLException {
+    super(columns, devices, queueCapacity, errorWriter, hasErrorLine);
+    this.connection = connection;
+    this.statement = connection.createStatement();
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  protected void insert(String[] line) throws SQLException, IOException {
+    for (int device : devices) {
+      String sql = createInsertSQL(line, device);
+      if (sql == null) {
+        continue;
+      }
+      statement.addBatch(sql);
+      batchSqls.add(sql);
+      if (batchSqls.size() >= batchSize) {
+        executeBatch();
+      }
+    }
+  }
+
+  @Override
+  protected void flush() throws SQLException, IOException {
+    if (!batchSqls.isEmpty()) {
+      executeBatch();
+    }
+  }
+
+  @Override
+  protected void close() throws SQLException {
+    try {
+      statement.close();
+    } finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * execute the batch, the statements rejected by the server are written to the error file.
+   *
+   * @throws SQLException if the batch could not be executed at all, e.g. the server is
+   * unreachable, so the worker fails and the lines are not checkpointed as imported
+   */
+  private void executeBatch() throws SQLException, IOException {
+    try {
+      int[] result = statement.executeBatch();
+      long succeeded = 0;
+      for (int i = 0; i < batchSqls.size(); i++) {
+        if (i < result.length && result[i] != Statement.SUCCESS_NO_INFO) {
+          writeError(batchSqls.get(i));
+        } else {
+          succeeded++;
+        }
+      }
+      addInsertedRows(succeeded);
+    } catch (BatchUpdateException e) {
+      writeError(e.getMessage());
+      int[] result = e.getUpdateCounts();
+      for (int i = 0; i < batchSqls.size(); i++) {
+        if (i >= result.length || result[i] != Statement.SUCCESS_NO_INFO) {
+          writeError(batchSqls.get(i));
+        }
+      }
+    } finally {
+      statement.clearBatch();
+      batchSqls.clear();
+    }
+  }
+
+  /**
+   * create the insert statement of a device in a line.
+   *
+   * @return null if the line has no value of the device
+   */
+  private String createInsertSQL(String[] line, int device) {
+    List<Integer> deviceColumns = columns.getColumns(device);
+    StringBuilder sbd = new StringBuilder();
+    sbd.append("insert into ").append(columns.getDevice(device)).append("(timestamp");
+    int valueNum = 0;
+    for (int column : deviceColumns) {
+      if (line[column].isEmpty()) {
+        continue;
+      }
+      sbd.append(", ").append(columns.getMeasurement(column));
+      valueNum++;
+    }
+    if (valueNum == 0) {
+      return null;
+    }
+
+    String timestampsStr = line[0];
+    sbd.append(") values(").append(timestampsStr.trim().isEmpty()
+        ? "NO TIMESTAMP" : timestampsStr);
+    for (int column : deviceColumns) {
+      if (line[column].isEmpty()) {
+        continue;
+      }
+      if (STRING_DATA_TYPE.equals(columns.getDataType(column))) {
+        sbd.append(", \'").append(line[column]).append("\'");
+      } else {
+        sbd.append(",").append(line[column]);
+      }
+    }
+    sbd.append(")");
+    return sbd.toString();
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * A worker which writes the values of its devices into a local tsfile instead of sending them to
+ * the server, the tsfile can be loaded into the server later. The rows of a device must be in time
+ * order in the CSV file.
+ */
+public class TsFileImportWorker extends CsvImportWorker {
+
+  private final TsFileWriter writer;
+  private final ZoneId zoneId;
+
+  /**
+   * @param tsFile the tsfile to write, which must not exist
+   * @param zoneId the time zone of the times without an offset
+   */
+  public TsFileImportWorker(CsvColumns columns, List<Integer> devices, int queueCapacity,
+      BufferedWriter errorWriter, AtomicBoolean hasErrorLine, File tsFile, ZoneId zoneId)
+      throws IOException {
+    super(columns, devices, queueCapacity, errorWriter, hasErrorLine);
+    this.zoneId = zoneId;
+    // a tsfile registers a measurement once for all devices
+    Map<String, TSDataType> measurementTypes = new HashMap<>();
+    for (int device : devices) {
+      for (int column : columns.getColumns(device)) {
+        String measurement = columns.getMeasurement(column);
+        TSDataType dataType = TSDataType.valueOf(columns.getDataType(column));
+        TSDataType registeredType = measurementTypes.putIfAbsent(measurement, dataType);
+        if (registeredType != null && registeredType != dataType) {
+          throw new IOException(String.format(
+              "Measurement %s is both %s and %s, which cannot be written into one tsfile",
+              measurement, registeredType, dataType));
+        }
+      }
+    }
+    writer = new TsFileWriter(tsFile);
+    try {
+      TSEncoding encoding = TSEncoding.valueOf(TSFileConfig.valueEncoder);
+      for (Map.Entry<String, TSDataType> entry : measurementTypes.entrySet()) {
+        writer.addMeasurement(new MeasurementSchema(entry.getKey(), entry.getValue(), encoding));
+      }
+    } catch (WriteProcessException e) {
+      writer.close();
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  protected void insert(String[] line) throws IOException {
+    long time;
+    try {
+      time = AbstractCsvTool.parseTime(line[0].trim(), zoneId);
+    } catch (DateTimeParseException e) {
+      writeError(String.format("error time, it should be a long or a datetime: %s",
+          String.join(",", line)));
+      return;
+    }
+    for (int device : devices) {
+      TSRecord record = new TSRecord(time, columns.getDevice(device));
+      try {
+        for (int column : columns.getColumns(device)) {
+          if (!line[column].isEmpty()) {
+            record.addTuple(DataPoint.getDataPoint(
+                TSDataType.valueOf(columns.getDataType(column)), columns.getMeasurement(column),
+                line[column]));
+          }
+        }
+      } catch (NumberFormatException e) {
+        writeError(String.format("error value of %s: %s", columns.getDevice(device),
+            String.join(",", line)));
+        continue;
+      }
+      if (record.dataPointList.isEmpty()) {
+        continue;
+      }
+      try {
+        writer.write(record);
+      } catch (WriteProcessException e) {
+        throw new IOException(e);
+      }
+      addInsertedRows(1);
+    }
+  }
+
+  @Override
+  protected void flush() {
+    // the tsfile is complete only when it is closed
+  }
+
+  @Override
+  protected void close() throws IOException {
+    writer.close();
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class CachedTimeFormatterTest {
+
+  private static final String[] ZONES = {"UTC", "+08:00", "-03:30", "Asia/Shanghai",
+      "Asia/Kolkata", "America/New_York", "Europe/London"};
+
+  private static final String[] PATTERNS = {"yyyy-MM-dd HH:mm:ss.SSS",
+      "yyyy-MM-dd'T'HH:mm:ss.SSSXXX'['VV']'", "SSS yyyy/MM/dd HH:mm:ss z",
+      "yyyy-MM-dd HH:mm:ss.'SSS'", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "HH:mm:ss.SSSSSS",
+      "HH:mm:ss.SS", "yyyy-MM-dd HH:mm:ss.SSS VV O"};
+
+  /**
+   * times around zero seconds and milliseconds, before the epoch and around the daylight saving
+   * time transitions of New York and London.
+   */
+  private static List<Long> getTimes() {
+    List<Long> times = new ArrayList<>();
+    long[] bases = {0L, 1553904000000L, -86400000L * 365 * 30,
+        ZonedDateTime.parse("2019-03-10T07:00:00Z").toInstant().toEpochMilli(),
+        ZonedDateTime.parse("2019-11-03T06:00:00Z").toInstant().toEpochMilli(),
+        ZonedDateTime.parse("2019-03-31T01:00:00Z").toInstant().toEpochMilli(),
+        ZonedDateTime.parse("2019-10-27T01:00:00Z").toInstant().toEpochMilli()};
+    long[] deltas = {0, 1, 9, 10, 99, 100, 999, 1000, 1001, 59000, 59999, 60000, 60001, 61010,
+        3600000, 3600001};
+    for (long base : bases) {
+      for (long delta : deltas) {
+        times.add(base + delta);
+        times.add(base - delta);
+      }
+    }
+    return times;
+  }
+
+  private static void checkIso8601(String timeFormat, List<Long> times) {
+    for (String zone : ZONES) {
+      ZoneId zoneId = ZoneId.of(zone);
+      CachedTimeFormatter formatter = new CachedTimeFormatter(timeFormat, zoneId);
+      for (long time : times) {
+        assertEquals(zone + " " + time,
+            ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), zoneId).toString(),
+            formatter.format(time));
+      }
+    }
+  }
+
+  private static void checkPatterns(List<Long> times) {
+    for (String zone : ZONES) {
+      ZoneId zoneId = ZoneId.of(zone);
+      for (String pattern : PATTERNS) {
+        DateTimeFormatter expectedFormatter = DateTimeFormatter.ofPattern(pattern);
+        CachedTimeFormatter formatter = new CachedTimeFormatter(pattern, zoneId);
+        for (long time : times) {
+          assertEquals(zone + " " + pattern + " " + time,
+              ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), zoneId)
+                  .format(expectedFormatter), formatter.format(time));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testIso8601InTimeOrder() {
+    List<Long> times = getTimes();
+    Collections.sort(times);
+    checkIso8601("ISO8601", times);
+    checkIso8601("default", times);
+  }
+
+  @Test
+  public void testIso8601InRandomOrder() {
+    List<Long> times = getTimes();
+    Collections.shuffle(times, new Random(1));
+    checkIso8601("ISO8601", times);
+  }
+
+  @Test
+  public void testPatternsInTimeOrder() {
+    List<Long> times = getTimes();
+    Collections.sort(times);
+    checkPatterns(times);
+  }
+
+  @Test
+  public void testPatternsInRandomOrder() {
+    List<Long> times = getTimes();
+    Collections.shuffle(times, new Random(1));
+    checkPatterns(times);
+  }
+
+  @Test
+  public void testTimestamp() {
+    CachedTimeFormatter formatter = new CachedTimeFormatter("timestamp", ZoneId.of("UTC"));
+    assertEquals("-1", formatter.format(-1));
+    assertEquals("1553904000123", formatter.format(1553904000123L));
+    assertEquals("0", new CachedTimeFormatter("long", ZoneId.of("UTC")).format(0));
+    assertEquals("1000", new CachedTimeFormatter("number", ZoneId.of("UTC")).format(1000));
+  }
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class CsvColumnsTest {
+
+  @Test
+  public void testSplitByDevice() {
+    String[] header = {"Time", "root.sg.d1.s1", "root.sg.d2.s1", "root.sg.d1.s2",
+        "root.sg.d3.s1"};
+    Map<String, String> seriesTypes = new HashMap<>();
+    seriesTypes.put("root.sg.d1.s1", "INT32");
+    seriesTypes.put("root.sg.d2.s1", "TEXT");
+    seriesTypes.put("root.sg.d1.s2", "DOUBLE");
+    seriesTypes.put("root.sg.d3.s1", "BOOLEAN");
+    CsvColumns columns = new CsvColumns(header, seriesTypes);
+
+    assertEquals(5, columns.getColumnNum());
+    // devices are numbered in the order they first appear in the header
+    assertEquals(3, columns.getDeviceNum());
+    assertEquals("root.sg.d1", columns.getDevice(0));
+    assertEquals("root.sg.d2", columns.getDevice(1));
+    assertEquals("root.sg.d3", columns.getDevice(2));
+    assertEquals(Arrays.asList(1, 3), columns.getColumns(0));
+    assertEquals(Arrays.asList(2), columns.getColumns(1));
+    assertEquals(Arrays.asList(4), columns.getColumns(2));
+
+    assertEquals("s1", columns.getMeasurement(1));
+    assertEquals("s2", columns.getMeasurement(3));
+    assertEquals("INT32", columns.getDataType(1));
+    assertEquals("TEXT", columns.getDataType(2));
+    assertEquals("DOUBLE", columns.getDataType(3));
+  }
+
+  @Test
+  public void testMeasurementOfDeeperDevice() {
+    String[] header = {"Time", "root.sg.a.b.c.s1", "root.sg.a.s1"};
+    Map<String, String> seriesTypes = new HashMap<>();
+    seriesTypes.put("root.sg.a.b.c.s1", "INT64");
+    seriesTypes.put("root.sg.a.s1", "FLOAT");
+    CsvColumns columns = new CsvColumns(header, seriesTypes);
+
+    assertEquals(2, columns.getDeviceNum());
+    assertEquals("root.sg.a.b.c", columns.getDevice(0));
+    assertEquals("root.sg.a", columns.getDevice(1));
+    assertEquals("s1", columns.getMeasurement(1));
+    assertEquals("s1", columns.getMeasurement(2));
+  }
+}
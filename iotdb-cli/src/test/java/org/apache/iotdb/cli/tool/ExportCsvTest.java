@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
+import org.apache.iotdb.cli.exception.ArgsErrorException;
+import org.junit.Test;
+
+public class ExportCsvTest {
+
+  private static final Pattern SLICE_FILTER = Pattern
+      .compile("time >= (-?\\d+) and time < (-?\\d+)$");
+
+  private static void parseArgs(String... specialArgs) throws ParseException,
+      ArgsErrorException {
+    String[] basicArgs = {"-h", "127.0.0.1", "-p", "6667", "-u", "root", "-pw", "root", "-td",
+        "target"};
+    String[] args = new String[basicArgs.length + specialArgs.length];
+    System.arraycopy(basicArgs, 0, args, 0, basicArgs.length);
+    System.arraycopy(specialArgs, 0, args, basicArgs.length, specialArgs.length);
+    CommandLine commandLine = new DefaultParser().parse(ExportCsv.createOptions(), args);
+    ExportCsv.parseSpecialParams(commandLine, null);
+  }
+
+  private static void checkRejected(String... specialArgs) throws ParseException {
+    try {
+      parseArgs(specialArgs);
+      fail("the arguments should be rejected");
+    } catch (ArgsErrorException e) {
+      // expected
+    }
+  }
+
+  /**
+   * check the slices are contiguous and cover [startTime, endTime).
+   *
+   * @return number of slices
+   */
+  private static int checkSlices(List<String> sliceSqls, long startTime, long endTime) {
+    long expectedStart = startTime;
+    for (String sliceSql : sliceSqls) {
+      Matcher matcher = SLICE_FILTER.matcher(sliceSql);
+      if (!matcher.find()) {
+        fail("no time filter in " + sliceSql);
+      }
+      assertEquals(expectedStart, Long.parseLong(matcher.group(1)));
+      expectedStart = Long.parseLong(matcher.group(2));
+    }
+    assertEquals(endTime, expectedStart);
+    return sliceSqls.size();
+  }
+
+  @Test
+  public void testRejectEmptyRange() throws ParseException {
+    checkRejected("-st", "100", "-et", "100");
+    checkRejected("-st", "200", "-et", "100");
+    checkRejected("-st", "2019-01-01T00:00:01+08:00", "-et", "2019-01-01T00:00:00+08:00");
+    checkRejected("-st", "100");
+    checkRejected("-st", "yesterday", "-et", "100");
+  }
+
+  @Test
+  public void testSliceQuery() throws ParseException, ArgsErrorException {
+    parseArgs("-st", "0", "-et", "1000", "-tn", "2");
+    List<String> sliceSqls = ExportCsv.sliceQuery("select * from root.sg;");
+    assertEquals(8, checkSlices(sliceSqls, 0, 1000));
+    assertEquals("select * from root.sg where time >= 0 and time < 125", sliceSqls.get(0));
+
+    sliceSqls = ExportCsv.sliceQuery("select s1 from root.sg where s1 > 0 or s2 < 0");
+    assertEquals(8, checkSlices(sliceSqls, 0, 1000));
+    assertEquals("select s1 from root.sg where (s1 > 0 or s2 < 0) and time >= 875 and time < 1000",
+        sliceSqls.get(7));
+
+    // queries which cannot be split are exported as they are
+    assertEquals(1, ExportCsv.sliceQuery("select count(s1) from root.sg").size());
+    assertEquals(1, ExportCsv.sliceQuery("select s1 from root.sg limit 10").size());
+  }
+
+  @Test
+  public void testSliceByDuration() throws ParseException, ArgsErrorException {
+    parseArgs("-st", "1", "-et", "1000", "-sd", "300");
+    List<String> sliceSqls = ExportCsv.sliceQuery("select * from root.sg");
+    assertEquals(4, checkSlices(sliceSqls, 1, 1000));
+    // a range shorter than the slices of the threads
+    parseArgs("-st", "1", "-et", "3", "-tn", "4", "-sd", "1000");
+    assertEquals(1, checkSlices(ExportCsv.sliceQuery("select * from root.sg"), 1, 3));
+  }
+
+  @Test
+  public void testSliceWholeTimeRange() throws ParseException, ArgsErrorException {
+    // the length of the range overflows a long
+    parseArgs("-st", String.valueOf(Long.MIN_VALUE), "-et", String.valueOf(Long.MAX_VALUE),
+        "-tn", "4");
+    assertEquals(16, checkSlices(ExportCsv.sliceQuery("select * from root.sg"), Long.MIN_VALUE,
+        Long.MAX_VALUE));
+  }
+}
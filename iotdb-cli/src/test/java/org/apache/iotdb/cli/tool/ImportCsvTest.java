@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImportCsvTest {
+
+  private File dir;
+  private File offsetFile;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("ImportCsvTest").toFile();
+    offsetFile = new File(dir, "csvImportOffset-data.csv");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testOffsetRoundTrip() throws IOException {
+    File csvFile = new File(dir, "data.csv");
+    assertEquals(0, ImportCsv.readOffset(offsetFile, csvFile));
+
+    ImportCsv.writeOffset(offsetFile, csvFile, 12345);
+    assertEquals(12345, ImportCsv.readOffset(offsetFile, csvFile));
+
+    // a later checkpoint replaces the former one and leaves no temporary file
+    ImportCsv.writeOffset(offsetFile, csvFile, Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, ImportCsv.readOffset(offsetFile, csvFile));
+    assertFalse(new File(offsetFile.getPath() + ".tmp").exists());
+  }
+
+  @Test
+  public void testOffsetOfAnotherFile() throws IOException {
+    ImportCsv.writeOffset(offsetFile, new File(dir, "data.csv"), 100);
+    assertEquals(0, ImportCsv.readOffset(offsetFile, new File(dir, "other.csv")));
+  }
+
+  @Test
+  public void testIllegalOffset() throws IOException {
+    File csvFile = new File(dir, "data.csv");
+    FileUtils.writeStringToFile(offsetFile, csvFile.getAbsolutePath() + "\nabc\n",
+        StandardCharsets.UTF_8);
+    try {
+      ImportCsv.readOffset(offsetFile, csvFile);
+      fail("an illegal offset should not be read");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+}
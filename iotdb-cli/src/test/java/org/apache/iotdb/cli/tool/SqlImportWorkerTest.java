@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cli.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SqlImportWorkerTest {
+
+  private CsvColumns columns;
+  private Connection connection;
+  private Statement statement;
+  /**
+   * statements added to the batch of the mocked statement and not executed yet.
+   */
+  private List<String> pendingSqls;
+  private List<String> executedSqls;
+  private StringWriter errors;
+  private BufferedWriter errorWriter;
+  private AtomicBoolean hasErrorLine;
+
+  @Before
+  public void setUp() throws SQLException {
+    String[] header = {"Time", "root.sg.d1.s1", "root.sg.d2.s1", "root.sg.d1.s2"};
+    Map<String, String> seriesTypes = new HashMap<>();
+    seriesTypes.put("root.sg.d1.s1", "INT32");
+    seriesTypes.put("root.sg.d2.s1", "INT32");
+    seriesTypes.put("root.sg.d1.s2", "TEXT");
+    columns = new CsvColumns(header, seriesTypes);
+
+    pendingSqls = Collections.synchronizedList(new ArrayList<>());
+    executedSqls = Collections.synchronizedList(new ArrayList<>());
+    connection = mock(Connection.class);
+    statement = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(statement);
+    doAnswer(invocation -> pendingSqls.add((String) invocation.getArguments()[0]))
+        .when(statement).addBatch(anyString());
+    doAnswer(invocation -> {
+      pendingSqls.clear();
+      return null;
+    }).when(statement).clearBatch();
+    when(statement.executeBatch()).thenAnswer(invocation -> {
+      int[] result = new int[pendingSqls.size()];
+      Arrays.fill(result, Statement.SUCCESS_NO_INFO);
+      executedSqls.addAll(pendingSqls);
+      return result;
+    });
+
+    errors = new StringWriter();
+    errorWriter = new BufferedWriter(errors);
+    hasErrorLine = new AtomicBoolean(false);
+  }
+
+  private SqlImportWorker createWorker(int batchSize) throws SQLException {
+    return new SqlImportWorker(columns, Arrays.asList(0, 1), 2,
+        errorWriter, hasErrorLine, connection, batchSize);
+  }
+
+  private static List<String[]> createLines(int start, int num) {
+    List<String[]> lines = new ArrayList<>();
+    for (int i = start; i < start + num; i++) {
+      lines.add(new String[]{String.valueOf(i), String.valueOf(i), String.valueOf(-i),
+          "v" + i});
+    }
+    return lines;
+  }
+
+  private static List<String> expectedSqls(int start, int num) {
+    List<String> sqls = new ArrayList<>();
+    for (int i = start; i < start + num; i++) {
+      sqls.add(String.format("insert into root.sg.d1(timestamp, s1, s2) values(%d,%d, 'v%d')",
+          i, i, i));
+      sqls.add(String.format("insert into root.sg.d2(timestamp, s1) values(%d,%d)", i, -i));
+    }
+    return sqls;
+  }
+
+  @Test
+  public void testSyncFlushesInOrder() throws Exception {
+    SqlImportWorker worker = createWorker(7);
+    Thread thread = new Thread(worker);
+    thread.start();
+
+    worker.submit(createLines(0, 5));
+    worker.submit(createLines(5, 5));
+    CountDownLatch latch = new CountDownLatch(1);
+    worker.sync(latch);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    // the partial batch is executed by the sync, everything submitted before is inserted
+    assertEquals(expectedSqls(0, 10), executedSqls);
+    assertTrue(pendingSqls.isEmpty());
+    assertEquals(20, worker.getInsertedRowNum());
+
+    worker.submit(createLines(10, 3));
+    worker.finish();
+    thread.join(10_000);
+    assertFalse(thread.isAlive());
+    assertEquals(expectedSqls(0, 13), executedSqls);
+    assertEquals(26, worker.getInsertedRowNum());
+    assertNull(worker.getFailure());
+    assertFalse(hasErrorLine.get());
+    verify(connection).close();
+  }
+
+  @Test
+  public void testSkipEmptyValues() throws Exception {
+    SqlImportWorker worker = createWorker(100);
+    Thread thread = new Thread(worker);
+    thread.start();
+
+    worker.submit(Collections.singletonList(new String[]{"1", "", "2", ""}));
+    worker.finish();
+    thread.join(10_000);
+    assertEquals(Collections.singletonList(
+        "insert into root.sg.d2(timestamp, s1) values(1,2)"), executedSqls);
+  }
+
+  @Test
+  public void testRejectedStatementsAreWrittenToErrorFile() throws Exception {
+    when(statement.executeBatch()).thenThrow(new BatchUpdateException("rejected",
+        new int[]{Statement.SUCCESS_NO_INFO, Statement.EXECUTE_FAILED}));
+    SqlImportWorker worker = createWorker(100);
+    Thread thread = new Thread(worker);
+    thread.start();
+
+    worker.submit(createLines(0, 1));
+    CountDownLatch latch = new CountDownLatch(1);
+    worker.sync(latch);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    // rejected statements do not stop the import
+    assertNull(worker.getFailure());
+    assertTrue(hasErrorLine.get());
+
+    worker.finish();
+    thread.join(10_000);
+    errorWriter.flush();
+    String errorContent = errors.toString();
+    assertTrue(errorContent.contains(expectedSqls(0, 1).get(1)));
+    assertFalse(errorContent.contains(expectedSqls(0, 1).get(0)));
+  }
+
+  @Test
+  public void testConnectionFailureFailsWorker() throws Exception {
+    SQLException failure = new SQLException("connection refused");
+    when(statement.executeBatch()).thenThrow(failure);
+    SqlImportWorker worker = createWorker(100);
+    Thread thread = new Thread(worker);
+    thread.start();
+
+    worker.submit(createLines(0, 2));
+    CountDownLatch latch = new CountDownLatch(1);
+    worker.sync(latch);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    // the importer must not checkpoint the lines as imported
+    assertSame(failure, worker.getFailure());
+    assertEquals(0, worker.getInsertedRowNum());
+
+    // a failed worker keeps taking batches so the reader is never blocked
+    for (int i = 0; i < 5; i++) {
+      worker.submit(createLines(0, 2));
+    }
+    worker.finish();
+    thread.join(10_000);
+    assertFalse(thread.isAlive());
+    verify(connection).close();
+  }
+
+  @Test
+  public void testConcurrentErrorLines() throws Exception {
+    int threadNum = 4;
+    int lineNum = 1000;
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      String prefix = "thread" + i + "-line";
+      // the reader of the csv file and the workers write to the same error file
+      threads.add(new Thread(() -> {
+        try {
+          for (int j = 0; j < lineNum; j++) {
+            CsvImportWorker.writeError(errorWriter, hasErrorLine, prefix + j);
+          }
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    errorWriter.flush();
+
+    assertTrue(hasErrorLine.get());
+    String[] lines = errors.toString().split(System.lineSeparator());
+    assertEquals(threadNum * lineNum, lines.length);
+    for (String line : lines) {
+      assertTrue(line, line.matches("thread\\d-line\\d+"));
+    }
+  }
+}
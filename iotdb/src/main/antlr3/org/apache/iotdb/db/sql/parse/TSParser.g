@@ -98,6 +98,7 @@ TOK_LINK;
 TOK_UNLINK;
 TOK_STORAGEGROUP;
 TOK_DESCRIBE;
+TOK_LOAD_FILES;
 }
 
 
@@ -334,6 +335,7 @@ execStatement
     | metadataStatement
     | mergeStatement
 //    | loadStatement
+    | loadFilesStatement
     | indexStatement
     | quitStatement
     | listStatement
@@ -463,6 +465,12 @@ mergeStatement
     -> ^(TOK_MERGE)
     ;
 
+loadFilesStatement
+    :
+    KW_LOAD (fileName=StringLiteral)
+    -> ^(TOK_LOAD_FILES $fileName)
+    ;
+
 quitStatement
     :
     KW_QUIT
@@ -126,6 +126,7 @@ public class AuthorityChecker {
         return PrivilegeType.DELETE_TIMESERIES.ordinal();
       case INSERT:
       case LOADDATA:
+      case LOAD_FILES:
       case INDEX:
         return PrivilegeType.INSERT_TIMESERIES.ordinal();
       case UPDATE:
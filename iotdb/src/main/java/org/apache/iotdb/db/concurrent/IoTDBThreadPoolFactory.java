@@ -20,9 +20,13 @@ package org.apache.iotdb.db.concurrent;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.thrift.server.TThreadPoolServer.Args;
 
 /**
@@ -108,6 +112,26 @@ public class IoTDBThreadPoolFactory {
     return Executors.newScheduledThreadPool(corePoolSize, new IoTThreadFactory(poolName, handler));
   }
 
+  /**
+   * see {@link ForkJoinPool#ForkJoinPool(int, ForkJoinWorkerThreadFactory,
+   * Thread.UncaughtExceptionHandler, boolean)}. The worker threads are daemon threads.
+   *
+   * @param parallelism the number of worker threads.
+   * @param poolName the name of thread pool.
+   * @return fork join pool.
+   */
+  public static ForkJoinPool newForkJoinPool(int parallelism, String poolName) {
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    ForkJoinWorkerThreadFactory factory = pool -> {
+      ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      // thread name format : pool-IoTDB-poolName-thread-threadnum
+      t.setName("pool-IoTDB-" + poolName + "-thread-" + threadNumber.getAndIncrement());
+      return t;
+    };
+    return new ForkJoinPool(parallelism, factory, new IoTDBDefaultThreadExceptionHandler(),
+        false);
+  }
+
   /**
    * function for creating JDBC client thread pool.
    */
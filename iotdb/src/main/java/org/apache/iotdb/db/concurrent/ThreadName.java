@@ -26,15 +26,18 @@ public enum ThreadName {
   CLOSE_MERGE_DAEMON("Close-Merge-Daemon-Thread"),
   CLOSE_DAEMON("Close-Daemon-Thread"),
   MERGE_DAEMON("Merge-Daemon-Thread"),
+  TTL_CHECK_DAEMON("TTL-Check-Daemon-Thread"),
   MEMORY_MONITOR("IoTDB-MemMonitor-Thread"),
   MEMORY_STATISTICS("IoTDB-MemStatistic-Thread"),
   FLUSH_PARTIAL_POLICY("IoTDB-FlushPartialPolicy-Thread"),
   FORCE_FLUSH_ALL_POLICY("IoTDB-ForceFlushAllPolicy-Thread"),
   STAT_MONITOR("StatMonitor-ServerServiceImpl"),
   FLUSH_SERVICE("Flush-ServerServiceImpl"),
+  FLUSH_ENCODING_SERVICE("Flush-Encoding-ServerServiceImpl"),
   WAL_DAEMON("IoTDB-MultiFileLogNodeManager-Sync-Thread"),
   WAL_FORCE_DAEMON("IoTDB-MultiFileLogNodeManager-Force-Thread"),
-  INDEX_SERVICE("Index-ServerServiceImpl");
+  INDEX_SERVICE("Index-ServerServiceImpl"),
+  POSTBACK_SENDER("IoTDB-PostBack-Sender");
 
   private String name;
 
@@ -21,7 +21,11 @@ package org.apache.iotdb.db.conf;
 import java.io.File;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.apache.iotdb.db.metadata.MManager;
 
 public class IoTDBConfig {
@@ -39,6 +43,12 @@ public class IoTDBConfig {
    */
   public int rpcPort = 6667;
 
+  /**
+   * Port of the plain text metrics endpoint, which serves the metrics at /metrics. The endpoint is
+   * not started if the port is 0, the metrics are still published via JMX.
+   */
+  public int metricsPort = 0;
+
   /**
    * Is the write ahead log enable.
    */
@@ -62,6 +72,20 @@ public class IoTDBConfig {
    */
   public long forceWalPeriodInMs = 10;
 
+  /**
+   * The size of a write ahead log segment in byte. A log node starts a new segment when the
+   * current one exceeds this size or when a memtable begins to flush, and deletes the segments
+   * whose data are durable in data files.
+   */
+  public long walSegmentSize = 64L * 1024 * 1024;
+
+  /**
+   * If the write ahead logs of the working memtable of a bufferwrite processor exceed this size in
+   * byte, the memtable is flushed to take a checkpoint, which bounds the logs replayed after a
+   * crash. If set this parameter to 0, memtables are flushed by memory usage only.
+   */
+  public long walCheckpointThreshold = 0;
+
   /**
    * Data directory.
    */
@@ -139,6 +163,42 @@ public class IoTDBConfig {
    */
   public int fetchSize = 10000;
 
+  /**
+   * The default time in milliseconds a query may run before it is aborted, which applies if the
+   * statement does not set its own timeout. 0 means no limit.
+   */
+  public long queryTimeout = 0;
+
+  /**
+   * The maximum number of queries running at the same time, a query beyond it is rejected. 0 means
+   * no limit.
+   */
+  public int maxConcurrentQueries = 0;
+
+  /**
+   * The maximum memory in byte the chunks and memtable data read by a query may take, a query
+   * exceeding it is aborted. 0 means no limit.
+   */
+  public long queryMemoryBudget = 0;
+
+  /**
+   * How many query tasks, i.e. executing a query or fetching a batch of its results, can run
+   * concurrently. The other tasks wait in the queues of the query scheduler. When <= 0, use CPU
+   * core number.
+   */
+  public int concurrentQueryTasks = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The users whose queries are scheduled as batch queries, which give way to interactive queries
+   * and are held back when the memory usage reaches the warning threshold.
+   */
+  public Set<String> batchQueryUsers = new HashSet<>();
+
+  /**
+   * The maximum number of statements a session may keep prepared, preparing one more is rejected.
+   */
+  public int maxPreparedStatementsPerSession = 1000;
+
   /**
    * the maximum number of writing instances existing in same time.
    */
@@ -165,6 +225,11 @@ public class IoTDBConfig {
    * How many threads can concurrently flush. When <= 0, use CPU core number.
    */
   public int concurrentFlushThread = Runtime.getRuntime().availableProcessors();
+  /**
+   * How many threads can concurrently encode the series of a flushing memtable. When <= 0, use CPU
+   * core number.
+   */
+  public int concurrentFlushEncodingThread = Runtime.getRuntime().availableProcessors();
 
   public ZoneId zoneID = ZoneId.systemDefault();
   /**
@@ -176,6 +241,12 @@ public class IoTDBConfig {
    * No more insert is allowed if this threshold is reached.
    */
   public long memThresholdDangerous = (long) (0.6 * Runtime.getRuntime().maxMemory());
+  /**
+   * The direct memory (in byte) reserved for memtables. If it is positive, memtables keep their
+   * data in direct memory instead of the heap, and memThresholdWarning and memThresholdDangerous
+   * are ratios of it instead of the maximum heap size.
+   */
+  public long offHeapMemTableSize = 0;
   /**
    * MemMonitorThread will check every such interval(in ms). If memThresholdWarning is reached,
    * MemMonitorThread will inform FileNodeManager to flush.
@@ -184,9 +255,21 @@ public class IoTDBConfig {
   /**
    * Decide how to control memory usage of inserting data. 0 is RecordMemController, which sums the
    * size of each record (tuple). 1 is JVMMemController, which uses the JVM heap memory as the
-   * memory usage indicator.
+   * memory usage indicator. 2 is WriteBufferManager, which sums the bytes held by the memtables,
+   * flushes them continuously by size and age and delays writes before rejecting them.
    */
-  public int memControllerType = 1;
+  public int memControllerType = 2;
+  /**
+   * The longest delay (in ms) of a write by WriteBufferManager, reached when the memory usage
+   * reaches memThresholdDangerous. Below it, writes are delayed in proportion to the usage beyond
+   * memThresholdWarning.
+   */
+  public long maxWriteDelay = 100;
+  /**
+   * How long (in ms) a write waits for the memtables being flushed when the memory usage reaches
+   * memThresholdDangerous before WriteBufferManager rejects it.
+   */
+  public long writeStallTimeout = 10000;
   /**
    * When a bufferwrite's metadata size (in byte) exceed this, the bufferwrite is forced closed.
    */
@@ -203,6 +286,29 @@ public class IoTDBConfig {
    * When a overflow's file size (in byte) exceed this, the overflow is forced closed.
    */
   public long overflowFileSizeThreshold = 200 * 1024 * 1024L;
+  /**
+   * Data arriving no more than this window (in the unit of timestamp) behind the latest data of its
+   * device is kept in the sequence memtable when the memtable is flushed, so that it is still
+   * written as sequence data instead of overflow data if it arrives late. 0 disables the window.
+   */
+  public long seqReorderWindow = 0;
+  /**
+   * Reordering windows of storage groups which override {@code seqReorderWindow}.
+   */
+  public Map<String, Long> seqReorderWindowOfStorageGroups = new HashMap<>();
+  /**
+   * Data older than this TTL (in ms, compared with the current time) are not readable any more, and
+   * the sealed tsfiles holding only such data are dropped. 0 means the data never expire.
+   */
+  public long dataTTL = 0;
+  /**
+   * TTLs of storage groups which override {@code dataTTL}.
+   */
+  public Map<String, Long> dataTTLOfStorageGroups = new HashMap<>();
+  /**
+   * The interval (in seconds) to drop the sealed tsfiles expired by TTL.
+   */
+  public long ttlCheckInterval = 600;
   /**
    * If set false, MemMonitorThread and MemStatisticThread will not be created.
    */
@@ -412,6 +518,22 @@ public class IoTDBConfig {
     }
   }
 
+  /**
+   * get the reordering window of a storage group.
+   */
+  public long getSeqReorderWindow(String storageGroup) {
+    Long window = seqReorderWindowOfStorageGroups.get(storageGroup);
+    return window == null ? seqReorderWindow : window;
+  }
+
+  /**
+   * get the TTL of a storage group, 0 if the data never expire.
+   */
+  public long getDataTTL(String storageGroup) {
+    Long ttl = dataTTLOfStorageGroups.get(storageGroup);
+    return ttl == null ? dataTTL : ttl;
+  }
+
   public String[] getBufferWriteDirs() {
     return bufferWriteDirs;
   }
@@ -53,5 +53,10 @@ public class IoTDBConstant {
   public static final String BACKUP_SUFFIX = ".backup";
   public static final String MAX_TIME = "max_time";
   public static final String MIN_TIME = "min_time";
+  /**
+   * the aggregation of a group by query which keeps the first, last, minimum and maximum points of
+   * each time interval.
+   */
+  public static final String M4 = "m4";
   public static final int minSupportedJDKVerion = 8;
 }
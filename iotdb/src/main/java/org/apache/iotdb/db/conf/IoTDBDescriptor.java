@@ -111,6 +111,8 @@ public class IoTDBDescriptor {
 
       conf.rpcPort = Integer.parseInt(properties.getProperty("rpc_port",
           conf.rpcPort + ""));
+      conf.metricsPort = Integer.parseInt(properties.getProperty("metrics_port",
+          conf.metricsPort + "").trim());
 
       conf.enableWal = Boolean.parseBoolean(properties.getProperty("enable_wal",
           conf.enableWal + ""));
@@ -124,6 +126,10 @@ public class IoTDBDescriptor {
       conf.forceWalPeriodInMs = Integer
           .parseInt(properties.getProperty("force_wal_period_in_ms",
               conf.forceWalPeriodInMs + ""));
+      conf.walSegmentSize = Long
+          .parseLong(properties.getProperty("wal_segment_size", conf.walSegmentSize + ""));
+      conf.walCheckpointThreshold = Long.parseLong(
+          properties.getProperty("wal_checkpoint_threshold", conf.walCheckpointThreshold + ""));
 
       conf.dataDir = properties.getProperty("data_dir", conf.dataDir);
       conf.bufferWriteDirs = properties.getProperty("tsfile_dir", conf.default_tsfile_dir)
@@ -147,6 +153,27 @@ public class IoTDBDescriptor {
       conf.fetchSize = Integer.parseInt(properties.getProperty("fetch_size",
           conf.fetchSize + ""));
 
+      conf.queryTimeout = Long.parseLong(properties.getProperty("query_timeout",
+          conf.queryTimeout + ""));
+      conf.maxConcurrentQueries = Integer.parseInt(properties.getProperty("max_concurrent_queries",
+          conf.maxConcurrentQueries + ""));
+      conf.queryMemoryBudget = Long.parseLong(properties.getProperty("query_memory_budget",
+          conf.queryMemoryBudget + ""));
+      conf.concurrentQueryTasks = Integer.parseInt(properties.getProperty(
+          "concurrent_query_tasks", conf.concurrentQueryTasks + "").trim());
+      if (conf.concurrentQueryTasks <= 0) {
+        conf.concurrentQueryTasks = Runtime.getRuntime().availableProcessors();
+      }
+      String batchQueryUsers = properties.getProperty("batch_query_users", "").trim();
+      if (!batchQueryUsers.isEmpty()) {
+        for (String user : batchQueryUsers.split(",")) {
+          conf.batchQueryUsers.add(user.trim());
+        }
+      }
+      conf.maxPreparedStatementsPerSession = Integer.parseInt(properties.getProperty(
+          "max_prepared_statements_per_session", conf.maxPreparedStatementsPerSession + "")
+          .trim());
+
       conf.periodTimeForFlush = Long.parseLong(
           properties.getProperty("period_time_for_flush_in_second",
               conf.periodTimeForFlush + "").trim());
@@ -157,10 +184,14 @@ public class IoTDBDescriptor {
           .getProperty("enable_timing_close_and_Merge",
               conf.enableTimingCloseAndMerge + "").trim());
 
-      conf.memThresholdWarning = (long) (Runtime.getRuntime().maxMemory() * Double.parseDouble(
+      conf.offHeapMemTableSize = Long.parseLong(properties
+          .getProperty("off_heap_memtable_size", conf.offHeapMemTableSize + "").trim());
+      long writeBufferSize = conf.offHeapMemTableSize > 0 ? conf.offHeapMemTableSize
+          : Runtime.getRuntime().maxMemory();
+      conf.memThresholdWarning = (long) (writeBufferSize * Double.parseDouble(
           properties.getProperty("mem_threshold_warning",
               conf.memThresholdWarning + "").trim()));
-      conf.memThresholdDangerous = (long) (Runtime.getRuntime().maxMemory() * Double.parseDouble(
+      conf.memThresholdDangerous = (long) (writeBufferSize * Double.parseDouble(
           properties.getProperty("mem_threshold_dangerous",
               conf.memThresholdDangerous + "").trim()));
 
@@ -173,6 +204,10 @@ public class IoTDBDescriptor {
               conf.memControllerType + "").trim());
       conf.memControllerType = conf.memControllerType >= ControllerType.values().length ? 0
           : conf.memControllerType;
+      conf.maxWriteDelay = Long
+          .parseLong(properties.getProperty("max_write_delay", conf.maxWriteDelay + "").trim());
+      conf.writeStallTimeout = Long.parseLong(
+          properties.getProperty("write_stall_timeout", conf.writeStallTimeout + "").trim());
 
       conf.bufferwriteMetaSizeThreshold = Long.parseLong(properties
           .getProperty("bufferwrite_meta_size_threshold",
@@ -188,6 +223,31 @@ public class IoTDBDescriptor {
           properties.getProperty("overflow_file_size_threshold",
               conf.overflowFileSizeThreshold + "").trim());
 
+      conf.seqReorderWindow = Long.parseLong(properties
+          .getProperty("seq_reorder_window", conf.seqReorderWindow + "").trim());
+      String reorderWindows = properties.getProperty("seq_reorder_window_of_storage_groups", "")
+          .trim();
+      if (!reorderWindows.isEmpty()) {
+        for (String storageGroupWindow : reorderWindows.split(",")) {
+          int separator = storageGroupWindow.lastIndexOf(':');
+          conf.seqReorderWindowOfStorageGroups.put(storageGroupWindow.substring(0, separator).trim(),
+              Long.parseLong(storageGroupWindow.substring(separator + 1).trim()));
+        }
+      }
+
+      conf.dataTTL = Long.parseLong(properties
+          .getProperty("data_ttl", conf.dataTTL + "").trim());
+      String ttls = properties.getProperty("data_ttl_of_storage_groups", "").trim();
+      if (!ttls.isEmpty()) {
+        for (String storageGroupTTL : ttls.split(",")) {
+          int separator = storageGroupTTL.lastIndexOf(':');
+          conf.dataTTLOfStorageGroups.put(storageGroupTTL.substring(0, separator).trim(),
+              Long.parseLong(storageGroupTTL.substring(separator + 1).trim()));
+        }
+      }
+      conf.ttlCheckInterval = Long.parseLong(properties
+          .getProperty("ttl_check_interval", conf.ttlCheckInterval + "").trim());
+
       conf.isPostbackEnable = Boolean
           .parseBoolean(properties.getProperty("is_postback_enable",
               conf.isPostbackEnable + ""));
@@ -213,6 +273,12 @@ public class IoTDBDescriptor {
       if (conf.concurrentFlushThread <= 0) {
         conf.concurrentFlushThread = Runtime.getRuntime().availableProcessors();
       }
+      conf.concurrentFlushEncodingThread = Integer
+          .parseInt(properties.getProperty("concurrent_flush_encoding_thread",
+              conf.concurrentFlushEncodingThread + ""));
+      if (conf.concurrentFlushEncodingThread <= 0) {
+        conf.concurrentFlushEncodingThread = Runtime.getRuntime().availableProcessors();
+      }
 
       conf.enableMemMonitor = Boolean
           .parseBoolean(properties.getProperty("enable_mem_monitor",
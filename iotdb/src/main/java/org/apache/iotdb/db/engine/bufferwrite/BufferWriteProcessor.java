@@ -22,8 +22,13 @@ import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -34,22 +39,35 @@ import org.apache.iotdb.db.engine.Processor;
 import org.apache.iotdb.db.engine.filenode.FileNodeManager;
 import org.apache.iotdb.db.engine.memcontrol.BasicMemController;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
 import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
+import org.apache.iotdb.db.engine.memtable.MemTableFactory;
 import org.apache.iotdb.db.engine.memtable.MemTableFlushUtil;
-import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
 import org.apache.iotdb.db.engine.pool.FlushManager;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.utils.FlushStatus;
 import org.apache.iotdb.db.exception.BufferWriteProcessorException;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.utils.MemUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.db.utils.TsPrimitiveType;
 import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
 import org.apache.iotdb.tsfile.write.schema.FileSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +81,14 @@ public class BufferWriteProcessor extends Processor {
   private volatile boolean isFlush;
   private ReentrantLock flushQueryLock = new ReentrantLock();
   private AtomicLong memSize = new AtomicLong();
+  /**
+   * bytes of the flushing memtable, which are reported free when the flush ends.
+   */
+  private long flushingMemSize;
+  /**
+   * time of the first write into the working memtable, -1 if nothing is written.
+   */
+  private volatile long memTableStartTime = -1;
   private long memThreshold = TSFileDescriptor.getInstance().getConfig().groupSizeInByte;
   private IMemTable workMemTable;
   private IMemTable flushMemTable;
@@ -70,8 +96,18 @@ public class BufferWriteProcessor extends Processor {
   private Action bufferwriteCloseAction;
   private Action filenodeFlushAction;
 
+  /**
+   * data of a device no more than this window behind the latest data of the device is kept in the
+   * memtable by flush, 0 means all data is flushed.
+   */
+  private long reorderWindow = 0;
+  /**
+   * for each device, the earliest time of the data kept in the memtable by the last flush.
+   */
+  private Map<String, Long> reorderBoundaries = Collections.emptyMap();
+
   private long lastFlushTime = -1;
-  private long valueCount = 0;
+  private AtomicLong valueCount = new AtomicLong();
 
   private String baseDir;
   private String fileName;
@@ -119,7 +155,7 @@ public class BufferWriteProcessor extends Processor {
     bufferwriteFlushAction = parameters.get(FileNodeConstants.BUFFERWRITE_FLUSH_ACTION);
     bufferwriteCloseAction = parameters.get(FileNodeConstants.BUFFERWRITE_CLOSE_ACTION);
     filenodeFlushAction = parameters.get(FileNodeConstants.FILENODE_PROCESSOR_FLUSH_ACTION);
-    workMemTable = new PrimitiveMemTable();
+    workMemTable = MemTableFactory.create();
 
     if (IoTDBDescriptor.getInstance().getConfig().enableWal) {
       try {
@@ -162,15 +198,9 @@ public class BufferWriteProcessor extends Processor {
    * @throws BufferWriteProcessorException if a flushing operation occurs and failed.
    */
   public boolean write(TSRecord tsRecord) throws BufferWriteProcessorException {
-    long memUsage = MemUtils.getRecordSize(tsRecord);
+    long memUsage = writeMemTable(tsRecord);
     BasicMemController.UsageLevel level = BasicMemController.getInstance()
         .reportUse(this, memUsage);
-    for (DataPoint dataPoint : tsRecord.dataPointList) {
-      workMemTable.write(tsRecord.deviceId, dataPoint.getMeasurementId(), dataPoint.getType(),
-          tsRecord.time,
-          dataPoint.getValue().toString());
-    }
-    valueCount++;
     String memory;
     switch (level) {
       case SAFE:
@@ -189,6 +219,62 @@ public class BufferWriteProcessor extends Processor {
     }
   }
 
+  /**
+   * write a ts record into the memtable without flushing it. Records of different devices can be
+   * written concurrently by this method, while the memtable is not switched. If it returns true,
+   * the caller should flush by {@link #checkMemThreshold4Flush()} once no other record is being
+   * written.
+   *
+   * @param tsRecord data to be written
+   * @return true if the memory usage of the memtable reaches the memThreshold
+   */
+  public boolean writeWithoutFlush(TSRecord tsRecord) {
+    long memUsage = writeMemTable(tsRecord);
+    BasicMemController.UsageLevel level = BasicMemController.getInstance()
+        .reportUse(this, memUsage);
+    String memory;
+    switch (level) {
+      case SAFE:
+        return memSize.addAndGet(memUsage) > memThreshold || isCheckpointDue();
+      case WARNING:
+        memory = MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage());
+        LOGGER.warn("Memory usage will exceed warning threshold, current : {}.", memory);
+        return memSize.addAndGet(memUsage) > memThreshold || isCheckpointDue();
+      case DANGEROUS:
+      default:
+        memory = MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage());
+        LOGGER.warn("Memory usage will exceed dangerous threshold, current : {}.", memory);
+        return false;
+    }
+  }
+
+  /**
+   * flush the memtable if its memory usage reaches the memThreshold or its write ahead logs reach
+   * the walCheckpointThreshold.
+   *
+   * @throws BufferWriteProcessorException if a flushing operation occurs and failed.
+   */
+  public void checkMemThreshold4Flush() throws BufferWriteProcessorException {
+    checkMemThreshold4Flush(0);
+  }
+
+  /**
+   * write a record into the working memtable.
+   *
+   * @return the bytes allocated by the memtable to hold the record
+   */
+  private long writeMemTable(TSRecord tsRecord) {
+    long memUsage = 0;
+    for (DataPoint dataPoint : tsRecord.dataPointList) {
+      memUsage += workMemTable.write(tsRecord.deviceId, dataPoint.getMeasurementId(),
+          dataPoint.getType(), tsRecord.time, dataPoint.getValue().toString());
+    }
+    if (valueCount.getAndIncrement() == 0) {
+      memTableStartTime = System.currentTimeMillis();
+    }
+    return memUsage;
+  }
+
   private void checkMemThreshold4Flush(long addedMemory) throws BufferWriteProcessorException {
     addedMemory = memSize.addAndGet(addedMemory);
     if (addedMemory > memThreshold) {
@@ -203,9 +289,27 @@ public class BufferWriteProcessor extends Processor {
         LOGGER.error("Flush bufferwrite error.",e);
         throw new BufferWriteProcessorException(e);
       }
+    } else if (isCheckpointDue()) {
+      LOGGER.info("The write ahead logs {} of bufferwrite processor {} reach the threshold {}",
+          MemUtils.bytesCntToStr(logNode.getWorkingLogSize()), getProcessorName(),
+          MemUtils.bytesCntToStr(IoTDBDescriptor.getInstance().getConfig().walCheckpointThreshold));
+      try {
+        flush();
+      } catch (IOException e) {
+        LOGGER.error("Flush bufferwrite error.", e);
+        throw new BufferWriteProcessorException(e);
+      }
     }
   }
 
+  /**
+   * whether the memtable should be flushed to take a checkpoint of the write ahead logs.
+   */
+  private boolean isCheckpointDue() {
+    long threshold = IoTDBDescriptor.getInstance().getConfig().walCheckpointThreshold;
+    return threshold > 0 && logNode != null && logNode.getWorkingLogSize() >= threshold;
+  }
+
   /**
    * get the one (or two) chunk(s) in the memtable ( and the other one in flushing status and then
    * compact them into one TimeValuePairSorter). Then get its (or their) ChunkMetadata(s).
@@ -233,12 +337,16 @@ public class BufferWriteProcessor extends Processor {
     }
   }
 
-  private void switchWorkToFlush() {
+  private void switchWorkToFlush(IMemTable memTableToFlush) {
     flushQueryLock.lock();
     try {
       if (flushMemTable == null) {
-        flushMemTable = workMemTable;
-        workMemTable = new PrimitiveMemTable();
+        if (memTableToFlush != workMemTable) {
+          // the working memtable is split into the flushed part and the kept records
+          workMemTable.clear();
+        }
+        flushMemTable = memTableToFlush;
+        workMemTable = MemTableFactory.create();
       }
     } finally {
       isFlush = true;
@@ -260,12 +368,15 @@ public class BufferWriteProcessor extends Processor {
 
   private void flushOperation(String flushFunction) {
     long flushStartTime = System.currentTimeMillis();
+    long startTime = System.nanoTime();
     LOGGER.info("The bufferwrite processor {} starts flushing {}.", getProcessorName(),
         flushFunction);
     try {
       if (flushMemTable != null && !flushMemTable.isEmpty()) {
+        long startPosition = writer.getPos();
         // flush data
         MemTableFlushUtil.flushMemTable(fileSchema, writer, flushMemTable);
+        Metrics.getInstance().record(Metric.FLUSH_SIZE, writer.getPos() - startPosition);
         // write restore information
         writer.flush();
       }
@@ -285,11 +396,16 @@ public class BufferWriteProcessor extends Processor {
       synchronized (flushStatus) {
         flushStatus.setUnFlushing();
         switchFlushToWork();
+        if (flushingMemSize > 0) {
+          BasicMemController.getInstance().reportFree(this, flushingMemSize);
+          flushingMemSize = 0;
+        }
         flushStatus.notifyAll();
         LOGGER.info("The bufferwrite processor {} ends flushing {}.", getProcessorName(),
             flushFunction);
       }
     }
+    Metrics.getInstance().recordLatency(Metric.FLUSH_LATENCY, startTime);
     long flushEndTime = System.currentTimeMillis();
     long flushInterval = flushEndTime - flushStartTime;
     ZonedDateTime startDateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(flushStartTime),
@@ -302,7 +418,104 @@ public class BufferWriteProcessor extends Processor {
         getProcessorName(), flushFunction, startDateTime, endDateTime, flushInterval);
   }
 
+  /**
+   * split the memtable by the reordering window. For each device, the data points no more than
+   * reorderWindow behind the latest point of the device are kept, the others are written into
+   * earlyPart. The chunks of the memtable are not modified, since they may be read by queries.
+   *
+   * @param memTable the memtable to split
+   * @param earlyPart the memtable receiving the data points to flush
+   * @param lateRecords the data points to keep, one record per device and timestamp
+   * @return the earliest time of the kept data points of each device
+   */
+  private Map<String, Long> splitByReorderWindow(IMemTable memTable, IMemTable earlyPart,
+      List<TSRecord> lateRecords) {
+    Map<String, Long> boundaries = new HashMap<>();
+    for (Entry<String, Map<String, IWritableMemChunk>> deviceEntry : memTable.getMemTableMap()
+        .entrySet()) {
+      String deviceId = deviceEntry.getKey();
+      Map<String, List<TimeValuePair>> sortedSeries = new HashMap<>();
+      long maxTime = Long.MIN_VALUE;
+      for (Entry<String, IWritableMemChunk> seriesEntry : deviceEntry.getValue().entrySet()) {
+        List<TimeValuePair> sortedList = seriesEntry.getValue().getSortedTimeValuePairList();
+        if (!sortedList.isEmpty()) {
+          sortedSeries.put(seriesEntry.getKey(), sortedList);
+          maxTime = Math.max(maxTime, sortedList.get(sortedList.size() - 1).getTimestamp());
+        }
+      }
+      if (sortedSeries.isEmpty()) {
+        continue;
+      }
+      long boundary = maxTime - reorderWindow + 1;
+      boundaries.put(deviceId, boundary);
+      // the kept points of the device, grouped by timestamp
+      Map<Long, TSRecord> deviceRecords = new TreeMap<>();
+      for (Entry<String, List<TimeValuePair>> seriesEntry : sortedSeries.entrySet()) {
+        String measurementId = seriesEntry.getKey();
+        for (TimeValuePair timeValuePair : seriesEntry.getValue()) {
+          long time = timeValuePair.getTimestamp();
+          if (time < boundary) {
+            earlyPart.write(deviceId, measurementId, time, timeValuePair.getValue());
+          } else {
+            deviceRecords.computeIfAbsent(time, t -> new TSRecord(t, deviceId))
+                .addTuple(getDataPoint(measurementId, timeValuePair.getValue()));
+          }
+        }
+      }
+      lateRecords.addAll(deviceRecords.values());
+    }
+    return boundaries;
+  }
+
+  private static DataPoint getDataPoint(String measurementId, TsPrimitiveType value) {
+    switch (value.getDataType()) {
+      case BOOLEAN:
+        return new BooleanDataPoint(measurementId, value.getBoolean());
+      case INT32:
+        return new IntDataPoint(measurementId, value.getInt());
+      case INT64:
+        return new LongDataPoint(measurementId, value.getLong());
+      case FLOAT:
+        return new FloatDataPoint(measurementId, value.getFloat());
+      case DOUBLE:
+        return new DoubleDataPoint(measurementId, value.getDouble());
+      case TEXT:
+        return new StringDataPoint(measurementId, value.getBinary());
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(value.getDataType()));
+    }
+  }
+
+  /**
+   * write the data points kept by flush into the new memtable and the new log.
+   */
+  private void keepRecords(List<TSRecord> records) throws IOException {
+    long memUsage = 0;
+    for (TSRecord record : records) {
+      if (IoTDBDescriptor.getInstance().getConfig().enableWal) {
+        logNode.write(new InsertPlan(2, record));
+      }
+      memUsage += writeMemTable(record);
+    }
+    if (BasicMemController.getInstance().reportUse(this, memUsage)
+        != BasicMemController.UsageLevel.DANGEROUS) {
+      memSize.addAndGet(memUsage);
+    }
+  }
+
   private Future<?> flush(boolean synchronization) throws IOException {
+    return flush(synchronization, false);
+  }
+
+  /**
+   * flush the memtable.
+   *
+   * @param synchronization whether to wait for the end of the flush
+   * @param keepReorderWindow whether to keep the data in the reordering window of each device in
+   * the memtable
+   */
+  private Future<?> flush(boolean synchronization, boolean keepReorderWindow)
+      throws IOException {
     // statistic information for flush
     if (lastFlushTime > 0) {
       long thisFlushTime = System.currentTimeMillis();
@@ -318,19 +531,26 @@ public class BufferWriteProcessor extends Processor {
     }
     lastFlushTime = System.currentTimeMillis();
     // check value count
-    if (valueCount > 0) {
+    if (valueCount.get() > 0) {
       // waiting for the end of last flush operation.
-      synchronized (flushStatus) {
-        while (flushStatus.isFlushing()) {
-          try {
-            flushStatus.wait();
-          } catch (InterruptedException e) {
-            LOGGER.error(
-                "Encounter an interrupt error when waitting for the flushing, "
-                    + "the bufferwrite processor is {}.",
-                getProcessorName(), e);
-            Thread.currentThread().interrupt();
-          }
+      waitForFlushEnd();
+      IMemTable memTableToFlush = workMemTable;
+      List<TSRecord> lateRecords = new ArrayList<>();
+      reorderBoundaries = Collections.emptyMap();
+      if (keepReorderWindow && reorderWindow > 0) {
+        IMemTable earlyPart = MemTableFactory.create();
+        Map<String, Long> boundaries = splitByReorderWindow(workMemTable, earlyPart, lateRecords);
+        // keeping most of the memtable would make the next flush come soon
+        long latePointNum = 0;
+        for (TSRecord record : lateRecords) {
+          latePointNum += record.dataPointList.size();
+        }
+        if (latePointNum * 2 <= workMemTable.size()) {
+          memTableToFlush = earlyPart;
+          reorderBoundaries = boundaries;
+        } else {
+          lateRecords.clear();
+          earlyPart.clear();
         }
       }
       // update the lastUpdatetime, prepare for flush
@@ -341,13 +561,15 @@ public class BufferWriteProcessor extends Processor {
         throw new IOException(e);
       }
       if (IoTDBDescriptor.getInstance().getConfig().enableWal) {
-        logNode.notifyStartFlush();
+        logNode.notifyStartFlush(insertFilePath, writer.getPos());
       }
-      valueCount = 0;
+      valueCount.set(0);
       flushStatus.setFlushing();
-      switchWorkToFlush();
-      BasicMemController.getInstance().reportFree(this, memSize.get());
-      memSize.set(0);
+      switchWorkToFlush(memTableToFlush);
+      // the memory of the memtable is freed when the flush ends
+      flushingMemSize = memSize.getAndSet(0);
+      memTableStartTime = -1;
+      keepRecords(lateRecords);
       // switch
       if (synchronization) {
         flushOperation("synchronously");
@@ -359,12 +581,61 @@ public class BufferWriteProcessor extends Processor {
     return null;
   }
 
+  private void waitForFlushEnd() {
+    synchronized (flushStatus) {
+      while (flushStatus.isFlushing()) {
+        try {
+          flushStatus.wait();
+        } catch (InterruptedException e) {
+          LOGGER.error(
+              "Encounter an interrupt error when waitting for the flushing, "
+                  + "the bufferwrite processor is {}.",
+              getProcessorName(), e);
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * delete the data of a series no later than the timestamp from the memtable. The flushing
+   * memtable is waited for, so the other data of the series are all in the chunks before the
+   * returned position, on which the deletion is recorded by the caller.
+   *
+   * @param deviceId device id
+   * @param measurementId sensor id
+   * @param timestamp data no later than this time are deleted
+   * @return the position of the tsfile, the chunks before it hold the data flushed
+   */
+  public long delete(String deviceId, String measurementId, long timestamp) throws IOException {
+    waitForFlushEnd();
+    flushQueryLock.lock();
+    try {
+      workMemTable.delete(deviceId, measurementId, timestamp);
+    } finally {
+      flushQueryLock.unlock();
+    }
+    return writer.getPos();
+  }
+
   @Override
   public boolean flush() throws IOException {
-    flush(false);
+    flush(false, true);
     return false;
   }
 
+  public void setReorderWindow(long reorderWindow) {
+    this.reorderWindow = reorderWindow;
+  }
+
+  /**
+   * get the earliest time of the data kept in the memtable by the last flush of each device. The
+   * data of the devices not in the map are all flushed.
+   */
+  public Map<String, Long> getReorderBoundaries() {
+    return reorderBoundaries;
+  }
+
   @Override
   public boolean canBeClosed() {
     return true;
@@ -409,6 +680,15 @@ public class BufferWriteProcessor extends Processor {
     return memSize.get();
   }
 
+  /**
+   * time of the first write into the working memtable.
+   *
+   * @return -1 if nothing is written since the last flush
+   */
+  public long getMemTableStartTime() {
+    return memTableStartTime;
+  }
+
   /**
    * check if is flushing.
    *
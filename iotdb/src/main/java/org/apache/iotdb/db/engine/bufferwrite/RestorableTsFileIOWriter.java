@@ -214,6 +214,31 @@ public class RestorableTsFileIOWriter extends TsFileIOWriter {
     }
   }
 
+  /**
+   * whether the data flushed after the given position of an unsealed tsfile are durable, that is,
+   * the restore file records a later position or the tsfile has been sealed.
+   *
+   * @param insertFilePath path of the tsfile
+   * @param position a position the tsfile was flushed to
+   * @throws IOException if errors when reading restoreFile.
+   */
+  public static boolean isFlushedAfter(String insertFilePath, long position) throws IOException {
+    File restoreFile = new File(insertFilePath + RESTORE_SUFFIX);
+    if (!restoreFile.exists()) {
+      // a sealed tsfile has no restore file
+      return new File(insertFilePath).exists();
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(restoreFile, "r")) {
+      if (randomAccessFile.length() < TS_POSITION_BYTE_SIZE) {
+        return false;
+      }
+      byte[] lastPositionBytes = new byte[TS_POSITION_BYTE_SIZE];
+      randomAccessFile.seek(randomAccessFile.length() - TS_POSITION_BYTE_SIZE);
+      randomAccessFile.readFully(lastPositionBytes);
+      return BytesUtils.bytesToLong(lastPositionBytes) > position;
+    }
+  }
+
   /**
    * get chunks' metadata from memory.
    *
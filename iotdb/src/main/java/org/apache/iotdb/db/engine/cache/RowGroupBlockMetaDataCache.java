@@ -102,6 +102,14 @@ public class RowGroupBlockMetaDataCache {
     }
   }
 
+  public long getCacheHitNum() {
+    return cacheHintNum.get();
+  }
+
+  public long getCacheRequestNum() {
+    return cacheRequestNum.get();
+  }
+
   /**
    * the default LRU cache size is 100. The singleton pattern.
    */
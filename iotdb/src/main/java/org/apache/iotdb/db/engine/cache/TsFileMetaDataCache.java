@@ -86,6 +86,14 @@ public class TsFileMetaDataCache {
     cache.clear();
   }
 
+  public long getCacheHitNum() {
+    return cacheHintNum.get();
+  }
+
+  public long getCacheRequestNum() {
+    return cacheRequestNum.get();
+  }
+
   /*
    * Singleton pattern
    */
@@ -49,6 +49,8 @@ import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
 import org.apache.iotdb.db.monitor.IStatistic;
 import org.apache.iotdb.db.monitor.MonitorConstants;
 import org.apache.iotdb.db.monitor.StatMonitor;
@@ -60,13 +62,16 @@ import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
+import org.apache.iotdb.db.writelog.node.WriteLogNode;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.compress.Compressor.GZIPCompressor;
+import org.apache.iotdb.tsfile.compress.UnCompressor.GZIPUnCompressor;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
-import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,6 +81,7 @@ public class FileNodeManager implements IStatistic, IService {
   private static final TSFileConfig TsFileConf = TSFileDescriptor.getInstance().getConfig();
   private static final IoTDBConfig TsFileDBConf = IoTDBDescriptor.getInstance().getConfig();
   private static final Directories directories = Directories.getInstance();
+  private static final int CONSTRUCT_LOCK_NUM = 64;
   private final String baseDir;
   /**
    * Stat information.
@@ -87,6 +93,11 @@ public class FileNodeManager implements IStatistic, IService {
    * storage group seriesPath.
    */
   private ConcurrentHashMap<String, FileNodeProcessor> processorMap;
+  /**
+   * striped locks to construct the processor of a filenode, so that the construction of one
+   * filenode rarely blocks the others, and no lock is left behind by a deleted filenode.
+   */
+  private final Object[] constructLocks = new Object[CONSTRUCT_LOCK_NUM];
   /**
    * This set is used to store overflowed filenode name.<br> The overflowed filenode will be merge.
    */
@@ -103,6 +114,9 @@ public class FileNodeManager implements IStatistic, IService {
 
   private FileNodeManager(String baseDir) {
     processorMap = new ConcurrentHashMap<String, FileNodeProcessor>();
+    for (int i = 0; i < CONSTRUCT_LOCK_NUM; i++) {
+      constructLocks[i] = new Object();
+    }
 
     if (baseDir.charAt(baseDir.length() - 1) != File.separatorChar) {
       baseDir += File.separatorChar;
@@ -132,6 +146,17 @@ public class FileNodeManager implements IStatistic, IService {
         .addAndGet(tsRecord.dataPointList.size());
   }
 
+  /**
+   * count the data points written as sequence data although they are earlier than the last data of
+   * their device.
+   */
+  private void updateStatHashMapWhenReorder(FileNodeProcessor fileNodeProcessor,
+      TSRecord tsRecord) {
+    fileNodeProcessor.getStatParamsHashMap()
+        .get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_POINTS_REORDERED.name())
+        .addAndGet(tsRecord.dataPointList.size());
+  }
+
   /**
    * get stats parameter hash map.
    *
@@ -215,9 +240,8 @@ public class FileNodeManager implements IStatistic, IService {
     if (processor != null) {
       processor.lock(isWriteLock);
     } else {
-      filenodeName = filenodeName.intern();
       // calculate the value with same key synchronously
-      synchronized (filenodeName) {
+      synchronized (constructLocks[Math.floorMod(filenodeName.hashCode(), CONSTRUCT_LOCK_NUM)]) {
         processor = processorMap.get(filenodeName);
         if (processor != null) {
           processor.lock(isWriteLock);
@@ -269,6 +293,7 @@ public class FileNodeManager implements IStatistic, IService {
    * @return an int value represents the insert type
    */
   public int insert(TSRecord tsRecord, boolean isMonitor) throws FileNodeManagerException {
+    long startTime = System.nanoTime();
     long timestamp = tsRecord.time;
     if (timestamp < 0) {
       LOGGER.error("The insert time lt 0, {}.", tsRecord);
@@ -279,9 +304,115 @@ public class FileNodeManager implements IStatistic, IService {
     if (!isMonitor) {
       statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS.name())
           .addAndGet(tsRecord.dataPointList.size());
+      // the write is held back before it takes any lock, so the flushes are not blocked
+      if (!BasicMemController.getInstance().admitWrite()) {
+        updateStatHashMapWhenFail(tsRecord);
+        throw new FileNodeManagerException(String.format(
+            "The write buffers are full, the tsrecord %s is rejected, memory usage is %s", tsRecord,
+            MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage())));
+      }
     }
 
-    FileNodeProcessor fileNodeProcessor = getProcessor(deviceId, true);
+    // records of different devices are written concurrently under the read lock, the write lock
+    // is only taken by the records which overflow or change the interval files
+    FileNodeProcessor fileNodeProcessor = getProcessor(deviceId, false);
+    int insertType;
+    if (fileNodeProcessor.canInsertConcurrently(deviceId, timestamp)) {
+      insertConcurrently(fileNodeProcessor, tsRecord, isMonitor);
+      insertType = 2;
+    } else {
+      fileNodeProcessor.readUnlock();
+      fileNodeProcessor.writeLock();
+      insertType = insertExclusively(fileNodeProcessor, tsRecord, isMonitor);
+    }
+    // Modify the insert
+    if (!isMonitor) {
+      fileNodeProcessor.getStatParamsHashMap()
+          .get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_POINTS_SUCCESS.name())
+          .addAndGet(tsRecord.dataPointList.size());
+      fileNodeProcessor.getStatParamsHashMap()
+          .get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_REQ_SUCCESS.name())
+          .incrementAndGet();
+      statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_REQ_SUCCESS.name())
+          .incrementAndGet();
+      statParamsHashMap
+          .get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS_SUCCESS.name())
+          .addAndGet(tsRecord.dataPointList.size());
+    }
+    Metrics.getInstance().recordLatency(Metric.INSERT_LATENCY, startTime);
+    return insertType;
+  }
+
+  /**
+   * insert a record into the current bufferwrite processor by holding the read lock of the filenode
+   * processor, see {@link FileNodeProcessor#canInsertConcurrently(String, long)}. The read lock is
+   * released by this method. If the memtable should be flushed or the tsfile should be closed after
+   * the insertion, the write lock is taken for a short time to do it.
+   */
+  private void insertConcurrently(FileNodeProcessor fileNodeProcessor, TSRecord tsRecord,
+      boolean isMonitor) throws FileNodeManagerException {
+    BufferWriteProcessor bufferWriteProcessor;
+    boolean shouldFlush;
+    try {
+      bufferWriteProcessor = fileNodeProcessor.getBufferWriteProcessor();
+      // write wal
+      try {
+        if (IoTDBDescriptor.getInstance().getConfig().enableWal) {
+          writeLog(bufferWriteProcessor.getLogNode(), tsRecord);
+        }
+      } catch (IOException e) {
+        if (!isMonitor) {
+          updateStatHashMapWhenFail(tsRecord);
+        }
+        throw new FileNodeManagerException(e);
+      }
+      // Write data
+      if (!fileNodeProcessor.setLastUpdateTime(tsRecord.deviceId, tsRecord.time) && !isMonitor) {
+        updateStatHashMapWhenReorder(fileNodeProcessor, tsRecord);
+      }
+      long startTime = System.nanoTime();
+      shouldFlush = bufferWriteProcessor.writeWithoutFlush(tsRecord);
+      Metrics.getInstance().recordLatency(Metric.INSERT_MEMTABLE_LATENCY, startTime);
+    } catch (FileNodeProcessorException e) {
+      throw new FileNodeManagerException(e);
+    } finally {
+      fileNodeProcessor.readUnlock();
+    }
+
+    if (!shouldFlush && bufferWriteProcessor.getFileSize() <= IoTDBDescriptor.getInstance()
+        .getConfig().bufferwriteFileSizeThreshold) {
+      return;
+    }
+    fileNodeProcessor.writeLock();
+    try {
+      // the bufferwrite processor may have been flushed or closed by another insertion
+      if (!fileNodeProcessor.hasBufferwriteProcessor()
+          || fileNodeProcessor.getBufferWriteProcessor() != bufferWriteProcessor) {
+        return;
+      }
+      bufferWriteProcessor.checkMemThreshold4Flush();
+      closeBufferWriteIfReachThreshold(fileNodeProcessor, bufferWriteProcessor);
+    } catch (BufferWriteProcessorException e) {
+      throw new FileNodeManagerException(e);
+    } catch (FileNodeProcessorException e) {
+      LOGGER.error(String.format("Encounter an error when closing the buffer write processor %s.",
+          fileNodeProcessor.getProcessorName()), e);
+      throw new FileNodeManagerException(e);
+    } finally {
+      fileNodeProcessor.writeUnlock();
+    }
+  }
+
+  /**
+   * insert a record by holding the write lock of the filenode processor, the write lock is
+   * released by this method.
+   *
+   * @return an int value represents the insert type
+   */
+  private int insertExclusively(FileNodeProcessor fileNodeProcessor, TSRecord tsRecord,
+      boolean isMonitor) throws FileNodeManagerException {
+    long timestamp = tsRecord.time;
+    String deviceId = tsRecord.deviceId;
     int insertType = 0;
 
     try {
@@ -303,14 +434,7 @@ public class FileNodeManager implements IStatistic, IService {
         // write wal
         try {
           if (IoTDBDescriptor.getInstance().getConfig().enableWal) {
-            List<String> measurementList = new ArrayList<>();
-            List<String> insertValues = new ArrayList<>();
-            for (DataPoint dp : tsRecord.dataPointList) {
-              measurementList.add(dp.getMeasurementId());
-              insertValues.add(dp.getValue().toString());
-            }
-            overflowProcessor.getLogNode().write(
-                new InsertPlan(2, tsRecord.deviceId, tsRecord.time, measurementList, insertValues));
+            writeLog(overflowProcessor.getLogNode(), tsRecord);
           }
         } catch (IOException e) {
           if (!isMonitor) {
@@ -320,7 +444,9 @@ public class FileNodeManager implements IStatistic, IService {
         }
         // write overflow data
         try {
+          long startTime = System.nanoTime();
           overflowProcessor.insert(tsRecord);
+          Metrics.getInstance().recordLatency(Metric.INSERT_MEMTABLE_LATENCY, startTime);
           fileNodeProcessor.changeTypeToChanged(deviceId, timestamp);
           fileNodeProcessor.setOverflowed(true);
           // if (shouldMerge) {
@@ -340,6 +466,11 @@ public class FileNodeManager implements IStatistic, IService {
         // change the type of tsfile to overflowed
 
         insertType = 1;
+        if (!isMonitor) {
+          fileNodeProcessor.getStatParamsHashMap()
+              .get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_POINTS_OVERFLOWED.name())
+              .addAndGet(tsRecord.dataPointList.size());
+        }
       } else {
         // get bufferwrite processor
         BufferWriteProcessor bufferWriteProcessor;
@@ -372,14 +503,7 @@ public class FileNodeManager implements IStatistic, IService {
         // write wal
         try {
           if (IoTDBDescriptor.getInstance().getConfig().enableWal) {
-            List<String> measurementList = new ArrayList<>();
-            List<String> insertValues = new ArrayList<>();
-            for (DataPoint dp : tsRecord.dataPointList) {
-              measurementList.add(dp.getMeasurementId());
-              insertValues.add(dp.getValue().toString());
-            }
-            bufferWriteProcessor.getLogNode().write(
-                new InsertPlan(2, tsRecord.deviceId, tsRecord.time, measurementList, insertValues));
+            writeLog(bufferWriteProcessor.getLogNode(), tsRecord);
           }
         } catch (IOException e) {
           if (!isMonitor) {
@@ -389,9 +513,13 @@ public class FileNodeManager implements IStatistic, IService {
         }
         // Write data
         fileNodeProcessor.setIntervalFileNodeStartTime(deviceId);
-        fileNodeProcessor.setLastUpdateTime(deviceId, timestamp);
+        if (!fileNodeProcessor.setLastUpdateTime(deviceId, timestamp) && !isMonitor) {
+          updateStatHashMapWhenReorder(fileNodeProcessor, tsRecord);
+        }
         try {
+          long startTime = System.nanoTime();
           bufferWriteProcessor.write(tsRecord);
+          Metrics.getInstance().recordLatency(Metric.INSERT_MEMTABLE_LATENCY, startTime);
         } catch (BufferWriteProcessorException e) {
           if (!isMonitor) {
             updateStatHashMapWhenFail(tsRecord);
@@ -399,17 +527,7 @@ public class FileNodeManager implements IStatistic, IService {
           throw new FileNodeManagerException(e);
         }
         insertType = 2;
-        if (bufferWriteProcessor
-            .getFileSize() > IoTDBDescriptor.getInstance()
-            .getConfig().bufferwriteFileSizeThreshold) {
-          LOGGER.info(
-              "The filenode processor {} will close the bufferwrite processor, "
-                  + "because the size[{}] of tsfile {} reaches the threshold {}",
-              filenodeName, MemUtils.bytesCntToStr(bufferWriteProcessor.getFileSize()),
-              bufferWriteProcessor.getFileName(), MemUtils.bytesCntToStr(
-                  IoTDBDescriptor.getInstance().getConfig().bufferwriteFileSizeThreshold));
-          fileNodeProcessor.closeBufferWrite();
-        }
+        closeBufferWriteIfReachThreshold(fileNodeProcessor, bufferWriteProcessor);
       }
     } catch (FileNodeProcessorException e) {
       LOGGER.error(String.format("Encounter an error when closing the buffer write processor %s.",
@@ -418,23 +536,31 @@ public class FileNodeManager implements IStatistic, IService {
     } finally {
       fileNodeProcessor.writeUnlock();
     }
-    // Modify the insert
-    if (!isMonitor) {
-      fileNodeProcessor.getStatParamsHashMap()
-          .get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_POINTS_SUCCESS.name())
-          .addAndGet(tsRecord.dataPointList.size());
-      fileNodeProcessor.getStatParamsHashMap()
-          .get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_REQ_SUCCESS.name())
-          .incrementAndGet();
-      statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_REQ_SUCCESS.name())
-          .incrementAndGet();
-      statParamsHashMap
-          .get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS_SUCCESS.name())
-          .addAndGet(tsRecord.dataPointList.size());
-    }
     return insertType;
   }
 
+  private void writeLog(WriteLogNode logNode, TSRecord tsRecord) throws IOException {
+    long startTime = System.nanoTime();
+    logNode.write(new InsertPlan(2, tsRecord));
+    Metrics.getInstance().recordLatency(Metric.INSERT_WAL_LATENCY, startTime);
+  }
+
+  private void closeBufferWriteIfReachThreshold(FileNodeProcessor fileNodeProcessor,
+      BufferWriteProcessor bufferWriteProcessor) throws FileNodeProcessorException {
+    if (bufferWriteProcessor
+        .getFileSize() > IoTDBDescriptor.getInstance()
+        .getConfig().bufferwriteFileSizeThreshold) {
+      LOGGER.info(
+          "The filenode processor {} will close the bufferwrite processor, "
+              + "because the size[{}] of tsfile {} reaches the threshold {}",
+          fileNodeProcessor.getProcessorName(),
+          MemUtils.bytesCntToStr(bufferWriteProcessor.getFileSize()),
+          bufferWriteProcessor.getFileName(), MemUtils.bytesCntToStr(
+              IoTDBDescriptor.getInstance().getConfig().bufferwriteFileSizeThreshold));
+      fileNodeProcessor.closeBufferWrite();
+    }
+  }
+
   /**
    * update data.
    */
@@ -521,19 +647,14 @@ public class FileNodeManager implements IStatistic, IService {
               filenodeName, timestamp);
           throw new FileNodeManagerException(e);
         }
-        overflowProcessor.delete(deviceId, measurementId, timestamp, type);
-        // change the type of tsfile to overflowed
-        fileNodeProcessor.changeTypeToChangedForDelete(deviceId, timestamp);
-        fileNodeProcessor.setOverflowed(true);
-        // if (shouldMerge) {
-        // LOGGER.info(
-        // "The overflow file or metadata reaches the threshold,
-        // merge the filenode processor {}",
-        // filenodeName);
-        // fileNodeProcessor.submitToMerge();
-        // }
-        fileNodeProcessor.changeTypeToChangedForDelete(deviceId, timestamp);
-        fileNodeProcessor.setOverflowed(true);
+        // the deletion is applied when reading, the tsfiles are not rewritten by merge
+        try {
+          fileNodeProcessor.delete(deviceId, measurementId, timestamp);
+        } catch (FileNodeProcessorException e) {
+          LOGGER.error("Delete failed, the filenode is {}, delete time is {}.", filenodeName,
+              timestamp);
+          throw new FileNodeManagerException(e);
+        }
 
         // write wal
         try {
@@ -550,6 +671,40 @@ public class FileNodeManager implements IStatistic, IService {
     }
   }
 
+  /**
+   * drop the sealed tsfiles expired by TTL in all filenode processors. A processor which fails does
+   * not stop the others from being checked.
+   *
+   * @throws FileNodeManagerException if any processor failed, after all of them are checked
+   */
+  public void checkTTLAll() throws FileNodeManagerException {
+    List<String> failedProcessors = new ArrayList<>();
+    for (String processorName : new ArrayList<>(processorMap.keySet())) {
+      FileNodeProcessor fileNodeProcessor;
+      try {
+        fileNodeProcessor = getProcessor(processorName, true);
+      } catch (FileNodeManagerException e) {
+        LOGGER.error("Failed to get the filenode processor {} to drop the expired tsfiles.",
+            processorName, e);
+        failedProcessors.add(processorName);
+        continue;
+      }
+      try {
+        fileNodeProcessor.checkTTL();
+      } catch (FileNodeProcessorException e) {
+        LOGGER.error("The filenode processor {} failed to drop the expired tsfiles.",
+            processorName, e);
+        failedProcessors.add(processorName);
+      } finally {
+        fileNodeProcessor.writeUnlock();
+      }
+    }
+    if (!failedProcessors.isEmpty()) {
+      throw new FileNodeManagerException(
+          "Failed to drop the expired tsfiles of the filenode processors " + failedProcessors);
+    }
+  }
+
   /**
    * try to delete the filenode processor.
    */
@@ -592,7 +747,7 @@ public class FileNodeManager implements IStatistic, IService {
     try {
       LOGGER.debug("Get the FileNodeProcessor: filenode is {}, begin query.",
           fileNodeProcessor.getProcessorName());
-      int token = fileNodeProcessor.addMultiPassLock();
+      int token = fileNodeProcessor.beginQuery();
       return token;
     } finally {
       fileNodeProcessor.writeUnlock();
@@ -645,7 +800,7 @@ public class FileNodeManager implements IStatistic, IService {
     try {
       LOGGER.debug("Get the FileNodeProcessor: {} end query.",
           fileNodeProcessor.getProcessorName());
-      fileNodeProcessor.removeMultiPassLock(token);
+      fileNodeProcessor.endQuery(token);
     } finally {
       fileNodeProcessor.writeUnlock();
     }
@@ -682,6 +837,21 @@ public class FileNodeManager implements IStatistic, IService {
     return true;
   }
 
+  /**
+   * get the last update time of a device in the storage group, -1 if the device has no data.
+   *
+   * @param fileNodeName the seriesPath of storage group
+   */
+  public long getLastUpdateTime(String fileNodeName, String deviceId)
+      throws FileNodeManagerException {
+    FileNodeProcessor fileNodeProcessor = getProcessor(fileNodeName, false);
+    try {
+      return fileNodeProcessor.getLastUpdateTime(deviceId);
+    } finally {
+      fileNodeProcessor.readUnlock();
+    }
+  }
+
   /**
    * get all overlap tsfiles which are conflict with the appendFile.
    *
@@ -1076,6 +1246,54 @@ public class FileNodeManager implements IStatistic, IService {
     }
   }
 
+  /**
+   * flush memtables to keep the write buffers small, called periodically when the memory is
+   * controlled by the write buffer manager. The largest working memtables are flushed until the
+   * working memtables hold no more than workingLimit bytes, and the memtables holding data longer
+   * than maxAge are flushed. A storage group which is flushing or locked is skipped and considered
+   * again in the next round.
+   *
+   * @param workingLimit bytes the memtables not being flushed may hold
+   * @param maxAge in ms, memtables are not flushed by age if it is not positive
+   */
+  public void flushBySizeAndAge(long workingLimit, long maxAge) {
+    List<Pair<FileNodeProcessor, Long>> usages = new ArrayList<>();
+    long workingSize = 0;
+    for (FileNodeProcessor processor : processorMap.values()) {
+      long usage = processor.memoryUsage();
+      if (usage > 0) {
+        usages.add(new Pair<>(processor, usage));
+        workingSize += usage;
+      }
+    }
+    // the usages are taken once, since they change while sorting
+    usages.sort((o1, o2) -> Long.compare(o2.right, o1.right));
+    long now = System.currentTimeMillis();
+    for (Pair<FileNodeProcessor, Long> usage : usages) {
+      FileNodeProcessor processor = usage.left;
+      long startTime = processor.getMemTableStartTime();
+      boolean tooOld = maxAge > 0 && startTime >= 0 && now - startTime >= maxAge;
+      if ((workingSize <= workingLimit && !tooOld) || processor.isFlushing()
+          || !processor.tryLock(true)) {
+        continue;
+      }
+      try {
+        LOGGER.debug("Flush the filenode processor {} holding {}, the memtables are {}.",
+            processor.getProcessorName(), MemUtils.bytesCntToStr(usage.right),
+            tooOld ? "old" : "large");
+        if (processor.flush()) {
+          processor.submitToMerge();
+        }
+        workingSize -= usage.right;
+      } catch (IOException e) {
+        LOGGER.error("Failed to flush the filenode processor {}.", processor.getProcessorName(),
+            e);
+      } finally {
+        processor.unlock(true);
+      }
+    }
+  }
+
   private void flushTop(float percentage) throws IOException {
     List<FileNodeProcessor> tempProcessors = new ArrayList<>(processorMap.values());
     // sort the tempProcessors as descending order
@@ -1118,6 +1336,9 @@ public class FileNodeManager implements IStatistic, IService {
     } catch (FileNodeManagerException e) {
       LOGGER.error("Failed to close file node manager because {}.", e.getMessage());
     }
+    // the pooled codecs hold native memory
+    GZIPCompressor.releaseCodecs();
+    GZIPUnCompressor.releaseCodecs();
   }
 
   @Override
@@ -25,6 +25,7 @@ import java.nio.file.Files;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -32,11 +33,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.Directories;
@@ -45,6 +46,8 @@ import org.apache.iotdb.db.engine.bufferwrite.Action;
 import org.apache.iotdb.db.engine.bufferwrite.ActionException;
 import org.apache.iotdb.db.engine.bufferwrite.BufferWriteProcessor;
 import org.apache.iotdb.db.engine.bufferwrite.FileNodeConstants;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.overflow.ioV2.OverflowProcessor;
 import org.apache.iotdb.db.engine.pool.MergeManager;
 import org.apache.iotdb.db.engine.querycontext.GlobalSortedSeriesDataSource;
@@ -60,6 +63,8 @@ import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.metadata.ColumnSchema;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
 import org.apache.iotdb.db.monitor.IStatistic;
 import org.apache.iotdb.db.monitor.MonitorConstants;
 import org.apache.iotdb.db.monitor.StatMonitor;
@@ -132,10 +137,14 @@ public class FileNodeProcessor extends Processor implements IStatistic {
   private long lastMergeTime = -1;
   private BufferWriteProcessor bufferWriteProcessor = null;
   private OverflowProcessor overflowProcessor = null;
-  private Set<Integer> oldMultiPassTokenSet = null;
-  private Set<Integer> newMultiPassTokenSet = new HashSet<>();
-  private ReadWriteLock oldMultiPassLock = null;
-  private ReadWriteLock newMultiPassLock = new ReentrantReadWriteLock(false);
+  /**
+   * versions of the file set pinned by queries, obsolete files of merge wait for them.
+   */
+  private FileSetVersionManager fileSetVersionManager;
+  /**
+   * deletions made while merging, which are recorded again on the merged tsfiles.
+   */
+  private List<Deletion> deletionsDuringMerge = new ArrayList<>();
   // system recovery
   private boolean shouldRecovery = false;
   // statistic monitor parameters
@@ -162,9 +171,17 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       synchronized (fileNodeProcessorStore) {
         // deep copy
         Map<String, Long> tempLastUpdateMap = new HashMap<>(lastUpdateTimeMap);
-        // update flushLastUpdateTimeMap
+        // update flushLastUpdateTimeMap, the data kept in memory by the reordering window is
+        // still sequence data
+        Map<String, Long> reorderBoundaries = bufferWriteProcessor == null ? Collections.emptyMap()
+            : bufferWriteProcessor.getReorderBoundaries();
         for (Entry<String, Long> entry : lastUpdateTimeMap.entrySet()) {
-          flushLastUpdateTimeMap.put(entry.getKey(), entry.getValue() + 1);
+          Long boundary = reorderBoundaries.get(entry.getKey());
+          if (boundary == null) {
+            flushLastUpdateTimeMap.put(entry.getKey(), entry.getValue() + 1);
+          } else {
+            flushLastUpdateTimeMap.merge(entry.getKey(), boundary, Math::max);
+          }
         }
         fileNodeProcessorStore.setLastUpdateTimeMap(tempLastUpdateMap);
       }
@@ -195,15 +212,13 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       }
     }
   };
-  // Token for query which used to
-  private int multiPassLockToken = 0;
-
   /**
    * constructor of FileNodeProcessor.
    */
   public FileNodeProcessor(String fileNodeDirPath, String processorName)
       throws FileNodeProcessorException {
     super(processorName);
+    fileSetVersionManager = new FileSetVersionManager(processorName);
     statStorageDeltaName =
         MonitorConstants.statStorageGroupPrefix + MonitorConstants.MONITOR_PATH_SEPERATOR
             + MonitorConstants.fileNodePath + MonitorConstants.MONITOR_PATH_SEPERATOR
@@ -232,14 +247,14 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       throw new FileNodeProcessorException(e);
     }
     // TODO deep clone the lastupdate time
-    lastUpdateTimeMap = fileNodeProcessorStore.getLastUpdateTimeMap();
+    lastUpdateTimeMap = new ConcurrentHashMap<>(fileNodeProcessorStore.getLastUpdateTimeMap());
     emptyIntervalFileNode = fileNodeProcessorStore.getEmptyIntervalFileNode();
     newFileNodes = fileNodeProcessorStore.getNewFileNodes();
     isMerging = fileNodeProcessorStore.getFileNodeProcessorStatus();
     numOfMergeFile = fileNodeProcessorStore.getNumOfMergeFile();
     invertedindexOfFiles = new HashMap<>();
     // deep clone
-    flushLastUpdateTimeMap = new HashMap<>();
+    flushLastUpdateTimeMap = new ConcurrentHashMap<>();
     for (Entry<String, Long> entry : lastUpdateTimeMap.entrySet()) {
       flushLastUpdateTimeMap.put(entry.getKey(), entry.getValue() + 1);
     }
@@ -436,6 +451,8 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       try {
         bufferWriteProcessor = new BufferWriteProcessor(baseDir, getProcessorName(),
             fileNames[fileNames.length - 1], parameters, fileSchema);
+        bufferWriteProcessor
+            .setReorderWindow(TsFileDBConf.getSeqReorderWindow(getProcessorName()));
       } catch (BufferWriteProcessorException e) {
         // unlock
         writeUnlock();
@@ -477,6 +494,17 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       writeUnlock();
       switchWaitingToWorkingv2(newFileNodes);
     } else {
+      // the merged overflow files of a finished merge may not have been deleted before restart
+      File mergedOverflowDir = null;
+      try {
+        mergedOverflowDir = overflowProcessor.switchMergeToWork();
+        if (mergedOverflowDir != null) {
+          FileUtils.forceDelete(mergedOverflowDir);
+        }
+      } catch (IOException e) {
+        LOGGER.error("The filenode processor {} failed to delete the merged overflow files {}.",
+            getProcessorName(), mergedOverflowDir, e);
+      }
       writeUnlock();
     }
     // add file into index of file
@@ -501,6 +529,7 @@ public class FileNodeProcessor extends Processor implements IStatistic {
         bufferWriteProcessor = new BufferWriteProcessor(baseDir, processorName,
             insertTime + FileNodeConstants.BUFFERWRITE_FILE_SEPARATOR + System.currentTimeMillis(),
             parameters, fileSchema);
+        bufferWriteProcessor.setReorderWindow(TsFileDBConf.getSeqReorderWindow(processorName));
       } catch (BufferWriteProcessorException e) {
         LOGGER.error("The filenode processor {} failed to get the bufferwrite processor.",
             processorName, e);
@@ -562,23 +591,39 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 
   /**
    * set last update time.
+   *
+   * @return false if the time is earlier than the last update time of the device
    */
-  public void setLastUpdateTime(String deviceId, long timestamp) {
-    if (!lastUpdateTimeMap.containsKey(deviceId) || lastUpdateTimeMap.get(deviceId) < timestamp) {
-      lastUpdateTimeMap.put(deviceId, timestamp);
-    }
+  public boolean setLastUpdateTime(String deviceId, long timestamp) {
+    return lastUpdateTimeMap.merge(deviceId, timestamp, Math::max) == timestamp;
   }
 
   /**
    * get last update time.
    */
   public long getLastUpdateTime(String deviceId) {
+    Long lastUpdateTime = lastUpdateTimeMap.get(deviceId);
+    return lastUpdateTime == null ? -1 : lastUpdateTime;
+  }
 
-    if (lastUpdateTimeMap.containsKey(deviceId)) {
-      return lastUpdateTimeMap.get(deviceId);
-    } else {
-      return -1;
+  /**
+   * whether a record of the device can be written into the current bufferwrite processor by
+   * holding only the read lock, which lets the devices of the filenode be written concurrently. It
+   * is true if the record is not overflowed and the device already has data in the current tsfile,
+   * so that writing the record changes nothing but the memtable and the last update time. Other
+   * records must be written by holding the write lock.
+   *
+   * @param deviceId device of the record
+   * @param timestamp time of the record
+   */
+  public boolean canInsertConcurrently(String deviceId, long timestamp) {
+    if (bufferWriteProcessor == null || bufferWriteProcessor.isNewProcessor()
+        || currentIntervalFileNode == null) {
+      return false;
     }
+    Long flushLastUpdateTime = flushLastUpdateTimeMap.get(deviceId);
+    return flushLastUpdateTime != null && timestamp >= flushLastUpdateTime
+        && currentIntervalFileNode.getStartTime(deviceId) != -1;
   }
 
   /**
@@ -685,43 +730,22 @@ public class FileNodeProcessor extends Processor implements IStatistic {
   }
 
   /**
-   * add multiple pass lock.
+   * begin a query by pinning the current version of the file set, files replaced by merge are kept
+   * until the query ends.
+   *
+   * @return the token to end the query
    */
-  public int addMultiPassLock() {
-    LOGGER.debug("Add MultiPassLock: read lock newMultiPassLock.");
-    newMultiPassLock.readLock().lock();
-    while (newMultiPassTokenSet.contains(multiPassLockToken)) {
-      multiPassLockToken++;
-    }
-    newMultiPassTokenSet.add(multiPassLockToken);
-    LOGGER.debug("Add multi token:{}, nsPath:{}.", multiPassLockToken, getProcessorName());
-    return multiPassLockToken;
+  public int beginQuery() {
+    return fileSetVersionManager.pin();
   }
 
   /**
-   * remove multiple pass lock.
+   * end a query begun by {@link #beginQuery()}.
+   *
+   * @param token the token returned by {@link #beginQuery()}
    */
-  public boolean removeMultiPassLock(int token) {
-    if (newMultiPassTokenSet.contains(token)) {
-      newMultiPassLock.readLock().unlock();
-      newMultiPassTokenSet.remove(token);
-      LOGGER
-          .debug("Remove multi token:{}, nspath:{}, new set:{}, lock:{}", token, getProcessorName(),
-              newMultiPassTokenSet, newMultiPassLock);
-      return true;
-    } else if (oldMultiPassTokenSet != null && oldMultiPassTokenSet.contains(token)) {
-      // remove token first, then unlock
-      oldMultiPassLock.readLock().unlock();
-      oldMultiPassTokenSet.remove(token);
-      LOGGER.debug("Remove multi token:{}, old set:{}, lock:{}", token, oldMultiPassTokenSet,
-          oldMultiPassLock);
-      return true;
-    } else {
-      LOGGER.error("remove token error:{},new set:{}, old set:{}", token, newMultiPassTokenSet,
-          oldMultiPassTokenSet);
-      // should add throw exception
-      return false;
-    }
+  public boolean endQuery(int token) {
+    return fileSetVersionManager.unpin(token);
   }
 
   /**
@@ -737,9 +761,11 @@ public class FileNodeProcessor extends Processor implements IStatistic {
     } catch (PathErrorException e) {
       throw new FileNodeProcessorException(e);
     }
+    long expiredTime = getExpiredTime();
     OverflowSeriesDataSource overflowSeriesDataSource;
     try {
-      overflowSeriesDataSource = overflowProcessor.query(deviceId, measurementId, filter, dataType);
+      overflowSeriesDataSource = overflowProcessor
+          .query(deviceId, measurementId, filter, dataType, expiredTime);
     } catch (IOException e) {
       e.printStackTrace();
       throw new FileNodeProcessorException(e);
@@ -748,7 +774,8 @@ public class FileNodeProcessor extends Processor implements IStatistic {
     List<IntervalFileNode> bufferwriteDataInFiles = new ArrayList<>();
     for (IntervalFileNode intervalFileNode : newFileNodes) {
       // add the same intervalFileNode, but not the same reference
-      if (intervalFileNode.isClosed()) {
+      if (intervalFileNode.isClosed() && !(intervalFileNode.getEndTimeMap().containsKey(deviceId)
+          && intervalFileNode.getEndTime(deviceId) <= expiredTime)) {
         bufferwriteDataInFiles.add(intervalFileNode.backUp());
       }
     }
@@ -773,15 +800,151 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       }
       bufferwritedata = bufferWriteProcessor
           .queryBufferWriteData(deviceId, measurementId, dataType);
+      try {
+        newFileNodes.get(newFileNodes.size() - 1).getModFile()
+            .applyTo(deviceId + "." + measurementId, bufferwritedata.right);
+      } catch (IOException e) {
+        throw new FileNodeProcessorException(e);
+      }
+      ModificationFile.applyTombstone(bufferwritedata.right, expiredTime);
+      bufferwritedata.left.setMaxTombstoneTime(expiredTime);
       unsealedTsFile.setTimeSeriesChunkMetaDatas(bufferwritedata.right);
     }
     GlobalSortedSeriesDataSource globalSortedSeriesDataSource = new GlobalSortedSeriesDataSource(
         new Path(deviceId + "." + measurementId), bufferwriteDataInFiles, unsealedTsFile,
         bufferwritedata.left);
+    globalSortedSeriesDataSource.setExpiredTime(expiredTime);
     return new QueryDataSource(globalSortedSeriesDataSource, overflowSeriesDataSource);
 
   }
 
+  /**
+   * delete the data of a series no later than the timestamp. The tsfiles and overflow files are
+   * not rewritten by merge for the deletion: the deletion is recorded in their modification files
+   * and applied when they are read, and the data in memtables are removed at once. The sealed
+   * tsfiles whose data are all deleted are dropped.
+   *
+   * @param deviceId device id
+   * @param measurementId sensor id
+   * @param timestamp data no later than this time are deleted
+   */
+  public void delete(String deviceId, String measurementId, long timestamp)
+      throws FileNodeProcessorException {
+    String seriesPath = deviceId + "." + measurementId;
+    try {
+      List<IntervalFileNode> deletedFiles = new ArrayList<>();
+      for (IntervalFileNode fileNode : newFileNodes) {
+        if (fileNode.isClosed() && fileNode.getStartTimeMap().containsKey(deviceId)
+            && fileNode.getStartTime(deviceId) <= timestamp) {
+          fileNode.getModFile().write(new Deletion(seriesPath, timestamp, Long.MAX_VALUE));
+          if (isMerging == FileNodeProcessorStatus.NONE
+              && isDataDeleted(fileNode, Long.MIN_VALUE)) {
+            deletedFiles.add(fileNode);
+          }
+        }
+      }
+      if (bufferWriteProcessor != null && !newFileNodes.isEmpty()
+          && !newFileNodes.get(newFileNodes.size() - 1).isClosed()) {
+        // the data written into the unsealed tsfile after the deletion are not deleted
+        long position = bufferWriteProcessor.delete(deviceId, measurementId, timestamp);
+        newFileNodes.get(newFileNodes.size() - 1).getModFile()
+            .write(new Deletion(seriesPath, timestamp, position));
+      }
+      if (overflowProcessor != null) {
+        overflowProcessor.delete(deviceId, measurementId, timestamp);
+      }
+      if (isMerging != FileNodeProcessorStatus.NONE) {
+        deletionsDuringMerge.add(new Deletion(seriesPath, timestamp, Long.MAX_VALUE));
+      }
+      if (!deletedFiles.isEmpty()) {
+        dropFiles(deletedFiles, "all their data are deleted");
+      }
+    } catch (IOException e) {
+      throw new FileNodeProcessorException(e);
+    }
+  }
+
+  /**
+   * drop the sealed tsfiles whose data are all expired by the TTL of the storage group. Nothing is
+   * dropped while merging.
+   */
+  public void checkTTL() throws FileNodeProcessorException {
+    long expiredTime = getExpiredTime();
+    if (expiredTime == Long.MIN_VALUE || isMerging != FileNodeProcessorStatus.NONE) {
+      return;
+    }
+    List<IntervalFileNode> expiredFiles = new ArrayList<>();
+    try {
+      for (IntervalFileNode fileNode : newFileNodes) {
+        if (fileNode.isClosed() && isDataDeleted(fileNode, expiredTime)) {
+          expiredFiles.add(fileNode);
+        }
+      }
+    } catch (IOException e) {
+      throw new FileNodeProcessorException(e);
+    }
+    if (!expiredFiles.isEmpty()) {
+      dropFiles(expiredFiles, "their data are expired");
+    }
+  }
+
+  /**
+   * get the time no later than which the data are expired by the TTL of the storage group.
+   *
+   * @return Long.MIN_VALUE if the data never expire
+   */
+  private long getExpiredTime() {
+    long ttl = TsFileDBConf.getDataTTL(getProcessorName());
+    return ttl <= 0 ? Long.MIN_VALUE : System.currentTimeMillis() - ttl - 1;
+  }
+
+  /**
+   * whether the data of a sealed tsfile are all expired or deleted. The data of a device are
+   * deleted if every series of the device is deleted after the end time of the device in the file.
+   */
+  private boolean isDataDeleted(IntervalFileNode fileNode, long expiredTime) throws IOException {
+    for (Entry<String, Long> entry : fileNode.getEndTimeMap().entrySet()) {
+      long endTime = entry.getValue();
+      if (endTime <= expiredTime) {
+        continue;
+      }
+      List<String> seriesPaths;
+      try {
+        seriesPaths = mManager.getLeafNodePathInNextLevel(entry.getKey());
+      } catch (PathErrorException e) {
+        return false;
+      }
+      for (String seriesPath : seriesPaths) {
+        if (fileNode.getModFile().getDeletedTime(seriesPath) < endTime) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * remove sealed tsfiles from the file set. The files are deleted after the queries which may
+   * read them end.
+   */
+  private void dropFiles(List<IntervalFileNode> droppedFiles, String reason)
+      throws FileNodeProcessorException {
+    List<File> obsoleteFiles = new ArrayList<>();
+    for (IntervalFileNode fileNode : droppedFiles) {
+      LOGGER.info("The filenode processor {} drops the tsfile {} because {}.", getProcessorName(),
+          fileNode.getRelativePath(), reason);
+      obsoleteFiles.add(new File(fileNode.getFilePath()));
+      obsoleteFiles.add(new File(fileNode.getModFile().getFilePath()));
+    }
+    newFileNodes.removeAll(droppedFiles);
+    addAllFileIntoIndex(newFileNodes);
+    synchronized (fileNodeProcessorStore) {
+      fileNodeProcessorStore.setNewFileNodes(newFileNodes);
+      writeStoreToDisk(fileNodeProcessorStore);
+    }
+    fileSetVersionManager.publish(obsoleteFiles);
+  }
+
   /**
    * append one specified tsfile to this filenode processor.
    *
@@ -805,7 +968,8 @@ public class FileNodeProcessor extends Processor implements IStatistic {
         throw new FileNodeProcessorException(
             String.format("The appended target file %s already exists.", appendFile.getFilePath()));
       }
-      originFile.renameTo(targetFile);
+      // a rename if the files are on the same disk
+      Files.move(originFile.toPath(), targetFile.toPath());
       // append the new tsfile
       this.newFileNodes.add(appendFile);
       // update the lastUpdateTime
@@ -935,8 +1099,10 @@ public class FileNodeProcessor extends Processor implements IStatistic {
       mergeThread = () -> {
         try {
           long mergeStartTime = System.currentTimeMillis();
+          long startTime = System.nanoTime();
           writeLock();
           merge();
+          Metrics.getInstance().recordLatency(Metric.MERGE_LATENCY, startTime);
           long mergeEndTime = System.currentTimeMillis();
           ZonedDateTime startDateTime = ZonedDateTime
               .ofInstant(Instant.ofEpochMilli(mergeStartTime),
@@ -1116,6 +1282,10 @@ public class FileNodeProcessor extends Processor implements IStatistic {
               (int) (((numOfMergeFiles - 1) / (float) allNeedMergeFiles) * 100));
           long startTime = System.currentTimeMillis();
           String newFile = queryAndWriteDataForMerge(backupIntervalFile);
+          if (newFile != null) {
+            Metrics.getInstance().record(Metric.MERGE_SIZE,
+                new File(backupIntervalFile.getFilePath()).length());
+          }
           long endTime = System.currentTimeMillis();
           long timeConsume = endTime - startTime;
           ZonedDateTime startDateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(startTime),
@@ -1267,10 +1437,6 @@ public class FileNodeProcessor extends Processor implements IStatistic {
         FileNodeProcessorStatus.MERGING_WRITE, FileNodeProcessorStatus.WAITING);
     writeLock();
     try {
-      oldMultiPassTokenSet = newMultiPassTokenSet;
-      oldMultiPassLock = newMultiPassLock;
-      newMultiPassTokenSet = new HashSet<>();
-      newMultiPassLock = new ReentrantReadWriteLock(false);
       List<IntervalFileNode> result = new ArrayList<>();
       int beginIndex = 0;
       if (needEmpty) {
@@ -1355,92 +1521,95 @@ public class FileNodeProcessor extends Processor implements IStatistic {
     LOGGER.info("The status of filenode processor {} switches from {} to {}.", getProcessorName(),
         FileNodeProcessorStatus.WAITING, FileNodeProcessorStatus.NONE);
 
-    if (oldMultiPassLock != null) {
-      LOGGER.info("The old Multiple Pass Token set is {}, the old Multiple Pass Lock is {}",
-          oldMultiPassTokenSet,
-          oldMultiPassLock);
-      oldMultiPassLock.writeLock().lock();
-    }
+    writeLock();
     try {
-      writeLock();
-      try {
-        // delete the all files which are in the newFileNodes
-        // notice: the last restore file of the interval file
-
-        List<String> bufferwriteDirPathList = directories.getAllTsFileFolders();
-        List<File> bufferwriteDirList = new ArrayList<>();
-        for (String bufferwriteDirPath : bufferwriteDirPathList) {
-          if (bufferwriteDirPath.length() > 0
-              && bufferwriteDirPath.charAt(bufferwriteDirPath.length() - 1) != File.separatorChar) {
-            bufferwriteDirPath = bufferwriteDirPath + File.separatorChar;
-          }
-          bufferwriteDirPath = bufferwriteDirPath + getProcessorName();
-          File bufferwriteDir = new File(bufferwriteDirPath);
-          bufferwriteDirList.add(bufferwriteDir);
-          if (!bufferwriteDir.exists()) {
-            bufferwriteDir.mkdirs();
-          }
+      // the files which are not in the newFileNodes are obsolete, but queries which began before
+      // this switch may still read them, so they are deleted after these queries end.
+      // notice: the last restore file of the interval file
+
+      List<String> bufferwriteDirPathList = directories.getAllTsFileFolders();
+      List<File> bufferwriteDirList = new ArrayList<>();
+      for (String bufferwriteDirPath : bufferwriteDirPathList) {
+        if (bufferwriteDirPath.length() > 0
+            && bufferwriteDirPath.charAt(bufferwriteDirPath.length() - 1) != File.separatorChar) {
+          bufferwriteDirPath = bufferwriteDirPath + File.separatorChar;
         }
+        bufferwriteDirPath = bufferwriteDirPath + getProcessorName();
+        File bufferwriteDir = new File(bufferwriteDirPath);
+        bufferwriteDirList.add(bufferwriteDir);
+        if (!bufferwriteDir.exists()) {
+          bufferwriteDir.mkdirs();
+        }
+      }
 
-        Set<String> bufferFiles = new HashSet<>();
-        for (IntervalFileNode bufferFileNode : newFileNodes) {
-          String bufferFilePath = bufferFileNode.getFilePath();
-          if (bufferFilePath != null) {
-            bufferFiles.add(bufferFilePath);
+      // the deletions made while merging are lost in the merged tsfiles
+      for (Deletion deletion : deletionsDuringMerge) {
+        String deviceId = new Path(deletion.getPath()).getDevice();
+        for (IntervalFileNode fileNode : newFileNodes) {
+          if (fileNode.isClosed() && fileNode.getStartTimeMap().containsKey(deviceId)
+              && fileNode.getStartTime(deviceId) <= deletion.getTimestamp()) {
+            fileNode.getModFile().write(deletion);
           }
         }
-        // add the restore file, if the last file is not closed
-        if (!newFileNodes.isEmpty() && !newFileNodes.get(newFileNodes.size() - 1).isClosed()) {
-          String bufferFileRestorePath =
-              newFileNodes.get(newFileNodes.size() - 1).getFilePath() + RESTORE_FILE_SUFFIX;
-          bufferFiles.add(bufferFileRestorePath);
+      }
+      deletionsDuringMerge.clear();
+
+      Set<String> bufferFiles = new HashSet<>();
+      for (IntervalFileNode bufferFileNode : newFileNodes) {
+        String bufferFilePath = bufferFileNode.getFilePath();
+        if (bufferFilePath != null) {
+          bufferFiles.add(bufferFilePath);
+          bufferFiles.add(bufferFileNode.getModFile().getFilePath());
         }
+      }
+      // add the restore file, if the last file is not closed
+      if (!newFileNodes.isEmpty() && !newFileNodes.get(newFileNodes.size() - 1).isClosed()) {
+        String bufferFileRestorePath =
+            newFileNodes.get(newFileNodes.size() - 1).getFilePath() + RESTORE_FILE_SUFFIX;
+        bufferFiles.add(bufferFileRestorePath);
+      }
 
-        for (File bufferwriteDir : bufferwriteDirList) {
-          for (File file : bufferwriteDir.listFiles()) {
-            if (!bufferFiles.contains(file.getPath())) {
-              file.delete();
-              // TODO
-            }
+      List<File> obsoleteFiles = new ArrayList<>();
+      for (File bufferwriteDir : bufferwriteDirList) {
+        for (File file : bufferwriteDir.listFiles()) {
+          if (!bufferFiles.contains(file.getPath())) {
+            obsoleteFiles.add(file);
           }
         }
+      }
 
-        // merge switch
-        // switchMergeIndex();
+      // merge switch
+      // switchMergeIndex();
 
-        for (IntervalFileNode fileNode : newFileNodes) {
-          if (fileNode.overflowChangeType != OverflowChangeType.NO_CHANGE) {
-            fileNode.overflowChangeType = OverflowChangeType.CHANGED;
-          }
-        }
-        // overflow switch from merge to work
-        overflowProcessor.switchMergeToWork();
-        // write status to file
-        isMerging = FileNodeProcessorStatus.NONE;
-        synchronized (fileNodeProcessorStore) {
-          fileNodeProcessorStore.setFileNodeProcessorStatus(isMerging);
-          fileNodeProcessorStore.setNewFileNodes(newFileNodes);
-          fileNodeProcessorStore.setEmptyIntervalFileNode(emptyIntervalFileNode);
-          writeStoreToDisk(fileNodeProcessorStore);
+      for (IntervalFileNode fileNode : newFileNodes) {
+        if (fileNode.overflowChangeType != OverflowChangeType.NO_CHANGE) {
+          fileNode.overflowChangeType = OverflowChangeType.CHANGED;
         }
-      } catch (IOException e) {
-        LOGGER.info(
-            "The filenode processor {} encountered an error when its "
-                + "status switched from {} to {}.",
-            getProcessorName(), FileNodeProcessorStatus.NONE, FileNodeProcessorStatus.MERGING_WRITE,
-            e);
-        throw new FileNodeProcessorException(e);
-      } finally {
-        writeUnlock();
       }
-    } finally {
-      oldMultiPassTokenSet = null;
-      if (oldMultiPassLock != null) {
-        oldMultiPassLock.writeLock().unlock();
+      // overflow switch from merge to work
+      File mergedOverflowDir = overflowProcessor.switchMergeToWork();
+      if (mergedOverflowDir != null) {
+        obsoleteFiles.add(mergedOverflowDir);
       }
-      oldMultiPassLock = null;
+      fileSetVersionManager.publish(obsoleteFiles);
+      // write status to file
+      isMerging = FileNodeProcessorStatus.NONE;
+      synchronized (fileNodeProcessorStore) {
+        fileNodeProcessorStore.setFileNodeProcessorStatus(isMerging);
+        fileNodeProcessorStore.setNewFileNodes(newFileNodes);
+        fileNodeProcessorStore.setEmptyIntervalFileNode(emptyIntervalFileNode);
+        writeStoreToDisk(fileNodeProcessorStore);
+      }
+    } catch (IOException e) {
+      LOGGER.info(
+          "The filenode processor {} encountered an error when its "
+              + "status switched from {} to {}.",
+          getProcessorName(), FileNodeProcessorStatus.NONE, FileNodeProcessorStatus.MERGING_WRITE,
+          e);
+      throw new FileNodeProcessorException(e);
+    } finally {
+      writeUnlock();
     }
-
   }
 
   private TSRecord constructTsRecord(TimeValuePair timeValuePair, String deviceId,
@@ -1749,30 +1918,11 @@ public class FileNodeProcessor extends Processor implements IStatistic {
   @Override
   public boolean canBeClosed() {
     if (isMerging == FileNodeProcessorStatus.NONE) {
-      if (newMultiPassLock.writeLock().tryLock()) {
-        try {
-          if (oldMultiPassLock != null) {
-            if (oldMultiPassLock.writeLock().tryLock()) {
-              try {
-                return true;
-              } finally {
-                oldMultiPassLock.writeLock().unlock();
-              }
-            } else {
-              LOGGER
-                  .info("The filenode {} can't be closed, because it can't get oldMultiPassLock {}",
-                      getProcessorName(), oldMultiPassLock);
-              return false;
-            }
-          } else {
-            return true;
-          }
-        } finally {
-          newMultiPassLock.writeLock().unlock();
-        }
+      if (!fileSetVersionManager.isPinned()) {
+        return true;
       } else {
-        LOGGER.info("The filenode {} can't be closed, because it can't get newMultiPassLock {}",
-            getProcessorName(), newMultiPassLock);
+        LOGGER.info("The filenode {} can't be closed, because queries are reading it.",
+            getProcessorName());
         return false;
       }
     } else {
@@ -1876,6 +2026,33 @@ public class FileNodeProcessor extends Processor implements IStatistic {
     return memSize;
   }
 
+  /**
+   * whether the bufferwrite or the overflow processor is flushing a memtable.
+   */
+  public boolean isFlushing() {
+    return (bufferWriteProcessor != null && bufferWriteProcessor.isFlush())
+        || (overflowProcessor != null && overflowProcessor.isFlush());
+  }
+
+  /**
+   * time of the earliest write into the working memtables.
+   *
+   * @return -1 if the working memtables are empty
+   */
+  public long getMemTableStartTime() {
+    long startTime = -1;
+    if (bufferWriteProcessor != null) {
+      startTime = bufferWriteProcessor.getMemTableStartTime();
+    }
+    if (overflowProcessor != null) {
+      long overflowStartTime = overflowProcessor.getMemTableStartTime();
+      if (startTime < 0 || (overflowStartTime >= 0 && overflowStartTime < startTime)) {
+        startTime = overflowStartTime;
+      }
+    }
+    return startTime;
+  }
+
   private void writeStoreToDisk(FileNodeProcessorStore fileNodeProcessorStore)
       throws FileNodeProcessorException {
 
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.filenode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reference counted versions of the file set of a filenode processor, which let queries and merge
+ * run without waiting for each other.
+ *
+ * <p>A query pins the current version when it begins and unpins it when it ends. The files a
+ * query reads are those of the version it pinned or of a later one. When a merge has replaced
+ * tsfiles and overflow files, it publishes a new version and hands the replaced files to the
+ * version before it. These files are deleted once neither that version nor an older one is
+ * pinned, so a query never sees the files it reads disappear and a merge never waits for a long
+ * query.
+ */
+public class FileSetVersionManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileSetVersionManager.class);
+
+  private final String processorName;
+
+  private FileSetVersion currentVersion = new FileSetVersion(0);
+
+  /**
+   * versions replaced by merge whose obsolete files are not deleted yet, the oldest first.
+   */
+  private final Deque<FileSetVersion> retiredVersions = new ArrayDeque<>();
+
+  private final Map<Integer, FileSetVersion> pinnedVersions = new HashMap<>();
+
+  /**
+   * paths of the obsolete files waiting for deletion.
+   */
+  private final Set<String> obsoletePaths = new HashSet<>();
+
+  private int nextToken = 0;
+
+  public FileSetVersionManager(String processorName) {
+    this.processorName = processorName;
+  }
+
+  /**
+   * pin the current version for a query.
+   *
+   * @return the token to unpin the version by {@link #unpin(int)}
+   */
+  public synchronized int pin() {
+    while (pinnedVersions.containsKey(nextToken)) {
+      nextToken++;
+    }
+    int token = nextToken++;
+    currentVersion.refCount++;
+    pinnedVersions.put(token, currentVersion);
+    LOGGER.debug("Filenode {} pins version {} by token {}.", processorName,
+        currentVersion.versionNumber, token);
+    return token;
+  }
+
+  /**
+   * unpin the version pinned by the token, and delete the obsolete files no query reads any more.
+   *
+   * @param token the token returned by {@link #pin()}
+   * @return false if the token pins no version
+   */
+  public synchronized boolean unpin(int token) {
+    FileSetVersion version = pinnedVersions.remove(token);
+    if (version == null) {
+      LOGGER.error("Filenode {} has no version pinned by token {}.", processorName, token);
+      return false;
+    }
+    version.refCount--;
+    LOGGER.debug("Filenode {} unpins version {} by token {}.", processorName,
+        version.versionNumber, token);
+    deleteReleasedFiles();
+    return true;
+  }
+
+  /**
+   * publish a new version of the file set after the given files are no longer part of it.
+   *
+   * @param obsoleteFiles files or directories replaced in the new version
+   */
+  public synchronized void publish(List<File> obsoleteFiles) {
+    FileSetVersion retiredVersion = currentVersion;
+    for (File file : obsoleteFiles) {
+      if (obsoletePaths.add(file.getPath())) {
+        retiredVersion.obsoleteFiles.add(file);
+      }
+    }
+    retiredVersions.addLast(retiredVersion);
+    currentVersion = new FileSetVersion(retiredVersion.versionNumber + 1);
+    LOGGER.info("Filenode {} publishes version {}, {} files wait for {} queries.", processorName,
+        currentVersion.versionNumber, retiredVersion.obsoleteFiles.size(), pinnedVersions.size());
+    deleteReleasedFiles();
+  }
+
+  /**
+   * whether any query pins a version.
+   */
+  public synchronized boolean isPinned() {
+    return !pinnedVersions.isEmpty();
+  }
+
+  public synchronized long getCurrentVersionNumber() {
+    return currentVersion.versionNumber;
+  }
+
+  private void deleteReleasedFiles() {
+    while (!retiredVersions.isEmpty() && retiredVersions.peekFirst().refCount == 0) {
+      FileSetVersion version = retiredVersions.pollFirst();
+      for (File file : version.obsoleteFiles) {
+        obsoletePaths.remove(file.getPath());
+        try {
+          if (file.exists()) {
+            FileUtils.forceDelete(file);
+          }
+        } catch (IOException e) {
+          LOGGER.error("Filenode {} failed to delete the obsolete file {}.", processorName,
+              file.getPath(), e);
+        }
+      }
+      LOGGER.debug("Filenode {} released version {}.", processorName, version.versionNumber);
+    }
+  }
+
+  private static class FileSetVersion {
+
+    private final long versionNumber;
+    private int refCount;
+    private final List<File> obsoleteFiles = new ArrayList<>();
+
+    private FileSetVersion(long versionNumber) {
+      this.versionNumber = versionNumber;
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import org.apache.iotdb.db.conf.directories.Directories;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
 
 /**
  * This class is used to store one bufferwrite file status.<br>
@@ -38,6 +39,10 @@ public class IntervalFileNode implements Serializable {
   private Map<String, Long> startTimeMap;
   private Map<String, Long> endTimeMap;
   private Set<String> mergeChanged = new HashSet<>();
+  /**
+   * the modifications of the file, loaded when first used and shared by the backups.
+   */
+  private transient ModificationFile modFile;
 
   public IntervalFileNode(Map<String, Long> startTimeMap, Map<String, Long> endTimeMap,
       OverflowChangeType type, int baseDirIndex, String relativePath) {
@@ -160,6 +165,18 @@ public class IntervalFileNode implements Serializable {
   public void setRelativePath(String relativePath) {
 
     this.relativePath = relativePath;
+    this.modFile = null;
+  }
+
+  /**
+   * get the modifications of the file.
+   */
+  public ModificationFile getModFile() {
+
+    if (modFile == null) {
+      modFile = new ModificationFile(getFilePath());
+    }
+    return modFile;
   }
 
   public boolean checkEmpty() {
@@ -174,6 +191,7 @@ public class IntervalFileNode implements Serializable {
     mergeChanged.clear();
     overflowChangeType = OverflowChangeType.NO_CHANGE;
     relativePath = null;
+    modFile = null;
   }
 
   public void changeTypeToChanged(FileNodeProcessorStatus fileNodeProcessorState) {
@@ -210,8 +228,10 @@ public class IntervalFileNode implements Serializable {
 
     Map<String, Long> startTimeMapCopy = new HashMap<>(this.startTimeMap);
     Map<String, Long> endTimeMapCopy = new HashMap<>(this.endTimeMap);
-    return new IntervalFileNode(startTimeMapCopy, endTimeMapCopy, overflowChangeType,
-        baseDirIndex, relativePath);
+    IntervalFileNode fileNode = new IntervalFileNode(startTimeMapCopy, endTimeMapCopy,
+        overflowChangeType, baseDirIndex, relativePath);
+    fileNode.modFile = modFile;
+    return fileNode;
   }
 
   @Override
@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.filenode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.apache.iotdb.db.conf.directories.Directories;
+import org.apache.iotdb.db.engine.bufferwrite.FileNodeConstants;
+import org.apache.iotdb.db.exception.FileNodeManagerException;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.footer.ChunkGroupFooter;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReaderWithoutFilter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
+import org.apache.iotdb.tsfile.write.schema.FileSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads a closed tsfile into a storage group without inserting its data point by point.
+ *
+ * <p>If every device of the tsfile starts after the last update time of the device in the storage
+ * group, the tsfile is attached to the storage group as it is. Otherwise it is split at chunk
+ * granularity: the chunks starting after the last update time of their device are copied without
+ * decoding into a new tsfile which is attached, and only the chunks overlapping existing data are
+ * decoded and inserted, which writes them into overflow.
+ */
+public class TsFileLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TsFileLoader.class);
+  private static final String LOADING_SUFFIX = ".loading";
+
+  private final FileNodeManager fileNodeManager = FileNodeManager.getInstance();
+  private final String fileNodeName;
+
+  /**
+   * @param fileNodeName the storage group the devices of the loaded tsfiles belong to
+   */
+  public TsFileLoader(String fileNodeName) {
+    this.fileNodeName = fileNodeName;
+  }
+
+  /**
+   * read the metadata of a tsfile and check that the tsfile is complete.
+   *
+   * @throws IOException if the tsfile is not closed or its metadata is corrupted
+   */
+  public static TsFileMetaData readMetaData(File tsFile) throws IOException {
+    TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath());
+    try {
+      if (!TSFileConfig.MAGIC_STRING.equals(reader.readHeadMagic())
+          || !TSFileConfig.MAGIC_STRING.equals(reader.readTailMagic())) {
+        throw new IOException(
+            String.format("%s is not a complete tsfile.", tsFile.getPath()));
+      }
+      return reader.readFileMetadata();
+    } catch (RuntimeException e) {
+      // a corrupted footer makes the deserialization fail unexpectedly
+      throw new IOException(String.format("The metadata of %s is corrupted.", tsFile.getPath()),
+          e);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * load a tsfile into the storage group.
+   *
+   * @param tsFile a closed tsfile whose devices all belong to the storage group
+   * @param keepSource if true, the tsfile is attached by a hard link, or a copy if it is on another
+   * disk, and is kept. Otherwise it is moved into the storage group or deleted after being split.
+   */
+  public void load(File tsFile, boolean keepSource) throws FileNodeManagerException {
+    try {
+      TsFileMetaData metaData = readMetaData(tsFile);
+      Map<String, Long> startTimeMap = new HashMap<>();
+      Map<String, Long> endTimeMap = new HashMap<>();
+      for (Entry<String, TsDeviceMetadataIndex> entry : metaData.getDeviceMap().entrySet()) {
+        startTimeMap.put(entry.getKey(), entry.getValue().getStartTime());
+        endTimeMap.put(entry.getKey(), entry.getValue().getEndTime());
+      }
+      if (!startTimeMap.isEmpty() && attach(tsFile,
+          newFileNode(getStartTime(startTimeMap), startTimeMap, endTimeMap), keepSource)) {
+        LOGGER.info("Tsfile {} is attached to storage group {}.", tsFile.getPath(),
+            fileNodeName);
+        return;
+      }
+      split(tsFile, metaData, metaData.getDeviceMap().keySet());
+      if (!keepSource) {
+        Files.deleteIfExists(tsFile.toPath());
+      }
+    } catch (IOException e) {
+      throw new FileNodeManagerException(e);
+    }
+  }
+
+  /**
+   * load the data of some devices of a tsfile whose devices belong to several storage groups. The
+   * chunks of the devices are split out of the tsfile, which is kept.
+   *
+   * @param deviceIds devices of the tsfile which belong to the storage group
+   */
+  public void loadDevices(File tsFile, Collection<String> deviceIds)
+      throws FileNodeManagerException {
+    try {
+      split(tsFile, readMetaData(tsFile), deviceIds);
+    } catch (IOException e) {
+      throw new FileNodeManagerException(e);
+    }
+  }
+
+  /**
+   * read the measurements of every device in a tsfile.
+   *
+   * @return map from a device to the measurements it has chunks of
+   */
+  public static Map<String, Set<String>> readMeasurements(File tsFile, TsFileMetaData metaData)
+      throws IOException {
+    Map<String, Set<String>> measurements = new HashMap<>();
+    TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath());
+    try {
+      for (Entry<String, TsDeviceMetadataIndex> entry : metaData.getDeviceMap().entrySet()) {
+        Set<String> deviceMeasurements = new HashSet<>();
+        for (ChunkGroupMetaData chunkGroupMetaData : reader.readTsDeviceMetaData(entry.getValue())
+            .getChunkGroups()) {
+          for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+            deviceMeasurements.add(chunkMetaData.getMeasurementUid());
+          }
+        }
+        measurements.put(entry.getKey(), deviceMeasurements);
+      }
+    } finally {
+      reader.close();
+    }
+    return measurements;
+  }
+
+  /**
+   * attach a tsfile to the storage group if its data is newer than the data of the storage group.
+   *
+   * @param fileNode the interval file node of the tsfile in the storage group
+   * @return false if the tsfile overlaps existing data
+   */
+  private boolean attach(File tsFile, IntervalFileNode fileNode, boolean keepSource)
+      throws IOException, FileNodeManagerException {
+    File appendFile = tsFile;
+    if (keepSource) {
+      appendFile = new File(fileNode.getFilePath() + LOADING_SUFFIX);
+      appendFile.getParentFile().mkdirs();
+      try {
+        Files.createLink(appendFile.toPath(), tsFile.toPath());
+      } catch (IOException | UnsupportedOperationException e) {
+        LOGGER.info("Cannot link {} into storage group {}, copy it.", tsFile.getPath(),
+            fileNodeName);
+        Files.copy(tsFile.toPath(), appendFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    if (fileNodeManager.appendFileToFileNode(fileNodeName, fileNode, appendFile.getPath())) {
+      return true;
+    }
+    if (keepSource) {
+      Files.deleteIfExists(appendFile.toPath());
+    }
+    return false;
+  }
+
+  /**
+   * attach the chunks of the devices which start after the last update time of their device as a
+   * new tsfile, and insert the others.
+   */
+  private void split(File tsFile, TsFileMetaData metaData, Collection<String> deviceIds)
+      throws IOException, FileNodeManagerException {
+    Map<String, List<ChunkMetaData>> copiedChunks = new HashMap<>();
+    Map<String, List<ChunkMetaData>> overlappedChunks = new HashMap<>();
+    Map<String, Long> startTimeMap = new HashMap<>();
+    Map<String, Long> endTimeMap = new HashMap<>();
+    IntervalFileNode splitFileNode = null;
+    File splitFile = null;
+    TsFileIOWriter writer = null;
+    TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath());
+    try {
+      for (String deviceId : deviceIds) {
+        long lastUpdateTime = fileNodeManager.getLastUpdateTime(fileNodeName, deviceId);
+        TsDeviceMetadata deviceMetadata = reader
+            .readTsDeviceMetaData(metaData.getDeviceMap().get(deviceId));
+        for (ChunkGroupMetaData chunkGroupMetaData : deviceMetadata.getChunkGroups()) {
+          long dataSize = 0;
+          int chunkNum = 0;
+          for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+            if (chunkMetaData.getStartTime() <= lastUpdateTime) {
+              overlappedChunks.computeIfAbsent(deviceId, k -> new ArrayList<>())
+                  .add(chunkMetaData);
+              continue;
+            }
+            if (writer == null) {
+              // the time maps of the file node are filled while the chunks are copied
+              splitFileNode = newFileNode(chunkMetaData.getStartTime(), startTimeMap, endTimeMap);
+              splitFile = new File(splitFileNode.getFilePath() + LOADING_SUFFIX);
+              splitFile.getParentFile().mkdirs();
+              writer = new TsFileIOWriter(splitFile);
+            }
+            if (chunkNum == 0) {
+              writer.startFlushChunkGroup(deviceId);
+            }
+            dataSize += writer.writeChunk(reader.readMemChunk(chunkMetaData), chunkMetaData);
+            chunkNum++;
+            copiedChunks.computeIfAbsent(deviceId, k -> new ArrayList<>()).add(chunkMetaData);
+            startTimeMap.merge(deviceId, chunkMetaData.getStartTime(), Math::min);
+            endTimeMap.merge(deviceId, chunkMetaData.getEndTime(), Math::max);
+          }
+          if (chunkNum > 0) {
+            writer.endChunkGroup(new ChunkGroupFooter(deviceId, dataSize, chunkNum));
+          }
+        }
+      }
+
+      if (writer != null) {
+        writer.endFile(new FileSchema(metaData.getMeasurementSchema()));
+        if (!attach(splitFile, splitFileNode, false)) {
+          // newer data has been inserted since the tsfile was split
+          Files.deleteIfExists(splitFile.toPath());
+          for (Entry<String, List<ChunkMetaData>> entry : copiedChunks.entrySet()) {
+            overlappedChunks.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                .addAll(entry.getValue());
+          }
+          copiedChunks.clear();
+        }
+      }
+
+      long insertedPoints = 0;
+      for (Entry<String, List<ChunkMetaData>> entry : overlappedChunks.entrySet()) {
+        for (ChunkMetaData chunkMetaData : entry.getValue()) {
+          insertedPoints += insertChunk(reader, entry.getKey(), chunkMetaData);
+        }
+      }
+      LOGGER.info("Tsfile {} is split into storage group {}, {} chunks are attached and {} points "
+              + "are inserted.", tsFile.getPath(), fileNodeName,
+          copiedChunks.values().stream().mapToInt(List::size).sum(), insertedPoints);
+    } finally {
+      reader.close();
+      if (splitFile != null) {
+        Files.deleteIfExists(splitFile.toPath());
+      }
+    }
+  }
+
+  /**
+   * insert the points of a chunk one by one.
+   *
+   * @return number of the inserted points
+   */
+  private long insertChunk(TsFileSequenceReader reader, String deviceId,
+      ChunkMetaData chunkMetaData) throws IOException, FileNodeManagerException {
+    ChunkReader chunkReader = new ChunkReaderWithoutFilter(reader.readMemChunk(chunkMetaData));
+    String measurementId = chunkMetaData.getMeasurementUid();
+    long pointNum = 0;
+    while (chunkReader.hasNextBatch()) {
+      BatchData batchData = chunkReader.nextBatch();
+      while (batchData.hasNext()) {
+        TSRecord record = new TSRecord(batchData.currentTime(), deviceId);
+        record.addTuple(getDataPoint(batchData, measurementId));
+        fileNodeManager.insert(record, false);
+        batchData.next();
+        pointNum++;
+      }
+    }
+    chunkReader.close();
+    return pointNum;
+  }
+
+  private static DataPoint getDataPoint(BatchData batchData, String measurementId) {
+    switch (batchData.getDataType()) {
+      case BOOLEAN:
+        return new BooleanDataPoint(measurementId, batchData.getBoolean());
+      case INT32:
+        return new IntDataPoint(measurementId, batchData.getInt());
+      case INT64:
+        return new LongDataPoint(measurementId, batchData.getLong());
+      case FLOAT:
+        return new FloatDataPoint(measurementId, batchData.getFloat());
+      case DOUBLE:
+        return new DoubleDataPoint(measurementId, batchData.getDouble());
+      case TEXT:
+        return new StringDataPoint(measurementId, batchData.getBinary());
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(batchData.getDataType()));
+    }
+  }
+
+  private static long getStartTime(Map<String, Long> startTimeMap) {
+    return startTimeMap.values().stream().mapToLong(Long::longValue).min().orElse(0);
+  }
+
+  /**
+   * create the interval file node of a tsfile loaded into the storage group. The tsfile is named
+   * like those flushed by the storage group and its name is not used by another tsfile.
+   */
+  private IntervalFileNode newFileNode(long startTime, Map<String, Long> startTimeMap,
+      Map<String, Long> endTimeMap) {
+    int baseDirIndex = Directories.getInstance().getNextFolderIndexForTsFile();
+    long suffix = System.currentTimeMillis();
+    String relativePath;
+    do {
+      relativePath = fileNodeName + File.separator + startTime
+          + FileNodeConstants.BUFFERWRITE_FILE_SEPARATOR + suffix++;
+    } while (new File(Directories.getInstance().getTsFileFolder(baseDirIndex), relativePath)
+        .exists());
+    return new IntervalFileNode(startTimeMap, endTimeMap, OverflowChangeType.NO_CHANGE,
+        baseDirIndex, relativePath);
+  }
+}
@@ -50,6 +50,8 @@ public abstract class BasicMemController implements IService {
     switch (ControllerType.values()[IoTDBDescriptor.getInstance().getConfig().memControllerType]) {
       case JVM:
         return JVMMemController.getInstance();
+      case BUFFER:
+        return WriteBufferManager.getInstance();
       case RECORD:
       default:
         return RecordMemController.getInstance();
@@ -154,8 +156,18 @@ public abstract class BasicMemController implements IService {
 
   public abstract void reportFree(Object user, long freeSize);
 
+  /**
+   * called before a write takes any lock of the storage engine, the controller may delay the write
+   * here to let the flushes catch up.
+   *
+   * @return false if the write should be rejected
+   */
+  public boolean admitWrite() {
+    return true;
+  }
+
   public enum ControllerType {
-    RECORD, JVM
+    RECORD, JVM, BUFFER
   }
 
   public enum UsageLevel {
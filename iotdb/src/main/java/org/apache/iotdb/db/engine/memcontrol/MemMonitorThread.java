@@ -40,13 +40,20 @@ public class MemMonitorThread extends Thread {
     this.setName(ThreadName.MEMORY_MONITOR.getName());
     long checkInterval = config.memMonitorInterval;
     this.checkInterval = checkInterval > 0 ? checkInterval : this.checkInterval;
-    if (config.enableSmallFlush) {
-      this.safePolicy = new FlushPartialPolicy();
+    if (config.memControllerType == BasicMemController.ControllerType.BUFFER.ordinal()) {
+      // the write buffer manager flushes continuously instead of reacting to the usage level
+      this.safePolicy = new WriteBufferFlushPolicy(config);
+      this.warningPolicy = safePolicy;
+      this.dangerousPolicy = safePolicy;
     } else {
-      this.safePolicy = new NoActPolicy();
+      if (config.enableSmallFlush) {
+        this.safePolicy = new FlushPartialPolicy();
+      } else {
+        this.safePolicy = new NoActPolicy();
+      }
+      this.warningPolicy = new ForceFLushAllPolicy();
+      this.dangerousPolicy = new ForceFLushAllPolicy();
     }
-    this.warningPolicy = new ForceFLushAllPolicy();
-    this.dangerousPolicy = new ForceFLushAllPolicy();
   }
 
   public void setCheckInterval(long checkInterval) {
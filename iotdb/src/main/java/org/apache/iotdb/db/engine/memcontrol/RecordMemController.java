@@ -18,8 +18,8 @@
  */
 package org.apache.iotdb.db.engine.memcontrol;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -40,7 +40,7 @@ public class RecordMemController extends BasicMemController {
 
   private RecordMemController(IoTDBConfig config) {
     super(config);
-    memMap = new HashMap<>();
+    memMap = new ConcurrentHashMap<>();
     totalMemUsed = new AtomicLong(0);
   }
 
@@ -79,10 +79,6 @@ public class RecordMemController extends BasicMemController {
    * report the increased memory usage of the object user.
    */
   public UsageLevel reportUse(Object user, long usage) {
-    Long oldUsage = memMap.get(user);
-    if (oldUsage == null) {
-      oldUsage = 0L;
-    }
     long newTotUsage = totalMemUsed.get() + usage;
     // check if the new usage will reach dangerous threshold
     if (newTotUsage < dangerouseThreshold) {
@@ -90,18 +86,18 @@ public class RecordMemController extends BasicMemController {
       // double check if updating will reach dangerous threshold
       if (newTotUsage < warningThreshold) {
         // still safe, action taken
-        memMap.put(user, oldUsage + usage);
+        long userUsage = memMap.merge(user, usage, Long::sum);
         logger.debug("Safe Threshold : {} allocated to {}, it is using {}, total usage {}",
             MemUtils.bytesCntToStr(usage), user.getClass(),
-            MemUtils.bytesCntToStr(oldUsage + usage),
+            MemUtils.bytesCntToStr(userUsage),
             MemUtils.bytesCntToStr(newTotUsage));
         return UsageLevel.SAFE;
       } else if (newTotUsage < dangerouseThreshold) {
         // become warning because competition with other threads, still take the action
-        memMap.put(user, oldUsage + usage);
+        long userUsage = memMap.merge(user, usage, Long::sum);
         logger.debug("Warning Threshold : {} allocated to {}, it is using {}, total usage {}",
             MemUtils.bytesCntToStr(usage), user.getClass(),
-            MemUtils.bytesCntToStr(oldUsage + usage),
+            MemUtils.bytesCntToStr(userUsage),
             MemUtils.bytesCntToStr(newTotUsage));
         return UsageLevel.WARNING;
       } else {
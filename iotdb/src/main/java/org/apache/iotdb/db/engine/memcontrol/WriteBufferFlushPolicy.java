@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memcontrol;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.engine.filenode.FileNodeManager;
+
+/**
+ * The policy of {@link WriteBufferManager}, executed in every check whatever the usage level is.
+ * It flushes the largest memtables while the memtables not being flushed hold more than the flush
+ * threshold, and the memtables older than smallFlushInterval if small flushes are enabled. Since
+ * the flushes are asynchronous, it does not block the monitor thread.
+ */
+public class WriteBufferFlushPolicy implements Policy {
+
+  private IoTDBConfig config;
+
+  public WriteBufferFlushPolicy(IoTDBConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public void execute() {
+    long maxAge = config.enableSmallFlush ? config.smallFlushInterval : 0;
+    FileNodeManager.getInstance()
+        .flushBySizeAndAge(WriteBufferManager.getInstance().getFlushThreshold(), maxAge);
+  }
+}
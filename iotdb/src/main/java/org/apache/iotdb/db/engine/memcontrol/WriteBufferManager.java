@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memcontrol;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
+import org.apache.iotdb.db.utils.MemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class holds the bytes allocated by the memtables of bufferwrite and overflow processors.
+ * Instead of flushing all memtables when a threshold is reached, the memtables are flushed
+ * continuously by {@link WriteBufferFlushPolicy}, and writes are held back by {@link #admitWrite()}
+ * when the flushes fall behind:
+ * <ul>
+ * <li>below the warning threshold, writes are not delayed.</li>
+ * <li>between the warning and the dangerous threshold, a write is delayed in proportion to the
+ * usage beyond the warning threshold, up to maxWriteDelay.</li>
+ * <li>beyond the dangerous threshold, a write waits for the flushes to free memory, and is
+ * rejected if they do not within writeStallTimeout.</li>
+ * </ul>
+ */
+public class WriteBufferManager extends BasicMemController {
+
+  private static final Logger logger = LoggerFactory.getLogger(WriteBufferManager.class);
+
+  private AtomicLong totalMemUsed = new AtomicLong(0);
+  /**
+   * notified when memory is freed, the stalled writes wait on it.
+   */
+  private final Object freeCondition = new Object();
+  private long maxWriteDelay;
+  private long writeStallTimeout;
+
+  private WriteBufferManager(IoTDBConfig config) {
+    super(config);
+    maxWriteDelay = config.maxWriteDelay;
+    writeStallTimeout = config.writeStallTimeout;
+  }
+
+  public static WriteBufferManager getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  @Override
+  public long getTotalUsage() {
+    return totalMemUsed.get();
+  }
+
+  /**
+   * get the current memory usage level.
+   */
+  @Override
+  public UsageLevel getCurrLevel() {
+    long memUsage = totalMemUsed.get();
+    if (memUsage < warningThreshold) {
+      return UsageLevel.SAFE;
+    } else if (memUsage < dangerouseThreshold) {
+      return UsageLevel.WARNING;
+    } else {
+      return UsageLevel.DANGEROUS;
+    }
+  }
+
+  @Override
+  public void clear() {
+    totalMemUsed.set(0);
+    synchronized (freeCondition) {
+      freeCondition.notifyAll();
+    }
+  }
+
+  /**
+   * bytes the memtables not being flushed may hold before the largest of them are flushed. The
+   * other half of the warning threshold is left to the memtables being flushed.
+   */
+  public long getFlushThreshold() {
+    return warningThreshold / 2;
+  }
+
+  public void setMaxWriteDelay(long maxWriteDelay) {
+    this.maxWriteDelay = maxWriteDelay;
+  }
+
+  public void setWriteStallTimeout(long writeStallTimeout) {
+    this.writeStallTimeout = writeStallTimeout;
+  }
+
+  /**
+   * report the bytes allocated by a memtable. The usage is never denied, since the data is already
+   * in the memtable, the writes are held back by {@link #admitWrite()} instead.
+   *
+   * @return SAFE or WARNING
+   */
+  @Override
+  public UsageLevel reportUse(Object user, long usage) {
+    long newTotalMemUsage = totalMemUsed.addAndGet(usage);
+    return newTotalMemUsage < warningThreshold ? UsageLevel.SAFE : UsageLevel.WARNING;
+  }
+
+  /**
+   * report the bytes of a memtable whose flush has ended, and wake up the stalled writes.
+   */
+  @Override
+  public void reportFree(Object user, long freeSize) {
+    long newTotalMemUsage = totalMemUsed.addAndGet(-freeSize);
+    if (newTotalMemUsage < 0) {
+      logger.error("{} freed {} bytes while only {} bytes are used", user.getClass(), freeSize,
+          newTotalMemUsage + freeSize);
+      totalMemUsed.addAndGet(-newTotalMemUsage);
+    }
+    logger.debug("{} freed from {}, total usage {}", MemUtils.bytesCntToStr(freeSize),
+        user.getClass(), MemUtils.bytesCntToStr(newTotalMemUsage));
+    synchronized (freeCondition) {
+      freeCondition.notifyAll();
+    }
+  }
+
+  @Override
+  public boolean admitWrite() {
+    long memUsage = totalMemUsed.get();
+    if (memUsage < warningThreshold) {
+      return true;
+    }
+    long startTime = System.nanoTime();
+    try {
+      if (memUsage < dangerouseThreshold) {
+        long delay = maxWriteDelay * (memUsage - warningThreshold)
+            / (dangerouseThreshold - warningThreshold);
+        if (delay > 0) {
+          Thread.sleep(delay);
+        }
+        return true;
+      }
+      return waitForFree();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      Metrics.getInstance().recordLatency(Metric.WRITE_DELAY, startTime);
+    }
+  }
+
+  /**
+   * wait until the usage is below the dangerous threshold.
+   *
+   * @return false if the usage is still beyond the dangerous threshold after writeStallTimeout
+   */
+  private boolean waitForFree() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + writeStallTimeout;
+    synchronized (freeCondition) {
+      while (totalMemUsed.get() >= dangerouseThreshold) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          logger.warn("A write is rejected after waiting {}ms for the flushes, memory usage : {}",
+              writeStallTimeout, MemUtils.bytesCntToStr(totalMemUsed.get()));
+          return false;
+        }
+        freeCondition.wait(remaining);
+      }
+    }
+    return true;
+  }
+
+  private static class InstanceHolder {
+
+    private static final WriteBufferManager INSTANCE = new WriteBufferManager(
+        IoTDBDescriptor.getInstance().getConfig());
+  }
+}
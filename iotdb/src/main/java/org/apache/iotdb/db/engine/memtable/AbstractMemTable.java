@@ -18,16 +18,22 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.iotdb.db.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
+/**
+ * A memtable keyed by device and measurement. Different series can be written concurrently, the
+ * writes to one series are serialized by its chunk.
+ */
 public abstract class AbstractMemTable implements IMemTable {
 
   private final Map<String, Map<String, IWritableMemChunk>> memTableMap;
 
   public AbstractMemTable() {
-    this.memTableMap = new HashMap<>();
+    this.memTableMap = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -35,34 +41,49 @@ public abstract class AbstractMemTable implements IMemTable {
     return memTableMap;
   }
 
-  /**
-   * check whether the given seriesPath is within this memtable.
-   *
-   * @return true if seriesPath is within this memtable
-   */
-  private boolean checkPath(String deviceId, String measurement) {
-    return memTableMap.containsKey(deviceId) && memTableMap.get(deviceId).containsKey(measurement);
-  }
-
   private IWritableMemChunk createIfNotExistAndGet(String deviceId, String measurement,
       TSDataType dataType) {
-    if (!memTableMap.containsKey(deviceId)) {
-      memTableMap.put(deviceId, new HashMap<>());
-    }
-    Map<String, IWritableMemChunk> memSeries = memTableMap.get(deviceId);
-    if (!memSeries.containsKey(measurement)) {
-      memSeries.put(measurement, genMemSeries(dataType));
-    }
-    return memSeries.get(measurement);
+    Map<String, IWritableMemChunk> memSeries = memTableMap
+        .computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>());
+    return memSeries.computeIfAbsent(measurement, k -> genMemSeries(dataType));
   }
 
   protected abstract IWritableMemChunk genMemSeries(TSDataType dataType);
 
   @Override
-  public void write(String deviceId, String measurement, TSDataType dataType, long insertTime,
+  public long write(String deviceId, String measurement, TSDataType dataType, long insertTime,
       String insertValue) {
     IWritableMemChunk memSeries = createIfNotExistAndGet(deviceId, measurement, dataType);
-    memSeries.write(insertTime, insertValue);
+    return memSeries.write(insertTime, insertValue);
+  }
+
+  @Override
+  public void write(String deviceId, String measurement, long insertTime,
+      TsPrimitiveType value) {
+    IWritableMemChunk memSeries = createIfNotExistAndGet(deviceId, measurement,
+        value.getDataType());
+    switch (value.getDataType()) {
+      case BOOLEAN:
+        memSeries.putBoolean(insertTime, value.getBoolean());
+        break;
+      case INT32:
+        memSeries.putInt(insertTime, value.getInt());
+        break;
+      case INT64:
+        memSeries.putLong(insertTime, value.getLong());
+        break;
+      case FLOAT:
+        memSeries.putFloat(insertTime, value.getFloat());
+        break;
+      case DOUBLE:
+        memSeries.putDouble(insertTime, value.getDouble());
+        break;
+      case TEXT:
+        memSeries.putBinary(insertTime, value.getBinary());
+        break;
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + value.getDataType());
+    }
   }
 
   @Override
@@ -86,12 +107,23 @@ public abstract class AbstractMemTable implements IMemTable {
     return memTableMap.isEmpty();
   }
 
+  @Override
+  public void delete(String deviceId, String measurement, long upperBound) {
+    Map<String, IWritableMemChunk> memSeries = memTableMap.get(deviceId);
+    IWritableMemChunk memChunk = memSeries == null ? null : memSeries.get(measurement);
+    if (memChunk != null) {
+      memChunk.delete(upperBound);
+    }
+  }
+
   @Override
   public TimeValuePairSorter query(String deviceId, String measurement, TSDataType dataType) {
-    if (!checkPath(deviceId, measurement)) {
+    Map<String, IWritableMemChunk> memSeries = memTableMap.get(deviceId);
+    IWritableMemChunk memChunk = memSeries == null ? null : memSeries.get(measurement);
+    if (memChunk == null) {
       return new WritableMemChunk(dataType);
     }
-    return memTableMap.get(deviceId).get(measurement);
+    return memChunk;
   }
 
 }
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.engine.memtable;
 
 import java.util.Map;
+import org.apache.iotdb.db.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
 /**
@@ -32,11 +33,26 @@ public interface IMemTable {
 
   Map<String, Map<String, IWritableMemChunk>> getMemTableMap();
 
-  void write(String deviceId, String measurement, TSDataType dataType,
+  /**
+   * write a data point.
+   *
+   * @return the bytes allocated by the memtable to hold the data point
+   */
+  long write(String deviceId, String measurement, TSDataType dataType,
       long insertTime, String insertValue);
 
+  /**
+   * write a data point whose value is already typed, e.g. read from another memtable.
+   */
+  void write(String deviceId, String measurement, long insertTime, TsPrimitiveType value);
+
   int size();
 
+  /**
+   * remove the data points of a series whose time is no later than the given time.
+   */
+  void delete(String deviceId, String measurement, long upperBound);
+
   TimeValuePairSorter query(String deviceId, String measurement, TSDataType dataType);
 
   /**
@@ -34,9 +34,19 @@ public interface IWritableMemChunk extends TimeValuePairSorter {
 
   void putBoolean(long t, boolean v);
 
-  void write(long insertTime, String insertValue);
+  /**
+   * write a data point.
+   *
+   * @return the bytes allocated to hold the data point, 0 if it fits in the allocated arrays
+   */
+  long write(long insertTime, String insertValue);
 
   void reset();
 
+  /**
+   * remove the data points whose time is no later than the given time.
+   */
+  void delete(long upperBound);
+
   int count();
 }
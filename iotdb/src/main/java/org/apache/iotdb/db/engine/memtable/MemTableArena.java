@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+/**
+ * The direct memory of an off-heap memtable. The pages of its chunks are cut from slabs of
+ * SLAB_SIZE bytes, and all the slabs are returned in one step when the memtable is cleared after
+ * its flush. Returned slabs are kept for the following memtables up to offHeapMemTableSize, so the
+ * direct memory is not allocated again once the write buffers reach their usual size. A page
+ * larger than a slab is allocated on its own.
+ */
+public class MemTableArena {
+
+  static final int SLAB_SIZE = 1024 * 1024;
+
+  private static final Queue<ByteBuffer> freeSlabs = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger freeSlabNum = new AtomicInteger();
+
+  private List<ByteBuffer> slabs = new ArrayList<>();
+  private ByteBuffer currentSlab;
+
+  /**
+   * allocate a page of direct memory.
+   *
+   * @param size bytes of the page
+   * @return a buffer whose position is 0 and capacity is size
+   */
+  public synchronized ByteBuffer allocate(int size) {
+    if (size > SLAB_SIZE) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+      slabs.add(buffer);
+      return buffer;
+    }
+    if (currentSlab == null || currentSlab.remaining() < size) {
+      currentSlab = takeSlab();
+      slabs.add(currentSlab);
+    }
+    ByteBuffer view = currentSlab.duplicate();
+    view.limit(currentSlab.position() + size);
+    currentSlab.position(currentSlab.position() + size);
+    return view.slice();
+  }
+
+  /**
+   * return all the slabs, the pages allocated before must not be used any more.
+   */
+  public synchronized void release() {
+    for (ByteBuffer slab : slabs) {
+      returnSlab(slab);
+    }
+    slabs.clear();
+    currentSlab = null;
+  }
+
+  /**
+   * bytes of the slabs held by the arena.
+   */
+  public synchronized long getSize() {
+    long size = 0;
+    for (ByteBuffer slab : slabs) {
+      size += slab.capacity();
+    }
+    return size;
+  }
+
+  static int getFreeSlabNum() {
+    return freeSlabNum.get();
+  }
+
+  private static ByteBuffer takeSlab() {
+    ByteBuffer slab = freeSlabs.poll();
+    if (slab == null) {
+      return ByteBuffer.allocateDirect(SLAB_SIZE);
+    }
+    freeSlabNum.decrementAndGet();
+    slab.clear();
+    return slab;
+  }
+
+  private static void returnSlab(ByteBuffer slab) {
+    long maxFreeSlabNum = IoTDBDescriptor.getInstance().getConfig().offHeapMemTableSize
+        / SLAB_SIZE;
+    // the other slabs are freed when they are garbage collected
+    if (slab.capacity() == SLAB_SIZE && freeSlabNum.get() < maxFreeSlabNum) {
+      freeSlabNum.incrementAndGet();
+      freeSlabs.offer(slab);
+    }
+  }
+}
@@ -19,7 +19,16 @@
 package org.apache.iotdb.db.engine.memtable;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.footer.ChunkGroupFooter;
@@ -38,6 +47,8 @@ public class MemTableFlushUtil {
   private static final Logger logger = LoggerFactory.getLogger(MemTableFlushUtil.class);
   private static final int PAGE_SIZE_THRESHOLD = TSFileDescriptor.getInstance()
       .getConfig().pageSizeInByte;
+  private static final int MAX_ENCODED_SERIES_AHEAD = 4 * IoTDBDescriptor.getInstance()
+      .getConfig().concurrentFlushEncodingThread;
 
   private MemTableFlushUtil(){
 
@@ -95,29 +106,94 @@ public class MemTableFlushUtil {
   }
 
   /**
-   * the function for flushing memtable.
+   * sort and encode a series into pages in memory, which can be done by any thread.
+   */
+  private static IChunkWriter encodeSeries(IWritableMemChunk series, MeasurementSchema desc)
+      throws IOException {
+    ChunkBuffer chunkBuffer = new ChunkBuffer(desc);
+    IChunkWriter seriesWriter = new ChunkWriterImpl(desc, chunkBuffer, PAGE_SIZE_THRESHOLD);
+    writeOneSeries(series.getSortedTimeValuePairList(), seriesWriter, desc.getType());
+    seriesWriter.sealCurrentPage();
+    return seriesWriter;
+  }
+
+  /**
+   * the function for flushing memtable. The series are sorted, encoded and compressed in parallel
+   * on the encoding pool, while the calling thread appends the encoded chunks to the file in the
+   * order of chunk groups. At most MAX_ENCODED_SERIES_AHEAD series are encoded ahead of the writer
+   * to bound the memory of encoded chunks.
    */
   public static void flushMemTable(FileSchema fileSchema, TsFileIOWriter tsFileIoWriter,
       IMemTable imemTable)
       throws IOException {
-    for (String deviceId : imemTable.getMemTableMap().keySet()) {
-      long startPos = tsFileIoWriter.getPos();
-      long recordCount = 0;
-      tsFileIoWriter.startFlushChunkGroup(deviceId);
-      int seriesNumber = imemTable.getMemTableMap().get(deviceId).size();
-      for (String measurementId : imemTable.getMemTableMap().get(deviceId).keySet()) {
-        // TODO if we can not use TSFileIO writer, then we have to redesign the class of TSFileIO.
-        IWritableMemChunk series = imemTable.getMemTableMap().get(deviceId).get(measurementId);
-        MeasurementSchema desc = fileSchema.getMeasurementSchema(measurementId);
-        ChunkBuffer chunkBuffer = new ChunkBuffer(desc);
-        IChunkWriter seriesWriter = new ChunkWriterImpl(desc, chunkBuffer, PAGE_SIZE_THRESHOLD);
-        recordCount += writeOneSeries(series.getSortedTimeValuePairList(), seriesWriter,
-            desc.getType());
-        seriesWriter.writeToFileWriter(tsFileIoWriter);
+    List<String> deviceIds = new ArrayList<>();
+    List<List<String>> measurementIdsOfDevices = new ArrayList<>();
+    List<IWritableMemChunk> seriesList = new ArrayList<>();
+    List<MeasurementSchema> schemaList = new ArrayList<>();
+    for (Entry<String, Map<String, IWritableMemChunk>> deviceEntry : imemTable.getMemTableMap()
+        .entrySet()) {
+      List<String> measurementIds = new ArrayList<>();
+      for (Entry<String, IWritableMemChunk> seriesEntry : deviceEntry.getValue().entrySet()) {
+        measurementIds.add(seriesEntry.getKey());
+        seriesList.add(seriesEntry.getValue());
+        schemaList.add(fileSchema.getMeasurementSchema(seriesEntry.getKey()));
+      }
+      deviceIds.add(deviceEntry.getKey());
+      measurementIdsOfDevices.add(measurementIds);
+    }
+
+    List<Future<IChunkWriter>> encodings = new ArrayList<>(seriesList.size());
+    int written = 0;
+    try {
+      for (int i = 0; i < deviceIds.size(); i++) {
+        String deviceId = deviceIds.get(i);
+        int seriesNumber = measurementIdsOfDevices.get(i).size();
+        long startPos = tsFileIoWriter.getPos();
+        tsFileIoWriter.startFlushChunkGroup(deviceId);
+        for (int j = 0; j < seriesNumber; j++) {
+          while (encodings.size() < seriesList.size()
+              && encodings.size() < written + MAX_ENCODED_SERIES_AHEAD) {
+            int index = encodings.size();
+            encodings.add(EncodingPoolHolder.POOL
+                .submit(() -> encodeSeries(seriesList.get(index), schemaList.get(index))));
+          }
+          IChunkWriter seriesWriter = getEncodedSeries(encodings.get(written));
+          // release the encoded chunk once it is written
+          encodings.set(written, null);
+          written++;
+          // TODO if we can not use TSFileIO writer, then we have to redesign the class of TSFileIO.
+          seriesWriter.writeToFileWriter(tsFileIoWriter);
+        }
+        long memSize = tsFileIoWriter.getPos() - startPos;
+        ChunkGroupFooter footer = new ChunkGroupFooter(deviceId, memSize, seriesNumber);
+        tsFileIoWriter.endChunkGroup(footer);
+      }
+    } finally {
+      for (int i = written; i < encodings.size(); i++) {
+        encodings.get(i).cancel(true);
+      }
+    }
+  }
+
+  private static IChunkWriter getEncodedSeries(Future<IChunkWriter> encoding)
+      throws IOException {
+    try {
+      return encoding.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while encoding the memtable", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
       }
-      long memSize = tsFileIoWriter.getPos() - startPos;
-      ChunkGroupFooter footer = new ChunkGroupFooter(deviceId, memSize, seriesNumber);
-      tsFileIoWriter.endChunkGroup(footer);
+      throw new IOException(e.getCause());
     }
   }
+
+  private static class EncodingPoolHolder {
+
+    private static final ForkJoinPool POOL = IoTDBThreadPoolFactory.newForkJoinPool(
+        IoTDBDescriptor.getInstance().getConfig().concurrentFlushEncodingThread,
+        ThreadName.FLUSH_ENCODING_SERVICE.getName());
+  }
 }
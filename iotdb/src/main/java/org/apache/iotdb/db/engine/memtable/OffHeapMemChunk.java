@@ -0,0 +1,224 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.db.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * The data points of a series in an off-heap memtable. The points are appended to pages of direct
+ * memory taken from the arena of the memtable, a point is its time followed by its value, and a
+ * TEXT value is its length followed by its bytes. The pages grow from MIN_PAGE_SIZE to
+ * MAX_PAGE_SIZE, so that a sparse series does not hold much memory. Like {@link
+ * WritableMemChunk}, the methods are synchronized.
+ */
+public class OffHeapMemChunk implements IWritableMemChunk {
+
+  private static final int TIME_SIZE = 8;
+  private static final int MIN_PAGE_SIZE = 256;
+  private static final int MAX_PAGE_SIZE = 64 * 1024;
+
+  private TSDataType dataType;
+  private MemTableArena arena;
+  private List<ByteBuffer> pages = new ArrayList<>();
+  private ByteBuffer currentPage;
+  private int count;
+  /**
+   * bytes of the pages taken from the arena, the pages dropped by delete and reset are not
+   * deducted since the arena frees them only when it is released.
+   */
+  private long memSize;
+
+  public OffHeapMemChunk(TSDataType dataType, MemTableArena arena) {
+    this.dataType = dataType;
+    this.arena = arena;
+  }
+
+  @Override
+  public synchronized long write(long insertTime, String insertValue) {
+    long preMemSize = memSize;
+    switch (dataType) {
+      case BOOLEAN:
+        putBoolean(insertTime, Boolean.valueOf(insertValue));
+        break;
+      case INT32:
+        putInt(insertTime, Integer.valueOf(insertValue));
+        break;
+      case INT64:
+        putLong(insertTime, Long.valueOf(insertValue));
+        break;
+      case FLOAT:
+        putFloat(insertTime, Float.valueOf(insertValue));
+        break;
+      case DOUBLE:
+        putDouble(insertTime, Double.valueOf(insertValue));
+        break;
+      case TEXT:
+        putBinary(insertTime, Binary.valueOf(insertValue));
+        break;
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+    return memSize - preMemSize;
+  }
+
+  /**
+   * get a page with at least size bytes remaining.
+   */
+  private ByteBuffer reserve(int size) {
+    if (currentPage == null || currentPage.remaining() < size) {
+      int pageSize = currentPage == null ? MIN_PAGE_SIZE
+          : Math.min(MAX_PAGE_SIZE, currentPage.capacity() * 2);
+      currentPage = arena.allocate(Math.max(pageSize, size));
+      pages.add(currentPage);
+      memSize += currentPage.capacity();
+    }
+    count++;
+    return currentPage;
+  }
+
+  @Override
+  public synchronized void putLong(long t, long v) {
+    reserve(TIME_SIZE + 8).putLong(t).putLong(v);
+  }
+
+  @Override
+  public synchronized void putInt(long t, int v) {
+    reserve(TIME_SIZE + 4).putLong(t).putInt(v);
+  }
+
+  @Override
+  public synchronized void putFloat(long t, float v) {
+    reserve(TIME_SIZE + 4).putLong(t).putFloat(v);
+  }
+
+  @Override
+  public synchronized void putDouble(long t, double v) {
+    reserve(TIME_SIZE + 8).putLong(t).putDouble(v);
+  }
+
+  @Override
+  public synchronized void putBinary(long t, Binary v) {
+    byte[] bytes = v.getValues();
+    reserve(TIME_SIZE + 4 + bytes.length).putLong(t).putInt(bytes.length).put(bytes);
+  }
+
+  @Override
+  public synchronized void putBoolean(long t, boolean v) {
+    reserve(TIME_SIZE + 1).putLong(t).put(v ? (byte) 1 : (byte) 0);
+  }
+
+  private Object readValue(ByteBuffer page) {
+    switch (dataType) {
+      case BOOLEAN:
+        return page.get() != 0;
+      case INT32:
+        return page.getInt();
+      case INT64:
+        return page.getLong();
+      case FLOAT:
+        return page.getFloat();
+      case DOUBLE:
+        return page.getDouble();
+      case TEXT:
+        byte[] bytes = new byte[page.getInt()];
+        page.get(bytes);
+        return new Binary(bytes);
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+  }
+
+  private void putValue(long t, Object value) {
+    switch (dataType) {
+      case BOOLEAN:
+        putBoolean(t, (Boolean) value);
+        break;
+      case INT32:
+        putInt(t, (Integer) value);
+        break;
+      case INT64:
+        putLong(t, (Long) value);
+        break;
+      case FLOAT:
+        putFloat(t, (Float) value);
+        break;
+      case DOUBLE:
+        putDouble(t, (Double) value);
+        break;
+      case TEXT:
+        putBinary(t, (Binary) value);
+        break;
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+    }
+  }
+
+  /**
+   * read the points of the pages into the map, a later point overwrites an earlier one of the same
+   * time.
+   */
+  private void readPoints(List<ByteBuffer> pageList, TreeMap<Long, Object> points) {
+    for (ByteBuffer page : pageList) {
+      ByteBuffer reader = page.duplicate();
+      reader.flip();
+      while (reader.hasRemaining()) {
+        long time = reader.getLong();
+        points.put(time, readValue(reader));
+      }
+    }
+  }
+
+  @Override
+  public synchronized List<TimeValuePair> getSortedTimeValuePairList() {
+    TreeMap<Long, Object> points = new TreeMap<>();
+    readPoints(pages, points);
+    List<TimeValuePair> ret = new ArrayList<>(points.size());
+    points.forEach((k, v) -> ret
+        .add(new TimeValuePairInMemTable(k, TsPrimitiveType.getByType(dataType, v))));
+    return ret;
+  }
+
+  @Override
+  public synchronized void reset() {
+    pages = new ArrayList<>();
+    currentPage = null;
+    count = 0;
+  }
+
+  @Override
+  public synchronized void delete(long upperBound) {
+    TreeMap<Long, Object> points = new TreeMap<>();
+    readPoints(pages, points);
+    reset();
+    points.tailMap(upperBound, false).forEach(this::putValue);
+  }
+
+  @Override
+  public synchronized int count() {
+    return count;
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * A memtable keeping its data points in direct memory, see {@link OffHeapMemChunk}. The memory is
+ * freed in one step by {@link #clear()}, which is called when the flush of the memtable ends.
+ */
+public class OffHeapMemTable extends AbstractMemTable {
+
+  private MemTableArena arena = new MemTableArena();
+
+  @Override
+  protected IWritableMemChunk genMemSeries(TSDataType dataType) {
+    return new OffHeapMemChunk(dataType, arena);
+  }
+
+  /**
+   * the data points are read from the direct memory when the query begins, since the memtable may
+   * be cleared before the query reads them.
+   */
+  @Override
+  public TimeValuePairSorter query(String deviceId, String measurement, TSDataType dataType) {
+    List<TimeValuePair> sortedList = super.query(deviceId, measurement, dataType)
+        .getSortedTimeValuePairList();
+    return () -> new ArrayList<>(sortedList);
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    arena.release();
+  }
+}
@@ -29,10 +29,18 @@ import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 
+/**
+ * The data points of a series in a memtable. The methods are synchronized, so that a chunk can be
+ * read by queries and flush while it is written.
+ */
 public class WritableMemChunk implements IWritableMemChunk {
 
   private TSDataType dataType;
   private PrimitiveArrayList list;
+  /**
+   * bytes of the chunk returned by write, the arrays dropped by delete are not deducted.
+   */
+  private long reportedMemSize;
 
   public WritableMemChunk(TSDataType dataType) {
     this.dataType = dataType;
@@ -40,7 +48,7 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   @Override
-  public void write(long insertTime, String insertValue) {
+  public synchronized long write(long insertTime, String insertValue) {
     switch (dataType) {
       case BOOLEAN:
         putBoolean(insertTime, Boolean.valueOf(insertValue));
@@ -63,41 +71,47 @@ public class WritableMemChunk implements IWritableMemChunk {
       default:
         throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
     }
+    long allocated = list.getMemSize() - reportedMemSize;
+    if (allocated <= 0) {
+      return 0;
+    }
+    reportedMemSize = list.getMemSize();
+    return allocated;
   }
 
   @Override
-  public void putLong(long t, long v) {
+  public synchronized void putLong(long t, long v) {
     list.putTimestamp(t, v);
   }
 
   @Override
-  public void putInt(long t, int v) {
+  public synchronized void putInt(long t, int v) {
     list.putTimestamp(t, v);
   }
 
   @Override
-  public void putFloat(long t, float v) {
+  public synchronized void putFloat(long t, float v) {
     list.putTimestamp(t, v);
   }
 
   @Override
-  public void putDouble(long t, double v) {
+  public synchronized void putDouble(long t, double v) {
     list.putTimestamp(t, v);
   }
 
   @Override
-  public void putBinary(long t, Binary v) {
+  public synchronized void putBinary(long t, Binary v) {
     list.putTimestamp(t, v);
   }
 
   @Override
-  public void putBoolean(long t, boolean v) {
+  public synchronized void putBoolean(long t, boolean v) {
     list.putTimestamp(t, v);
   }
 
   @Override
   // TODO: Consider using arrays to sort and remove duplicates
-  public List<TimeValuePair> getSortedTimeValuePairList() {
+  public synchronized List<TimeValuePair> getSortedTimeValuePairList() {
     int length = list.size();
     TreeMap<Long, TsPrimitiveType> treeMap = new TreeMap<>();
     for (int i = 0; i < length; i++) {
@@ -111,12 +125,24 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   @Override
-  public void reset() {
+  public synchronized void reset() {
     this.list = PrimitiveArrayListFactory.getByDataType(dataType);
   }
 
   @Override
-  public int count() {
+  public synchronized void delete(long upperBound) {
+    PrimitiveArrayList newList = PrimitiveArrayListFactory.getByDataType(dataType);
+    for (int i = 0; i < list.size(); i++) {
+      long time = list.getTimestamp(i);
+      if (time > upperBound) {
+        newList.putTimestamp(time, list.getValue(i));
+      }
+    }
+    list = newList;
+  }
+
+  @Override
+  public synchronized int count() {
     return list.size();
   }
 
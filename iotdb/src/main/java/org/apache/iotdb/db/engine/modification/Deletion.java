@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification;
+
+import java.util.Objects;
+
+/**
+ * A deletion of the data of a series no later than a timestamp. A deletion recorded for a file
+ * only takes effect on the chunks written before the file reached fileOffset, so the data written
+ * into the file after the deletion are not deleted.
+ */
+public class Deletion {
+
+  private final String path;
+  private final long timestamp;
+  private final long fileOffset;
+
+  /**
+   * @param path the full path of the series
+   * @param timestamp data no later than this time are deleted
+   * @param fileOffset the deletion takes effect on the chunks before this offset, Long.MAX_VALUE
+   * for all the chunks of the file
+   */
+  public Deletion(String path, long timestamp, long fileOffset) {
+    this.path = path;
+    this.timestamp = timestamp;
+    this.fileOffset = fileOffset;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public long getFileOffset() {
+    return fileOffset;
+  }
+
+  /**
+   * whether the deletion takes effect on the chunk of the series starting at the offset.
+   */
+  public boolean covers(String seriesPath, long chunkOffset) {
+    return chunkOffset < fileOffset && path.equals(seriesPath);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Deletion)) {
+      return false;
+    }
+    Deletion deletion = (Deletion) o;
+    return timestamp == deletion.timestamp && fileOffset == deletion.fileOffset
+        && path.equals(deletion.path);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path, timestamp, fileOffset);
+  }
+
+  @Override
+  public String toString() {
+    return "Deletion{path=" + path + ", timestamp=" + timestamp + ", fileOffset=" + fileOffset
+        + "}";
+  }
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The modifications of a data file, stored beside the file as {@code <file>.mods}. Deleting data
+ * appends a record to this file instead of rewriting the data file, and the records are applied to
+ * the chunks when the data file is read. The records are loaded once and kept in memory.
+ *
+ * <p>Each record is a line of {@code <path>,<timestamp>,<fileOffset>}. A torn last line left by a
+ * crash is ignored.
+ */
+public class ModificationFile {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ModificationFile.class);
+  public static final String FILE_SUFFIX = ".mods";
+  private static final String SEPARATOR = ",";
+
+  private final String filePath;
+  private List<Deletion> deletions;
+
+  /**
+   * @param dataFilePath the path of the data file, whose modifications are stored in
+   * {@code dataFilePath + FILE_SUFFIX}
+   */
+  public ModificationFile(String dataFilePath) {
+    this.filePath = dataFilePath + FILE_SUFFIX;
+  }
+
+  public String getFilePath() {
+    return filePath;
+  }
+
+  /**
+   * append a deletion to the file. A deletion which is already in the file, e.g. when a logged
+   * deletion is replayed after a restart, is not appended again.
+   *
+   * @return false if the deletion is already in the file
+   */
+  public synchronized boolean write(Deletion deletion) throws IOException {
+    loadDeletions();
+    if (deletions.contains(deletion)) {
+      return false;
+    }
+    String line = deletion.getPath() + SEPARATOR + deletion.getTimestamp() + SEPARATOR
+        + deletion.getFileOffset() + System.lineSeparator();
+    try (FileOutputStream out = new FileOutputStream(filePath, true)) {
+      out.write(line.getBytes(StandardCharsets.UTF_8));
+      out.getFD().sync();
+    }
+    deletions.add(deletion);
+    return true;
+  }
+
+  /**
+   * get the deletions of the file, in the order they are written.
+   */
+  public synchronized List<Deletion> getDeletions() throws IOException {
+    loadDeletions();
+    return new ArrayList<>(deletions);
+  }
+
+  /**
+   * get the latest time of the deletions of a series which take effect on all the chunks of the
+   * file.
+   *
+   * @return Long.MIN_VALUE if no such deletion
+   */
+  public synchronized long getDeletedTime(String seriesPath) throws IOException {
+    loadDeletions();
+    long deletedTime = Long.MIN_VALUE;
+    for (Deletion deletion : deletions) {
+      if (deletion.getFileOffset() == Long.MAX_VALUE && deletion.getPath().equals(seriesPath)) {
+        deletedTime = Math.max(deletedTime, deletion.getTimestamp());
+      }
+    }
+    return deletedTime;
+  }
+
+  /**
+   * set the tombstones of the chunks of a series read from the data file by the deletions, so the
+   * deleted data are not read. The tombstone of a chunk is never lowered.
+   *
+   * @param seriesPath the full path of the series
+   * @param chunkMetaDataList the chunks of the series in the data file
+   */
+  public void applyTo(String seriesPath, List<ChunkMetaData> chunkMetaDataList)
+      throws IOException {
+    List<Deletion> deletionList = getDeletions();
+    if (deletionList.isEmpty() || chunkMetaDataList == null) {
+      return;
+    }
+    for (ChunkMetaData chunkMetaData : chunkMetaDataList) {
+      long tombstone = chunkMetaData.getMaxTombstoneTime();
+      for (Deletion deletion : deletionList) {
+        if (deletion.covers(seriesPath, chunkMetaData.getOffsetOfChunkHeader())) {
+          tombstone = Math.max(tombstone, deletion.getTimestamp());
+        }
+      }
+      chunkMetaData.setMaxTombstoneTime(tombstone);
+    }
+  }
+
+  /**
+   * raise the tombstones of the chunks to the given time, data no later than it are not read.
+   */
+  public static void applyTombstone(List<ChunkMetaData> chunkMetaDataList, long tombstoneTime) {
+    if (tombstoneTime == Long.MIN_VALUE || chunkMetaDataList == null) {
+      return;
+    }
+    for (ChunkMetaData chunkMetaData : chunkMetaDataList) {
+      if (chunkMetaData.getMaxTombstoneTime() < tombstoneTime) {
+        chunkMetaData.setMaxTombstoneTime(tombstoneTime);
+      }
+    }
+  }
+
+  private void loadDeletions() throws IOException {
+    if (deletions != null) {
+      return;
+    }
+    List<Deletion> loaded = new ArrayList<>();
+    File file = new File(filePath);
+    if (file.exists()) {
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          Deletion deletion = parse(line);
+          if (deletion == null) {
+            LOGGER.warn("Ignore the malformed modification {} in {}.", line, filePath);
+          } else {
+            loaded.add(deletion);
+          }
+        }
+      }
+    }
+    deletions = loaded;
+  }
+
+  private static Deletion parse(String line) {
+    int offsetSeparator = line.lastIndexOf(SEPARATOR);
+    int timeSeparator =
+        offsetSeparator <= 0 ? -1 : line.lastIndexOf(SEPARATOR, offsetSeparator - 1);
+    if (timeSeparator <= 0) {
+      return null;
+    }
+    try {
+      return new Deletion(line.substring(0, timeSeparator),
+          Long.parseLong(line.substring(timeSeparator + 1, offsetSeparator)),
+          Long.parseLong(line.substring(offsetSeparator + 1)));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
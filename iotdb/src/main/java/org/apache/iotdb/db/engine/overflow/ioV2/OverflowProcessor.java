@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -38,7 +39,8 @@ import org.apache.iotdb.db.engine.bufferwrite.FileNodeConstants;
 import org.apache.iotdb.db.engine.filenode.FileNodeManager;
 import org.apache.iotdb.db.engine.memcontrol.BasicMemController;
 import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
-import org.apache.iotdb.db.engine.memtable.TimeValuePairSorter;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.pool.FlushManager;
 import org.apache.iotdb.db.engine.querycontext.MergeSeriesDataSource;
 import org.apache.iotdb.db.engine.querycontext.OverflowInsertFile;
@@ -46,6 +48,8 @@ import org.apache.iotdb.db.engine.querycontext.OverflowSeriesDataSource;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.utils.FlushStatus;
 import org.apache.iotdb.db.exception.OverflowProcessorException;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
 import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
@@ -87,6 +91,14 @@ public class OverflowProcessor extends Processor {
 
   private long memThreshold = TsFileConf.groupSizeInByte;
   private AtomicLong memSize = new AtomicLong();
+  /**
+   * bytes of the flushing memtable, which are reported free when the flush ends.
+   */
+  private long flushingMemSize;
+  /**
+   * time of the first insertion into the working memtable, -1 if nothing is inserted.
+   */
+  private volatile long memTableStartTime = -1;
 
   private WriteLogNode logNode;
 
@@ -122,23 +134,31 @@ public class OverflowProcessor extends Processor {
 
   private void recovery(File parentFile) throws IOException {
     String[] subFilePaths = clearFile(parentFile.list());
-    if (subFilePaths.length == 0) {
+    // the newest directory is the work directory and the one before it may be the merge directory
+    long[] counts = new long[subFilePaths.length];
+    for (int i = 0; i < subFilePaths.length; i++) {
+      counts[i] = Long.parseLong(subFilePaths[i]);
+    }
+    Arrays.sort(counts);
+    // older directories are merged ones whose deletion was deferred for queries before restart
+    for (int i = 0; i < counts.length - 2; i++) {
+      File staleDir = new File(parentFile, String.valueOf(counts[i]));
+      LOGGER.info("The overflow processor {} deletes the merged directory {} left by restart.",
+          getProcessorName(), staleDir);
+      FileUtils.forceDelete(staleDir);
+    }
+    if (counts.length == 0) {
       workResource = new OverflowResource(parentPath,
           String.valueOf(dataPahtCount.getAndIncrement()));
       return;
-    } else if (subFilePaths.length == 1) {
-      long count = Long.valueOf(subFilePaths[0]);
+    } else if (counts.length == 1) {
+      long count = counts[0];
       dataPahtCount.addAndGet(count + 1);
       workResource = new OverflowResource(parentPath, String.valueOf(count));
       LOGGER.info("The overflow processor {} recover from work status.", getProcessorName());
     } else {
-      long count1 = Long.valueOf(subFilePaths[0]);
-      long count2 = Long.valueOf(subFilePaths[1]);
-      if (count1 > count2) {
-        long temp = count1;
-        count1 = count2;
-        count2 = temp;
-      }
+      long count1 = counts[counts.length - 2];
+      long count2 = counts[counts.length - 1];
       dataPahtCount.addAndGet(count2 + 1);
       // work dir > merge dir
       workResource = new OverflowResource(parentPath, String.valueOf(count2));
@@ -169,11 +189,13 @@ public class OverflowProcessor extends Processor {
    * @throws IOException
    */
   public void insert(TSRecord tsRecord) throws IOException {
+    // write data
+    long memUage = workSupport.insert(tsRecord);
     // memory control
-    long memUage = MemUtils.getRecordSize(tsRecord);
     BasicMemController.getInstance().reportUse(this, memUage);
-    // write data
-    workSupport.insert(tsRecord);
+    if (memTableStartTime < 0) {
+      memTableStartTime = System.currentTimeMillis();
+    }
     valueCount++;
     // check flush
     memUage = memSize.addAndGet(memUage);
@@ -226,17 +248,30 @@ public class OverflowProcessor extends Processor {
   }
 
   /**
-   * delete one time-series data which time range is from 0 to time-stamp.
+   * delete the data of a series no later than the timestamp. The data in the working memtable are
+   * removed at once. The deletion is recorded in the modification files of the overflow files and
+   * applied when they are read, it takes effect on the chunks of the working file flushed before
+   * and on all the chunks of the file being merged. The flushing memtable is waited for, so that
+   * its data are in the chunks covered by the deletion.
    *
-   * @param deviceId
-   * @param measurementId
-   * @param timestamp
-   * @param type
+   * @param deviceId device id
+   * @param measurementId sensor id
+   * @param timestamp data no later than this time are deleted
    */
-  @Deprecated
-  public void delete(String deviceId, String measurementId, long timestamp, TSDataType type) {
-    workSupport.delete(deviceId, measurementId, timestamp, type);
-    valueCount++;
+  public void delete(String deviceId, String measurementId, long timestamp) throws IOException {
+    waitForFlushEnd();
+    queryFlushLock.lock();
+    try {
+      workSupport.delete(deviceId, measurementId, timestamp);
+    } finally {
+      queryFlushLock.unlock();
+    }
+    String seriesPath = deviceId + "." + measurementId;
+    workResource.getModFile()
+        .write(new Deletion(seriesPath, timestamp, workResource.getInsertFilePosition()));
+    if (mergeResource != null) {
+      mergeResource.getModFile().write(new Deletion(seriesPath, timestamp, Long.MAX_VALUE));
+    }
   }
 
   /**
@@ -253,17 +288,28 @@ public class OverflowProcessor extends Processor {
   public OverflowSeriesDataSource query(String deviceId, String measurementId, Filter filter,
       TSDataType dataType)
       throws IOException {
+    return query(deviceId, measurementId, filter, dataType, Long.MIN_VALUE);
+  }
+
+  /**
+   * query all overflow data of a series, the data no later than expiredTime are not read.
+   */
+  public OverflowSeriesDataSource query(String deviceId, String measurementId, Filter filter,
+      TSDataType dataType, long expiredTime)
+      throws IOException {
     queryFlushLock.lock();
     try {
       // query insert data in memory and unseqTsFiles
       // memory
-      TimeValuePairSorter insertInMem = queryOverflowInsertInMemory(deviceId, measurementId,
+      ReadOnlyMemChunk insertInMem = queryOverflowInsertInMemory(deviceId, measurementId,
           dataType);
+      insertInMem.setMaxTombstoneTime(expiredTime);
       List<OverflowInsertFile> overflowInsertFileList = new ArrayList<>();
       // work file
       Pair<String, List<ChunkMetaData>> insertInDiskWork = queryWorkDataInOverflowInsert(deviceId,
           measurementId,
           dataType);
+      ModificationFile.applyTombstone(insertInDiskWork.right, expiredTime);
       if (insertInDiskWork.left != null) {
         overflowInsertFileList
             .add(0, new OverflowInsertFile(insertInDiskWork.left, insertInDiskWork.right));
@@ -271,6 +317,7 @@ public class OverflowProcessor extends Processor {
       // merge file
       Pair<String, List<ChunkMetaData>> insertInDiskMerge = queryMergeDataInOverflowInsert(deviceId,
           measurementId, dataType);
+      ModificationFile.applyTombstone(insertInDiskMerge.right, expiredTime);
       if (insertInDiskMerge.left != null) {
         overflowInsertFileList
             .add(0, new OverflowInsertFile(insertInDiskMerge.left, insertInDiskMerge.right));
@@ -291,7 +338,7 @@ public class OverflowProcessor extends Processor {
    * @param dataType
    * @return insert data in SeriesChunkInMemTable
    */
-  private TimeValuePairSorter queryOverflowInsertInMemory(String deviceId, String measurementId,
+  private ReadOnlyMemChunk queryOverflowInsertInMemory(String deviceId, String measurementId,
       TSDataType dataType) {
 
     MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger();
@@ -315,10 +362,11 @@ public class OverflowProcessor extends Processor {
    */
   private Pair<String, List<ChunkMetaData>> queryWorkDataInOverflowInsert(String deviceId,
       String measurementId,
-      TSDataType dataType) {
+      TSDataType dataType) throws IOException {
     Pair<String, List<ChunkMetaData>> pair = new Pair<String, List<ChunkMetaData>>(
         workResource.getInsertFilePath(),
         workResource.getInsertMetadatas(deviceId, measurementId, dataType));
+    workResource.getModFile().applyTo(deviceId + "." + measurementId, pair.right);
     return pair;
   }
 
@@ -331,7 +379,7 @@ public class OverflowProcessor extends Processor {
    * @return MergeSeriesDataSource
    */
   public MergeSeriesDataSource queryMerge(String deviceId, String measurementId,
-      TSDataType dataType) {
+      TSDataType dataType) throws IOException {
     Pair<String, List<ChunkMetaData>> mergeInsert = queryMergeDataInOverflowInsert(deviceId,
         measurementId,
         dataType);
@@ -340,7 +388,7 @@ public class OverflowProcessor extends Processor {
 
   public OverflowSeriesDataSource queryMerge(String deviceId, String measurementId,
       TSDataType dataType,
-      boolean isMerge) {
+      boolean isMerge) throws IOException {
     Pair<String, List<ChunkMetaData>> mergeInsert = queryMergeDataInOverflowInsert(deviceId,
         measurementId,
         dataType);
@@ -363,13 +411,14 @@ public class OverflowProcessor extends Processor {
    */
   private Pair<String, List<ChunkMetaData>> queryMergeDataInOverflowInsert(String deviceId,
       String measurementId,
-      TSDataType dataType) {
+      TSDataType dataType) throws IOException {
     if (!isMerge) {
       return new Pair<String, List<ChunkMetaData>>(null, null);
     }
     Pair<String, List<ChunkMetaData>> pair = new Pair<String, List<ChunkMetaData>>(
         mergeResource.getInsertFilePath(),
         mergeResource.getInsertMetadatas(deviceId, measurementId, dataType));
+    mergeResource.getModFile().applyTo(deviceId + "." + measurementId, pair.right);
     return pair;
   }
 
@@ -405,14 +454,23 @@ public class OverflowProcessor extends Processor {
     LOGGER.info("The overflow processor {} switch from WORK to MERGE", getProcessorName());
   }
 
-  public void switchMergeToWork() throws IOException {
+  /**
+   * switch from merge to work. The merged overflow files are closed but not deleted, because
+   * queries which began before the switch may still read them.
+   *
+   * @return the directory of the merged overflow files, which the caller deletes after these
+   * queries end, or null if there are no merged overflow files
+   */
+  public File switchMergeToWork() throws IOException {
+    File mergedDir = null;
     if (mergeResource != null) {
       mergeResource.close();
-      mergeResource.deleteResource();
+      mergedDir = mergeResource.getResourceDir();
       mergeResource = null;
     }
     isMerge = false;
     LOGGER.info("The overflow processor {} switch from MERGE to WORK", getProcessorName());
+    return mergedDir;
   }
 
   public boolean isMerge() {
@@ -427,6 +485,7 @@ public class OverflowProcessor extends Processor {
 
   private void flushOperation(String flushFunction) {
     long flushStartTime = System.currentTimeMillis();
+    long startTime = System.nanoTime();
     try {
       LOGGER
           .info("The overflow processor {} starts flushing {}.", getProcessorName(), flushFunction);
@@ -450,10 +509,15 @@ public class OverflowProcessor extends Processor {
         flushStatus.setUnFlushing();
         // switch from flush to work.
         switchFlushToWork();
+        if (flushingMemSize > 0) {
+          BasicMemController.getInstance().reportFree(this, flushingMemSize);
+          flushingMemSize = 0;
+        }
         flushStatus.notifyAll();
       }
     }
     // log flush time
+    Metrics.getInstance().recordLatency(Metric.FLUSH_LATENCY, startTime);
     LOGGER.info("The overflow processor {} ends flushing {}.", getProcessorName(), flushFunction);
     long flushEndTime = System.currentTimeMillis();
     long timeInterval = flushEndTime - flushStartTime;
@@ -481,15 +545,7 @@ public class OverflowProcessor extends Processor {
     lastFlushTime = System.currentTimeMillis();
     // value count
     if (valueCount > 0) {
-      synchronized (flushStatus) {
-        while (flushStatus.isFlushing()) {
-          try {
-            flushStatus.wait();
-          } catch (InterruptedException e) {
-            LOGGER.error("Waiting the flushstate error in flush row group to store.", e);
-          }
-        }
-      }
+      waitForFlushEnd();
       try {
         // backup newIntervalFile list and emptyIntervalFileNode
         overflowFlushAction.act();
@@ -506,8 +562,9 @@ public class OverflowProcessor extends Processor {
               getProcessorName(), e.getMessage());
         }
       }
-      BasicMemController.getInstance().reportFree(this, memSize.get());
-      memSize.set(0);
+      // the memory of the memtable is freed when the flush ends
+      flushingMemSize = memSize.getAndSet(0);
+      memTableStartTime = -1;
       valueCount = 0;
       // switch from work to flush
       flushStatus.setFlushing();
@@ -525,6 +582,18 @@ public class OverflowProcessor extends Processor {
     return null;
   }
 
+  private void waitForFlushEnd() {
+    synchronized (flushStatus) {
+      while (flushStatus.isFlushing()) {
+        try {
+          flushStatus.wait();
+        } catch (InterruptedException e) {
+          LOGGER.error("Waiting the flushstate error in flush row group to store.", e);
+        }
+      }
+    }
+  }
+
   @Override
   public boolean flush() throws IOException {
     try {
@@ -574,6 +643,15 @@ public class OverflowProcessor extends Processor {
     return memSize.get();
   }
 
+  /**
+   * time of the first insertion into the working memtable.
+   *
+   * @return -1 if nothing is inserted since the last flush
+   */
+  public long getMemTableStartTime() {
+    return memTableStartTime;
+  }
+
   public String getOverflowRestoreFile() {
     return workResource.getPositionFilePath();
   }
@@ -30,6 +30,7 @@ import java.util.Map;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.MemTableFlushUtil;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
@@ -58,6 +59,7 @@ public class OverflowResource {
   private OverflowIO insertIO;
   private Map<String, Map<String, List<ChunkMetaData>>> insertMetadatas;
   private List<ChunkGroupMetaData> appendInsertMetadatas;
+  private ModificationFile modFile;
 
   public OverflowResource(String parentPath, String dataPath) throws IOException {
     this.insertMetadatas = new HashMap<>();
@@ -70,6 +72,7 @@ public class OverflowResource {
     }
     insertFile = new File(dataFile, INSERT_FILE_NAME);
     insertFilePath = insertFile.getPath();
+    modFile = new ModificationFile(insertFilePath);
     updateFile = new File(dataFile, UPDATE_DELETE_FILE_NAME);
     positionFilePath = new File(dataFile, POSITION_FILE_NAME).getPath();
     Pair<Long, Long> position = readPositionInfo();
@@ -227,6 +230,20 @@ public class OverflowResource {
     return insertFilePath;
   }
 
+  /**
+   * get the modifications of the insert file.
+   */
+  public ModificationFile getModFile() {
+    return modFile;
+  }
+
+  /**
+   * get the position of the insert file, the chunks flushed are all before it.
+   */
+  public long getInsertFilePosition() throws IOException {
+    return insertIO.getPos();
+  }
+
   public File getInsertFile() {
     return insertFile;
   }
@@ -248,7 +265,14 @@ public class OverflowResource {
 
   public void deleteResource() throws IOException {
     // cleanDir(new File(parentPath, dataPath).getPath());
-    FileUtils.forceDelete(new File(parentPath, dataPath));
+    FileUtils.forceDelete(getResourceDir());
+  }
+
+  /**
+   * get the directory holding the files of this resource.
+   */
+  public File getResourceDir() {
+    return new File(parentPath, dataPath);
   }
 
   private void cleanDir(String dir) throws IOException {
@@ -21,7 +21,7 @@ package org.apache.iotdb.db.engine.overflow.ioV2;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
-import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
+import org.apache.iotdb.db.engine.memtable.MemTableFactory;
 import org.apache.iotdb.db.engine.memtable.TimeValuePairSorter;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -46,15 +46,21 @@ public class OverflowSupport {
 
   public OverflowSupport() {
     indexTrees = new HashMap<>();
-    memTable = new PrimitiveMemTable();
+    memTable = MemTableFactory.create();
   }
 
-  public void insert(TSRecord tsRecord) {
+  /**
+   * insert a record into the memtable.
+   *
+   * @return the bytes allocated by the memtable to hold the record
+   */
+  public long insert(TSRecord tsRecord) {
+    long memSize = 0;
     for (DataPoint dataPoint : tsRecord.dataPointList) {
-      memTable.write(tsRecord.deviceId, dataPoint.getMeasurementId(), dataPoint.getType(),
-          tsRecord.time,
-          dataPoint.getValue().toString());
+      memSize += memTable.write(tsRecord.deviceId, dataPoint.getMeasurementId(),
+          dataPoint.getType(), tsRecord.time, dataPoint.getValue().toString());
     }
+    return memSize;
   }
 
   @Deprecated
@@ -70,15 +76,11 @@ public class OverflowSupport {
     indexTrees.get(deviceId).get(measurementId).update(startTime, endTime, value);
   }
 
-  @Deprecated
-  public void delete(String deviceId, String measurementId, long timestamp, TSDataType dataType) {
-    if (!indexTrees.containsKey(deviceId)) {
-      indexTrees.put(deviceId, new HashMap<>());
-    }
-    if (!indexTrees.get(deviceId).containsKey(measurementId)) {
-      indexTrees.get(deviceId).put(measurementId, new OverflowSeriesImpl(measurementId, dataType));
-    }
-    indexTrees.get(deviceId).get(measurementId).delete(timestamp);
+  /**
+   * remove the inserted data of a series no later than the timestamp.
+   */
+  public void delete(String deviceId, String measurementId, long timestamp) {
+    memTable.delete(deviceId, measurementId, timestamp);
   }
 
   public TimeValuePairSorter queryOverflowInsertInMemory(String deviceId, String measurementId,
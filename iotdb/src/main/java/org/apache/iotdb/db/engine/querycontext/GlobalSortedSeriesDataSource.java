@@ -36,6 +36,9 @@ public class GlobalSortedSeriesDataSource {
   // seq mem-table
   private TimeValuePairSorter readableChunk;
 
+  // data no later than this time are expired by the TTL of the storage group
+  private long expiredTime = Long.MIN_VALUE;
+
   public GlobalSortedSeriesDataSource(Path seriesPath, List<IntervalFileNode> sealedTsFiles,
       UnsealedTsFile unsealedTsFile,
       TimeValuePairSorter readableChunk) {
@@ -82,6 +85,14 @@ public class GlobalSortedSeriesDataSource {
     this.readableChunk = readableChunk;
   }
 
+  public long getExpiredTime() {
+    return expiredTime;
+  }
+
+  public void setExpiredTime(long expiredTime) {
+    this.expiredTime = expiredTime;
+  }
+
   public Path getSeriesPath() {
     return seriesPath;
   }
@@ -34,6 +34,10 @@ public class ReadOnlyMemChunk implements TimeValuePairSorter {
   private TSDataType dataType;
   private TimeValuePairSorter memSeries;
   private List<TimeValuePair> sortedTimeValuePairList;
+  /**
+   * data no later than this time are not read.
+   */
+  private long maxTombstoneTime = Long.MIN_VALUE;
 
   /**
    * init by TSDataType and TimeValuePairSorter.
@@ -52,9 +56,25 @@ public class ReadOnlyMemChunk implements TimeValuePairSorter {
 
   private void init() {
     sortedTimeValuePairList = memSeries.getSortedTimeValuePairList();
+    if (maxTombstoneTime != Long.MIN_VALUE) {
+      int firstRemaining = 0;
+      while (firstRemaining < sortedTimeValuePairList.size()
+          && sortedTimeValuePairList.get(firstRemaining).getTimestamp() <= maxTombstoneTime) {
+        firstRemaining++;
+      }
+      sortedTimeValuePairList = sortedTimeValuePairList
+          .subList(firstRemaining, sortedTimeValuePairList.size());
+    }
     initialized = true;
   }
 
+  /**
+   * hide the data no later than the given time, called before the chunk is read.
+   */
+  public void setMaxTombstoneTime(long maxTombstoneTime) {
+    this.maxTombstoneTime = maxTombstoneTime;
+  }
+
   /**
    * only for test now.
    */
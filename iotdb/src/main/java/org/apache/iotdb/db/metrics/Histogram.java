@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values in the style of HdrHistogram. Each power of
+ * two range of values is split into {@link #SUB_BUCKET_NUM} linear buckets, so a percentile is
+ * reported with a relative error below 1 / {@link #SUB_BUCKET_NUM} while the whole long range
+ * takes only a few hundred counters. Recording a value takes a few atomic additions and never
+ * blocks, so it can be called on the write and query paths.
+ */
+public class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKET_NUM = 1 << SUB_BUCKET_BITS;
+  static final int BUCKET_NUM = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_NUM;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_NUM);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * record a value, a negative value is recorded as 0.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(bucketIndex(value));
+    count.increment();
+    sum.add(value);
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long currentCount = getCount();
+    return currentCount == 0 ? 0 : (double) getSum() / currentCount;
+  }
+
+  /**
+   * get the value below which the given percent of the recorded values fall. The values recorded
+   * concurrently may or may not be counted.
+   *
+   * @param percentile in [0, 100]
+   * @return the upper bound of the bucket holding the percentile, 0 if no value is recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    long[] snapshot = new long[BUCKET_NUM];
+    long total = 0;
+    for (int i = 0; i < BUCKET_NUM; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+    long accumulated = 0;
+    for (int i = 0; i < BUCKET_NUM; i++) {
+      accumulated += snapshot[i];
+      if (accumulated >= rank) {
+        return Math.min(bucketUpperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_NUM) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) & (SUB_BUCKET_NUM - 1);
+    return (shift + 1) * SUB_BUCKET_NUM + subBucket;
+  }
+
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_NUM) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_NUM - 1;
+    return (long) (SUB_BUCKET_NUM + index % SUB_BUCKET_NUM) << shift;
+  }
+
+  static long bucketUpperBound(int index) {
+    return index == BUCKET_NUM - 1 ? Long.MAX_VALUE : bucketLowerBound(index + 1) - 1;
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metrics;
+
+/**
+ * The histograms kept by {@link Metrics}. Latencies are recorded in microseconds and sizes in
+ * bytes.
+ */
+public enum Metric {
+  INSERT_LATENCY("insert_latency", Metric.MICROSECONDS,
+      "the whole insertion of a record into the storage engine"),
+  INSERT_SCHEMA_LATENCY("insert_schema_latency", Metric.MICROSECONDS,
+      "looking up the schema of an inserted record and parsing its values"),
+  INSERT_WAL_LATENCY("insert_wal_latency", Metric.MICROSECONDS,
+      "writing an inserted record to the write-ahead log"),
+  INSERT_MEMTABLE_LATENCY("insert_memtable_latency", Metric.MICROSECONDS,
+      "writing an inserted record into the memtable"),
+  WRITE_DELAY("write_delay", Metric.MICROSECONDS,
+      "the time an insertion is held back because the write buffers are filling up"),
+  WAL_FSYNC_LATENCY("wal_fsync_latency", Metric.MICROSECONDS,
+      "forcing a write-ahead log file to the disk"),
+  FLUSH_LATENCY("flush_latency", Metric.MICROSECONDS,
+      "flushing a memtable of a bufferwrite or overflow processor"),
+  FLUSH_SIZE("flush_size", Metric.BYTES,
+      "the data a bufferwrite memtable flush writes into the tsfile"),
+  MERGE_LATENCY("merge_latency", Metric.MICROSECONDS,
+      "merging the overflow data of a filenode processor"),
+  MERGE_SIZE("merge_size", Metric.BYTES,
+      "the tsfiles written by a merge"),
+  QUERY_WITHOUT_FILTER_LATENCY("query_without_filter_latency", Metric.MICROSECONDS,
+      "a query without filter, from its first fetch to its end"),
+  QUERY_GLOBAL_TIME_FILTER_LATENCY("query_global_time_filter_latency", Metric.MICROSECONDS,
+      "a query with a global time filter, from its first fetch to its end"),
+  QUERY_TIME_GENERATOR_LATENCY("query_time_generator_latency", Metric.MICROSECONDS,
+      "a query with a value filter, from its first fetch to its end"),
+  QUERY_QUEUE_TIME("query_queue_time", Metric.MICROSECONDS,
+      "the time a query task of a jdbc request waits in the queues of the query scheduler");
+
+  private static final String MICROSECONDS = "us";
+  private static final String BYTES = "bytes";
+
+  private final String name;
+  private final String unit;
+  private final String description;
+
+  Metric(String name, String unit, String description) {
+    this.name = name;
+    this.unit = unit;
+    this.description = description;
+  }
+
+  /**
+   * the name of the metric in the text format, e.g. iotdb_insert_latency_us.
+   */
+  public String getName() {
+    return "iotdb_" + name + "_" + unit;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+}
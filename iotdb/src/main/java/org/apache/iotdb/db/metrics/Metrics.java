@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.engine.cache.RowGroupBlockMetaDataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
+import org.apache.iotdb.db.query.control.QueryContextManager;
+import org.apache.iotdb.db.query.control.QueryScheduler;
+
+/**
+ * Singleton pattern, to keep the histograms of the hot paths of IoTDB. The hot paths record into
+ * the histograms directly, and the histograms and the gauges of the caches and queries are
+ * published by {@link MetricsService}.
+ */
+public class Metrics {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final Map<Metric, Histogram> histograms = new EnumMap<>(Metric.class);
+
+  private Metrics() {
+    for (Metric metric : Metric.values()) {
+      histograms.put(metric, new Histogram());
+    }
+  }
+
+  public static Metrics getInstance() {
+    return MetricsHolder.INSTANCE;
+  }
+
+  public void record(Metric metric, long value) {
+    histograms.get(metric).record(value);
+  }
+
+  /**
+   * record the time elapsed since the start time.
+   *
+   * @param startTime the start time from {@link System#nanoTime()}
+   */
+  public void recordLatency(Metric metric, long startTime) {
+    histograms.get(metric).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+  }
+
+  public Histogram getHistogram(Metric metric) {
+    return histograms.get(metric);
+  }
+
+  /**
+   * write all the metrics in the plain text exposition format, which can be scraped by Prometheus.
+   */
+  public String toText() {
+    StringBuilder builder = new StringBuilder();
+    for (Metric metric : Metric.values()) {
+      Histogram histogram = histograms.get(metric);
+      String name = metric.getName();
+      builder.append("# HELP ").append(name).append(' ').append(metric.getDescription())
+          .append('\n');
+      builder.append("# TYPE ").append(name).append(" summary\n");
+      for (double percentile : PERCENTILES) {
+        builder.append(name).append("{quantile=\"").append(percentile / 100).append("\"} ")
+            .append(histogram.getValueAtPercentile(percentile)).append('\n');
+      }
+      builder.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+      builder.append(name).append("_count ").append(histogram.getCount()).append('\n');
+      // a summary has no max sample, so the max is a family of its own
+      builder.append("# TYPE ").append(name).append("_max gauge\n");
+      appendGauge(builder, name + "_max", histogram.getMax());
+    }
+
+    builder.append("# TYPE iotdb_cache_requests counter\n");
+    appendGauge(builder, "iotdb_cache_requests{cache=\"tsfile_metadata\"}",
+        TsFileMetaDataCache.getInstance().getCacheRequestNum());
+    appendGauge(builder, "iotdb_cache_requests{cache=\"device_metadata\"}",
+        RowGroupBlockMetaDataCache.getInstance().getCacheRequestNum());
+    builder.append("# TYPE iotdb_cache_hits counter\n");
+    appendGauge(builder, "iotdb_cache_hits{cache=\"tsfile_metadata\"}",
+        TsFileMetaDataCache.getInstance().getCacheHitNum());
+    appendGauge(builder, "iotdb_cache_hits{cache=\"device_metadata\"}",
+        RowGroupBlockMetaDataCache.getInstance().getCacheHitNum());
+
+    builder.append("# TYPE iotdb_running_queries gauge\n");
+    appendGauge(builder, "iotdb_running_queries",
+        QueryContextManager.getInstance().getRunningQueryNum());
+    builder.append("# TYPE iotdb_running_query_tasks gauge\n");
+    appendGauge(builder, "iotdb_running_query_tasks",
+        QueryScheduler.getInstance().getRunningTaskNum());
+    builder.append("# TYPE iotdb_waiting_query_tasks gauge\n");
+    appendGauge(builder, "iotdb_waiting_query_tasks",
+        QueryScheduler.getInstance().getWaitingTaskNum());
+    return builder.toString();
+  }
+
+  private static void appendGauge(StringBuilder builder, String name, long value) {
+    builder.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static class MetricsHolder {
+    private static final Metrics INSTANCE = new Metrics();
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publish the {@link Metrics} via JMX, and via a plain text endpoint at /metrics if metricsPort is
+ * set.
+ */
+public class MetricsService implements MetricsServiceMBean, IService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricsService.class);
+  private static final String METRICS_PATH = "/metrics";
+
+  private final String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private HttpServer endpoint;
+
+  private MetricsService() {
+  }
+
+  public static MetricsService getInstance() {
+    return MetricsServiceHolder.INSTANCE;
+  }
+
+  @Override
+  public String getMetricsText() {
+    return Metrics.getInstance().toText();
+  }
+
+  @Override
+  public long getCount(String metric) {
+    return getHistogram(metric).getCount();
+  }
+
+  @Override
+  public long getMax(String metric) {
+    return getHistogram(metric).getMax();
+  }
+
+  @Override
+  public double getMean(String metric) {
+    return getHistogram(metric).getMean();
+  }
+
+  @Override
+  public long getValueAtPercentile(String metric, double percentile) {
+    return getHistogram(metric).getValueAtPercentile(percentile);
+  }
+
+  @Override
+  public int getEndpointPort() {
+    return endpoint == null ? 0 : endpoint.getAddress().getPort();
+  }
+
+  private Histogram getHistogram(String metric) {
+    return Metrics.getInstance().getHistogram(Metric.valueOf(metric.toUpperCase()));
+  }
+
+  @Override
+  public void start() throws StartupException {
+    try {
+      JMXService.registerMBean(getInstance(), mbeanName);
+      if (config.metricsPort > 0) {
+        endpoint = HttpServer.create(new InetSocketAddress(config.metricsPort), 0);
+        endpoint.createContext(METRICS_PATH, exchange -> {
+          byte[] response = getMetricsText().getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+          exchange.sendResponseHeaders(200, response.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+          }
+        });
+        endpoint.start();
+        LOGGER.info("{}: the metrics endpoint listens to port {}.", IoTDBConstant.GLOBAL_DB_NAME,
+            config.metricsPort);
+      }
+    } catch (IOException e) {
+      String errorMessage = String
+          .format("Failed to start %s because of %s", this.getID().getName(),
+              e.getMessage());
+      throw new StartupException(errorMessage);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (endpoint != null) {
+      endpoint.stop(0);
+      endpoint = null;
+    }
+    JMXService.deregisterMBean(mbeanName);
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.METRICS_SERVICE;
+  }
+
+  private static class MetricsServiceHolder {
+    private static final MetricsService INSTANCE = new MetricsService();
+  }
+}
@@ -0,0 +1,41 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metrics;
+
+public interface MetricsServiceMBean {
+
+  /**
+   * all the metrics in the plain text exposition format.
+   */
+  String getMetricsText();
+
+  long getCount(String metric);
+
+  long getMax(String metric);
+
+  double getMean(String metric);
+
+  /**
+   * @param metric the name of a {@link Metric}, e.g. INSERT_LATENCY
+   * @param percentile in [0, 100]
+   */
+  long getValueAtPercentile(String metric, double percentile);
+
+  int getEndpointPort();
+}
@@ -67,5 +67,6 @@ public class MonitorConstants {
 
   public enum FileNodeProcessorStatConstants {
     TOTAL_REQ_SUCCESS, TOTAL_REQ_FAIL, TOTAL_POINTS_SUCCESS, TOTAL_POINTS_FAIL,
+    TOTAL_POINTS_REORDERED, TOTAL_POINTS_OVERFLOWED,
   }
 }
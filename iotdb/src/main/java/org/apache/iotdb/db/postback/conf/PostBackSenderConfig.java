@@ -44,4 +44,12 @@ public class PostBackSenderConfig {
   public int clientPort = 6666;
   public int uploadCycleInSeconds = 10;
   public boolean isClearEnable = false;
+  /**
+   * size of the chunks a file is cut into to be sent, each chunk is checked by its own checksum.
+   */
+  public int chunkSize = 4 * 1024 * 1024;
+  /**
+   * max number of files sent to the receiver at the same time, each over its own connection.
+   */
+  public int concurrentSendingFiles = 4;
 }
@@ -99,6 +99,11 @@ public class PostBackSenderDescriptor {
       conf.schemaPath = properties.getProperty("iotdb_schema_directory", conf.schemaPath);
       conf.isClearEnable = Boolean
           .parseBoolean(properties.getProperty("is_clear_enable", conf.isClearEnable + ""));
+      conf.chunkSize = Integer
+          .parseInt(properties.getProperty("chunk_size", conf.chunkSize + "").trim());
+      conf.concurrentSendingFiles = Integer.parseInt(
+          properties.getProperty("concurrent_sending_files", conf.concurrentSendingFiles + "")
+              .trim());
       conf.uuidPath = conf.dataDirectory + "postback" + File.separator + "uuid.txt";
       conf.lastFileInfo =
           conf.dataDirectory + "postback" + File.separator + "lastLocalFileList.txt";
@@ -26,22 +26,32 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
-import org.apache.iotdb.db.conf.directories.Directories;
-import org.apache.iotdb.db.engine.filenode.FileNodeManager;
-import org.apache.iotdb.db.engine.filenode.IntervalFileNode;
-import org.apache.iotdb.db.engine.filenode.OverflowChangeType;
+import org.apache.iotdb.db.engine.filenode.TsFileLoader;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.utils.PostbackUtils;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,7 +62,12 @@ import org.slf4j.LoggerFactory;
 public class ServerServiceImpl implements ServerService.Iface {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ServerServiceImpl.class);
-  private static final FileNodeManager fileNodeManager = FileNodeManager.getInstance();
+  /**
+   * name of the directory under the postback directory of a sender where the files being received
+   * are kept. A file is moved out of it once its digest is checked, so an interrupted transfer can
+   * be resumed from the chunks in it.
+   */
+  private static final String RECEIVING_DIR = "receiving";
   private final String JDBC_DRIVER_NAME = "org.apache.iotdb.jdbc.IoTDBDriver";
   private ThreadLocal<String> uuid = new ThreadLocal<String>();
   // String means Storage Group,List means the set of new Files(AbsulutePath) in local IoTDB
@@ -62,7 +77,8 @@ public class ServerServiceImpl implements ServerService.Iface {
   private ThreadLocal<Map<String, Map<String, Long>>> fileNodeStartTime = new ThreadLocal<>();
   // Map String1 means timeseries String2 means AbsulutePath of new Files, long means endTime
   private ThreadLocal<Map<String, Map<String, Long>>> fileNodeEndTime = new ThreadLocal<>();
-  private ThreadLocal<Integer> fileNum = new ThreadLocal<Integer>();
+  // number of files received from each sender, files of a sender are received in several threads
+  private Map<String, AtomicInteger> fileNum = new ConcurrentHashMap<>();
   private ThreadLocal<String> schemaFromSenderPath = new ThreadLocal<String>();
   private IoTDBConfig tsfileDBconfig = IoTDBDescriptor.getInstance().getConfig();
   private String postbackPath;
@@ -79,7 +95,7 @@ public class ServerServiceImpl implements ServerService.Iface {
   public void init(String storageGroup) {
     LOGGER.info("IoTDB post back receiver: postback process starts to receive data of storage "
         + "group {}.", storageGroup);
-    fileNum.set(0);
+    fileNum.put(uuid.get(), new AtomicInteger());
     fileNodeMap.set(new HashMap<>());
     fileNodeStartTime.set(new HashMap<>());
     fileNodeEndTime.set(new HashMap<>());
@@ -93,13 +109,10 @@ public class ServerServiceImpl implements ServerService.Iface {
     this.uuid.set(uuid);
     postbackPath = dataPath + "postback" + File.separator;
     schemaFromSenderPath.set(postbackPath + this.uuid.get() + File.separator + "mlog.txt");
-    if (new File(postbackPath + this.uuid.get()).exists()
-        && new File(postbackPath + this.uuid.get()).list().length != 0) {
-      try {
-        PostbackUtils.deleteFile(new File(postbackPath + this.uuid.get()));
-      } catch (IOException e) {
-        throw new TException(e);
-      }
+    try {
+      clearReceivedFiles();
+    } catch (IOException e) {
+      throw new TException(e);
     }
     for (String bufferWritePath : bufferWritePaths) {
       String backupPath = bufferWritePath + "postback" + File.separator;
@@ -118,6 +131,161 @@ public class ServerServiceImpl implements ServerService.Iface {
     return legalOrNOt;
   }
 
+  /**
+   * Verify IP address of sender for another connection of the postback started by {@link
+   * #getUUID(String, String)}, through which files are sent at the same time. Nothing received is
+   * cleared.
+   */
+  @Override
+  public boolean joinTransfer(String uuid, String IPaddress) throws TException {
+    this.uuid.set(uuid);
+    postbackPath = dataPath + "postback" + File.separator;
+    return PostbackUtils.verifyIPSegment(tsfileDBConfig.ipWhiteList, IPaddress);
+  }
+
+  /**
+   * Get the length of the part of a file received before, the sender resumes the transfer from it.
+   *
+   * @param fileLength length of the file on sender, a longer part is not of the same file and is
+   * discarded
+   */
+  @Override
+  public long getReceivedLength(List<String> filePathSplit, long fileLength) throws TException {
+    File receivedFile = getReceivedFile(filePathSplit);
+    if (receivedFile.exists() && receivedFile.length() == fileLength) {
+      // received completely, only the digest is to be checked again
+      return fileLength;
+    }
+    File receivingFile = getReceivingFile(filePathSplit);
+    if (!receivingFile.exists()) {
+      return 0;
+    }
+    if (receivingFile.length() > fileLength) {
+      try {
+        FileUtils.forceDelete(receivingFile);
+      } catch (IOException e) {
+        throw new TException(e);
+      }
+      return 0;
+    }
+    LOGGER.info("IoTDB post back receiver: resume receiving {} from {}.",
+        receivingFile.getPath(), receivingFile.length());
+    return receivingFile.length();
+  }
+
+  /**
+   * Write a chunk of a file at the given offset.
+   *
+   * @param checksum CRC32 of the chunk
+   * @return false if the chunk is corrupted or the data before offset has not been received, the
+   * sender sends the chunk again or resumes from {@link #getReceivedLength(List, long)}
+   */
+  @Override
+  public boolean receiveChunk(List<String> filePathSplit, long offset, ByteBuffer chunk,
+      long checksum) throws TException {
+    CRC32 crc32 = new CRC32();
+    crc32.update(chunk.duplicate());
+    if (crc32.getValue() != checksum) {
+      LOGGER.warn("IoTDB post back receiver: the chunk at {} of {} is corrupted.", offset,
+          filePathSplit);
+      return false;
+    }
+    File file = getReceivingFile(filePathSplit);
+    if (!file.getParentFile().exists()) {
+      file.getParentFile().mkdirs();
+    }
+    try (FileChannel channel = FileChannel
+        .open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      if (channel.size() < offset) {
+        LOGGER.warn("IoTDB post back receiver: {} has received {} bytes, cannot write a chunk "
+            + "at {}.", file.getPath(), channel.size(), offset);
+        return false;
+      }
+      // a chunk is sent again if its acknowledgement is lost
+      channel.truncate(offset);
+      channel.position(offset);
+      while (chunk.hasRemaining()) {
+        channel.write(chunk);
+      }
+      return true;
+    } catch (IOException e) {
+      throw new TException(e);
+    }
+  }
+
+  /**
+   * Check the digest of a file whose chunks are all received. The file is then moved out of the
+   * receiving directory to be merged, or deleted if the digest mismatches.
+   *
+   * @param md5OfSender MD5 of the file on sender
+   */
+  @Override
+  public boolean finishReceiving(List<String> filePathSplit, String md5OfSender)
+      throws TException {
+    File receivedFile = getReceivedFile(filePathSplit);
+    File receivingFile = getReceivingFile(filePathSplit);
+    File file = receivingFile.exists() ? receivingFile : receivedFile;
+    if (!file.exists()) {
+      return false;
+    }
+    try {
+      if (!md5OfSender.equals(getMD5(file))) {
+        LOGGER.warn("IoTDB post back receiver: the digest of {} mismatches.", file.getPath());
+        FileUtils.forceDelete(file);
+        return false;
+      }
+      if (file == receivingFile) {
+        if (!receivedFile.getParentFile().exists()) {
+          receivedFile.getParentFile().mkdirs();
+        }
+        Files.move(receivingFile.toPath(), receivedFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info("IoTDB post back receiver : Receiver has received {} files from sender!",
+            fileNum.get(uuid.get()).incrementAndGet());
+      }
+      return true;
+    } catch (IOException | NoSuchAlgorithmException e) {
+      throw new TException(e);
+    }
+  }
+
+  private File getReceivedFile(List<String> filePathSplit) {
+    return new File(postbackPath + uuid.get() + File.separator + String
+        .join(File.separator, filePathSplit));
+  }
+
+  private File getReceivingFile(List<String> filePathSplit) {
+    return new File(postbackPath + uuid.get() + File.separator + RECEIVING_DIR + File.separator
+        + String.join(File.separator, filePathSplit));
+  }
+
+  private static String getMD5(File file) throws IOException, NoSuchAlgorithmException {
+    MessageDigest md = MessageDigest.getInstance("MD5");
+    byte[] buffer = new byte[8 * 1024 * 1024];
+    try (FileInputStream fis = new FileInputStream(file)) {
+      int n;
+      while ((n = fis.read(buffer)) != -1) {
+        md.update(buffer, 0, n);
+      }
+    }
+    return (new BigInteger(1, md.digest())).toString(16);
+  }
+
+  /**
+   * Delete files received from the sender except those being received.
+   */
+  private void clearReceivedFiles() throws IOException {
+    File[] files = new File(postbackPath + uuid.get()).listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (!file.getName().equals(RECEIVING_DIR)) {
+        FileUtils.forceDelete(file);
+      }
+    }
+  }
+
   /**
    * Start receiving tsfile from sender
    *
@@ -172,8 +340,8 @@ public class ServerServiceImpl implements ServerService.Iface {
         fis.close();
         md5OfReceiver = (new BigInteger(1, md.digest())).toString(16);
         if (md5OfSender.equals(md5OfReceiver)) {
-          fileNum.set(fileNum.get() + 1);
-          LOGGER.info("IoTDB post back receiver : Receiver has received " + fileNum.get()
+          LOGGER.info("IoTDB post back receiver : Receiver has received "
+              + fileNum.get(uuid.get()).incrementAndGet()
               + " "
               + "files from sender!");
         } else {
@@ -281,7 +449,7 @@ public class ServerServiceImpl implements ServerService.Iface {
     getFileNodeInfo();
     mergeData();
     try {
-      PostbackUtils.deleteFile(new File(postbackPath + this.uuid.get()));
+      clearReceivedFiles();
     } catch (IOException e) {
       throw new TException(e);
     }
@@ -306,8 +474,16 @@ public class ServerServiceImpl implements ServerService.Iface {
    */
   @Override
   public void afterReceiving() {
+    // all files have been received, what is left in the receiving directory will never be resumed
+    try {
+      FileUtils
+          .deleteDirectory(new File(postbackPath + uuid.get() + File.separator + RECEIVING_DIR));
+    } catch (IOException e) {
+      LOGGER.error("IoTDB post back receiver: cannot clear unfinished files because {}",
+          e.getMessage());
+    }
+    fileNum.remove(uuid.get());
     uuid.remove();
-    fileNum.remove();
     fileNodeMap.remove();
     fileNodeStartTime.remove();
     fileNodeEndTime.remove();
@@ -320,388 +496,85 @@ public class ServerServiceImpl implements ServerService.Iface {
    */
   @Override
   public void getFileNodeInfo() throws TException {
-    // String filePath = postbackPath + uuid.get() + File.separator + "data";
-    // File root = new File(filePath);
-    // File[] files = root.listFiles();
-    // int num = 0;
-    // for (File storageGroupPB : files) {
-    // List<String> filesPath = new ArrayList<>();
-    // File[] filesSG = storageGroupPB.listFiles();
-    // for (File fileTF : filesSG) { // fileTF means TsFiles
-    // Map<String, Long> startTimeMap = new HashMap<>();
-    // Map<String, Long> endTimeMap = new HashMap<>();
-    // TsRandomAccessLocalFileReader input = null;
-    // try {
-    // input = new TsRandomAccessLocalFileReader(fileTF.getAbsolutePath());
-    // FileReader reader = new FileReader(input);
-    // Map<String, TsDevice> deviceIdMap = reader.getFileMetaData().getDeviceMap();
-    // Iterator<String> it = deviceIdMap.keySet().iterator();
-    // while (it.hasNext()) {
-    // String key = it.next().toString(); // key represent device
-    // TsDevice deltaObj = deviceIdMap.get(key);
-    // startTimeMap.put(key, deltaObj.startTime);
-    // endTimeMap.put(key, deltaObj.endTime);
-    // }
-    // } catch (Exception e) {
-    // LOGGER.error("IoTDB post back receiver: unable to read tsfile {} because {}",
-    // fileTF.getAbsolutePath(), e.getMessage());
-    // } finally {
-    // try {
-    // input.close();
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB receiver : Cannot close file stream {} because {}",
-    // fileTF.getAbsolutePath(), e.getMessage());
-    // }
-    // }
-    // fileNodeStartTime.get().put(fileTF.getAbsolutePath(), startTimeMap);
-    // fileNodeEndTime.get().put(fileTF.getAbsolutePath(), endTimeMap);
-    // filesPath.add(fileTF.getAbsolutePath());
-    // num++;
-    // LOGGER.info("IoTDB receiver : Getting FileNode Info has complete : " + num + "/" +
-    // fileNum.get());
-    // }
-    // fileNodeMap.get().put(storageGroupPB.getName(), filesPath);
-    // }
+    File[] storageGroupDirs = new File(postbackPath + uuid.get() + File.separator + "data")
+        .listFiles();
+    if (storageGroupDirs == null) {
+      return;
+    }
+    int num = 0;
+    for (File storageGroupDir : storageGroupDirs) {
+      File[] tsFiles = storageGroupDir.listFiles();
+      if (tsFiles == null) {
+        continue;
+      }
+      List<String> filesPath = new ArrayList<>();
+      for (File tsFile : tsFiles) {
+        Map<String, Long> startTimeMap = new HashMap<>();
+        Map<String, Long> endTimeMap = new HashMap<>();
+        try {
+          TsFileMetaData metaData = TsFileLoader.readMetaData(tsFile);
+          for (Entry<String, TsDeviceMetadataIndex> entry : metaData.getDeviceMap().entrySet()) {
+            startTimeMap.put(entry.getKey(), entry.getValue().getStartTime());
+            endTimeMap.put(entry.getKey(), entry.getValue().getEndTime());
+          }
+        } catch (IOException e) {
+          LOGGER.error("IoTDB post back receiver: unable to read tsfile {} because {}",
+              tsFile.getAbsolutePath(), e.getMessage());
+          continue;
+        }
+        fileNodeStartTime.get().put(tsFile.getAbsolutePath(), startTimeMap);
+        fileNodeEndTime.get().put(tsFile.getAbsolutePath(), endTimeMap);
+        filesPath.add(tsFile.getAbsolutePath());
+        num++;
+        LOGGER.info("IoTDB receiver : Getting FileNode Info has complete : " + num + "/"
+            + fileNum.get(uuid.get()));
+      }
+      fileNodeMap.get().put(storageGroupDir.getName(), filesPath);
+    }
   }
 
   /**
-   * Insert all data in the tsfile into IoTDB.
+   * Load a tsfile overlapping the data in IoTDB, the tsfile is split at chunk granularity and only
+   * the overlapping chunks are inserted, see {@link TsFileLoader}.
+   *
+   * @param filePath path of a received tsfile, whose parent directory is named after its storage
+   * group
    */
   @Override
   public void mergeOldData(String filePath) throws TException {
-    // Set<String> timeseries = new HashSet<>();
-    // TsRandomAccessLocalFileReader input = null;
-    // Connection connection = null;
-    // Statement statement = null;
-    // try {
-    // Class.forName(JDBC_DRIVER_NAME);
-    // connection = DriverManager.getConnection("jdbc:iotdb://localhost:" +
-    // tsfileDBConfig.rpcPort + "/", "root",
-    // "root");
-    // statement = connection.createStatement();
-    // int count = 0;
-    //
-    // input = new TsRandomAccessLocalFileReader(filePath);
-    // FileReader reader = new FileReader(input);
-    // Map<String, TsdeviceId> deviceIdMap = reader.getFileMetaData().getDeviceMap();
-    // Iterator<String> it = deviceIdMap.keySet().iterator();
-    // while (it.hasNext()) {
-    // String key = it.next().toString(); // key represent devices
-    // TsdeviceId deltaObj = deviceIdMap.get(key);
-    // TsRowGroupBlockMetaData blockMeta = new TsRowGroupBlockMetaData();
-    // blockMeta.convertToTSF(ReadWriteThriftFormatUtils.readRowGroupBlockMetaData(input,
-    // deltaObj.offset,
-    // deltaObj.metadataBlockSize));
-    // List<RowGroupMetaData> rowGroupMetadataList = blockMeta.getRowGroups();
-    // timeseries.clear();
-    // // firstly, get all timeseries in the same device
-    // for (RowGroupMetaData rowGroupMetaData : rowGroupMetadataList) {
-    // List<TimeSeriesChunkMetaData> timeSeriesChunkMetaDataList = rowGroupMetaData
-    // .getTimeSeriesChunkMetaDataList();
-    // for (TimeSeriesChunkMetaData timeSeriesChunkMetaData : timeSeriesChunkMetaDataList) {
-    // TimeSeriesChunkProperties properties = timeSeriesChunkMetaData.getProperties();
-    // String measurementUID = properties.getMeasurementUID();
-    // measurementUID = key + "." + measurementUID;
-    // timeseries.add(measurementUID);
-    // }
-    // }
-    // // secondly, use tsFile Reader to form SQL
-    //
-    // TsFile readTsFile = new TsFile(input);
-    // ArrayList<Path> paths = new ArrayList<>();
-    // paths.clear();
-    // for (String timesery : timeseries) {
-    // paths.add(new Path(timesery));
-    // }
-    // OnePassQueryDataSet queryDataSet = readTsFile.query(paths, null, null);
-    // while (queryDataSet.hasNextRecord()) {
-    // OldRowRecord record = queryDataSet.getNextRecord();
-    // List<Field> fields = record.getFields();
-    // String sql_front = null;
-    // for (Field field : fields) {
-    // if (field.toString() != "null") {
-    // sql_front = "insert into " + field.deviceId + "(timestamp";
-    // break;
-    // }
-    // }
-    // String sql_rear = ") values(" + record.timestamp;
-    // for (Field field : fields) {
-    // if (field.toString() != "null") {
-    // sql_front = sql_front + "," + field.measurementId.toString();
-    // if (field.dataType == TSDataType.TEXT) {
-    // sql_rear = sql_rear + "," + "'" + field.toString() + "'";
-    // } else {
-    // sql_rear = sql_rear + "," + field.toString();
-    // }
-    // }
-    // }
-    // String sql = sql_front + sql_rear + ")";
-    //
-    // statement.addBatch(sql);
-    // count++;
-    // if (count > 10000) {
-    // statement.executeBatch();
-    // statement.clearBatch();
-    // count = 0;
-    // }
-    // }
-    // }
-    // statement.executeBatch();
-    // statement.clearBatch();
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB receiver can not parse tsfile into SQL because{}", e.getMessage());
-    // } catch (SQLException | ClassNotFoundException e) {
-    // LOGGER.error("IoTDB post back receiver: jdbc cannot connect to IoTDB because {}",
-    // e.getMessage());
-    // } finally {
-    // try {
-    // input.close();
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB receiver : Cannot close file stream {} because {}", filePath);
-    // }
-    // try {
-    // if (statement != null)
-    // statement.close();
-    // if (connection != null)
-    // connection.close();
-    // } catch (SQLException e) {
-    // LOGGER.error("IoTDB receiver : Can not close JDBC connection because {}", e.getMessage());
-    // }
-    // }
-  }
-
-  /**
-   * Insert those valid data in the tsfile into IoTDB
-   *
-   * @param overlapFiles:files which are conflict with the postback file
-   */
-  public void mergeOldData(String filePath, List<String> overlapFiles) throws TException {
-    // Set<String> timeseries = new HashSet<>();
-    // TsRandomAccessLocalFileReader input = null;
-    // Connection connection = null;
-    // Statement statement = null;
-    // try {
-    // Class.forName(JDBC_DRIVER_NAME);
-    // connection = DriverManager.getConnection("jdbc:iotdb://localhost:" +
-    // tsfileDBConfig.rpcPort + "/", "root",
-    // "root");
-    // statement = connection.createStatement();
-    // int count = 0;
-    //
-    // input = new TsRandomAccessLocalFileReader(filePath);
-    // FileReader reader = new FileReader(input);
-    // Map<String, TsdeviceId> deviceIdMap = reader.getFileMetaData().getDeviceMap();
-    // Iterator<String> it = deviceIdMap.keySet().iterator();
-    // while (it.hasNext()) {
-    // String key = it.next().toString(); // key represent devices
-    // TsdeviceId deltaObj = deviceIdMap.get(key);
-    // TsRowGroupBlockMetaData blockMeta = new TsRowGroupBlockMetaData();
-    // blockMeta.convertToTSF(ReadWriteThriftFormatUtils.readRowGroupBlockMetaData(input,
-    // deltaObj.offset,
-    // deltaObj.metadataBlockSize));
-    // List<RowGroupMetaData> rowGroupMetadataList = blockMeta.getRowGroups();
-    // timeseries.clear();
-    // // firstly, get all timeseries in the same device
-    // for (RowGroupMetaData rowGroupMetaData : rowGroupMetadataList) {
-    // List<TimeSeriesChunkMetaData> timeSeriesChunkMetaDataList = rowGroupMetaData
-    // .getTimeSeriesChunkMetaDataList();
-    // for (TimeSeriesChunkMetaData timeSeriesChunkMetaData : timeSeriesChunkMetaDataList) {
-    // TimeSeriesChunkProperties properties = timeSeriesChunkMetaData.getProperties();
-    // String measurementUID = properties.getMeasurementUID();
-    // measurementUID = key + "." + measurementUID;
-    // timeseries.add(measurementUID);
-    // }
-    // }
-    // // secondly, use tsFile Reader to form SQL
-    //
-    // TsFile readTsFile = new TsFile(input);
-    // ArrayList<Path> paths = new ArrayList<>();
-    // for (String timesery : timeseries) { // compare data with one timesery in a round to get
-    // valid data
-    // paths.clear();
-    // paths.add(new Path(timesery));
-    // Map<String, String> originDataPoint = new HashMap<>();
-    // Map<String, String> newDataPoint = new HashMap<>();
-    // String sqlFormat = "insert into %s(timestamp,%s) values(%s,%s)";
-    // OnePassQueryDataSet queryDataSet = readTsFile.query(paths, null, null);
-    // while (queryDataSet.hasNextRecord()) {
-    // OldRowRecord record = queryDataSet.getNextRecord();
-    // List<Field> fields = record.getFields();
-    // String sql;
-    // for (Field field : fields) { // get all data with the timesery in the postback file
-    // if (field.toString() != "null") {
-    // sql = String.format(sqlFormat, field.deviceId, field.measurementId.toString(),
-    // record.timestamp, "%s");
-    // if (field.dataType == TSDataType.TEXT) {
-    // newDataPoint.put(sql, "'" + field.toString() + "'");
-    // } else {
-    // newDataPoint.put(sql, field.toString());
-    // }
-    //
-    // }
-    // }
-    // }
-    // for (String overlapFile : overlapFiles) // get all data with the timesery in all overlap
-    // files.
-    // {
-    // TsRandomAccessLocalFileReader inputOverlap = null;
-    // try {
-    // inputOverlap = new TsRandomAccessLocalFileReader(overlapFile);
-    // TsFile readTsFileOverlap = new TsFile(inputOverlap);
-    // OnePassQueryDataSet queryDataSetOverlap = readTsFileOverlap.query(paths, null, null);
-    // while (queryDataSetOverlap.hasNextRecord()) {
-    // OldRowRecord recordOverlap = queryDataSetOverlap.getNextRecord();
-    // List<Field> fields = recordOverlap.getFields();
-    // String sql;
-    // for (Field field : fields) {
-    // if (field.toString() != "null") {
-    // sql = String.format(sqlFormat, field.deviceId,
-    // field.measurementId.toString(), recordOverlap.timestamp, "%s");
-    // if (field.dataType == TSDataType.TEXT) {
-    // originDataPoint.put(sql, "'" + field.toString() + "'");
-    // } else {
-    // originDataPoint.put(sql, field.toString());
-    // }
-    // }
-    // }
-    // }
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB post back receiver: unable to read tsfile {} because {}",
-    // overlapFile,
-    // e.getMessage());
-    // } finally {
-    // try {
-    // inputOverlap.close();
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB receiver : Cannot close file stream {} because {}", overlapFile,
-    // e.getMessage());
-    // }
-    // }
-    // }
-    // if (originDataPoint.isEmpty()) { // If there has no overlap data with the timesery,
-    // inserting all
-    // // data in the postback file
-    // for (Entry<String, String> entry : newDataPoint.entrySet()) {
-    // String sql = String.format(entry.getKey(), entry.getValue());
-    // statement.addBatch(sql);
-    // count++;
-    // if (count > 10000) {
-    // statement.executeBatch();
-    // statement.clearBatch();
-    // count = 0;
-    // }
-    // }
-    // } else { // Compare every data to get valid data
-    // for (Entry<String, String> entry : newDataPoint.entrySet()) {
-    // if (!originDataPoint.containsKey(entry.getKey())
-    // || (originDataPoint.containsKey(entry.getKey())
-    // && !originDataPoint.get(entry.getKey()).equals(entry.getValue()))) {
-    // String sql = String.format(entry.getKey(), entry.getValue());
-    // statement.addBatch(sql);
-    // count++;
-    // if (count > 10000) {
-    // statement.executeBatch();
-    // statement.clearBatch();
-    // count = 0;
-    // }
-    // }
-    // }
-    // }
-    // }
-    // }
-    // statement.executeBatch();
-    // statement.clearBatch();
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB receiver can not parse tsfile into SQL because{}", e.getMessage());
-    // } catch (SQLException | ClassNotFoundException e) {
-    // LOGGER.error("IoTDB post back receiver: jdbc cannot connect to IoTDB because {}",
-    // e.getMessage());
-    // } finally {
-    // try {
-    // input.close();
-    // } catch (IOException e) {
-    // LOGGER.error("IoTDB receiver : Cannot close file stream {} because {}", filePath,
-    // e.getMessage());
-    // }
-    // try {
-    // if (statement != null)
-    // statement.close();
-    // if (connection != null)
-    // connection.close();
-    // } catch (SQLException e) {
-    // LOGGER.error("IoTDB receiver : Can not close JDBC connection because {}", e.getMessage());
-    // }
-    // }
+    File tsFile = new File(filePath);
+    try {
+      new TsFileLoader(tsFile.getAbsoluteFile().getParentFile().getName()).load(tsFile, false);
+    } catch (FileNodeManagerException e) {
+      throw new TException(e);
+    }
   }
 
   /**
-   * It is to merge data. If data in the tsfile is new, append the tsfile to the storage group
-   * directly. If data in the tsfile is old, it has two strategy to merge.It depends on the
-   * possibility of updating historical data.
+   * It is to merge data. If data in the tsfile is new, the tsfile is attached to the storage group
+   * directly. Otherwise it is split at chunk granularity, the new chunks are attached as a tsfile
+   * and only the chunks overlapping the data in IoTDB are inserted into overflow.
    */
   @Override
   public void mergeData() throws TException {
     int num = 0;
     for (String storageGroup : fileNodeMap.get().keySet()) {
       List<String> filesPath = fileNodeMap.get().get(storageGroup);
-      // before load extern tsFile, it is necessary to order files in the same SG
-      for (int i = 0; i < filesPath.size(); i++) {
-        for (int j = i + 1; j < filesPath.size(); j++) {
-          boolean swapOrNot = false;
-          Map<String, Long> startTimeI = fileNodeStartTime.get().get(filesPath.get(i));
-          Map<String, Long> endTimeI = fileNodeStartTime.get().get(filesPath.get(i));
-          Map<String, Long> startTimeJ = fileNodeStartTime.get().get(filesPath.get(j));
-          Map<String, Long> endTimeJ = fileNodeStartTime.get().get(filesPath.get(j));
-          for (String deviceId : endTimeI.keySet()) {
-            if (startTimeJ.containsKey(deviceId) && startTimeI.get(deviceId) >
-                endTimeJ.get(deviceId)) {
-              swapOrNot = true;
-              break;
-            }
-          }
-          if (swapOrNot) {
-            String temp = filesPath.get(i);
-            filesPath.set(i, filesPath.get(j));
-            filesPath.set(j, temp);
-          }
-        }
-      }
-
+      // load older files first so that newer files can still be attached
+      filesPath.sort(Comparator.comparingLong(path -> fileNodeStartTime.get().get(path).values()
+          .stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE)));
+      TsFileLoader loader = new TsFileLoader(storageGroup);
       for (String path : filesPath) {
-        // get startTimeMap and endTimeMap
-        Map<String, Long> startTimeMap = fileNodeStartTime.get().get(path);
-        Map<String, Long> endTimeMap = fileNodeEndTime.get().get(path);
-
-        // create a new fileNode
-        String header = postbackPath + uuid.get() + File.separator + "data" + File.separator;
-        String relativePath = path.substring(header.length());
-        IntervalFileNode fileNode = new IntervalFileNode(startTimeMap, endTimeMap,
-            OverflowChangeType.NO_CHANGE,
-            Directories.getInstance().getNextFolderIndexForTsFile(), relativePath);
-        // call interface of load external file
         try {
-          if (!fileNodeManager.appendFileToFileNode(storageGroup, fileNode, path)) {
-            // it is a file with overflow data
-            if (tsfileDBConfig.update_historical_data_possibility) {
-              mergeOldData(path);
-            } else {
-              List<String> overlapFiles = fileNodeManager.getOverlapFilesFromFileNode(
-                  storageGroup,
-                  fileNode, uuid.get());
-              if (overlapFiles.size() == 0) {
-                mergeOldData(path);
-              } else {
-                mergeOldData(path, overlapFiles);
-              }
-            }
-          }
+          loader.load(new File(path), false);
         } catch (FileNodeManagerException e) {
           LOGGER.error("IoTDB receiver : Can not load external file because {}",
               e.getMessage());
         }
 
         num++;
-        LOGGER.info("IoTDB receiver : Merging files has completed : " + num + "/" + fileNum.get());
+        LOGGER.info("IoTDB receiver : Merging files has completed : " + num + "/"
+            + fileNum.get(uuid.get()));
       }
     }
   }
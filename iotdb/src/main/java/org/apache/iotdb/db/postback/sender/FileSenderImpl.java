@@ -19,12 +19,12 @@
 package org.apache.iotdb.db.postback.sender;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.ServerSocket;
@@ -35,6 +35,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -42,8 +43,17 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.postback.conf.PostBackSenderConfig;
 import org.apache.iotdb.db.postback.conf.PostBackSenderDescriptor;
 import org.apache.iotdb.db.postback.receiver.ServerService;
@@ -65,6 +75,10 @@ import org.slf4j.LoggerFactory;
 public class FileSenderImpl implements FileSender {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FileSenderImpl.class);
+  /**
+   * times a chunk or a file is sent again before the postback fails.
+   */
+  private static final int MAX_RETRY = 3;
   private final String JDBC_DRIVER_NAME = "org.apache.iotdb.jdbc.IoTDBDriver";
   private TTransport transport;
   private ServerService.Client clientOfServer;
@@ -220,7 +234,12 @@ public class FileSenderImpl implements FileSender {
   }
 
   /**
-   * Transfer data of a storage group to receiver.
+   * Transfer data of a storage group to receiver. Files are cut into chunks of chunkSize bytes,
+   * each checked by its CRC32 on the receiver, and up to concurrentSendingFiles files are sent at
+   * the same time, each over its own connection. The receiver keeps the chunks it acknowledged,
+   * so a file interrupted by a broken connection, in this postback or a former one, is resumed
+   * from the last acknowledged chunk. The MD5 of a file is computed while its chunks are read and
+   * is checked by the receiver after the last chunk.
    *
    * @param fileSnapshotList
    *            list of sending snapshot files in a storage group.
@@ -228,71 +247,168 @@ public class FileSenderImpl implements FileSender {
    */
   @Override
   public void startSending(Set<String> fileSnapshotList) {
-    try {
-      int num = 0;
-      for (String snapshotFilePath : fileSnapshotList) {
-        num++;
-        File file = new File(snapshotFilePath);
-        List<String> filePathSplit = new ArrayList<>();
-        String os = System.getProperty("os.name");
-        if (os.toLowerCase().startsWith("windows")) {
-          String[] name = snapshotFilePath.split(File.separator + File.separator);
-          filePathSplit.add("data");
-          filePathSplit.add(name[name.length - 2]);
-          filePathSplit.add(name[name.length - 1]);
-        } else {
-          String[] name = snapshotFilePath.split(File.separator);
-          filePathSplit.add("data");
-          filePathSplit.add(name[name.length - 2]);
-          filePathSplit.add(name[name.length - 1]);
+    int windowSize = Math.max(1, Math.min(config.concurrentSendingFiles, fileSnapshotList.size()));
+    Queue<String> sendingFiles = new ConcurrentLinkedQueue<>(fileSnapshotList);
+    AtomicInteger sentNum = new AtomicInteger();
+    ExecutorService senderPool = IoTDBThreadPoolFactory
+        .newFixedThreadPool(windowSize, ThreadName.POSTBACK_SENDER.getName());
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < windowSize; i++) {
+      results.add(senderPool
+          .submit(() -> sendFiles(sendingFiles, sentNum, fileSnapshotList.size())));
+    }
+    for (Future<Boolean> result : results) {
+      try {
+        if (!result.get()) {
+          connectionOrElse = false;
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        connectionOrElse = false;
+      } catch (ExecutionException e) {
+        LOGGER.error("IoTDB post back sender: cannot sending data because {}",
+            e.getCause().getMessage());
+        connectionOrElse = false;
+      }
+    }
+    senderPool.shutdownNow();
+  }
+
+  /**
+   * Send files from the queue over a connection of its own until the queue is empty.
+   *
+   * @return false if a file cannot be sent
+   */
+  private boolean sendFiles(Queue<String> sendingFiles, AtomicInteger sentNum, int totalNum)
+      throws IOException {
+    byte[] chunk = new byte[config.chunkSize];
+    TTransport fileTransport = null;
+    ServerService.Client client = null;
+    try {
+      String snapshotFilePath;
+      while ((snapshotFilePath = sendingFiles.poll()) != null) {
+        int retry = 0;
         while (true) {
-          // Send all data to receiver
-          FileInputStream fis = new FileInputStream(file);
-          int mBufferSize = 64 * 1024 * 1024;
-          ByteArrayOutputStream bos = new ByteArrayOutputStream(mBufferSize);
-          byte[] buffer = new byte[mBufferSize];
-          int n;
-          while ((n = fis.read(buffer)) != -1) { // cut the file into pieces to send
-            bos.write(buffer, 0, n);
-            ByteBuffer buffToSend = ByteBuffer.wrap(bos.toByteArray());
-            bos.reset();
-            clientOfServer.startReceiving(null, filePathSplit, buffToSend, 1);
+          try {
+            if (client == null) {
+              fileTransport = new TSocket(config.serverIp, config.serverPort);
+              fileTransport.open();
+              client = new ServerService.Client(new TBinaryProtocol(fileTransport));
+              if (!client.joinTransfer(uuid, InetAddress.getLocalHost().getHostAddress())) {
+                LOGGER.error("IoTDB post back sender: Sorry! You do not have the permission to "
+                    + "connect to postback receiver!");
+                return false;
+              }
+            }
+            if (sendFile(client, snapshotFilePath, chunk)) {
+              break;
+            }
+          } catch (TException e) {
+            LOGGER.warn("IoTDB post back sender: sending {} is interrupted because {}, resume it "
+                + "from the last acknowledged chunk.", snapshotFilePath, e.getMessage());
+            fileTransport.close();
+            client = null;
           }
-          bos.close();
-          fis.close();
-
-          // Get md5 of the file.
-          fis = new FileInputStream(file);
-          MessageDigest md = MessageDigest.getInstance("MD5");
-          mBufferSize = 8 * 1024 * 1024;
-          buffer = new byte[mBufferSize];
-          int m;
-          while ((m = fis.read(buffer)) != -1) {
-            md.update(buffer, 0, m);
+          if (++retry > MAX_RETRY) {
+            LOGGER.error("IoTDB post back sender: cannot sending {} after {} retries.",
+                snapshotFilePath, MAX_RETRY);
+            return false;
           }
-          fis.close();
-
-          // the file is sent successfully
-          String md5OfSender = (new BigInteger(1, md.digest())).toString(16);
-          String md5OfReceiver = clientOfServer.startReceiving(md5OfSender, filePathSplit,
-              null, 0);
-          if (md5OfSender.equals(md5OfReceiver)) {
-            LOGGER.info("IoTDB sender: receiver has received {} successfully.", snapshotFilePath);
-            break;
+        }
+        LOGGER.info("IoTDB sender : Task of sending files to receiver has completed "
+            + sentNum.incrementAndGet() + "/" + totalNum + ".");
+      }
+      return true;
+    } finally {
+      if (fileTransport != null) {
+        fileTransport.close();
+      }
+    }
+  }
+
+  /**
+   * Send a file chunk by chunk from where the receiver has received before.
+   *
+   * @param chunk buffer of a chunk
+   * @return false if the digest of the file checked by the receiver mismatches, the receiver has
+   * discarded the file and it is sent again from the beginning
+   */
+  boolean sendFile(ServerService.Iface client, String snapshotFilePath, byte[] chunk)
+      throws TException, IOException {
+    File file = new File(snapshotFilePath);
+    List<String> filePathSplit = getFilePathSplit(snapshotFilePath);
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    CRC32 crc32 = new CRC32();
+    try (FileInputStream fis = new FileInputStream(file)) {
+      long offset = client.getReceivedLength(filePathSplit, file.length());
+      // the part received before is only digested
+      long digested = 0;
+      while (digested < offset) {
+        int n = fis.read(chunk, 0, (int) Math.min(chunk.length, offset - digested));
+        if (n == -1) {
+          throw new IOException("File " + snapshotFilePath + " is shorter than " + offset);
+        }
+        md.update(chunk, 0, n);
+        digested += n;
+      }
+      int n;
+      while ((n = readChunk(fis, chunk)) > 0) {
+        md.update(chunk, 0, n);
+        crc32.reset();
+        crc32.update(chunk, 0, n);
+        int retry = 0;
+        while (!client.receiveChunk(filePathSplit, offset, ByteBuffer.wrap(chunk, 0, n),
+            crc32.getValue())) {
+          if (++retry > MAX_RETRY) {
+            throw new TException("The chunk at " + offset + " of " + snapshotFilePath
+                + " is rejected by the receiver");
           }
         }
-        LOGGER.info("IoTDB sender : Task of sending files to receiver has completed " + num + "/"
-            + fileSnapshotList.size() + ".");
+        offset += n;
       }
-    } catch (TException e) {
-      LOGGER.error("IoTDB post back sender: cannot sending data because receiver has broken down.");
-      connectionOrElse = false;
-      return;
-    } catch (Exception e) {
-      LOGGER.error("IoTDB post back sender: cannot sending data because {}", e.getMessage());
-      connectionOrElse = false;
     }
+    String md5OfSender = (new BigInteger(1, md.digest())).toString(16);
+    if (client.finishReceiving(filePathSplit, md5OfSender)) {
+      LOGGER.info("IoTDB sender: receiver has received {} successfully.", snapshotFilePath);
+      return true;
+    }
+    LOGGER.warn("IoTDB sender: the digest of {} mismatches on receiver, send it again.",
+        snapshotFilePath);
+    return false;
+  }
+
+  /**
+   * Fill the buffer from the stream unless the stream ends.
+   *
+   * @return number of bytes read, 0 if the stream has ended
+   */
+  private static int readChunk(InputStream in, byte[] chunk) throws IOException {
+    int length = 0;
+    int n;
+    while (length < chunk.length && (n = in.read(chunk, length, chunk.length - length)) != -1) {
+      length += n;
+    }
+    return length;
+  }
+
+  private List<String> getFilePathSplit(String snapshotFilePath) {
+    List<String> filePathSplit = new ArrayList<>();
+    String os = System.getProperty("os.name");
+    String[] name;
+    if (os.toLowerCase().startsWith("windows")) {
+      name = snapshotFilePath.split(File.separator + File.separator);
+    } else {
+      name = snapshotFilePath.split(File.separator);
+    }
+    filePathSplit.add("data");
+    filePathSplit.add(name[name.length - 2]);
+    filePathSplit.add(name[name.length - 1]);
+    return filePathSplit;
   }
 
   /**
@@ -304,18 +420,12 @@ public class FileSenderImpl implements FileSender {
   public void sendSchema(String schemaPath) {
     try {
       FileInputStream fis = new FileInputStream(new File(schemaPath));
-      int mBufferSize = 4 * 1024 * 1024;
-      ByteArrayOutputStream bos = new ByteArrayOutputStream(mBufferSize);
-      byte[] buffer = new byte[mBufferSize];
+      byte[] buffer = new byte[4 * 1024 * 1024];
       int n;
       while ((n = fis.read(buffer)) != -1) { // cut the file into pieces to send
-        bos.write(buffer, 0, n);
-        ByteBuffer buffToSend = ByteBuffer.wrap(bos.toByteArray());
-        bos.reset();
         // 1 represents there is still schema buffer to send.
-        clientOfServer.getSchema(buffToSend, 1);
+        clientOfServer.getSchema(ByteBuffer.wrap(buffer, 0, n), 1);
       }
-      bos.close();
       fis.close();
       // 0 represents the schema file has been transferred completely.
       clientOfServer.getSchema(null, 0);
@@ -0,0 +1,299 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.db.exception.ProcessorException;
+import org.apache.iotdb.db.exception.qp.LogicalOperatorException;
+import org.apache.iotdb.db.exception.qp.QueryProcessorException;
+import org.apache.iotdb.db.qp.constant.DatetimeUtils;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.qp.logical.crud.BasicFunctionOperator;
+import org.apache.iotdb.db.qp.logical.crud.FilterOperator;
+import org.apache.iotdb.db.qp.logical.crud.InsertOperator;
+import org.apache.iotdb.db.qp.logical.crud.QueryOperator;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.qp.strategy.PhysicalGenerator;
+
+/**
+ * A statement prepared by {@link QueryProcessor#prepare(String, ZoneId)}. It keeps the optimized
+ * logical operator of the statement, so an execution only binds the parameters and generates the
+ * physical plan, without parsing the statement, concatenating the paths and optimizing the
+ * filters again. The paths are therefore resolved when the statement is prepared, except those
+ * of a query matched against the schema by wildcards or prefixes, which each execution resolves
+ * again as the series they match may change.
+ *
+ * <p>The parameter markers '?' of the statement are replaced by numeric placeholders before it is
+ * parsed. A placeholder may be the value of a condition in the where clause of a query, including
+ * the conditions on time, or the timestamp or a value of an insert.
+ */
+public class PreparedPlan {
+
+  private final String sql;
+  private final Operator operator;
+  /**
+   * the placeholder of each parameter, mapped to the index of the parameter.
+   */
+  private final Map<String, Integer> placeholders;
+  /**
+   * the statement with placeholders, which is optimized again by each execution to resolve its
+   * paths, null if the paths are resolved once.
+   */
+  private final String resolvedSql;
+  /**
+   * the number of executions as a query, which makes the key of each execution unique.
+   */
+  private long executionNum;
+  /**
+   * the key by which the results of the last execution are fetched, null if there is none.
+   */
+  private String fetchKey;
+
+  PreparedPlan(String sql, Operator operator, Map<String, Integer> placeholders,
+      String resolvedSql) throws QueryProcessorException {
+    this.sql = sql;
+    this.operator = operator;
+    this.placeholders = placeholders;
+    this.resolvedSql = resolvedSql;
+    checkPlaceholders();
+  }
+
+  /**
+   * the statement with parameter markers.
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * the statement whose paths each execution resolves again, null if they are resolved once.
+   */
+  String getResolvedSql() {
+    return resolvedSql;
+  }
+
+  public int getParameterNum() {
+    return placeholders.size();
+  }
+
+  public boolean isQuery() {
+    return operator.getType() == Operator.OperatorType.QUERY;
+  }
+
+  public String getFetchKey() {
+    return fetchKey;
+  }
+
+  /**
+   * give a new execution of the query a key to fetch its results by. The key differs from those of
+   * the other executions and of the other statements with the same sql in the session, so their
+   * results do not replace each other.
+   *
+   * @param statementId the id of the prepared statement in the session
+   */
+  public String newFetchKey(long statementId) {
+    fetchKey = statementId + "#" + (++executionNum);
+    return fetchKey;
+  }
+
+  /**
+   * bind the parameters and generate the physical plan of an execution.
+   *
+   * @param parameters the parameters in order, each of which is a Boolean, Integer, Long, Float,
+   * Double or String. A parameter compared with time or taken as the timestamp of an insert is a
+   * Long or a datetime String.
+   */
+  PhysicalPlan bind(List<Object> parameters, ZoneId zoneId, PhysicalGenerator generator)
+      throws QueryProcessorException, ProcessorException {
+    return bind(operator, parameters, zoneId, generator);
+  }
+
+  /**
+   * bind the parameters to an optimized operator of the statement, the prepared one or one whose
+   * paths are resolved again by the execution.
+   */
+  PhysicalPlan bind(Operator optimized, List<Object> parameters, ZoneId zoneId,
+      PhysicalGenerator generator) throws QueryProcessorException, ProcessorException {
+    if (parameters.size() != placeholders.size()) {
+      throw new QueryProcessorException(String.format(
+          "The statement needs %d parameters, but %d are given", placeholders.size(),
+          parameters.size()));
+    }
+    switch (optimized.getType()) {
+      case QUERY:
+        return bindQuery((QueryOperator) optimized, parameters, zoneId, generator);
+      case INSERT:
+        return bindInsert((InsertOperator) optimized, parameters, zoneId, generator);
+      default:
+        return generator.transformToPhysicalPlan(optimized);
+    }
+  }
+
+  private synchronized PhysicalPlan bindQuery(QueryOperator query, List<Object> parameters,
+      ZoneId zoneId, PhysicalGenerator generator)
+      throws QueryProcessorException, ProcessorException {
+    FilterOperator filter = query.getFilterOperator();
+    QueryPlan plan;
+    try {
+      if (filter != null && !placeholders.isEmpty()) {
+        FilterOperator boundFilter = filter.clone();
+        bindFilter(boundFilter, parameters, zoneId);
+        query.setFilterOperator(boundFilter);
+      }
+      plan = (QueryPlan) generator.transformToPhysicalPlan(query);
+    } finally {
+      query.setFilterOperator(filter);
+    }
+    // the plan shares the lists of the operator, which an execution may modify
+    plan.setPaths(new ArrayList<>(plan.getPaths()));
+    if (plan instanceof AggregationPlan) {
+      ((AggregationPlan) plan).setAggregations(new ArrayList<>(plan.getAggregations()));
+    }
+    return plan;
+  }
+
+  private void bindFilter(FilterOperator filter, List<Object> parameters, ZoneId zoneId)
+      throws QueryProcessorException {
+    if (!filter.isLeaf()) {
+      for (FilterOperator child : filter.getChildren()) {
+        bindFilter(child, parameters, zoneId);
+      }
+      return;
+    }
+    BasicFunctionOperator leaf = (BasicFunctionOperator) filter;
+    Integer index = placeholders.get(leaf.getValue());
+    if (index == null) {
+      return;
+    }
+    if (leaf.getSinglePath().equals(SQLConstant.RESERVED_TIME)) {
+      leaf.setValue(String.valueOf(toTime(parameters.get(index), zoneId)));
+    } else {
+      leaf.setValue(toValue(parameters.get(index)));
+    }
+  }
+
+  private synchronized PhysicalPlan bindInsert(InsertOperator insert, List<Object> parameters,
+      ZoneId zoneId, PhysicalGenerator generator)
+      throws QueryProcessorException, ProcessorException {
+    long time = insert.getTime();
+    List<String> values = insert.getValueList();
+    try {
+      Integer timeIndex = placeholders.get(String.valueOf(time));
+      if (timeIndex != null) {
+        insert.setTime(toTime(parameters.get(timeIndex), zoneId));
+      }
+      // the plan keeps the value list, so each execution binds a list of its own
+      List<String> boundValues = new ArrayList<>(values.size());
+      for (String value : values) {
+        Integer index = placeholders.get(value);
+        boundValues.add(index == null ? value : toValue(parameters.get(index)));
+      }
+      insert.setValueList(boundValues);
+      return generator.transformToPhysicalPlan(insert);
+    } finally {
+      insert.setTime(time);
+      insert.setValueList(values);
+    }
+  }
+
+  private static long toTime(Object parameter, ZoneId zoneId) throws QueryProcessorException {
+    if (parameter instanceof Long || parameter instanceof Integer) {
+      return ((Number) parameter).longValue();
+    }
+    if (parameter instanceof String) {
+      try {
+        return DatetimeUtils.convertDatetimeStrToMillisecond((String) parameter, zoneId);
+      } catch (LogicalOperatorException e) {
+        throw new QueryProcessorException(
+            String.format("Input time format %s error. ", parameter) + e.getMessage());
+      }
+    }
+    throw new QueryProcessorException(
+        "A time parameter should be a long or a datetime string, but is " + parameter);
+  }
+
+  /**
+   * the literal of a value as the parser gives it, strings are quoted.
+   */
+  private static String toValue(Object parameter) {
+    if (parameter instanceof String) {
+      return "'" + parameter + "'";
+    }
+    return String.valueOf(parameter);
+  }
+
+  /**
+   * check that every placeholder is in a position a parameter may take.
+   */
+  private void checkPlaceholders() throws QueryProcessorException {
+    if (placeholders.isEmpty()) {
+      return;
+    }
+    BitSet bound = new BitSet(placeholders.size());
+    switch (operator.getType()) {
+      case QUERY:
+        FilterOperator filter = ((QueryOperator) operator).getFilterOperator();
+        if (filter != null) {
+          markFilter(filter, bound);
+        }
+        break;
+      case INSERT:
+        InsertOperator insert = (InsertOperator) operator;
+        mark(String.valueOf(insert.getTime()), bound);
+        for (String value : insert.getValueList()) {
+          mark(value, bound);
+        }
+        break;
+      default:
+        throw new QueryProcessorException(
+            "Parameters are only supported by queries and inserts, but the statement is a "
+                + operator.getType());
+    }
+    int unbound = bound.nextClearBit(0);
+    if (unbound < placeholders.size()) {
+      throw new QueryProcessorException(String.format(
+          "Parameter #%d is not supported in its position, parameters can only be the values of"
+              + " where conditions and of inserts", unbound + 1));
+    }
+  }
+
+  private void markFilter(FilterOperator filter, BitSet bound) {
+    if (filter.isLeaf()) {
+      mark(((BasicFunctionOperator) filter).getValue(), bound);
+    } else {
+      for (FilterOperator child : filter.getChildren()) {
+        markFilter(child, bound);
+      }
+    }
+  }
+
+  private void mark(String value, BitSet bound) {
+    Integer index = placeholders.get(value);
+    if (index != null) {
+      bound.set(index);
+    }
+  }
+}
@@ -19,14 +19,20 @@
 package org.apache.iotdb.db.qp;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.ArgsErrorException;
+import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.exception.qp.IllegalASTFormatException;
 import org.apache.iotdb.db.exception.qp.LogicalOperatorException;
 import org.apache.iotdb.db.exception.qp.LogicalOptimizeException;
 import org.apache.iotdb.db.exception.qp.QueryProcessorException;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.logical.RootOperator;
@@ -43,12 +49,16 @@ import org.apache.iotdb.db.sql.ParseGenerator;
 import org.apache.iotdb.db.sql.parse.AstNode;
 import org.apache.iotdb.db.sql.parse.ParseException;
 import org.apache.iotdb.db.sql.parse.ParseUtils;
+import org.apache.iotdb.tsfile.read.common.Path;
 
 /**
  * provide a integration method for other user.
  */
 public class QueryProcessor {
 
+  private static final int MAX_PARAMETER_NUM = 999999;
+  private static final long PLACEHOLDER_BASE = 7_391_000_000_000_000_000L;
+
   private QueryProcessExecutor executor;
 
   public QueryProcessor(QueryProcessExecutor executor) {
@@ -74,6 +84,151 @@ public class QueryProcessor {
     return physicalGenerator.transformToPhysicalPlan(operator);
   }
 
+  /**
+   * prepare a statement whose parameters are marked by '?'.
+   *
+   * @param sqlStr the statement
+   * @param zoneId the time zone of the datetime strings in the statement
+   * @return the prepared statement, whose parameters are bound by {@link #bind(PreparedPlan,
+   * List, ZoneId)}
+   */
+  public PreparedPlan prepare(String sqlStr, ZoneId zoneId)
+      throws QueryProcessorException, ArgsErrorException {
+    List<String> parts = splitByParameterMarkers(sqlStr);
+    if (parts.size() - 1 > MAX_PARAMETER_NUM) {
+      throw new QueryProcessorException(
+          "A statement can have at most " + MAX_PARAMETER_NUM + " parameters");
+    }
+    // placeholders are numbers whose leading digits do not appear in the statement
+    long placeholderBase = PLACEHOLDER_BASE;
+    while (sqlStr.contains(String.valueOf(placeholderBase / (MAX_PARAMETER_NUM + 1)))) {
+      placeholderBase += MAX_PARAMETER_NUM + 1;
+    }
+    Map<String, Integer> placeholders = new HashMap<>();
+    StringBuilder placeholderSql = new StringBuilder(parts.get(0));
+    for (int i = 1; i < parts.size(); i++) {
+      String placeholder = String.valueOf(placeholderBase + i);
+      placeholders.put(placeholder, i - 1);
+      placeholderSql.append(placeholder).append(parts.get(i));
+    }
+
+    AstNode astNode = parseSQLToAST(placeholderSql.toString());
+    Operator operator = parseASTToOperator(astNode, zoneId);
+    boolean matchedBySchema = operator.getType() == Operator.OperatorType.QUERY
+        && isMatchedBySchema((SFWOperator) operator);
+    operator = logicalOptimize(operator, executor);
+    return new PreparedPlan(sqlStr, operator, placeholders,
+        matchedBySchema ? placeholderSql.toString() : null);
+  }
+
+  /**
+   * bind the parameters of a prepared statement and generate its physical plan.
+   *
+   * @param parameters see {@link PreparedPlan#bind(List, ZoneId, PhysicalGenerator)}
+   */
+  public PhysicalPlan bind(PreparedPlan preparedPlan, List<Object> parameters, ZoneId zoneId)
+      throws QueryProcessorException, ProcessorException {
+    PhysicalGenerator generator = new PhysicalGenerator(executor);
+    String resolvedSql = preparedPlan.getResolvedSql();
+    if (resolvedSql == null) {
+      return preparedPlan.bind(parameters, zoneId, generator);
+    }
+    // the series matched by the paths may be created or deleted after the statement is prepared,
+    // so the paths are resolved again
+    Operator operator;
+    try {
+      operator = logicalOptimize(parseASTToOperator(parseSQLToAST(resolvedSql), zoneId), executor);
+    } catch (ArgsErrorException e) {
+      throw new QueryProcessorException(e.getMessage());
+    }
+    return preparedPlan.bind(operator, parameters, zoneId, generator);
+  }
+
+  /**
+   * whether a path of the query is matched against the schema, i.e. it has wildcards or is the
+   * prefix of series, so the series it selects depend on the schema.
+   */
+  private boolean isMatchedBySchema(SFWOperator query) {
+    List<Path> prefixPaths = query.getFromOperator() == null ? new ArrayList<>()
+        : query.getFromOperator().getPrefixPaths();
+    List<Path> paths = new ArrayList<>();
+    if (query.getSelectOperator() != null) {
+      paths.addAll(query.getSelectOperator().getSuffixPaths());
+    }
+    if (query.getFilterOperator() != null) {
+      addFilterPaths(query.getFilterOperator(), paths);
+    }
+    for (Path path : paths) {
+      if (SQLConstant.isReservedPath(path)) {
+        continue;
+      }
+      if (path.startWith(SQLConstant.ROOT)) {
+        if (!isSeries(path)) {
+          return true;
+        }
+        continue;
+      }
+      for (Path prefixPath : prefixPaths) {
+        if (!isSeries(Path.addPrefixPath(path, prefixPath))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void addFilterPaths(FilterOperator filter, List<Path> paths) {
+    if (filter.isLeaf()) {
+      paths.add(filter.getSinglePath());
+      return;
+    }
+    for (FilterOperator child : filter.getChildren()) {
+      addFilterPaths(child, paths);
+    }
+  }
+
+  /**
+   * whether the path is a series, which it is resolved to only.
+   */
+  private boolean isSeries(Path path) {
+    String fullPath = path.getFullPath();
+    if (fullPath.contains("*")) {
+      return false;
+    }
+    try {
+      List<String> actualPaths = executor.getAllPaths(fullPath);
+      return actualPaths != null && actualPaths.size() == 1 && actualPaths.get(0).equals(fullPath);
+    } catch (PathErrorException e) {
+      return false;
+    }
+  }
+
+  /**
+   * split a statement by the parameter markers which are not quoted.
+   */
+  private static List<String> splitByParameterMarkers(String sqlStr) {
+    List<String> parts = new ArrayList<>();
+    char quote = 0;
+    int partStart = 0;
+    for (int i = 0; i < sqlStr.length(); i++) {
+      char c = sqlStr.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '?') {
+        parts.add(sqlStr.substring(partStart, i));
+        partStart = i + 1;
+      }
+    }
+    parts.add(sqlStr.substring(partStart));
+    return parts;
+  }
+
   /**
    * Convert ast tree to Operator which type maybe {@code SFWOperator} or {@code AuthorOperator}
    *
@@ -131,6 +286,7 @@ public class QueryProcessor {
       case DELETE_TIMESERIES:
       case PROPERTY:
       case LOADDATA:
+      case LOAD_FILES:
       case INSERT:
       case INDEX:
       case INDEXQUERY:
@@ -18,11 +18,16 @@
  */
 package org.apache.iotdb.db.qp.executor;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import org.apache.iotdb.db.auth.AuthException;
 import org.apache.iotdb.db.auth.authorizer.IAuthorizer;
@@ -32,6 +37,7 @@ import org.apache.iotdb.db.auth.entity.PrivilegeType;
 import org.apache.iotdb.db.auth.entity.Role;
 import org.apache.iotdb.db.auth.entity.User;
 import org.apache.iotdb.db.engine.filenode.FileNodeManager;
+import org.apache.iotdb.db.engine.filenode.TsFileLoader;
 import org.apache.iotdb.db.exception.ArgsErrorException;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.PathErrorException;
@@ -39,6 +45,8 @@ import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.metadata.ColumnSchema;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.metadata.MNode;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
 import org.apache.iotdb.db.monitor.MonitorConstants;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator;
@@ -50,10 +58,12 @@ import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.UpdatePlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
 import org.apache.iotdb.db.qp.physical.sys.LoadDataPlan;
+import org.apache.iotdb.db.qp.physical.sys.LoadFilesPlan;
 import org.apache.iotdb.db.qp.physical.sys.MetadataPlan;
 import org.apache.iotdb.db.qp.physical.sys.PropertyPlan;
 import org.apache.iotdb.db.utils.AuthUtils;
 import org.apache.iotdb.db.utils.LoadDataUtils;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
@@ -61,6 +71,7 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -140,6 +151,8 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
         load.loadLocalDataMultiPass(loadData.getInputFilePath(), loadData.getMeasureType(),
             MManager.getInstance());
         return true;
+      case LOAD_FILES:
+        return loadFiles(((LoadFilesPlan) plan).getFilePath());
       case DELETE_TIMESERIES:
       case SET_STORAGE_GROUP:
       case METADATA:
@@ -262,6 +275,7 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
       List<String> insertValues)
       throws ProcessorException {
     try {
+      long startTime = System.nanoTime();
       TSRecord tsRecord = new TSRecord(insertTime, deviceId);
 
       MNode node = mManager.getNodeByDeviceIdFromCache(deviceId);
@@ -285,6 +299,7 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
         DataPoint dataPoint = DataPoint.getDataPoint(dataType, measurementList.get(i), value);
         tsRecord.addTuple(dataPoint);
       }
+      Metrics.getInstance().recordLatency(Metric.INSERT_SCHEMA_LATENCY, startTime);
       return fileNodeManager.insert(tsRecord, false);
 
     } catch (PathErrorException | FileNodeManagerException e) {
@@ -497,45 +512,7 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
             throw new ProcessorException(
                 String.format("Timeseries %s already exist", path.getFullPath()));
           }
-          if (!mManager.checkFileNameByPath(path.getFullPath())) {
-            throw new ProcessorException("Storage group should be created first");
-          }
-          // optimize the speed of adding timeseries
-          String fileNodePath = mManager.getFileNameByPath(path.getFullPath());
-          // the two map is stored in the storage group node
-          Map<String, ColumnSchema> schemaMap = mManager.getSchemaMapForOneFileNode(fileNodePath);
-          Map<String, Integer> numSchemaMap = mManager.getNumSchemaMapForOneFileNode(fileNodePath);
-          String lastNode = path.getMeasurement();
-          boolean isNewMeasurement = true;
-          // Thread safety: just one thread can access/modify the schemaMap
-          synchronized (schemaMap) {
-            if (schemaMap.containsKey(lastNode)) {
-              isNewMeasurement = false;
-              ColumnSchema columnSchema = schemaMap.get(lastNode);
-              if (!columnSchema.geTsDataType().toString().equals(dataType)
-                  || !columnSchema.getEncoding().toString().equals(encoding)) {
-                throw new ProcessorException(String.format(
-                    "The dataType or encoding of the last node %s is conflicting in the storage group %s",
-                    lastNode, fileNodePath));
-              }
-              mManager.addPathToMTree(path.getFullPath(), dataType, encoding, encodingArgs);
-              numSchemaMap.put(lastNode, numSchemaMap.get(lastNode) + 1);
-            } else {
-              mManager.addPathToMTree(path.getFullPath(), dataType, encoding, encodingArgs);
-              ColumnSchema columnSchema = mManager.getSchemaForOnePath(path.toString());
-              schemaMap.put(lastNode, columnSchema);
-              numSchemaMap.put(lastNode, 1);
-            }
-            try {
-              if (isNewMeasurement) {
-                // add time series to schema
-                fileNodeManager.addTimeSeries(path, dataType, encoding);
-              }
-              // fileNodeManager.closeOneFileNode(namespacePath);
-            } catch (FileNodeManagerException e) {
-              throw new ProcessorException(e);
-            }
-          }
+          addTimeseries(path, dataType, encoding, encodingArgs);
           break;
         case DELETE_PATH:
           if (deletePathList != null && !deletePathList.isEmpty()) {
@@ -583,8 +560,10 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
               }
               closeFileNodes.add(nameSpacePath);
               // the two map is stored in the storage group node
-              schemaMap = mManager.getSchemaMapForOneFileNode(nameSpacePath);
-              numSchemaMap = mManager.getNumSchemaMapForOneFileNode(nameSpacePath);
+              Map<String, ColumnSchema> schemaMap = mManager
+                  .getSchemaMapForOneFileNode(nameSpacePath);
+              Map<String, Integer> numSchemaMap = mManager
+                  .getNumSchemaMapForOneFileNode(nameSpacePath);
               // Thread safety: just one thread can access/modify the schemaMap
               synchronized (schemaMap) {
                 // TODO: don't delete the storage group seriesPath
@@ -625,6 +604,177 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
     return true;
   }
 
+  /**
+   * add a timeseries whose storage group is set.
+   */
+  private void addTimeseries(Path path, String dataType, String encoding, String[] encodingArgs)
+      throws ProcessorException, PathErrorException, IOException, ArgsErrorException {
+    if (!mManager.checkFileNameByPath(path.getFullPath())) {
+      throw new ProcessorException("Storage group should be created first");
+    }
+    // optimize the speed of adding timeseries
+    String fileNodePath = mManager.getFileNameByPath(path.getFullPath());
+    // the two map is stored in the storage group node
+    Map<String, ColumnSchema> schemaMap = mManager.getSchemaMapForOneFileNode(fileNodePath);
+    Map<String, Integer> numSchemaMap = mManager.getNumSchemaMapForOneFileNode(fileNodePath);
+    String lastNode = path.getMeasurement();
+    boolean isNewMeasurement = true;
+    // Thread safety: just one thread can access/modify the schemaMap
+    synchronized (schemaMap) {
+      if (schemaMap.containsKey(lastNode)) {
+        isNewMeasurement = false;
+        ColumnSchema columnSchema = schemaMap.get(lastNode);
+        if (!columnSchema.geTsDataType().toString().equals(dataType)
+            || !columnSchema.getEncoding().toString().equals(encoding)) {
+          throw new ProcessorException(String.format(
+              "The dataType or encoding of the last node %s is conflicting in the storage group %s",
+              lastNode, fileNodePath));
+        }
+        mManager.addPathToMTree(path.getFullPath(), dataType, encoding, encodingArgs);
+        numSchemaMap.put(lastNode, numSchemaMap.get(lastNode) + 1);
+      } else {
+        mManager.addPathToMTree(path.getFullPath(), dataType, encoding, encodingArgs);
+        ColumnSchema columnSchema = mManager.getSchemaForOnePath(path.toString());
+        schemaMap.put(lastNode, columnSchema);
+        numSchemaMap.put(lastNode, 1);
+      }
+      try {
+        if (isNewMeasurement) {
+          // add time series to schema
+          fileNodeManager.addTimeSeries(path, dataType, encoding);
+        }
+        // fileNodeManager.closeOneFileNode(namespacePath);
+      } catch (FileNodeManagerException e) {
+        throw new ProcessorException(e);
+      }
+    }
+  }
+
+  /**
+   * load a tsfile, or the tsfiles in a directory in the order of their names. All files are
+   * validated before the missing timeseries of their devices are registered and any data is loaded.
+   * A tsfile whose devices belong to one storage group is loaded as a whole, others are split by
+   * storage group. The loaded files are kept.
+   */
+  private boolean loadFiles(String filePath) throws ProcessorException {
+    File file = new File(filePath);
+    List<File> tsFiles = new ArrayList<>();
+    if (file.isDirectory()) {
+      File[] files = file.listFiles(f -> f.isFile() && !f.isHidden());
+      if (files != null) {
+        Arrays.sort(files);
+        tsFiles.addAll(Arrays.asList(files));
+      }
+    } else if (file.isFile()) {
+      tsFiles.add(file);
+    } else {
+      throw new ProcessorException(String.format("File %s does not exist", filePath));
+    }
+
+    List<Map<String, List<String>>> storageGroupsOfFiles = new ArrayList<>();
+    Map<Path, MeasurementSchema> newTimeseries = new LinkedHashMap<>();
+    Map<String, Map<String, MeasurementSchema>> newMeasurements = new HashMap<>();
+    for (File tsFile : tsFiles) {
+      storageGroupsOfFiles.add(validateFile(tsFile, newTimeseries, newMeasurements));
+    }
+    for (Entry<Path, MeasurementSchema> entry : newTimeseries.entrySet()) {
+      MeasurementSchema schema = entry.getValue();
+      try {
+        addTimeseries(entry.getKey(), schema.getType().toString(),
+            schema.getEncodingType().toString(), new String[0]);
+      } catch (PathErrorException | IOException | ArgsErrorException e) {
+        throw new ProcessorException(String.format("Cannot register timeseries %s: %s",
+            entry.getKey().getFullPath(), e.getMessage()));
+      }
+    }
+    try {
+      for (int i = 0; i < tsFiles.size(); i++) {
+        File tsFile = tsFiles.get(i);
+        Map<String, List<String>> storageGroups = storageGroupsOfFiles.get(i);
+        if (storageGroups.size() == 1) {
+          new TsFileLoader(storageGroups.keySet().iterator().next()).load(tsFile, true);
+          continue;
+        }
+        for (Entry<String, List<String>> entry : storageGroups.entrySet()) {
+          new TsFileLoader(entry.getKey()).loadDevices(tsFile, entry.getValue());
+        }
+      }
+    } catch (FileNodeManagerException e) {
+      throw new ProcessorException(e);
+    }
+    LOG.info("Load {} tsfiles from {}.", tsFiles.size(), filePath);
+    return true;
+  }
+
+  /**
+   * validate a tsfile against the existing timeseries and the new ones of the files validated
+   * before it, and collect the timeseries of its devices which do not exist yet.
+   *
+   * @param newTimeseries the timeseries to register, to which the new ones of the tsfile are added
+   * @param newMeasurements map from a storage group to the schemas of the measurements which are
+   * new in it, to which the new ones of the tsfile are added
+   * @return map from a storage group to the devices of the tsfile in it
+   */
+  private Map<String, List<String>> validateFile(File tsFile,
+      Map<Path, MeasurementSchema> newTimeseries,
+      Map<String, Map<String, MeasurementSchema>> newMeasurements) throws ProcessorException {
+    Map<String, List<String>> storageGroups = new HashMap<>();
+    try {
+      TsFileMetaData metaData = TsFileLoader.readMetaData(tsFile);
+      Map<String, MeasurementSchema> schemas = metaData.getMeasurementSchema();
+      for (Entry<String, Set<String>> entry : TsFileLoader.readMeasurements(tsFile, metaData)
+          .entrySet()) {
+        String deviceId = entry.getKey();
+        String storageGroup;
+        try {
+          storageGroup = mManager.getFileNameByPath(deviceId);
+        } catch (PathErrorException e) {
+          throw new ProcessorException(String.format(
+              "The storage group of device %s in %s should be created first", deviceId,
+              tsFile.getPath()));
+        }
+        storageGroups.computeIfAbsent(storageGroup, k -> new ArrayList<>()).add(deviceId);
+        for (String measurementId : entry.getValue()) {
+          Path path = new Path(deviceId, measurementId);
+          TSDataType dataType = schemas.get(measurementId).getType();
+          TSDataType existingType;
+          if (mManager.pathExist(path.getFullPath())) {
+            existingType = mManager.getSeriesType(path.getFullPath());
+          } else if (newTimeseries.containsKey(path)) {
+            existingType = newTimeseries.get(path).getType();
+          } else {
+            // a measurement has one schema in a storage group, and chunks carry their encodings,
+            // so the encoding of the storage group is kept if any
+            Map<String, MeasurementSchema> groupMeasurements = newMeasurements
+                .computeIfAbsent(storageGroup, k -> new HashMap<>());
+            ColumnSchema columnSchema = mManager.getSchemaMapForOneFileNode(storageGroup)
+                .get(measurementId);
+            MeasurementSchema schema = groupMeasurements.get(measurementId);
+            if (columnSchema != null) {
+              schema = new MeasurementSchema(measurementId, columnSchema.geTsDataType(),
+                  columnSchema.getEncoding());
+            } else if (schema == null) {
+              schema = new MeasurementSchema(measurementId, dataType,
+                  schemas.get(measurementId).getEncodingType());
+              groupMeasurements.put(measurementId, schema);
+            }
+            newTimeseries.put(path, schema);
+            existingType = schema.getType();
+          }
+          if (existingType != dataType) {
+            throw new ProcessorException(String.format(
+                "The data type of timeseries %s in %s is %s, which conflicts with the existing "
+                    + "one", path.getFullPath(), tsFile.getPath(), dataType));
+          }
+        }
+      }
+    } catch (IOException | PathErrorException e) {
+      throw new ProcessorException(
+          String.format("Cannot load %s: %s", tsFile.getPath(), e.getMessage()));
+    }
+    return storageGroups;
+  }
+
   /**
    * Delete all data of time series in pathList.
    *
@@ -23,17 +23,25 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.executor.EngineQueryRouter;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.BinaryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Pair;
 
@@ -46,12 +54,70 @@ public abstract class QueryProcessExecutor {
   }
 
   public QueryDataSet processQuery(PhysicalPlan plan) throws IOException, FileNodeManagerException {
-    QueryPlan queryPlan = (QueryPlan) plan;
+    if (isDownsampling(plan)) {
+      GroupByPlan groupByPlan = (GroupByPlan) plan;
+      return queryRouter.downsample(createQueryExpression(plan), groupByPlan.getUnit(),
+          groupByPlan.getOrigin());
+    }
+    return queryRouter.query(createQueryExpression(plan));
+  }
+
+  /**
+   * execute a query plan under the limits of the given query context.
+   */
+  public QueryDataSet processQuery(PhysicalPlan plan, QueryContext context)
+      throws IOException, FileNodeManagerException {
+    if (isDownsampling(plan)) {
+      GroupByPlan groupByPlan = (GroupByPlan) plan;
+      return queryRouter.downsample(createQueryExpression(plan), groupByPlan.getUnit(),
+          groupByPlan.getOrigin(), context);
+    }
+    return queryRouter.query(createQueryExpression(plan), context);
+  }
+
+  /**
+   * whether the plan is a group by query whose aggregations are all m4, which is downsampled by
+   * the server, e.g. select m4(s1) from root.vehicle.d1 group by(1000ms, 0, [0, 3600000]).
+   */
+  private boolean isDownsampling(PhysicalPlan plan) {
+    if (!(plan instanceof GroupByPlan) || plan.getAggregations().isEmpty()) {
+      return false;
+    }
+    for (String aggregation : plan.getAggregations()) {
+      if (!IoTDBConstant.M4.equalsIgnoreCase(aggregation)) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    QueryExpression queryExpression = QueryExpression.create().setSelectSeries(queryPlan.getPaths())
-        .setExpression(queryPlan.getExpression());
+  private QueryExpression createQueryExpression(PhysicalPlan plan) {
+    QueryPlan queryPlan = (QueryPlan) plan;
+    IExpression expression = queryPlan.getExpression();
+    if (isDownsampling(plan)) {
+      expression = addIntervalFilter(expression, ((GroupByPlan) plan).getIntervals());
+    }
+    return QueryExpression.create().setSelectSeries(queryPlan.getPaths())
+        .setExpression(expression);
+  }
 
-    return queryRouter.query(queryExpression);
+  /**
+   * restrict the expression to the time intervals of a group by query.
+   */
+  private IExpression addIntervalFilter(IExpression expression,
+      List<Pair<Long, Long>> intervals) {
+    if (intervals == null || intervals.isEmpty()) {
+      return expression;
+    }
+    Filter intervalFilter = null;
+    for (Pair<Long, Long> interval : intervals) {
+      Filter filter = FilterFactory
+          .and(TimeFilter.gtEq(interval.left), TimeFilter.ltEq(interval.right));
+      intervalFilter = intervalFilter == null ? filter : FilterFactory.or(intervalFilter, filter);
+    }
+    IExpression intervalExpression = new GlobalTimeExpression(intervalFilter);
+    return expression == null ? intervalExpression
+        : BinaryExpression.and(expression, intervalExpression);
   }
 
   public abstract TSDataType getSeriesType(Path fullPath) throws PathErrorException;
@@ -74,6 +74,10 @@ public class BasicFunctionOperator extends FunctionOperator {
     return value;
   }
 
+  public void setValue(String value) {
+    this.value = value;
+  }
+
   /**
    * set reversed token.
    *
@@ -24,6 +24,8 @@ import java.util.Objects;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
 
 public class InsertPlan extends PhysicalPlan {
 
@@ -32,6 +34,11 @@ public class InsertPlan extends PhysicalPlan {
   private List<String> values;
   private long time;
 
+  /**
+   * typed values of the plan, null if the values are only known as strings.
+   */
+  private List<DataPoint> dataPoints;
+
   // insertType
   // 1 : BufferWrite Insert 2 : Overflow Insert
   private int insertType;
@@ -55,6 +62,25 @@ public class InsertPlan extends PhysicalPlan {
     this.values = insertValues;
   }
 
+  /**
+   * constructor of an InsertPlan which keeps the typed values of a record, so that the WAL can
+   * store them natively instead of as strings.
+   *
+   * @param insertType 1 : BufferWrite Insert 2 : Overflow Insert
+   * @param record the record to insert
+   */
+  public InsertPlan(int insertType, TSRecord record) {
+    super(false, Operator.OperatorType.INSERT);
+    this.insertType = insertType;
+    this.time = record.time;
+    this.deviceId = record.deviceId;
+    this.dataPoints = record.dataPointList;
+    this.measurements = new ArrayList<>(dataPoints.size());
+    for (DataPoint dataPoint : dataPoints) {
+      measurements.add(dataPoint.getMeasurementId());
+    }
+  }
+
   public long getTime() {
     return time;
   }
@@ -98,11 +124,27 @@ public class InsertPlan extends PhysicalPlan {
   }
 
   public List<String> getValues() {
+    if (values == null && dataPoints != null) {
+      values = new ArrayList<>(dataPoints.size());
+      for (DataPoint dataPoint : dataPoints) {
+        values.add(dataPoint.getValue().toString());
+      }
+    }
     return this.values;
   }
 
   public void setValues(List<String> values) {
     this.values = values;
+    this.dataPoints = null;
+  }
+
+  /**
+   * get the typed values of the plan.
+   *
+   * @return the typed values, or null if the values are only known as strings
+   */
+  public List<DataPoint> getDataPoints() {
+    return dataPoints;
   }
 
   @Override
@@ -116,7 +158,7 @@ public class InsertPlan extends PhysicalPlan {
     InsertPlan that = (InsertPlan) o;
     return time == that.time && Objects.equals(deviceId, that.deviceId)
         && Objects.equals(measurements, that.measurements)
-        && Objects.equals(values, that.values);
+        && Objects.equals(getValues(), that.getValues());
   }
 
 }
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.physical.sys;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+public class LoadFilesPlan extends PhysicalPlan {
+
+  private final String filePath;
+
+  /**
+   * Constructor of LoadFilesPlan.
+   *
+   * @param filePath a tsfile or a directory of tsfiles
+   */
+  public LoadFilesPlan(String filePath) {
+    super(false, Operator.OperatorType.LOAD_FILES);
+    this.filePath = filePath;
+  }
+
+  /**
+   * the devices are known only after the files are read, so the privilege is checked on root.
+   */
+  @Override
+  public List<Path> getPaths() {
+    return new ArrayList<>();
+  }
+
+  public String getFilePath() {
+    return filePath;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadFilesPlan{filePath=" + filePath + "}";
+  }
+}
@@ -47,6 +47,7 @@ import org.apache.iotdb.db.qp.logical.crud.SelectOperator;
 import org.apache.iotdb.db.qp.logical.crud.UpdateOperator;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator;
 import org.apache.iotdb.db.qp.logical.sys.LoadDataOperator;
+import org.apache.iotdb.db.qp.logical.sys.LoadFilesOperator;
 import org.apache.iotdb.db.qp.logical.sys.MetadataOperator;
 import org.apache.iotdb.db.qp.logical.sys.PropertyOperator;
 import org.apache.iotdb.db.query.fill.IFill;
@@ -180,6 +181,9 @@ public class LogicalGenerator {
       case TSParser.TOK_LOAD:
         analyzeDataLoad(astNode);
         return;
+      case TSParser.TOK_LOAD_FILES:
+        analyzeLoadFiles(astNode);
+        return;
       case TSParser.TOK_QUERY:
         // for TSParser.TOK_QUERY might appear in both query and insert
         // command. Thus, do
@@ -902,6 +906,16 @@ public class LogicalGenerator {
         sc.toString());
   }
 
+  private void analyzeLoadFiles(AstNode astNode) throws IllegalASTFormatException {
+    String filePath = astNode.getChild(0).getText();
+    if (filePath.length() < 3 || (filePath.charAt(0) != '\'' && filePath.charAt(0) != '\"')
+        || filePath.charAt(filePath.length() - 1) != filePath.charAt(0)) {
+      throw new IllegalASTFormatException("load files: error format filePath:" + filePath);
+    }
+    initializedOperator = new LoadFilesOperator(SQLConstant.TOK_LOAD_FILES,
+        filePath.substring(1, filePath.length() - 1));
+  }
+
   private void analyzeAuthorCreate(AstNode astNode) throws IllegalASTFormatException {
     int childCount = astNode.getChildCount();
     AuthorOperator authorOperator;
@@ -1059,6 +1073,8 @@ public class LogicalGenerator {
     final String ts2Diff = "TS_2DIFF";
     final String bitmap = "BITMAP";
     final String gorilla = "GORILLA";
+    final String dictionary = "PLAIN_DICTIONARY";
+    final String auto = "AUTO";
     TSDataType tsDataType;
     if (dataType == null) {
       throw new MetadataArgsErrorException("data type cannot be null");
@@ -1076,24 +1092,30 @@ public class LogicalGenerator {
 
     if (!encoding.equals(rle) && !encoding.equals(plain) && !encoding.equals(ts2Diff) && !encoding
         .equals(bitmap)
-        && !encoding.equals(gorilla)) {
+        && !encoding.equals(gorilla) && !encoding.equals(dictionary) && !encoding.equals(auto)) {
       throw new MetadataArgsErrorException(String.format("encoding %s is not support", encoding));
     }
+    if (encoding.equals(auto)) {
+      // the encoding of each chunk is chosen among the ones supporting the data type
+      return;
+    }
     switch (tsDataType) {
       case BOOLEAN:
-        if (!encoding.equals(plain) && !encoding.equals(rle)) {
+        if (!encoding.equals(plain) && !encoding.equals(rle) && !encoding.equals(bitmap)) {
           throw new MetadataArgsErrorException(
               String.format("encoding %s does not support %s", encoding, dataType));
         }
         break;
       case INT32:
-        if ((!encoding.equals(plain) && !encoding.equals(rle) && !encoding.equals(ts2Diff))) {
+        if ((!encoding.equals(plain) && !encoding.equals(rle) && !encoding.equals(ts2Diff)
+            && !encoding.equals(bitmap) && !encoding.equals(gorilla))) {
           throw new MetadataArgsErrorException(
               String.format("encoding %s does not support %s", encoding, dataType));
         }
         break;
       case INT64:
-        if ((!encoding.equals(plain) && !encoding.equals(rle) && !encoding.equals(ts2Diff))) {
+        if ((!encoding.equals(plain) && !encoding.equals(rle) && !encoding.equals(ts2Diff)
+            && !encoding.equals(gorilla))) {
           throw new MetadataArgsErrorException(
               String.format("encoding %s does not support %s", encoding, dataType));
         }
@@ -1113,7 +1135,7 @@ public class LogicalGenerator {
         }
         break;
       case TEXT:
-        if (!encoding.equals(plain)) {
+        if (!encoding.equals(plain) && !encoding.equals(dictionary)) {
           throw new MetadataArgsErrorException(
               String.format("encoding %s does not support %s", encoding, dataType));
         }
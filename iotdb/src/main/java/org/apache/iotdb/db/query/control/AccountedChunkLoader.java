@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.io.IOException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.controller.ChunkLoader;
+
+/**
+ * A chunk loader which checks the query before loading each chunk and accounts the memory of the
+ * loaded chunks to the query, so a query reading too many chunks or running past its deadline is
+ * aborted. A series reader reads the chunks one after another, so by default only the last loaded
+ * chunk is accounted and its memory is released when the next chunk is loaded. The memory is
+ * released by {@link #release()} when the chunks are no longer read.
+ */
+public class AccountedChunkLoader implements ChunkLoader {
+
+  private ChunkLoader chunkLoader;
+  private QueryContext context;
+  private boolean holdAllChunks;
+  private long accountedMemory;
+
+  public AccountedChunkLoader(ChunkLoader chunkLoader, QueryContext context) {
+    this(chunkLoader, context, false);
+  }
+
+  /**
+   * @param holdAllChunks true if the loaded chunks are all held until {@link #release()}, e.g. by a
+   * merge reader, false if a chunk is no longer read once the next chunk is loaded
+   */
+  public AccountedChunkLoader(ChunkLoader chunkLoader, QueryContext context,
+      boolean holdAllChunks) {
+    this.chunkLoader = chunkLoader;
+    this.context = context;
+    this.holdAllChunks = holdAllChunks;
+  }
+
+  @Override
+  public Chunk getChunk(ChunkMetaData chunkMetaData) throws IOException {
+    context.checkAborted();
+    Chunk chunk = chunkLoader.getChunk(chunkMetaData);
+    if (!holdAllChunks) {
+      // the previous chunk is no longer read
+      release();
+    }
+    long size = chunk.getData().remaining();
+    accountedMemory += size;
+    context.allocateMemory(size);
+    return chunk;
+  }
+
+  /**
+   * release the memory of the accounted chunks from the query.
+   */
+  public void release() {
+    context.releaseMemory(accountedMemory);
+    accountedMemory = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    release();
+    chunkLoader.close();
+  }
+}
@@ -88,11 +88,21 @@ public class OpenedFilePathsManager {
     if (jobIdContainer.get() != null) {
       long jobId = jobIdContainer.get();
       jobIdContainer.remove();
+      removeUsedFiles(jobId);
+    }
+  }
 
-      for (String filePath : filePathsMap.get(jobId)) {
-        FileReaderManager.getInstance().decreaseFileReaderReference(filePath);
-      }
-      filePathsMap.remove(jobId);
+  /**
+   * Decrease the usage reference of all file paths used by the job. Removing the files of a job
+   * twice has no effect.
+   */
+  public void removeUsedFiles(long jobId) {
+    Set<String> filePaths = filePathsMap.remove(jobId);
+    if (filePaths == null) {
+      return;
+    }
+    for (String filePath : filePaths) {
+      FileReaderManager.getInstance().decreaseFileReaderReference(filePath);
     }
   }
 
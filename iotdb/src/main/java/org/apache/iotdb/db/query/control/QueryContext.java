@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.engine.memtable.TimeValuePairSorter;
+import org.apache.iotdb.db.exception.QueryAbortedException;
+import org.apache.iotdb.db.metrics.Metric;
+
+/**
+ * The context of a running query, created by {@link QueryContextManager}. It carries the job id of
+ * the query and its limits: a cancel flag, a deadline and a memory budget. The readers of the query
+ * check the context between batches and account the memory of the chunks they load, so a query is
+ * aborted by a {@link QueryAbortedException} once it is cancelled, runs past its deadline or takes
+ * more memory than its budget.
+ */
+public class QueryContext {
+
+  /**
+   * estimated memory in byte of a time value pair copied from a memtable.
+   */
+  private static final int TIME_VALUE_PAIR_SIZE = 64;
+
+  private final long jobId;
+
+  /**
+   * the user running the query, null if the query is not run by a jdbc session.
+   */
+  private final String user;
+  private final QueryPriority priority;
+
+  /**
+   * the start time from System.nanoTime() and the histogram the latency of the query is recorded
+   * into when it ends, which is set by the executor of the query.
+   */
+  private final long startTime = System.nanoTime();
+  private volatile Metric latencyMetric;
+
+  /**
+   * Long.MAX_VALUE if the query has no time limit.
+   */
+  private final long deadline;
+  private final long timeout;
+
+  /**
+   * 0 if the memory of the query is not limited.
+   */
+  private final long memoryBudget;
+  private final AtomicLong usedMemory = new AtomicLong();
+
+  /**
+   * why the query is aborted, null if it is not.
+   */
+  private volatile String abortReason;
+
+  /**
+   * whether the results of the query are being fetched, guarded by this.
+   */
+  private boolean fetching;
+
+  /**
+   * whether the resources of the query are released, guarded by this.
+   */
+  private boolean ended;
+
+  QueryContext(long jobId, String user, QueryPriority priority, long timeout, long memoryBudget) {
+    this.jobId = jobId;
+    this.user = user;
+    this.priority = priority;
+    this.timeout = timeout;
+    this.deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+    this.memoryBudget = memoryBudget;
+  }
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  public QueryPriority getPriority() {
+    return priority;
+  }
+
+  public long getStartTime() {
+    return startTime;
+  }
+
+  public Metric getLatencyMetric() {
+    return latencyMetric;
+  }
+
+  public void setLatencyMetric(Metric latencyMetric) {
+    this.latencyMetric = latencyMetric;
+  }
+
+  public long getUsedMemory() {
+    return usedMemory.get();
+  }
+
+  /**
+   * cancel the query, its readers stop at the next check.
+   */
+  public void cancel() {
+    abort("Query " + jobId + " is cancelled");
+  }
+
+  public boolean isAborted() {
+    return abortReason != null;
+  }
+
+  /**
+   * throw if the query is cancelled or has run past its deadline.
+   */
+  public void checkAborted() throws QueryAbortedException {
+    if (abortReason == null && System.currentTimeMillis() > deadline) {
+      abort("Query " + jobId + " is aborted after running more than " + timeout + "ms");
+    }
+    if (abortReason != null) {
+      throw new QueryAbortedException(abortReason);
+    }
+  }
+
+  /**
+   * account memory taken by the query.
+   *
+   * @param size memory in byte
+   * @throws QueryAbortedException if the query exceeds its memory budget or is aborted
+   */
+  public void allocateMemory(long size) throws QueryAbortedException {
+    long used = usedMemory.addAndGet(size);
+    if (memoryBudget > 0 && used > memoryBudget) {
+      abort("Query " + jobId + " is aborted for taking " + used + " bytes, more than its budget "
+          + memoryBudget + " bytes");
+    }
+    checkAborted();
+  }
+
+  /**
+   * account the memory of the memtable data a reader of the query copies.
+   */
+  public void allocateMemory(TimeValuePairSorter memChunk) throws QueryAbortedException {
+    allocateMemory((long) memChunk.getSortedTimeValuePairList().size() * TIME_VALUE_PAIR_SIZE);
+  }
+
+  /**
+   * release memory accounted by {@link #allocateMemory(long)}.
+   */
+  public void releaseMemory(long size) {
+    usedMemory.addAndGet(-size);
+  }
+
+  /**
+   * called before the results of the query are fetched.
+   *
+   * @throws QueryAbortedException if the query is aborted or its resources are released
+   */
+  synchronized void beginFetch() throws QueryAbortedException {
+    if (ended) {
+      throw new QueryAbortedException(
+          abortReason != null ? abortReason : "Query " + jobId + " has ended");
+    }
+    checkAborted();
+    fetching = true;
+  }
+
+  synchronized void endFetch() {
+    fetching = false;
+  }
+
+  /**
+   * mark the query as ended if it is not being fetched and is aborted or has run past its
+   * deadline.
+   *
+   * @return true if the query is marked ended by this call
+   */
+  synchronized boolean expireIfIdle(long currentTime) {
+    if (ended || fetching) {
+      return false;
+    }
+    if (abortReason == null && currentTime > deadline) {
+      abort("Query " + jobId + " is aborted after running more than " + timeout + "ms");
+    }
+    if (abortReason == null) {
+      return false;
+    }
+    ended = true;
+    return true;
+  }
+
+  synchronized boolean isEnded() {
+    return ended;
+  }
+
+  /**
+   * mark the query as ended.
+   *
+   * @return false if the query has ended before
+   */
+  synchronized boolean markEnded() {
+    if (ended) {
+      return false;
+    }
+    ended = true;
+    return true;
+  }
+
+  private void abort(String reason) {
+    if (abortReason == null) {
+      abortReason = reason;
+    }
+  }
+}
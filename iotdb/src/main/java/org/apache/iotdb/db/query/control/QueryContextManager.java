@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.FileNodeManagerException;
+import org.apache.iotdb.db.exception.QueryAbortedException;
+import org.apache.iotdb.db.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Singleton pattern, to manage the contexts of all running queries. A query gets its context and
+ * job id here when it begins, and is ended by {@link #endQuery(QueryContext)} or, together with the
+ * other queries of its jdbc request thread, by {@link #endQueriesOfCurrentRequestThread()}. Ending
+ * a query releases the query tokens and opened files of its job. The number of running queries is
+ * limited by maxConcurrentQueries, their tasks are scheduled by {@link QueryScheduler}, and the
+ * queries aborted or timed out while nobody fetches their results are ended when a new query
+ * begins, so an abandoned query does not hold its resources forever.
+ */
+public class QueryContextManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryContextManager.class);
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * Each unique jdbc request(query, aggregation or others job) has an unique job id. This job id
+   * will always be maintained until the request is closed. In each job, the unique file will be
+   * only opened once to avoid too many opened files error.
+   */
+  private AtomicLong jobIdGenerator = new AtomicLong();
+
+  private Map<Long, QueryContext> runningQueries = new ConcurrentHashMap<>();
+
+  /**
+   * the queries begun by each jdbc request thread.
+   */
+  private ThreadLocal<List<QueryContext>> threadQueries = ThreadLocal.withInitial(ArrayList::new);
+
+  private QueryContextManager() {
+  }
+
+  public static QueryContextManager getInstance() {
+    return QueryContextManagerHelper.INSTANCE;
+  }
+
+  /**
+   * begin a query of no user on the current request thread.
+   *
+   * @see #beginQuery(String, long)
+   */
+  public QueryContext beginQuery(long timeout) throws QueryAbortedException {
+    return beginQuery(null, timeout);
+  }
+
+  /**
+   * begin a query on the current request thread. The query is scheduled as a batch query if the
+   * user is one of batchQueryUsers, or else as an interactive one.
+   *
+   * @param user the user running the query, null if there is no such user
+   * @param timeout the time in ms the query may run, the configured queryTimeout is used if it is
+   * not positive
+   * @throws QueryAbortedException if there are maxConcurrentQueries running queries
+   */
+  public QueryContext beginQuery(String user, long timeout) throws QueryAbortedException {
+    endExpiredQueries();
+    QueryPriority priority = user != null && config.batchQueryUsers.contains(user)
+        ? QueryPriority.BATCH : QueryPriority.INTERACTIVE;
+    QueryContext context;
+    synchronized (this) {
+      if (config.maxConcurrentQueries > 0
+          && runningQueries.size() >= config.maxConcurrentQueries) {
+        throw new QueryAbortedException(
+            "Too many running queries, the limit is " + config.maxConcurrentQueries);
+      }
+      long jobId = jobIdGenerator.incrementAndGet();
+      context = new QueryContext(jobId, user, priority,
+          timeout > 0 ? timeout : config.queryTimeout, config.queryMemoryBudget);
+      runningQueries.put(jobId, context);
+    }
+    List<QueryContext> queriesOfThread = threadQueries.get();
+    queriesOfThread.removeIf(QueryContext::isEnded);
+    queriesOfThread.add(context);
+    QueryTokenManager.getInstance().setJobIdForCurrentRequestThread(context.getJobId());
+    OpenedFilePathsManager.getInstance().setJobIdForCurrentRequestThread(context.getJobId());
+    return context;
+  }
+
+  /**
+   * called before the results of a query are fetched, which waits until the query scheduler lets
+   * the fetch run. The query must not be ended by others until {@link #endFetch(QueryContext)}.
+   *
+   * @throws QueryAbortedException if the query is aborted or has ended
+   */
+  public void beginFetch(QueryContext context) throws QueryAbortedException {
+    QueryScheduler.getInstance().acquire(context);
+    try {
+      context.beginFetch();
+    } catch (QueryAbortedException e) {
+      QueryScheduler.getInstance().release();
+      throw e;
+    }
+  }
+
+  public void endFetch(QueryContext context) {
+    context.endFetch();
+    QueryScheduler.getInstance().release();
+  }
+
+  /**
+   * end a query and release its query tokens and opened files. Ending a query twice has no effect.
+   */
+  public void endQuery(QueryContext context) {
+    if (context.markEnded()) {
+      releaseResources(context);
+    }
+  }
+
+  /**
+   * cancel a running query of the user. The query is ended at once if nobody fetches its results,
+   * or else the fetch fails at its next check and ends it. The query may be cancelled from any
+   * thread, e.g. the request thread of another connection of the user.
+   *
+   * @param jobId the job id of the query
+   * @param user the user asking for the cancellation, who must be the user running the query
+   * @return false if there is no such running query of the user
+   */
+  public boolean cancelQuery(long jobId, String user) {
+    QueryContext context = runningQueries.get(jobId);
+    if (context == null || !Objects.equals(context.getUser(), user)) {
+      return false;
+    }
+    context.cancel();
+    if (context.expireIfIdle(System.currentTimeMillis())) {
+      releaseResources(context);
+    }
+    return true;
+  }
+
+  /**
+   * end all the queries begun by the current jdbc request thread, called when the request is
+   * closed normally or abnormally.
+   */
+  public void endQueriesOfCurrentRequestThread() {
+    List<QueryContext> queriesOfThread = threadQueries.get();
+    for (QueryContext context : queriesOfThread) {
+      endQuery(context);
+    }
+    queriesOfThread.clear();
+  }
+
+  /**
+   * number of the running queries.
+   */
+  public int getRunningQueryNum() {
+    return runningQueries.size();
+  }
+
+  /**
+   * end the queries which are aborted or past their deadline and are not being fetched.
+   */
+  public void endExpiredQueries() {
+    long currentTime = System.currentTimeMillis();
+    for (QueryContext context : runningQueries.values()) {
+      if (context.expireIfIdle(currentTime)) {
+        LOGGER.warn("Query {} is aborted while idle, its resources are released.",
+            context.getJobId());
+        releaseResources(context);
+      }
+    }
+  }
+
+  private void releaseResources(QueryContext context) {
+    runningQueries.remove(context.getJobId());
+    if (context.getLatencyMetric() != null) {
+      Metrics.getInstance().recordLatency(context.getLatencyMetric(), context.getStartTime());
+    }
+    try {
+      QueryTokenManager.getInstance().endQuery(context.getJobId());
+    } catch (FileNodeManagerException e) {
+      LOGGER.error("Failed to end the query tokens of query {}.", context.getJobId(), e);
+    }
+    OpenedFilePathsManager.getInstance().removeUsedFiles(context.getJobId());
+  }
+
+  private static class QueryContextManagerHelper {
+    private static final QueryContextManager INSTANCE = new QueryContextManager();
+  }
+}
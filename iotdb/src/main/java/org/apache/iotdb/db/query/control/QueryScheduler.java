@@ -0,0 +1,256 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.memcontrol.BasicMemController;
+import org.apache.iotdb.db.engine.memcontrol.BasicMemController.UsageLevel;
+import org.apache.iotdb.db.exception.QueryAbortedException;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Singleton pattern, to schedule the tasks of running queries. A task is a unit of work of a query
+ * done by a jdbc request thread, i.e. executing the query or fetching a batch of its results. At
+ * most concurrentQueryTasks tasks run at the same time, the other ones wait in queues.
+ *
+ * <p>Interactive tasks are granted before batch tasks, but while both wait, one batch task is
+ * granted after every {@link #INTERACTIVE_GRANTS_PER_BATCH} interactive ones so reports are not
+ * starved. Within a priority, the users take turns, so a user submitting many tasks does not delay
+ * the tasks of the others. Ingestion is protected by backing off reads when the memory is short:
+ * batch tasks are held at the WARNING level, and only one interactive task runs at the DANGEROUS
+ * level.
+ */
+public class QueryScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryScheduler.class);
+
+  /**
+   * while tasks of both priorities wait, one batch task is granted after this number of
+   * interactive tasks.
+   */
+  static final int INTERACTIVE_GRANTS_PER_BATCH = 4;
+
+  /**
+   * the time in ms a waiting task waits before it checks its query and the memory level again.
+   */
+  private static final long WAIT_INTERVAL = 100;
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * the waiting tasks of each priority, grouped by user in the order the users take turns.
+   */
+  private Map<QueryPriority, LinkedHashMap<String, Deque<Task>>> waitingTasks = new EnumMap<>(
+      QueryPriority.class);
+  private int waitingTaskNum;
+  private int runningTaskNum;
+  private int interactiveGrants;
+
+  /**
+   * queue time statistics of each priority, indexed by the ordinal of the priority.
+   */
+  private long[] grantedTaskNums = new long[QueryPriority.values().length];
+  private long[] totalQueueTimes = new long[QueryPriority.values().length];
+  private long[] maxQueueTimes = new long[QueryPriority.values().length];
+
+  private QueryScheduler() {
+    for (QueryPriority priority : QueryPriority.values()) {
+      waitingTasks.put(priority, new LinkedHashMap<>());
+    }
+  }
+
+  public static QueryScheduler getInstance() {
+    return QuerySchedulerHelper.INSTANCE;
+  }
+
+  /**
+   * wait until a task of the query may run. Each successful call must be followed by
+   * {@link #release()} when the task finishes.
+   *
+   * @throws QueryAbortedException if the query is aborted while waiting
+   */
+  public void acquire(QueryContext context) throws QueryAbortedException {
+    context.checkAborted();
+    Task task = new Task(context);
+    synchronized (this) {
+      waitingTasks.get(context.getPriority())
+          .computeIfAbsent(context.getUser(), user -> new ArrayDeque<>()).add(task);
+      waitingTaskNum++;
+      try {
+        grantTasks();
+        while (!task.granted) {
+          context.checkAborted();
+          wait(WAIT_INTERVAL);
+          grantTasks();
+        }
+      } catch (QueryAbortedException e) {
+        cancelTask(task);
+        throw e;
+      } catch (InterruptedException e) {
+        cancelTask(task);
+        Thread.currentThread().interrupt();
+        throw new QueryAbortedException("Query " + context.getJobId() + " is interrupted");
+      }
+    }
+  }
+
+  /**
+   * finish a task granted by {@link #acquire(QueryContext)}.
+   */
+  public synchronized void release() {
+    runningTaskNum--;
+    grantTasks();
+  }
+
+  public synchronized int getRunningTaskNum() {
+    return runningTaskNum;
+  }
+
+  public synchronized int getWaitingTaskNum() {
+    return waitingTaskNum;
+  }
+
+  /**
+   * number of the tasks of the priority granted so far.
+   */
+  public synchronized long getGrantedTaskNum(QueryPriority priority) {
+    return grantedTaskNums[priority.ordinal()];
+  }
+
+  /**
+   * total time in ms the granted tasks of the priority waited in the queue.
+   */
+  public synchronized long getTotalQueueTime(QueryPriority priority) {
+    return totalQueueTimes[priority.ordinal()];
+  }
+
+  /**
+   * the longest time in ms a granted task of the priority waited in the queue.
+   */
+  public synchronized long getMaxQueueTime(QueryPriority priority) {
+    return maxQueueTimes[priority.ordinal()];
+  }
+
+  private void cancelTask(Task task) {
+    if (task.granted) {
+      release();
+      return;
+    }
+    Map<String, Deque<Task>> tasksOfUsers = waitingTasks.get(task.context.getPriority());
+    Deque<Task> tasksOfUser = tasksOfUsers.get(task.context.getUser());
+    if (tasksOfUser != null && tasksOfUser.remove(task)) {
+      waitingTaskNum--;
+      if (tasksOfUser.isEmpty()) {
+        tasksOfUsers.remove(task.context.getUser());
+      }
+    }
+  }
+
+  /**
+   * grant the waiting tasks as long as the memory level and the number of running tasks allow.
+   */
+  private void grantTasks() {
+    UsageLevel level = BasicMemController.getInstance().getCurrLevel();
+    int maxRunningTaskNum = level == UsageLevel.DANGEROUS ? 1 : config.concurrentQueryTasks;
+    boolean granted = false;
+    while (runningTaskNum < maxRunningTaskNum) {
+      Task task = pollNextTask(level == UsageLevel.SAFE);
+      if (task == null) {
+        break;
+      }
+      task.granted = true;
+      runningTaskNum++;
+      granted = true;
+      recordQueueTime(task);
+    }
+    if (granted) {
+      notifyAll();
+    }
+  }
+
+  private Task pollNextTask(boolean batchAllowed) {
+    boolean interactiveWaiting = !waitingTasks.get(QueryPriority.INTERACTIVE).isEmpty();
+    boolean batchWaiting = batchAllowed && !waitingTasks.get(QueryPriority.BATCH).isEmpty();
+    if (interactiveWaiting && (!batchWaiting
+        || interactiveGrants < INTERACTIVE_GRANTS_PER_BATCH)) {
+      interactiveGrants++;
+      return pollTask(waitingTasks.get(QueryPriority.INTERACTIVE));
+    }
+    if (batchWaiting) {
+      interactiveGrants = 0;
+      return pollTask(waitingTasks.get(QueryPriority.BATCH));
+    }
+    return null;
+  }
+
+  /**
+   * poll the first task of the user whose turn it is, and move the user to the end of the turns.
+   */
+  private Task pollTask(LinkedHashMap<String, Deque<Task>> tasksOfUsers) {
+    Iterator<Entry<String, Deque<Task>>> iterator = tasksOfUsers.entrySet().iterator();
+    Entry<String, Deque<Task>> turn = iterator.next();
+    iterator.remove();
+    Task task = turn.getValue().poll();
+    if (!turn.getValue().isEmpty()) {
+      tasksOfUsers.put(turn.getKey(), turn.getValue());
+    }
+    waitingTaskNum--;
+    return task;
+  }
+
+  private void recordQueueTime(Task task) {
+    Metrics.getInstance().recordLatency(Metric.QUERY_QUEUE_TIME, task.enqueueTime);
+    long queueTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.enqueueTime);
+    int index = task.context.getPriority().ordinal();
+    grantedTaskNums[index]++;
+    totalQueueTimes[index] += queueTime;
+    maxQueueTimes[index] = Math.max(maxQueueTimes[index], queueTime);
+    if (queueTime > WAIT_INTERVAL) {
+      LOGGER.debug("A task of query {} waited {}ms in the {} queue.", task.context.getJobId(),
+          queueTime, task.context.getPriority());
+    }
+  }
+
+  private static class Task {
+
+    private final QueryContext context;
+    private final long enqueueTime = System.nanoTime();
+    private boolean granted;
+
+    private Task(QueryContext context) {
+      this.context = context;
+    }
+  }
+
+  private static class QuerySchedulerHelper {
+    private static final QueryScheduler INSTANCE = new QueryScheduler();
+  }
+}
@@ -140,13 +140,22 @@ public class QueryTokenManager {
     if (jobContainer.get() != null) {
       long jobId = jobContainer.get();
       jobContainer.remove();
+      endQuery(jobId);
+    }
+  }
 
-      for (Map.Entry<String, List<Integer>> entry : queryTokensMap.get(jobId).entrySet()) {
-        for (int token : entry.getValue()) {
-          FileNodeManager.getInstance().endQuery(entry.getKey(), token);
-        }
+  /**
+   * End all query tokens created by the job. Ending a job twice has no effect.
+   */
+  public void endQuery(long jobId) throws FileNodeManagerException {
+    Map<String, List<Integer>> deviceTokens = queryTokensMap.remove(jobId);
+    if (deviceTokens == null) {
+      return;
+    }
+    for (Map.Entry<String, List<Integer>> entry : deviceTokens.entrySet()) {
+      for (int token : entry.getValue()) {
+        FileNodeManager.getInstance().endQuery(entry.getKey(), token);
       }
-      queryTokensMap.remove(jobId);
     }
   }
 
@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+
+/**
+ * Downsamples the rows of a query into the first, last, minimum and maximum points of each series
+ * in every time interval (M4). A line chart drawn from the downsampled points is the same as the
+ * one drawn from all points if an interval is not wider than a pixel, so a client reads at most
+ * four points per series and pixel instead of all of them.
+ *
+ * <p>The time intervals are [origin + k * unit, origin + (k + 1) * unit). The points kept are
+ * returned with their own timestamps in time order, one interval after another, so only the rows
+ * of the current interval are held in memory. Series which are not numeric have no minimum and
+ * maximum, and only their first and last points are kept.
+ */
+public class EngineDataSetWithM4Downsampling extends QueryDataSet {
+
+  private QueryDataSet dataSet;
+  private long unit;
+  private long origin;
+
+  /**
+   * the first row of the next interval, which has been read from dataSet.
+   */
+  private RowRecord nextRecord;
+
+  private SeriesPoints[] seriesPoints;
+
+  /**
+   * downsampled rows of the current interval which are not returned yet.
+   */
+  private Deque<RowRecord> rows = new ArrayDeque<>();
+
+  /**
+   * constructor of EngineDataSetWithM4Downsampling.
+   *
+   * @param dataSet rows of the selected series in time order
+   * @param unit length of a time interval, which must be positive
+   * @param origin start time of an interval
+   */
+  public EngineDataSetWithM4Downsampling(QueryDataSet dataSet, long unit, long origin) {
+    super(dataSet.getPaths(), dataSet.getDataTypes());
+    if (unit <= 0) {
+      throw new IllegalArgumentException("The interval of downsampling must be positive: " + unit);
+    }
+    this.dataSet = dataSet;
+    this.unit = unit;
+    this.origin = origin;
+    seriesPoints = new SeriesPoints[dataTypes.size()];
+    for (int i = 0; i < seriesPoints.length; i++) {
+      seriesPoints[i] = new SeriesPoints(dataTypes.get(i));
+    }
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    if (rows.isEmpty()) {
+      downsampleNextInterval();
+    }
+    return !rows.isEmpty();
+  }
+
+  @Override
+  public RowRecord next() throws IOException {
+    if (!hasNext()) {
+      return null;
+    }
+    return rows.poll();
+  }
+
+  private void downsampleNextInterval() throws IOException {
+    RowRecord record = nextRecord;
+    nextRecord = null;
+    if (record == null) {
+      if (!dataSet.hasNext()) {
+        return;
+      }
+      record = dataSet.next();
+    }
+    long interval = getInterval(record.getTimestamp());
+    for (SeriesPoints points : seriesPoints) {
+      points.reset();
+    }
+    while (record != null) {
+      if (getInterval(record.getTimestamp()) != interval) {
+        nextRecord = record;
+        break;
+      }
+      for (int i = 0; i < seriesPoints.length; i++) {
+        Field field = record.getFields().get(i);
+        if (field != null && field.getDataType() != null && !field.isNull()) {
+          seriesPoints[i].update(record.getTimestamp(), field);
+        }
+      }
+      record = dataSet.hasNext() ? dataSet.next() : null;
+    }
+
+    TreeMap<Long, Field[]> points = new TreeMap<>();
+    for (int i = 0; i < seriesPoints.length; i++) {
+      seriesPoints[i].collect(i, points);
+    }
+    for (Entry<Long, Field[]> entry : points.entrySet()) {
+      RowRecord row = new RowRecord(entry.getKey());
+      for (Field field : entry.getValue()) {
+        row.addField(field == null ? new Field(null) : field);
+      }
+      rows.add(row);
+    }
+  }
+
+  private long getInterval(long time) {
+    return Math.floorDiv(time - origin, unit);
+  }
+
+  /**
+   * the first, last, minimum and maximum points of a series in the current interval.
+   */
+  private class SeriesPoints {
+
+    private TSDataType dataType;
+    private boolean hasPoint;
+    private long firstTime;
+    private Field first;
+    private long lastTime;
+    private Field last;
+    private long minTime;
+    private Field min;
+    private long maxTime;
+    private Field max;
+
+    private SeriesPoints(TSDataType dataType) {
+      this.dataType = dataType;
+    }
+
+    private void reset() {
+      hasPoint = false;
+      first = last = min = max = null;
+    }
+
+    private void update(long time, Field field) {
+      if (!hasPoint) {
+        hasPoint = true;
+        firstTime = lastTime = minTime = maxTime = time;
+        first = last = field;
+        if (isNumeric()) {
+          min = max = field;
+        }
+        return;
+      }
+      lastTime = time;
+      last = field;
+      if (isNumeric()) {
+        double value = getValue(field);
+        if (value < getValue(min)) {
+          minTime = time;
+          min = field;
+        }
+        if (value > getValue(max)) {
+          maxTime = time;
+          max = field;
+        }
+      }
+    }
+
+    private void collect(int index, TreeMap<Long, Field[]> points) {
+      if (!hasPoint) {
+        return;
+      }
+      put(index, firstTime, first, points);
+      if (min != null) {
+        put(index, minTime, min, points);
+        put(index, maxTime, max, points);
+      }
+      put(index, lastTime, last, points);
+    }
+
+    private void put(int index, long time, Field field, TreeMap<Long, Field[]> points) {
+      points.computeIfAbsent(time, t -> new Field[seriesPoints.length])[index] = field;
+    }
+
+    private boolean isNumeric() {
+      return dataType == TSDataType.INT32 || dataType == TSDataType.INT64
+          || dataType == TSDataType.FLOAT || dataType == TSDataType.DOUBLE;
+    }
+
+    private double getValue(Field field) {
+      switch (dataType) {
+        case INT32:
+          return field.getIntV();
+        case INT64:
+          return field.getLongV();
+        case FLOAT:
+          return field.getFloatV();
+        default:
+          return field.getDoubleV();
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.control.QueryDataSourceManager;
 import org.apache.iotdb.db.query.control.QueryTokenManager;
 import org.apache.iotdb.db.query.dataset.EngineDataSetWithTimeGenerator;
@@ -45,10 +46,10 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 public class EngineExecutorWithTimeGenerator {
 
   private QueryExpression queryExpression;
-  private long jobId;
+  private QueryContext context;
 
-  EngineExecutorWithTimeGenerator(long jobId, QueryExpression queryExpression) {
-    this.jobId = jobId;
+  EngineExecutorWithTimeGenerator(QueryContext context, QueryExpression queryExpression) {
+    this.context = context;
     this.queryExpression = queryExpression;
   }
 
@@ -62,11 +63,11 @@ public class EngineExecutorWithTimeGenerator {
   public QueryDataSet execute() throws IOException, FileNodeManagerException {
 
     QueryTokenManager.getInstance()
-        .beginQueryOfGivenQueryPaths(jobId, queryExpression.getSelectedSeries());
+        .beginQueryOfGivenQueryPaths(context.getJobId(), queryExpression.getSelectedSeries());
     QueryTokenManager.getInstance()
-        .beginQueryOfGivenExpression(jobId, queryExpression.getExpression());
+        .beginQueryOfGivenExpression(context.getJobId(), queryExpression.getExpression());
 
-    EngineTimeGenerator timestampGenerator = new EngineTimeGenerator(jobId,
+    EngineTimeGenerator timestampGenerator = new EngineTimeGenerator(context,
         queryExpression.getExpression());
 
     List<EngineReaderByTimeStamp> readersOfSelectedSeries = getReadersOfSelectedPaths(
@@ -94,18 +95,20 @@ public class EngineExecutorWithTimeGenerator {
 
     for (Path path : paths) {
 
-      QueryDataSource queryDataSource = QueryDataSourceManager.getQueryDataSource(jobId, path);
+      QueryDataSource queryDataSource = QueryDataSourceManager
+          .getQueryDataSource(context.getJobId(), path);
 
       PriorityMergeReaderByTimestamp mergeReaderByTimestamp = new PriorityMergeReaderByTimestamp();
 
       // reader for sequence data
       SequenceDataReader tsFilesReader = new SequenceDataReader(queryDataSource.getSeqDataSource(),
-          null);
+          null, context);
       mergeReaderByTimestamp.addReaderWithPriority(tsFilesReader, 1);
 
       // reader for unSequence data
       PriorityMergeReader unSeqMergeReader = SeriesReaderFactory.getInstance()
-          .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), null);
+          .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), null,
+              context);
       mergeReaderByTimestamp.addReaderWithPriority(unSeqMergeReader, 2);
 
       readersOfSelectedSeries.add(mergeReaderByTimestamp);
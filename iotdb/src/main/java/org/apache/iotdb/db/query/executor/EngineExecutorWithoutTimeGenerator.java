@@ -25,6 +25,7 @@ import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.control.QueryDataSourceManager;
 import org.apache.iotdb.db.query.control.QueryTokenManager;
 import org.apache.iotdb.db.query.dataset.EngineDataSetWithoutTimeGenerator;
@@ -45,10 +46,10 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 public class EngineExecutorWithoutTimeGenerator {
 
   private QueryExpression queryExpression;
-  private long jobId;
+  private QueryContext context;
 
-  public EngineExecutorWithoutTimeGenerator(long jobId, QueryExpression queryExpression) {
-    this.jobId = jobId;
+  public EngineExecutorWithoutTimeGenerator(QueryContext context, QueryExpression queryExpression) {
+    this.context = context;
     this.queryExpression = queryExpression;
   }
 
@@ -64,11 +65,12 @@ public class EngineExecutorWithoutTimeGenerator {
     List<TSDataType> dataTypes = new ArrayList<>();
 
     QueryTokenManager.getInstance()
-        .beginQueryOfGivenQueryPaths(jobId, queryExpression.getSelectedSeries());
+        .beginQueryOfGivenQueryPaths(context.getJobId(), queryExpression.getSelectedSeries());
 
     for (Path path : queryExpression.getSelectedSeries()) {
 
-      QueryDataSource queryDataSource = QueryDataSourceManager.getQueryDataSource(jobId, path);
+      QueryDataSource queryDataSource = QueryDataSourceManager
+          .getQueryDataSource(context.getJobId(), path);
 
       // add data type
       dataTypes.add(MManager.getInstance().getSeriesType(path.getFullPath()));
@@ -77,12 +79,13 @@ public class EngineExecutorWithoutTimeGenerator {
 
       // sequence reader for one sealed tsfile
       SequenceDataReader tsFilesReader = new SequenceDataReader(queryDataSource.getSeqDataSource(),
-          timeFilter);
+          timeFilter, context);
       priorityReader.addReaderWithPriority(tsFilesReader, 1);
 
       // unseq reader for all chunk groups in unSeqFile
       PriorityMergeReader unSeqMergeReader = SeriesReaderFactory.getInstance()
-          .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), timeFilter);
+          .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), timeFilter,
+              context);
       priorityReader.addReaderWithPriority(unSeqMergeReader, 2);
 
       readersOfSelectedSeries.add(priorityReader);
@@ -103,11 +106,12 @@ public class EngineExecutorWithoutTimeGenerator {
     List<TSDataType> dataTypes = new ArrayList<>();
 
     QueryTokenManager.getInstance()
-        .beginQueryOfGivenQueryPaths(jobId, queryExpression.getSelectedSeries());
+        .beginQueryOfGivenQueryPaths(context.getJobId(), queryExpression.getSelectedSeries());
 
     for (Path path : queryExpression.getSelectedSeries()) {
 
-      QueryDataSource queryDataSource = QueryDataSourceManager.getQueryDataSource(jobId, path);
+      QueryDataSource queryDataSource = QueryDataSourceManager
+          .getQueryDataSource(context.getJobId(), path);
 
       // add data type
       dataTypes.add(MManager.getInstance().getSeriesType(path.getFullPath()));
@@ -116,12 +120,13 @@ public class EngineExecutorWithoutTimeGenerator {
 
       // sequence insert data
       SequenceDataReader tsFilesReader = new SequenceDataReader(queryDataSource.getSeqDataSource(),
-          null);
+          null, context);
       priorityReader.addReaderWithPriority(tsFilesReader, 1);
 
       // unseq insert data
       PriorityMergeReader unSeqMergeReader = SeriesReaderFactory.getInstance()
-          .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), null);
+          .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), null,
+              context);
       priorityReader.addReaderWithPriority(unSeqMergeReader, 2);
 
       readersOfSelectedSeries.add(priorityReader);
@@ -21,11 +21,12 @@ package org.apache.iotdb.db.query.executor;
 import static org.apache.iotdb.tsfile.read.expression.ExpressionType.GLOBAL_TIME;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.PathErrorException;
-import org.apache.iotdb.db.query.control.OpenedFilePathsManager;
-import org.apache.iotdb.db.query.control.QueryTokenManager;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.query.control.QueryContext;
+import org.apache.iotdb.db.query.control.QueryContextManager;
+import org.apache.iotdb.db.query.dataset.EngineDataSetWithM4Downsampling;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.expression.QueryExpression;
@@ -39,22 +40,20 @@ import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 public class EngineQueryRouter {
 
   /**
-   * Each unique jdbc request(query, aggregation or others job) has an unique job id. This job id
-   * will always be maintained until the request is closed. In each job, the unique file will be
-   * only opened once to avoid too many opened files error.
+   * execute physical plan in a new query of the default limits, which is ended with the other
+   * queries of the current request thread.
    */
-  private AtomicLong jobIdGenerator = new AtomicLong();
+  public QueryDataSet query(QueryExpression queryExpression)
+      throws IOException, FileNodeManagerException {
+    return query(queryExpression, QueryContextManager.getInstance().beginQuery(0));
+  }
 
   /**
-   * execute physical plan.
+   * execute physical plan in the given query.
    */
-  public QueryDataSet query(QueryExpression queryExpression)
+  public QueryDataSet query(QueryExpression queryExpression, QueryContext context)
       throws IOException, FileNodeManagerException {
 
-    long nextJobId = getNextJobId();
-    QueryTokenManager.getInstance().setJobIdForCurrentRequestThread(nextJobId);
-    OpenedFilePathsManager.getInstance().setJobIdForCurrentRequestThread(nextJobId);
-
     if (queryExpression.hasQueryFilter()) {
       try {
         IExpression optimizedExpression = ExpressionOptimizer.getInstance()
@@ -62,14 +61,14 @@ public class EngineQueryRouter {
         queryExpression.setExpression(optimizedExpression);
 
         if (optimizedExpression.getType() == GLOBAL_TIME) {
+          context.setLatencyMetric(Metric.QUERY_GLOBAL_TIME_FILTER_LATENCY);
           EngineExecutorWithoutTimeGenerator engineExecutor =
-              new EngineExecutorWithoutTimeGenerator(
-                  nextJobId, queryExpression);
+              new EngineExecutorWithoutTimeGenerator(context, queryExpression);
           return engineExecutor.executeWithGlobalTimeFilter();
         } else {
+          context.setLatencyMetric(Metric.QUERY_TIME_GENERATOR_LATENCY);
           EngineExecutorWithTimeGenerator engineExecutor = new EngineExecutorWithTimeGenerator(
-              nextJobId,
-              queryExpression);
+              context, queryExpression);
           return engineExecutor.execute();
         }
 
@@ -78,9 +77,9 @@ public class EngineQueryRouter {
       }
     } else {
       try {
+        context.setLatencyMetric(Metric.QUERY_WITHOUT_FILTER_LATENCY);
         EngineExecutorWithoutTimeGenerator engineExecutor = new EngineExecutorWithoutTimeGenerator(
-            nextJobId,
-            queryExpression);
+            context, queryExpression);
         return engineExecutor.executeWithoutFilter();
       } catch (PathErrorException e) {
         throw new IOException(e);
@@ -88,7 +87,25 @@ public class EngineQueryRouter {
     }
   }
 
-  private synchronized long getNextJobId() {
-    return jobIdGenerator.incrementAndGet();
+  /**
+   * downsample in a new query of the default limits, see {@link #downsample(QueryExpression, long,
+   * long, QueryContext)}.
+   */
+  public QueryDataSet downsample(QueryExpression queryExpression, long unit, long origin)
+      throws IOException, FileNodeManagerException {
+    return downsample(queryExpression, unit, origin,
+        QueryContextManager.getInstance().beginQuery(0));
+  }
+
+  /**
+   * execute physical plan in the given query, and downsample its rows into the first, last,
+   * minimum and maximum points of each series in every time interval.
+   *
+   * @param unit length of a time interval
+   * @param origin start time of an interval
+   */
+  public QueryDataSet downsample(QueryExpression queryExpression, long unit, long origin,
+      QueryContext context) throws IOException, FileNodeManagerException {
+    return new EngineDataSetWithM4Downsampling(query(queryExpression, context), unit, origin);
   }
 }
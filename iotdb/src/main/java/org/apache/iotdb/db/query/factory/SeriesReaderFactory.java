@@ -23,7 +23,9 @@ import java.util.List;
 import org.apache.iotdb.db.engine.filenode.IntervalFileNode;
 import org.apache.iotdb.db.engine.querycontext.OverflowInsertFile;
 import org.apache.iotdb.db.engine.querycontext.OverflowSeriesDataSource;
+import org.apache.iotdb.db.query.control.AccountedChunkLoader;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.reader.IReader;
 import org.apache.iotdb.db.query.reader.mem.MemChunkReaderWithFilter;
 import org.apache.iotdb.db.query.reader.mem.MemChunkReaderWithoutFilter;
@@ -34,6 +36,7 @@ import org.apache.iotdb.tsfile.common.constant.StatisticConstant;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.controller.ChunkLoader;
 import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
 import org.apache.iotdb.tsfile.read.controller.MetadataQuerier;
 import org.apache.iotdb.tsfile.read.controller.MetadataQuerierByFileImpl;
@@ -61,11 +64,11 @@ public class SeriesReaderFactory {
 
   /**
    * This method is used to create unseq file reader for IoTDB request, such as query, aggregation
-   * and groupby request. Note that, job id equals -1 meant that this method is used for IoTDB merge
+   * and groupby request. Note that, a null context means that this method is used for IoTDB merge
    * process, it's no need to maintain the opened file stream.
    */
   public PriorityMergeReader createUnSeqMergeReader(
-      OverflowSeriesDataSource overflowSeriesDataSource, Filter filter)
+      OverflowSeriesDataSource overflowSeriesDataSource, Filter filter, QueryContext context)
       throws IOException {
 
     PriorityMergeReader unSeqMergeReader = new PriorityMergeReader();
@@ -79,7 +82,11 @@ public class SeriesReaderFactory {
       TsFileSequenceReader unClosedTsFileReader = FileReaderManager.getInstance()
           .get(overflowInsertFile.getFilePath(), true);
 
-      ChunkLoaderImpl chunkLoader = new ChunkLoaderImpl(unClosedTsFileReader);
+      ChunkLoader chunkLoader = new ChunkLoaderImpl(unClosedTsFileReader);
+      if (context != null) {
+        // the chunks are all held by the merge reader
+        chunkLoader = new AccountedChunkLoader(chunkLoader, context, true);
+      }
 
       for (ChunkMetaData chunkMetaData : overflowInsertFile.getChunkMetaDataList()) {
 
@@ -93,9 +100,14 @@ public class SeriesReaderFactory {
           continue;
         }
 
+        if (chunkMetaData.getEndTime() <= chunkMetaData.getMaxTombstoneTime()) {
+          continue;
+        }
+
         Chunk chunk = chunkLoader.getChunk(chunkMetaData);
         ChunkReader chunkReader = filter != null ? new ChunkReaderWithFilter(chunk, filter)
             : new ChunkReaderWithoutFilter(chunk);
+        chunkReader.setMaxTombstoneTime(chunkMetaData.getMaxTombstoneTime());
 
         unSeqMergeReader
             .addReaderWithPriority(new EngineChunkReader(chunkReader, unClosedTsFileReader),
@@ -106,6 +118,9 @@ public class SeriesReaderFactory {
 
     // add reader for MemTable
     if (overflowSeriesDataSource.hasRawChunk()) {
+      if (context != null) {
+        context.allocateMemory(overflowSeriesDataSource.getReadableMemChunk());
+      }
       if (filter != null) {
         unSeqMergeReader.addReaderWithPriority(
             new MemChunkReaderWithFilter(overflowSeriesDataSource.getReadableMemChunk(), filter),
@@ -139,27 +154,30 @@ public class SeriesReaderFactory {
     PriorityMergeReader priorityMergeReader = new PriorityMergeReader();
 
     // Sequence reader
-    IReader seriesInTsFileReader = createSealedTsFileReaderForMerge(intervalFileNode.getFilePath(),
+    IReader seriesInTsFileReader = createSealedTsFileReaderForMerge(intervalFileNode,
         singleSeriesExpression);
     priorityMergeReader.addReaderWithPriority(seriesInTsFileReader, 1);
 
     // UnSequence merge reader
     IReader unSeqMergeReader = createUnSeqMergeReader(overflowSeriesDataSource,
-        singleSeriesExpression.getFilter());
+        singleSeriesExpression.getFilter(), null);
     priorityMergeReader.addReaderWithPriority(unSeqMergeReader, 2);
 
     return priorityMergeReader;
   }
 
-  private IReader createSealedTsFileReaderForMerge(String filePath,
+  private IReader createSealedTsFileReaderForMerge(IntervalFileNode fileNode,
       SingleSeriesExpression singleSeriesExpression)
       throws IOException {
     TsFileSequenceReader tsFileSequenceReader = FileReaderManager.getInstance()
-        .get(filePath, false);
+        .get(fileNode.getFilePath(), false);
     ChunkLoaderImpl chunkLoader = new ChunkLoaderImpl(tsFileSequenceReader);
     MetadataQuerier metadataQuerier = new MetadataQuerierByFileImpl(tsFileSequenceReader);
     List<ChunkMetaData> metaDataList = metadataQuerier
         .getChunkMetaDataList(singleSeriesExpression.getSeriesPath());
+    // the deleted data are not written into the merged file
+    fileNode.getModFile()
+        .applyTo(singleSeriesExpression.getSeriesPath().getFullPath(), metaDataList);
 
     FileSeriesReader seriesInTsFileReader = new FileSeriesReaderWithFilter(chunkLoader,
         metaDataList,
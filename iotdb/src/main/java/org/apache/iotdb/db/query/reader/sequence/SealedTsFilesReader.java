@@ -22,7 +22,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.iotdb.db.engine.filenode.IntervalFileNode;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.query.control.AccountedChunkLoader;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.reader.IReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.db.utils.TimeValuePairUtils;
@@ -47,12 +50,29 @@ public class SealedTsFilesReader implements IReader {
   private Filter filter;
   private BatchData data;
   private boolean hasCachedData;
+  private long expiredTime = Long.MIN_VALUE;
+  /**
+   * null if the reader is not used by a query.
+   */
+  private QueryContext context;
+  private AccountedChunkLoader accountedChunkLoader;
 
   public SealedTsFilesReader(Path seriesPath, List<IntervalFileNode> sealedTsFiles, Filter filter) {
     this(seriesPath, sealedTsFiles);
     this.filter = filter;
   }
 
+  /**
+   * init with seriesPath, sealedTsFiles and filter for a query, data no later than expiredTime are
+   * not read.
+   */
+  public SealedTsFilesReader(Path seriesPath, List<IntervalFileNode> sealedTsFiles, Filter filter,
+      long expiredTime, QueryContext context) {
+    this(seriesPath, sealedTsFiles, filter);
+    this.expiredTime = expiredTime;
+    this.context = context;
+  }
+
   /**
    * init with seriesPath and sealedTsFiles.
    */
@@ -85,6 +105,7 @@ public class SealedTsFilesReader implements IReader {
 
       // try to get next batch data from current reader
       if (seriesReader != null && seriesReader.hasNextBatch()) {
+        checkAborted();
         data = seriesReader.nextBatch();
         if (data.hasNext()) {
           hasCachedData = true;
@@ -106,6 +127,7 @@ public class SealedTsFilesReader implements IReader {
           }
         }
         if (seriesReader.hasNextBatch()) {
+          checkAborted();
           data = seriesReader.nextBatch();
 
           // notice that, data maybe an empty batch data, so an examination must exist
@@ -163,7 +185,18 @@ public class SealedTsFilesReader implements IReader {
 
     MetadataQuerierByFileImpl metadataQuerier = new MetadataQuerierByFileImpl(tsFileReader);
     List<ChunkMetaData> metaDataList = metadataQuerier.getChunkMetaDataList(seriesPath);
+    // the deleted and expired data are skipped by the tombstones of the chunks
+    fileNode.getModFile().applyTo(seriesPath.getFullPath(), metaDataList);
+    ModificationFile.applyTombstone(metaDataList, expiredTime);
     ChunkLoader chunkLoader = new ChunkLoaderImpl(tsFileReader);
+    if (context != null) {
+      // the chunks of the previous file are no longer read
+      if (accountedChunkLoader != null) {
+        accountedChunkLoader.release();
+      }
+      accountedChunkLoader = new AccountedChunkLoader(chunkLoader, context);
+      chunkLoader = accountedChunkLoader;
+    }
 
     if (filter == null) {
       seriesReader = new FileSeriesReaderWithoutFilter(chunkLoader, metaDataList);
@@ -172,6 +205,12 @@ public class SealedTsFilesReader implements IReader {
     }
   }
 
+  private void checkAborted() throws IOException {
+    if (context != null) {
+      context.checkAborted();
+    }
+  }
+
   @Override
   public boolean hasNextBatch() {
     return false;
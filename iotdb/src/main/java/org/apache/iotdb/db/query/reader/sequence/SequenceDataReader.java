@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.iotdb.db.engine.querycontext.GlobalSortedSeriesDataSource;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.reader.IReader;
 import org.apache.iotdb.db.query.reader.mem.MemChunkReaderWithFilter;
 import org.apache.iotdb.db.query.reader.mem.MemChunkReaderWithoutFilter;
@@ -44,9 +45,11 @@ public class SequenceDataReader implements IReader {
 
   /**
    * init with globalSortedSeriesDataSource and filter.
+   *
+   * @param context the query reading the data, null if not read by a query
    */
-  public SequenceDataReader(GlobalSortedSeriesDataSource sources, Filter filter)
-      throws IOException {
+  public SequenceDataReader(GlobalSortedSeriesDataSource sources, Filter filter,
+      QueryContext context) throws IOException {
     seriesReaders = new ArrayList<>();
 
     curReaderInitialized = false;
@@ -55,16 +58,20 @@ public class SequenceDataReader implements IReader {
     // add reader for sealed TsFiles
     if (sources.hasSealedTsFiles()) {
       seriesReaders.add(
-          new SealedTsFilesReader(sources.getSeriesPath(), sources.getSealedTsFiles(), filter));
+          new SealedTsFilesReader(sources.getSeriesPath(), sources.getSealedTsFiles(), filter,
+              sources.getExpiredTime(), context));
     }
 
     // add reader for unSealed TsFile
     if (sources.hasUnsealedTsFile()) {
-      seriesReaders.add(new UnSealedTsFileReader(sources.getUnsealedTsFile(), filter));
+      seriesReaders.add(new UnSealedTsFileReader(sources.getUnsealedTsFile(), filter, context));
     }
 
     // add data in memTable
     if (sources.hasRawSeriesChunk()) {
+      if (context != null) {
+        context.allocateMemory(sources.getReadableChunk());
+      }
       if (filter == null) {
         seriesReaders.add(new MemChunkReaderWithoutFilter(sources.getReadableChunk()));
       } else {
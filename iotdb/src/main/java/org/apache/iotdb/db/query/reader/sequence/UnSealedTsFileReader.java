@@ -20,7 +20,9 @@ package org.apache.iotdb.db.query.reader.sequence;
 
 import java.io.IOException;
 import org.apache.iotdb.db.engine.querycontext.UnsealedTsFile;
+import org.apache.iotdb.db.query.control.AccountedChunkLoader;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.reader.IReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.db.utils.TimeValuePairUtils;
@@ -39,19 +41,26 @@ public class UnSealedTsFileReader implements IReader {
   protected Path seriesPath;
   private FileSeriesReader unSealedReader;
   private BatchData data;
+  private QueryContext context;
 
   /**
    * Construct funtion for UnSealedTsFileReader.
    *
    * @param unsealedTsFile -param to initial
    * @param filter -filter
+   * @param context the query reading the file, null if not read by a query
    */
-  public UnSealedTsFileReader(UnsealedTsFile unsealedTsFile, Filter filter) throws IOException {
+  public UnSealedTsFileReader(UnsealedTsFile unsealedTsFile, Filter filter, QueryContext context)
+      throws IOException {
+    this.context = context;
 
     TsFileSequenceReader unClosedTsFileReader = FileReaderManager.getInstance()
         .get(unsealedTsFile.getFilePath(),
             true);
     ChunkLoader chunkLoader = new ChunkLoaderImpl(unClosedTsFileReader);
+    if (context != null) {
+      chunkLoader = new AccountedChunkLoader(chunkLoader, context);
+    }
 
     if (filter == null) {
       unSealedReader = new FileSeriesReaderWithoutFilter(chunkLoader,
@@ -70,6 +79,9 @@ public class UnSealedTsFileReader implements IReader {
       if (!unSealedReader.hasNextBatch()) {
         return false;
       }
+      if (context != null) {
+        context.checkAborted();
+      }
       data = unSealedReader.nextBatch();
     }
 
@@ -25,6 +25,7 @@ import static org.apache.iotdb.tsfile.read.expression.ExpressionType.SERIES;
 import java.io.IOException;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.db.query.control.QueryDataSourceManager;
 import org.apache.iotdb.db.query.factory.SeriesReaderFactory;
 import org.apache.iotdb.db.query.reader.IReader;
@@ -41,10 +42,10 @@ import org.apache.iotdb.tsfile.read.query.timegenerator.node.OrNode;
 
 public class EngineNodeConstructor {
 
-  private long jobId;
+  private QueryContext context;
 
-  public EngineNodeConstructor(long jobId) {
-    this.jobId = jobId;
+  public EngineNodeConstructor(QueryContext context) {
+    this.context = context;
   }
 
   /**
@@ -79,7 +80,7 @@ public class EngineNodeConstructor {
   private IReader generateSeriesReader(SingleSeriesExpression singleSeriesExpression)
       throws IOException, FileNodeManagerException {
 
-    QueryDataSource queryDataSource = QueryDataSourceManager.getQueryDataSource(jobId,
+    QueryDataSource queryDataSource = QueryDataSourceManager.getQueryDataSource(context.getJobId(),
         singleSeriesExpression.getSeriesPath());
 
     Filter filter = singleSeriesExpression.getFilter();
@@ -88,12 +89,13 @@ public class EngineNodeConstructor {
 
     // reader for all sequence data
     SequenceDataReader tsFilesReader = new SequenceDataReader(queryDataSource.getSeqDataSource(),
-        filter);
+        filter, context);
     priorityReader.addReaderWithPriority(tsFilesReader, 1);
 
     // reader for all unSequence data
     PriorityMergeReader unSeqMergeReader = SeriesReaderFactory.getInstance()
-        .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), filter);
+        .createUnSeqMergeReader(queryDataSource.getOverflowSeriesDataSource(), filter,
+            context);
     priorityReader.addReaderWithPriority(unSeqMergeReader, 2);
 
     return priorityReader;
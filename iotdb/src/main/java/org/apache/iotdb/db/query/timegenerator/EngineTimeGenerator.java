@@ -20,6 +20,7 @@ package org.apache.iotdb.db.query.timegenerator;
 
 import java.io.IOException;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
+import org.apache.iotdb.db.query.control.QueryContext;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.query.timegenerator.TimeGenerator;
@@ -33,20 +34,20 @@ public class EngineTimeGenerator implements TimeGenerator {
 
   private IExpression expression;
   private Node operatorNode;
-  private long jobId;
+  private QueryContext context;
 
   /**
    * Constructor of EngineTimeGenerator.
    */
-  public EngineTimeGenerator(long jobId, IExpression expression)
+  public EngineTimeGenerator(QueryContext context, IExpression expression)
       throws IOException, FileNodeManagerException {
-    this.jobId = jobId;
+    this.context = context;
     this.expression = expression;
     initNode();
   }
 
   private void initNode() throws IOException, FileNodeManagerException {
-    EngineNodeConstructor engineNodeConstructor = new EngineNodeConstructor(jobId);
+    EngineNodeConstructor engineNodeConstructor = new EngineNodeConstructor(context);
     this.operatorNode = engineNodeConstructor.construct(expression);
   }
 
@@ -32,7 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A service that triggers close and merge operation regularly.
+ * A service that triggers close and merge operation regularly, and drops the tsfiles expired by
+ * TTL.
  *
  * @author liukun
  */
@@ -44,9 +45,11 @@ public class CloseMergeService implements IService {
   private static final long CLOSE_DELAY = dbConfig.periodTimeForFlush;
   private static final long MERGE_PERIOD = dbConfig.periodTimeForMerge;
   private static final long CLOSE_PERIOD = dbConfig.periodTimeForFlush;
+  private static final long TTL_CHECK_PERIOD = dbConfig.ttlCheckInterval;
   private static CloseMergeService CLOSE_MERGE_SERVICE = new CloseMergeService();
   private MergeServiceThread mergeService = new MergeServiceThread();
   private CloseServiceThread closeService = new CloseServiceThread();
+  private TTLCheckServiceThread ttlCheckService = new TTLCheckServiceThread();
   private ScheduledExecutorService service;
   private CloseAndMergeDaemon closeAndMergeDaemon = new CloseAndMergeDaemon();
   private volatile boolean isStart = false;
@@ -55,7 +58,7 @@ public class CloseMergeService implements IService {
 
   private CloseMergeService() {
     service = IoTDBThreadPoolFactory
-        .newScheduledThreadPool(2, ThreadName.CLOSE_MERGE_SERVICE.getName());
+        .newScheduledThreadPool(3, ThreadName.CLOSE_MERGE_SERVICE.getName());
   }
 
   /**
@@ -141,6 +144,8 @@ public class CloseMergeService implements IService {
     public void run() {
       service.scheduleWithFixedDelay(mergeService, MERGE_DELAY, MERGE_PERIOD, TimeUnit.SECONDS);
       service.scheduleWithFixedDelay(closeService, CLOSE_DELAY, CLOSE_PERIOD, TimeUnit.SECONDS);
+      service.scheduleWithFixedDelay(ttlCheckService, TTL_CHECK_PERIOD, TTL_CHECK_PERIOD,
+          TimeUnit.SECONDS);
       while (!service.isShutdown()) {
         synchronized (service) {
           try {
@@ -205,4 +210,20 @@ public class CloseMergeService implements IService {
       }
     }
   }
+
+  private class TTLCheckServiceThread extends Thread {
+
+    public TTLCheckServiceThread() {
+      super(ThreadName.TTL_CHECK_DAEMON.getName());
+    }
+
+    @Override
+    public void run() {
+      try {
+        FileNodeManager.getInstance().checkTTLAll();
+      } catch (Exception e) {
+        LOGGER.error("Drop expired tsfiles error.", e);
+      }
+    }
+  }
 }
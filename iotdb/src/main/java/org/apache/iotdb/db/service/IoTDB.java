@@ -33,6 +33,7 @@ import org.apache.iotdb.db.exception.RecoverException;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.exception.builder.ExceptionBuilder;
 import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.metrics.MetricsService;
 import org.apache.iotdb.db.monitor.StatMonitor;
 import org.apache.iotdb.db.postback.receiver.ServerManager;
 import org.apache.iotdb.db.query.control.FileReaderManager;
@@ -106,6 +107,7 @@ public class IoTDB implements IoTDBMBean {
     registerManager.register(StatMonitor.getInstance());
     registerManager.register(BasicMemController.getInstance());
     registerManager.register(FileReaderManager.getInstance());
+    registerManager.register(MetricsService.getInstance());
 
     JMXService.registerMBean(getInstance(), MBEAN_NAME);
 
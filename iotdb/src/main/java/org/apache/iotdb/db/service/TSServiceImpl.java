@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.auth.AuthException;
 import org.apache.iotdb.db.auth.AuthorityChecker;
 import org.apache.iotdb.db.auth.authorizer.IAuthorizer;
@@ -39,27 +40,32 @@ import org.apache.iotdb.db.exception.ArgsErrorException;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.PathErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
+import org.apache.iotdb.db.exception.QueryAbortedException;
 import org.apache.iotdb.db.exception.qp.IllegalASTFormatException;
 import org.apache.iotdb.db.exception.qp.QueryProcessorException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.metadata.Metadata;
+import org.apache.iotdb.db.qp.PreparedPlan;
 import org.apache.iotdb.db.qp.QueryProcessor;
 import org.apache.iotdb.db.qp.executor.OverflowQPExecutor;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
-import org.apache.iotdb.db.query.control.OpenedFilePathsManager;
-import org.apache.iotdb.db.query.control.QueryTokenManager;
+import org.apache.iotdb.db.query.control.QueryContext;
+import org.apache.iotdb.db.query.control.QueryContextManager;
 import org.apache.iotdb.service.rpc.thrift.ServerProperties;
 import org.apache.iotdb.service.rpc.thrift.TSCancelOperationReq;
 import org.apache.iotdb.service.rpc.thrift.TSCancelOperationResp;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationResp;
+import org.apache.iotdb.service.rpc.thrift.TSClosePreparedStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseSessionResp;
+import org.apache.iotdb.service.rpc.thrift.TSDataValue;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSExecutePreparedStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataReq;
@@ -72,6 +78,8 @@ import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSOperationHandle;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
@@ -79,8 +87,10 @@ import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TS_SessionHandle;
 import org.apache.iotdb.service.rpc.thrift.TS_Status;
 import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.thrift.TException;
 import org.apache.thrift.server.ServerContext;
 import org.slf4j.Logger;
@@ -99,7 +109,13 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   private ThreadLocal<String> username = new ThreadLocal<>();
   private ThreadLocal<HashMap<String, PhysicalPlan>> queryStatus = new ThreadLocal<>();
   private ThreadLocal<HashMap<String, QueryDataSet>> queryRet = new ThreadLocal<>();
+  // the timeout of each recorded query statement and the context of each running one
+  private ThreadLocal<HashMap<String, Long>> queryTimeouts = new ThreadLocal<>();
+  private ThreadLocal<HashMap<String, QueryContext>> queryContexts = new ThreadLocal<>();
   private ThreadLocal<ZoneId> zoneIds = new ThreadLocal<>();
+  // the statements prepared in the session by their ids
+  private ThreadLocal<HashMap<Long, PreparedPlan>> preparedPlans = new ThreadLocal<>();
+  private AtomicLong preparedStatementIdGenerator = new AtomicLong();
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   public TSServiceImpl() throws IOException {
@@ -149,6 +165,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   private void initForOneSession() {
     queryStatus.set(new HashMap<>());
     queryRet.set(new HashMap<>());
+    queryTimeouts.set(new HashMap<>());
+    queryContexts.set(new HashMap<>());
+    preparedPlans.set(new HashMap<>());
   }
 
   @Override
@@ -164,6 +183,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     } else {
       tsStatus = new TS_Status(TS_StatusCode.SUCCESS_STATUS);
       username.remove();
+      preparedPlans.remove();
       if (zoneIds.get() != null) {
         zoneIds.remove();
       }
@@ -173,23 +193,28 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
   @Override
   public TSCancelOperationResp cancelOperation(TSCancelOperationReq req) throws TException {
+    LOGGER.info("{}: receive cancel operation", IoTDBConstant.GLOBAL_DB_NAME);
+    if (!checkLogin()) {
+      return new TSCancelOperationResp(getErrorStatus("Not login"));
+    }
+    // the request may come from another connection of the user while the query is being fetched,
+    // so only the query named by the handle is cancelled, and its fetch reports the cancellation
+    TSOperationHandle operationHandle = req.getOperationHandle();
+    if (operationHandle.isSetQueryId() && !QueryContextManager.getInstance()
+        .cancelQuery(operationHandle.getQueryId(), username.get())) {
+      LOGGER.info("{}: query {} to cancel is not running", IoTDBConstant.GLOBAL_DB_NAME,
+          operationHandle.getQueryId());
+    }
     return new TSCancelOperationResp(new TS_Status(TS_StatusCode.SUCCESS_STATUS));
   }
 
   @Override
   public TSCloseOperationResp closeOperation(TSCloseOperationReq req) throws TException {
     LOGGER.info("{}: receive close operation", IoTDBConstant.GLOBAL_DB_NAME);
-    try {
-      // end query for all the query tokens created by current thread
-      QueryTokenManager.getInstance().endQueryForCurrentRequestThread();
-
-      // remove usage of opened file paths of current thread
-      OpenedFilePathsManager.getInstance().removeUsedFilesForCurrentRequestThread();
-
-      clearAllStatusForCurrentRequest();
-    } catch (FileNodeManagerException e) {
-      LOGGER.error("Error in closeOperation : {}", e.getMessage());
-    }
+    // end all the queries created by current thread, which releases their query tokens and the
+    // usage of their opened file paths
+    QueryContextManager.getInstance().endQueriesOfCurrentRequestThread();
+    clearAllStatusForCurrentRequest();
     return new TSCloseOperationResp(new TS_Status(TS_StatusCode.SUCCESS_STATUS));
   }
 
@@ -200,6 +225,12 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     if (this.queryStatus.get() != null) {
       this.queryStatus.get().clear();
     }
+    if (this.queryTimeouts.get() != null) {
+      this.queryTimeouts.get().clear();
+    }
+    if (this.queryContexts.get() != null) {
+      this.queryContexts.get().clear();
+    }
   }
 
   @Override
@@ -303,7 +334,13 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         break;
       case "COLUMN":
         try {
-          resp.setDataType(MManager.getInstance().getSeriesType(req.getColumnPath()).toString());
+          String columnPath = req.getColumnPath();
+          String m4Prefix = IoTDBConstant.M4 + "(";
+          if (columnPath.startsWith(m4Prefix) && columnPath.endsWith(")")) {
+            // m4 keeps the points of the series, whose values are of the type of the series
+            columnPath = columnPath.substring(m4Prefix.length(), columnPath.length() - 1);
+          }
+          resp.setDataType(MManager.getInstance().getSeriesType(columnPath).toString());
         } catch (PathErrorException e) {
           // TODO aggregate seriesPath e.g. last(root.ln.wf01.wt01.status)
           // status = new TS_Status(TS_StatusCode.ERROR_STATUS);
@@ -486,6 +523,19 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       String statement = req.getStatement();
       PhysicalPlan plan = processor.parseSQLToPhysicalPlan(statement, zoneIds.get());
       plan.setProposer(username.get());
+      return executeQueryPlan(statement, plan, req.isSetTimeout() ? req.getTimeout() : 0);
+    } catch (Exception e) {
+      LOGGER.error("{}: Internal server error: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
+    }
+  }
+
+  /**
+   * check and record a query, whose results are fetched by the given statement or key.
+   */
+  private TSExecuteStatementResp executeQueryPlan(String statement, PhysicalPlan plan,
+      long timeout) {
+    try {
       String targetUser = null;
       if (plan instanceof AuthorPlan) {
         targetUser = ((AuthorPlan) plan).getUserName();
@@ -572,15 +622,141 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       TSOperationHandle operationHandle;
       resp.setColumns(columns);
       operationHandle = new TSOperationHandle(operationId, true);
+      recordANewQuery(statement, plan, timeout);
+      // begin the query now, so the client may cancel it by its job id while fetching
+      QueryContext context = QueryContextManager.getInstance().beginQuery(username.get(), timeout);
+      queryContexts.get().put(statement, context);
+      operationHandle.setQueryId(context.getJobId());
       resp.setOperationHandle(operationHandle);
-      recordANewQuery(statement, plan);
       return resp;
+    } catch (QueryAbortedException e) {
+      // too many running queries, the statement cannot be fetched
+      queryStatus.get().remove(statement);
+      LOGGER.warn("{}: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
     } catch (Exception e) {
       LOGGER.error("{}: Internal server error: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
       return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
     }
   }
 
+  @Override
+  public TSPrepareStatementResp prepareStatement(TSPrepareStatementReq req) throws TException {
+    TSPrepareStatementResp resp = new TSPrepareStatementResp();
+    if (!checkLogin()) {
+      resp.setStatus(getErrorStatus("Not login"));
+      return resp;
+    }
+    Map<Long, PreparedPlan> plans = preparedPlans.get();
+    if (plans.size() >= config.maxPreparedStatementsPerSession) {
+      resp.setStatus(getErrorStatus(String.format(
+          "The session has %d prepared statements, close some of them first", plans.size())));
+      return resp;
+    }
+    PreparedPlan preparedPlan;
+    try {
+      preparedPlan = processor.prepare(req.getStatement(), zoneIds.get());
+    } catch (QueryProcessorException | ArgsErrorException e) {
+      resp.setStatus(getErrorStatus("Statement cannot be prepared: " + e.getMessage()));
+      return resp;
+    } catch (Exception e) {
+      LOGGER.error("{}: Internal server error: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      resp.setStatus(getErrorStatus(e.getMessage()));
+      return resp;
+    }
+    long statementId = preparedStatementIdGenerator.incrementAndGet();
+    plans.put(statementId, preparedPlan);
+    resp.setStatus(new TS_Status(TS_StatusCode.SUCCESS_STATUS));
+    resp.setStatementId(statementId);
+    resp.setParameterNum(preparedPlan.getParameterNum());
+    resp.setIsQuery(preparedPlan.isQuery());
+    return resp;
+  }
+
+  @Override
+  public TSExecuteStatementResp executePreparedStatement(TSExecutePreparedStatementReq req)
+      throws TException {
+    if (!checkLogin()) {
+      LOGGER.info("{}: Not login.", IoTDBConstant.GLOBAL_DB_NAME);
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, "Not login");
+    }
+    PreparedPlan preparedPlan = preparedPlans.get().get(req.getStatementId());
+    if (preparedPlan == null) {
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS,
+          "Statement " + req.getStatementId() + " is not prepared");
+    }
+    PhysicalPlan plan;
+    try {
+      List<Object> parameters = new ArrayList<>(req.getParametersSize());
+      for (TSDataValue value : req.getParameters()) {
+        parameters.add(toParameter(value));
+      }
+      plan = processor.bind(preparedPlan, parameters, zoneIds.get());
+      plan.setProposer(username.get());
+    } catch (QueryProcessorException | ProcessorException e) {
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
+    } catch (Exception e) {
+      LOGGER.error("{}: Internal server error: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      return getTSExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
+    }
+    if (plan.isQuery()) {
+      // each execution is fetched by a key of its own, the results of the last one are dropped
+      if (preparedPlan.getFetchKey() != null) {
+        removeQuery(preparedPlan.getFetchKey());
+      }
+      String fetchKey = preparedPlan.newFetchKey(req.getStatementId());
+      TSExecuteStatementResp resp = executeQueryPlan(fetchKey, plan,
+          req.isSetTimeout() ? req.getTimeout() : 0);
+      resp.setFetchKey(fetchKey);
+      return resp;
+    } else {
+      return executeUpdateStatement(plan);
+    }
+  }
+
+  @Override
+  public TS_Status closePreparedStatement(TSClosePreparedStatementReq req) throws TException {
+    if (!checkLogin()) {
+      return getErrorStatus("Not login");
+    }
+    PreparedPlan preparedPlan = preparedPlans.get().remove(req.getStatementId());
+    if (preparedPlan == null) {
+      return getErrorStatus("Statement " + req.getStatementId() + " is not prepared");
+    }
+    if (preparedPlan.getFetchKey() != null) {
+      removeQuery(preparedPlan.getFetchKey());
+    }
+    return new TS_Status(TS_StatusCode.SUCCESS_STATUS);
+  }
+
+  private Object toParameter(TSDataValue value) throws QueryProcessorException {
+    if (value.is_empty) {
+      throw new QueryProcessorException("A parameter cannot be null");
+    }
+    switch (TSDataType.valueOf(value.getType())) {
+      case BOOLEAN:
+        return value.isBool_val();
+      case INT32:
+        return value.getInt_val();
+      case INT64:
+        return value.getLong_val();
+      case FLOAT:
+        return (float) value.getFloat_val();
+      case DOUBLE:
+        return value.getDouble_val();
+      case TEXT:
+        return new Binary(value.getBinary_val()).getStringValue();
+      default:
+        throw new QueryProcessorException("Unsupported parameter type " + value.getType());
+    }
+  }
+
+  private TS_Status getErrorStatus(String msg) {
+    TS_Status status = new TS_Status(TS_StatusCode.ERROR_STATUS);
+    status.setErrorMessage(msg);
+    return status;
+  }
+
   @Override
   public TSFetchResultsResp fetchResults(TSFetchResultsReq req) throws TException {
     try {
@@ -594,31 +770,71 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       int fetchSize = req.getFetch_size();
-      QueryDataSet queryDataSet;
-      if (!queryRet.get().containsKey(statement)) {
-        PhysicalPlan physicalPlan = queryStatus.get().get(statement);
-        processor.getExecutor().setFetchSize(fetchSize);
-        queryDataSet = processor.getExecutor().processQuery(physicalPlan);
-        queryRet.get().put(statement, queryDataSet);
-      } else {
-        queryDataSet = queryRet.get().get(statement);
+      QueryContext context = queryContexts.get().get(statement);
+      if (context == null) {
+        context = QueryContextManager.getInstance()
+            .beginQuery(username.get(), queryTimeouts.get().getOrDefault(statement, 0L));
+        queryContexts.get().put(statement, context);
+      }
+      TSQueryDataSet result;
+      try {
+        QueryContextManager.getInstance().beginFetch(context);
+        try {
+          QueryDataSet queryDataSet = queryRet.get().get(statement);
+          if (queryDataSet == null) {
+            PhysicalPlan physicalPlan = queryStatus.get().get(statement);
+            processor.getExecutor().setFetchSize(fetchSize);
+            queryDataSet = processor.getExecutor().processQuery(physicalPlan, context);
+            queryRet.get().put(statement, queryDataSet);
+          }
+          result = Utils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
+        } finally {
+          QueryContextManager.getInstance().endFetch(context);
+        }
+      } catch (Exception e) {
+        // the query cannot go on, release its resources
+        endQuery(statement);
+        queryStatus.get().remove(statement);
+        throw e;
       }
-      TSQueryDataSet result = Utils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
       boolean hasResultSet = result.getRecords().size() > 0;
-      if (!hasResultSet && queryRet.get() != null) {
-        queryRet.get().remove(statement);
+      if (!hasResultSet) {
+        endQuery(statement);
       }
       TSFetchResultsResp resp = getTSFetchResultsResp(TS_StatusCode.SUCCESS_STATUS,
           "FetchResult successfully. Has more result: " + hasResultSet);
       resp.setHasResultSet(hasResultSet);
       resp.setQueryDataSet(result);
       return resp;
+    } catch (QueryAbortedException e) {
+      LOGGER.warn("{}: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
+      return getTSFetchResultsResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
     } catch (Exception e) {
       LOGGER.error("{}: Internal server error: {}", IoTDBConstant.GLOBAL_DB_NAME, e.getMessage());
       return getTSFetchResultsResp(TS_StatusCode.ERROR_STATUS, e.getMessage());
     }
   }
 
+  /**
+   * end the running query of the statement and release its resources.
+   */
+  private void endQuery(String statement) {
+    queryRet.get().remove(statement);
+    QueryContext context = queryContexts.get().remove(statement);
+    if (context != null) {
+      QueryContextManager.getInstance().endQuery(context);
+    }
+  }
+
+  /**
+   * end the query of the statement and forget it, so its results cannot be fetched any more.
+   */
+  private void removeQuery(String statement) {
+    endQuery(statement);
+    queryStatus.get().remove(statement);
+    queryTimeouts.get().remove(statement);
+  }
+
   @Override
   public TSExecuteStatementResp executeUpdateStatement(TSExecuteStatementReq req)
       throws TException {
@@ -741,12 +957,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // return false;
   // }
 
-  private void recordANewQuery(String statement, PhysicalPlan physicalPlan) {
+  private void recordANewQuery(String statement, PhysicalPlan physicalPlan, long timeout) {
     queryStatus.get().put(statement, physicalPlan);
-    // refresh current queryRet for statement
-    if (queryRet.get().containsKey(statement)) {
-      queryRet.get().remove(statement);
-    }
+    queryTimeouts.get().put(statement, timeout);
+    // refresh current queryRet for statement and end the previous query of it
+    endQuery(statement);
   }
 
   /**
@@ -21,11 +21,17 @@ package org.apache.iotdb.db.utils;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.iotdb.tsfile.utils.Binary;
 
 public class PrimitiveArrayList {
 
   private static final int MAX_SIZE_OF_ONE_ARRAY = 512;
   private static final int INITIAL_SIZE = 1;
+  /**
+   * estimated size of an object reference and of the header of an object in bytes.
+   */
+  private static final int REFERENCE_SIZE = 8;
+  private static final int OBJECT_HEADER_SIZE = 16;
 
   private Class clazz;
   private List<Object> values;
@@ -35,9 +41,12 @@ public class PrimitiveArrayList {
   private int currentIndex; // current index of array
   private int currentArrayIndex; // current index of element in current array
   private int currentArraySize; // size of current array
+  private int elementSize; // size of a value in the value arrays
+  private long memSize; // bytes allocated by the arrays and the binary values
 
   public PrimitiveArrayList(Class clazz) {
     this.clazz = clazz;
+    this.elementSize = elementSize(clazz);
     values = new ArrayList<>();
     timestamps = new ArrayList<>();
     values.add(Array.newInstance(clazz, INITIAL_SIZE));
@@ -47,6 +56,26 @@ public class PrimitiveArrayList {
     currentIndex = 0;
     currentArraySize = INITIAL_SIZE;
     currentArrayIndex = -1;
+    memSize = arraySize(INITIAL_SIZE);
+  }
+
+  private static int elementSize(Class clazz) {
+    if (clazz == boolean.class) {
+      return 1;
+    } else if (clazz == int.class || clazz == float.class) {
+      return 4;
+    } else if (clazz == long.class || clazz == double.class) {
+      return 8;
+    } else {
+      return REFERENCE_SIZE;
+    }
+  }
+
+  /**
+   * bytes of a timestamp array and a value array of the given capacity.
+   */
+  private long arraySize(int capacity) {
+    return 2L * OBJECT_HEADER_SIZE + (8L + elementSize) * capacity;
   }
 
   private void capacity(int aimSize) {
@@ -58,6 +87,7 @@ public class PrimitiveArrayList {
             expandArray(values.get(currentIndex), currentArraySize, newCapacity));
         timestamps.set(currentIndex,
             (long[]) expandArray(timestamps.get(currentIndex), currentArraySize, newCapacity));
+        memSize += arraySize(newCapacity) - arraySize(currentArraySize);
         currentArraySize = newCapacity;
       } else {
         // add a new Array to the list;
@@ -66,6 +96,7 @@ public class PrimitiveArrayList {
         currentIndex++;
         currentArraySize = INITIAL_SIZE;
         currentArrayIndex = -1;
+        memSize += arraySize(INITIAL_SIZE);
       }
     }
   }
@@ -83,6 +114,9 @@ public class PrimitiveArrayList {
     timestamps.get(currentIndex)[currentArrayIndex] = timestamp;
     Array.set(values.get(currentIndex), currentArrayIndex, value);
     length++;
+    if (value instanceof Binary) {
+      memSize += OBJECT_HEADER_SIZE * 2 + ((Binary) value).getLength();
+    }
   }
 
   public long getTimestamp(int index) {
@@ -108,6 +142,13 @@ public class PrimitiveArrayList {
     return length;
   }
 
+  /**
+   * bytes held by the list, including the arrays allocated but not filled yet.
+   */
+  public long getMemSize() {
+    return memSize;
+  }
+
   public PrimitiveArrayList clone() {
     PrimitiveArrayList cloneList = new PrimitiveArrayList(clazz);
     cloneList.values.clear();
@@ -122,6 +163,7 @@ public class PrimitiveArrayList {
     cloneList.currentIndex = currentIndex;
     cloneList.currentArrayIndex = currentArrayIndex;
     cloneList.currentArraySize = currentArraySize;
+    cloneList.memSize = memSize;
     return cloneList;
   }
 
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * A checkpoint of a write log node, which records the log segments whose data are durable in data
+ * files. The segments of a log node are numbered in order and a memtable owns the segments written
+ * while it is the working memtable.
+ *
+ * <p>The segments before firstSegment are durable. While a memtable is being flushed, its segments
+ * are those in [firstSegment, flushingSegmentEnd), and the tsfile it is flushed into is recorded
+ * with the position the tsfile was flushed to before. The restore file of the tsfile then tells
+ * recovery whether the flush completed after the checkpoint was taken.
+ */
+public class LogCheckpoint {
+
+  public static final String CHECKPOINT_FILE_NAME = "checkpoint";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final int firstSegment;
+  private final int flushingSegmentEnd;
+  /**
+   * the tsfile the flushing memtable is written into, null if unknown.
+   */
+  private final String flushingFilePath;
+  private final long flushingFilePosition;
+
+  /**
+   * a checkpoint without a flushing memtable.
+   */
+  public LogCheckpoint(int firstSegment) {
+    this(firstSegment, firstSegment, null, -1);
+  }
+
+  public LogCheckpoint(int firstSegment, int flushingSegmentEnd, String flushingFilePath,
+      long flushingFilePosition) {
+    this.firstSegment = firstSegment;
+    this.flushingSegmentEnd = flushingSegmentEnd;
+    this.flushingFilePath = flushingFilePath;
+    this.flushingFilePosition = flushingFilePosition;
+  }
+
+  public int getFirstSegment() {
+    return firstSegment;
+  }
+
+  public int getFlushingSegmentEnd() {
+    return flushingSegmentEnd;
+  }
+
+  public String getFlushingFilePath() {
+    return flushingFilePath;
+  }
+
+  public long getFlushingFilePosition() {
+    return flushingFilePosition;
+  }
+
+  /**
+   * whether a memtable owning some segments is being flushed.
+   */
+  public boolean isFlushing() {
+    return flushingSegmentEnd > firstSegment;
+  }
+
+  /**
+   * write the checkpoint into the log directory. The checkpoint is written into a temporary file
+   * first and then renamed, so a crash leaves either the old or the new checkpoint.
+   *
+   * @param logDirectory the directory of the log node
+   */
+  public void serializeTo(String logDirectory) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    ReadWriteIOUtils.write(firstSegment, content);
+    ReadWriteIOUtils.write(flushingSegmentEnd, content);
+    ReadWriteIOUtils.writeIsNull(flushingFilePath, content);
+    if (flushingFilePath != null) {
+      byte[] pathBytes = BytesUtils.stringToBytes(flushingFilePath);
+      ReadWriteIOUtils.write(pathBytes.length, content);
+      content.write(pathBytes);
+    }
+    ReadWriteIOUtils.write(flushingFilePosition, content);
+    CRC32 checkSummer = new CRC32();
+    checkSummer.update(content.toByteArray());
+
+    File tempFile = new File(logDirectory, CHECKPOINT_FILE_NAME + TEMP_SUFFIX);
+    try (FileOutputStream out = new FileOutputStream(tempFile)) {
+      content.writeTo(out);
+      ReadWriteIOUtils.write(checkSummer.getValue(), out);
+      out.getFD().sync();
+    }
+    Files.move(tempFile.toPath(), new File(logDirectory, CHECKPOINT_FILE_NAME).toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * read the checkpoint of a log directory.
+   *
+   * @param logDirectory the directory of the log node
+   * @return null if the directory has no checkpoint
+   * @throws IOException if the checkpoint cannot be read or is corrupted
+   */
+  public static LogCheckpoint deserializeFrom(String logDirectory) throws IOException {
+    File checkpointFile = new File(logDirectory, CHECKPOINT_FILE_NAME);
+    if (!checkpointFile.exists()) {
+      return null;
+    }
+    byte[] bytes = Files.readAllBytes(checkpointFile.toPath());
+    if (bytes.length < Long.BYTES) {
+      throw new IOException("Checkpoint " + checkpointFile.getPath() + " is truncated");
+    }
+    CRC32 checkSummer = new CRC32();
+    checkSummer.update(bytes, 0, bytes.length - Long.BYTES);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.position(bytes.length - Long.BYTES);
+    if (checkSummer.getValue() != buffer.getLong()) {
+      throw new IOException("Checkpoint " + checkpointFile.getPath() + " is corrupted");
+    }
+    buffer.rewind();
+    int firstSegment = ReadWriteIOUtils.readInt(buffer);
+    int flushingSegmentEnd = ReadWriteIOUtils.readInt(buffer);
+    String flushingFilePath = null;
+    if (ReadWriteIOUtils.readIsNull(buffer)) {
+      byte[] pathBytes = new byte[ReadWriteIOUtils.readInt(buffer)];
+      buffer.get(pathBytes);
+      flushingFilePath = BytesUtils.bytesToString(pathBytes);
+    }
+    long flushingFilePosition = ReadWriteIOUtils.readLong(buffer);
+    return new LogCheckpoint(firstSegment, flushingSegmentEnd, flushingFilePath,
+        flushingFilePosition);
+  }
+
+  @Override
+  public String toString() {
+    return "LogCheckpoint{firstSegment=" + firstSegment + ", flushingSegmentEnd="
+        + flushingSegmentEnd + ", flushingFilePath=" + flushingFilePath
+        + ", flushingFilePosition=" + flushingFilePosition + "}";
+  }
+}
@@ -37,8 +37,9 @@ public enum RecoverStage {
   recoverFile,
 
   /**
-   * In this stage, the mission is to read logs from wal and wal-old files (if exists) and replay
-   * them. Should SET flag afterward,
+   * In this stage, the mission is to read logs from the wal segments after the checkpoint (and the
+   * wal and wal-old files of the format before segments if exist) and replay them. Should SET flag
+   * afterward,
    */
   replayLog,
 
@@ -27,9 +27,16 @@ import java.util.List;
 import java.util.zip.CRC32;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metrics.Metric;
+import org.apache.iotdb.db.metrics.Metrics;
 
 public class LogWriter implements ILogWriter {
 
+  /**
+   * bytes written before each log, which are the size and the checksum of the log.
+   */
+  public static final int LOG_HEADER_SIZE = 4 + 8;
+
   private File logFile;
   private FileOutputStream fileOutputStream;
   private FileChannel outputStream;
@@ -48,7 +55,7 @@ public class LogWriter implements ILogWriter {
     }
     int totalSize = 0;
     for (byte[] bytes : logCache) {
-      totalSize += 4 + 8 + bytes.length;
+      totalSize += LOG_HEADER_SIZE + bytes.length;
     }
     ByteBuffer buffer = ByteBuffer.allocate(totalSize);
     for (byte[] bytes : logCache) {
@@ -61,17 +68,23 @@ public class LogWriter implements ILogWriter {
     buffer.flip();
     outputStream.write(buffer);
     if (config.forceWalPeriodInMs == 0) {
-      outputStream.force(true);
+      forceChannel();
     }
   }
 
   @Override
   public void force() throws IOException {
     if (outputStream != null) {
-      outputStream.force(true);
+      forceChannel();
     }
   }
 
+  private void forceChannel() throws IOException {
+    long startTime = System.nanoTime();
+    outputStream.force(true);
+    Metrics.getInstance().recordLatency(Metric.WAL_FSYNC_LATENCY, startTime);
+  }
+
   @Override
   public void close() throws IOException {
     if (outputStream != null) {
@@ -22,10 +22,12 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.zip.CRC32;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
-import org.apache.iotdb.db.writelog.transfer.PhysicalPlanLogTransfer;
+import org.apache.iotdb.db.writelog.transfer.WALRecordDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +39,12 @@ public class RAFLogReader implements ILogReader {
   private int bufferSize = 4 * 1024 * 1024;
   private byte[] buffer = new byte[bufferSize];
   private CRC32 checkSummer = new CRC32();
-  private PhysicalPlan planBuffer = null;
+  private WALRecordDecoder decoder = new WALRecordDecoder();
+  /**
+   * plans decoded from the current record, a batch record holds several plans.
+   */
+  private List<PhysicalPlan> planBuffer = new ArrayList<>();
+  private int planIndex = 0;
 
   public RAFLogReader() {
 
@@ -49,11 +56,24 @@ public class RAFLogReader implements ILogReader {
 
   @Override
   public boolean hasNext() {
-    if (planBuffer != null) {
-      return true;
+    while (planIndex >= planBuffer.size()) {
+      planBuffer.clear();
+      planIndex = 0;
+      if (!readRecord()) {
+        return false;
+      }
     }
+    return true;
+  }
+
+  /**
+   * read the next record and decode it into planBuffer.
+   *
+   * @return false if there is no more valid record
+   */
+  private boolean readRecord() {
     try {
-      if (logRaf.getFilePointer() + 12 > logRaf.length()) {
+      if (logRaf.getFilePointer() + LogWriter.LOG_HEADER_SIZE > logRaf.length()) {
         return false;
       }
     } catch (IOException e) {
@@ -73,8 +93,7 @@ public class RAFLogReader implements ILogReader {
       if (checkSummer.getValue() != checkSum) {
         return false;
       }
-      PhysicalPlan plan = PhysicalPlanLogTransfer.logToOperator(buffer);
-      planBuffer = plan;
+      decoder.decode(buffer, logSize, planBuffer);
       return true;
     } catch (IOException e) {
       logger.error("Cannot read log file {}, because {}", filepath, e.getMessage());
@@ -88,9 +107,7 @@ public class RAFLogReader implements ILogReader {
       throw new NoSuchElementException();
     }
 
-    PhysicalPlan ret = planBuffer;
-    planBuffer = null;
-    return ret;
+    return planBuffer.get(planIndex++);
   }
 
   @Override
@@ -108,5 +125,8 @@ public class RAFLogReader implements ILogReader {
   public void open(File logFile) throws FileNotFoundException {
     logRaf = new RandomAccessFile(logFile, "r");
     this.filepath = logFile.getPath();
+    decoder.reset();
+    planBuffer.clear();
+    planIndex = 0;
   }
 }
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.exception.RecoverException;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.db.writelog.LogCheckpoint;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
 import org.slf4j.Logger;
@@ -191,7 +192,9 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
 
   private boolean hasBufferWriteWAL(String fileNodeName) {
     File bufferWriteWALDir = new File(bufferWriteWALPath(fileNodeName));
-    String[] files = bufferWriteWALDir.list();
+    // a checkpoint alone needs no recovery
+    String[] files = bufferWriteWALDir
+        .list((dir, name) -> !name.startsWith(LogCheckpoint.CHECKPOINT_FILE_NAME));
     return files != null && files.length > 0;
   }
 
@@ -202,7 +205,9 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
 
   private boolean hasOverflowWAL(String fileNodeName) {
     File overflowWALDir = new File(overflowWALPath(fileNodeName));
-    String[] files = overflowWALDir.list();
+    // a checkpoint alone needs no recovery
+    String[] files = overflowWALDir
+        .list((dir, name) -> !name.startsWith(LogCheckpoint.CHECKPOINT_FILE_NAME));
     return files != null && files.length > 0;
   }
 
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.writelog.node;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -29,23 +30,31 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.RecoverException;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
-import org.apache.iotdb.db.utils.MemUtils;
+import org.apache.iotdb.db.writelog.LogCheckpoint;
 import org.apache.iotdb.db.writelog.LogPosition;
 import org.apache.iotdb.db.writelog.io.ILogWriter;
 import org.apache.iotdb.db.writelog.io.LogWriter;
 import org.apache.iotdb.db.writelog.recover.ExclusiveLogRecoverPerformer;
 import org.apache.iotdb.db.writelog.recover.RecoverPerformer;
-import org.apache.iotdb.db.writelog.transfer.PhysicalPlanLogTransfer;
+import org.apache.iotdb.db.writelog.transfer.WALRecordEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This WriteLogNode is used to manage write ahead logs of a single FileNode.
+ * This WriteLogNode is used to manage write ahead logs of a single FileNode. The logs are written
+ * to numbered segments. A new segment is started when the current one exceeds walSegmentSize or a
+ * memtable begins to flush, and a {@link LogCheckpoint} records which segments are durable so that
+ * they are deleted and not replayed by recovery.
  */
 public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<ExclusiveWriteLogNode> {
 
   public static final String WAL_FILE_NAME = "wal";
+  /**
+   * suffix of the log file of the flushing memtable in the format before segments, which is only
+   * read by recovery.
+   */
   public static final String OLD_SUFFIX = "-old";
+  public static final String SEGMENT_SEPARATOR = "-";
   private static final Logger logger = LoggerFactory.getLogger(ExclusiveWriteLogNode.class);
   /**
    * This should be the same as the corresponding FileNode's name.
@@ -56,11 +65,28 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   private ILogWriter currentFileWriter;
 
+  private int currentSegment;
+
+  /**
+   * bytes synced to the current segment.
+   */
+  private long currentSegmentSize = 0;
+
+  /**
+   * bytes synced since the working memtable started.
+   */
+  private volatile long workingLogSize = 0;
+
+  private LogCheckpoint checkpoint;
+
   private RecoverPerformer recoverPerformer;
 
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
-  private List<byte[]> logCache = new ArrayList<>(config.flushWalThreshold);
+  /**
+   * encodes the logs not synced yet, its path dictionary belongs to the current log file.
+   */
+  private WALRecordEncoder logEncoder = new WALRecordEncoder();
 
   private ReadWriteLock lock = new ReentrantReadWriteLock();
 
@@ -81,7 +107,19 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
     recoverPerformer = new ExclusiveLogRecoverPerformer(restoreFilePath, processorStoreFilePath,
         this);
-    currentFileWriter = new LogWriter(logDirectory + File.separator + WAL_FILE_NAME);
+    // segments left by the last run are kept for recovery, new logs go to a new segment
+    List<File> segments = getSegmentFiles(logDirectory);
+    if (segments.isEmpty()) {
+      // the checkpoint left by a clean shutdown refers to no segment
+      File checkpointFile = new File(logDirectory, LogCheckpoint.CHECKPOINT_FILE_NAME);
+      if (checkpointFile.exists() && !checkpointFile.delete()) {
+        logger.error("Log node {} cannot delete the checkpoint of last run", identifier);
+      }
+    }
+    currentSegment = segments.isEmpty() ? 0
+        : getSegmentIndex(segments.get(segments.size() - 1)) + 1;
+    checkpoint = new LogCheckpoint(currentSegment);
+    currentFileWriter = new LogWriter(getSegmentPath(currentSegment));
   }
 
   public void setRecoverPerformer(RecoverPerformer recoverPerformer) {
@@ -95,10 +133,9 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
   public LogPosition write(PhysicalPlan plan) throws IOException {
     lockForWrite();
     try {
-      byte[] logBytes = PhysicalPlanLogTransfer.operatorToLog(plan);
-      logCache.add(logBytes);
+      logEncoder.append(plan);
 
-      if (logCache.size() >= config.flushWalThreshold) {
+      if (logEncoder.getPlanCount() >= config.flushWalThreshold) {
         sync();
       }
     } finally {
@@ -151,17 +188,33 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
    */
   @Override
   public void notifyStartFlush() throws IOException {
+    notifyStartFlush(null, -1);
+  }
+
+  /*
+   * Warning : caller must have lock.
+   */
+  @Override
+  public void notifyStartFlush(String flushingFilePath, long flushingFilePosition)
+      throws IOException {
     close();
-    File oldLogFile = new File(logDirectory + File.separator + WAL_FILE_NAME);
-    File newLogFile = new File(logDirectory + File.separator + WAL_FILE_NAME + OLD_SUFFIX);
-    if (!oldLogFile.exists()) {
-      return;
-    }
-    if (!oldLogFile.renameTo(newLogFile)) {
-      logger.error("Log node {} renaming log file failed!", identifier);
-    } else {
-      logger.info("Log node {} renamed log file, file size is {}", identifier,
-          MemUtils.bytesCntToStr(newLogFile.length()));
+    lockForOther();
+    try {
+      if (currentSegmentSize > 0) {
+        startNewSegment();
+      }
+      if (checkpoint.isFlushing()) {
+        // the last flush did not end, so it is unknown whether its data are durable
+        checkpoint = new LogCheckpoint(checkpoint.getFirstSegment(), currentSegment, null, -1);
+      } else {
+        checkpoint = new LogCheckpoint(checkpoint.getFirstSegment(), currentSegment,
+            flushingFilePath, flushingFilePosition);
+      }
+      checkpoint.serializeTo(logDirectory);
+      workingLogSize = 0;
+      logger.info("Log node {} starts flushing segments before {}", identifier, currentSegment);
+    } finally {
+      unlockForOther();
     }
   }
 
@@ -170,7 +223,24 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
    */
   @Override
   public void notifyEndFlush(List<LogPosition> logPositions) {
-    discard();
+    lockForOther();
+    try {
+      checkpoint = new LogCheckpoint(checkpoint.getFlushingSegmentEnd());
+      try {
+        checkpoint.serializeTo(logDirectory);
+      } catch (IOException e) {
+        // recovery replays the durable segments left, which is still correct
+        logger.error("Log node {} cannot write checkpoint {}", identifier, checkpoint, e);
+      }
+      discard(checkpoint.getFirstSegment());
+    } finally {
+      unlockForOther();
+    }
+  }
+
+  @Override
+  public long getWorkingLogSize() {
+    return workingLogSize;
   }
 
   @Override
@@ -187,7 +257,9 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
   public void delete() throws IOException {
     lockForOther();
     try {
-      logCache.clear();
+      logEncoder.reset();
+      currentSegmentSize = 0;
+      workingLogSize = 0;
       if (currentFileWriter != null) {
         currentFileWriter.close();
       }
@@ -225,16 +297,28 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
   private void sync() {
     lockForOther();
     try {
-      logger.debug("Log node {} starts sync, {} logs to be synced", identifier, logCache.size());
-      if (logCache.isEmpty()) {
+      logger.debug("Log node {} starts sync, {} logs to be synced", identifier,
+          logEncoder.getPlanCount());
+      if (logEncoder.getPlanCount() == 0) {
         return;
       }
       try {
-        currentFileWriter.write(logCache);
+        List<byte[]> logs = logEncoder.flush();
+        currentFileWriter.write(logs);
+        long syncedSize = 0;
+        for (byte[] log : logs) {
+          syncedSize += LogWriter.LOG_HEADER_SIZE + log.length;
+        }
+        currentSegmentSize += syncedSize;
+        workingLogSize += syncedSize;
+        if (currentSegmentSize >= config.walSegmentSize) {
+          startNewSegment();
+        }
       } catch (IOException e) {
         logger.error("Log node {} sync failed because {}.", identifier, e.getMessage());
+        // the dictionary records may be lost, later records start a new dictionary
+        logEncoder.reset();
       }
-      logCache.clear();
       logger.debug("Log node {} ends sync.", identifier);
     } finally {
       unlockForOther();
@@ -244,7 +328,8 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
   private void forceWal() {
     lockForForceOther();
     try {
-      logger.debug("Log node {} starts force, {} logs to be forced", identifier, logCache.size());
+      logger.debug("Log node {} starts force, {} logs to be forced", identifier,
+          logEncoder.getPlanCount());
       try {
         currentFileWriter.force();
       } catch (IOException e) {
@@ -256,17 +341,82 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     }
   }
 
-  private void discard() {
-    File oldLogFile = new File(logDirectory + File.separator + WAL_FILE_NAME + OLD_SUFFIX);
-    if (!oldLogFile.exists()) {
-      logger.info("No old log to be deleted");
-    } else {
-      if (!oldLogFile.delete()) {
-        logger.error("Old log file of {} cannot be deleted", identifier);
+  /**
+   * force and close the current segment and write the following logs to the next one.
+   *
+   * Warning : caller must have lock.
+   */
+  private void startNewSegment() throws IOException {
+    lockForForceOther();
+    try {
+      currentFileWriter.force();
+      currentFileWriter.close();
+      currentSegment++;
+      currentSegmentSize = 0;
+      currentFileWriter = new LogWriter(getSegmentPath(currentSegment));
+      // the new segment starts its own path dictionary
+      logEncoder.reset();
+    } finally {
+      unlockForForceOther();
+    }
+  }
+
+  /**
+   * delete the segments before the given one.
+   */
+  private void discard(int firstSegment) {
+    int discarded = 0;
+    for (File segment : getSegmentFiles(logDirectory)) {
+      if (getSegmentIndex(segment) >= firstSegment) {
+        break;
+      }
+      if (!segment.delete()) {
+        logger.error("Log segment {} of {} cannot be deleted", segment.getName(), identifier);
       } else {
-        logger.info("Log node {} cleaned old file", identifier);
+        discarded++;
+      }
+    }
+    logger.info("Log node {} cleaned {} durable segments", identifier, discarded);
+  }
+
+  private String getSegmentPath(int segment) {
+    return logDirectory + File.separator + WAL_FILE_NAME + SEGMENT_SEPARATOR + segment;
+  }
+
+  /**
+   * get the log segments in a log directory in the order they are written.
+   */
+  public static List<File> getSegmentFiles(String logDirectory) {
+    List<File> segments = new ArrayList<>();
+    File[] files = new File(logDirectory).listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (getSegmentIndex(file) >= 0) {
+          segments.add(file);
+        }
+      }
+    }
+    segments.sort(Comparator.comparingInt(ExclusiveWriteLogNode::getSegmentIndex));
+    return segments;
+  }
+
+  /**
+   * get the index of a log segment.
+   *
+   * @return -1 if the file is not a log segment
+   */
+  public static int getSegmentIndex(File file) {
+    String prefix = WAL_FILE_NAME + SEGMENT_SEPARATOR;
+    String name = file.getName();
+    if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+      return -1;
+    }
+    for (int i = prefix.length(); i < name.length(); i++) {
+      if (!Character.isDigit(name.charAt(i))) {
+        return -1;
       }
     }
+    return Integer.parseInt(name.substring(prefix.length()));
   }
 
   public String toString() {
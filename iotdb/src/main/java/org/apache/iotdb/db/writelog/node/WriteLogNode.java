@@ -61,12 +61,29 @@ public interface WriteLogNode {
    */
   void notifyStartFlush() throws IOException;
 
+  /**
+   * When a FileNode attempts to start a flush into a tsfile, this method must be called to start a
+   * new log segment and take a checkpoint.
+   *
+   * @param flushingFilePath the tsfile the memtable is flushed into
+   * @param flushingFilePosition the position the tsfile was flushed to before this flush
+   */
+  void notifyStartFlush(String flushingFilePath, long flushingFilePosition) throws IOException;
+
   /**
    * When the flush of a FlieNode ends, this method must be called to check if log file needs
    * cleaning.
    */
   void notifyEndFlush(List<LogPosition> logPositions);
 
+  /**
+   * return the size of the logs synced since the last flush started, which are replayed after a
+   * crash if no flush comes.
+   *
+   * @return size in byte
+   */
+  long getWorkingLogSize();
+
   /**
    * return identifier of the log node.
    *
@@ -30,11 +30,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.engine.bufferwrite.RestorableTsFileIOWriter;
 import org.apache.iotdb.db.engine.filenode.FileNodeManager;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.exception.RecoverException;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.writelog.LogCheckpoint;
 import org.apache.iotdb.db.writelog.RecoverStage;
 import org.apache.iotdb.db.writelog.io.RAFLogReader;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
@@ -287,17 +289,63 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
     return failedCnt;
   }
 
+  /**
+   * find the first log segment whose data may be not durable. The decision is written as a new
+   * checkpoint before any log is replayed, since the flushes during replaying change the restore
+   * file that the decision is based on.
+   */
+  private int getFirstSegmentToReplay() throws RecoverException {
+    LogCheckpoint checkpoint;
+    try {
+      checkpoint = LogCheckpoint.deserializeFrom(writeLogNode.getLogDirectory());
+    } catch (IOException e) {
+      logger.error("Log node {} cannot read checkpoint, all segments will be replayed",
+          writeLogNode.getIdentifier(), e);
+      return 0;
+    }
+    if (checkpoint == null) {
+      return 0;
+    }
+    int firstSegment = checkpoint.getFirstSegment();
+    if (checkpoint.isFlushing() && checkpoint.getFlushingFilePath() != null) {
+      try {
+        if (RestorableTsFileIOWriter.isFlushedAfter(checkpoint.getFlushingFilePath(),
+            checkpoint.getFlushingFilePosition())) {
+          firstSegment = checkpoint.getFlushingSegmentEnd();
+        }
+      } catch (IOException e) {
+        logger.error("Log node {} cannot read the restore information of {}",
+            writeLogNode.getIdentifier(), checkpoint.getFlushingFilePath(), e);
+      }
+    }
+    try {
+      new LogCheckpoint(firstSegment).serializeTo(writeLogNode.getLogDirectory());
+    } catch (IOException e) {
+      logger.error("Log node {} cannot write checkpoint", writeLogNode.getIdentifier(), e);
+      throw new RecoverException("Cannot write checkpoint, recovery aborted.");
+    }
+    logger.info("Log node {} replays from segment {}, {}", writeLogNode.getIdentifier(),
+        firstSegment, checkpoint);
+    return firstSegment;
+  }
+
   private void replayLog() throws RecoverException {
     int failedEntryCnt = 0;
-    // if old log file exists, replay it first.
+    // if log files of the format before segments exist, replay them first.
     File oldLogFile = new File(
         writeLogNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME
             + ExclusiveWriteLogNode.OLD_SUFFIX);
     failedEntryCnt += replayLogFile(oldLogFile);
-    // then replay new log
     File newLogFile = new File(
         writeLogNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME);
     failedEntryCnt += replayLogFile(newLogFile);
+    // then replay the segments not durable
+    int firstSegment = getFirstSegmentToReplay();
+    for (File segment : ExclusiveWriteLogNode.getSegmentFiles(writeLogNode.getLogDirectory())) {
+      if (ExclusiveWriteLogNode.getSegmentIndex(segment) >= firstSegment) {
+        failedEntryCnt += replayLogFile(segment);
+      }
+    }
     // TODO : do we need to proceed if there are failed logs ?
     if (failedEntryCnt > 0) {
       throw new RecoverException(
@@ -356,6 +404,21 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
         failedFiles.add(newLogFile.getPath());
       }
     }
+    for (File segment : ExclusiveWriteLogNode.getSegmentFiles(writeLogNode.getLogDirectory())) {
+      if (!segment.delete()) {
+        logger.error("Log node {} cannot delete log segment {}", writeLogNode.getLogDirectory(),
+            segment.getName());
+        failedFiles.add(segment.getPath());
+      }
+    }
+    File checkpointFile = new File(writeLogNode.getLogDirectory(),
+        LogCheckpoint.CHECKPOINT_FILE_NAME);
+    if (checkpointFile.exists()) {
+      if (!checkpointFile.delete()) {
+        logger.error("Log node {} cannot delete checkpoint", writeLogNode.getLogDirectory());
+        failedFiles.add(checkpointFile.getPath());
+      }
+    }
     if (failedFiles.size() > 0) {
       throw new RecoverException(
           "File clean failed. Failed files are " + failedFiles.toString());
@@ -64,6 +64,13 @@ public class ConcreteLogReplayer implements LogReplayer {
       throws PathErrorException, FileNodeManagerException {
     String deviceId = insertPlan.getDeviceId();
     long insertTime = insertPlan.getTime();
+    if (insertPlan.getDataPoints() != null) {
+      // typed logs need no parsing
+      TSRecord tsRecord = new TSRecord(insertTime, deviceId);
+      tsRecord.dataPointList = insertPlan.getDataPoints();
+      FileNodeManager.getInstance().insert(tsRecord, true);
+      return;
+    }
     List<String> measurementList = insertPlan.getMeasurements();
     List<String> insertValues = insertPlan.getValues();
 
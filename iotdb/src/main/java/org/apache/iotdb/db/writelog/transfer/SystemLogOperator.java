@@ -30,4 +30,10 @@ public class SystemLogOperator {
   public static final int OVERFLOWFLUSHEND = 4;
   public static final int BUFFERFLUSHSTART = 5;
   public static final int BUFFERFLUSHEND = 6;
+  /**
+   * opcodes of the typed WAL records, see {@link WALRecordEncoder}.
+   */
+  public static final int WAL_HEADER = 7;
+  public static final int PATH_DICTIONARY = 8;
+  public static final int BATCH_INSERT = 9;
 }
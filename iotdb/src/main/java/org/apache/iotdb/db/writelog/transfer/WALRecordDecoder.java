@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.transfer;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
+
+/**
+ * Decodes the records of a WAL file written by {@link WALRecordEncoder}, including the records in
+ * the legacy format of {@link PhysicalPlanLogTransfer}. A decoder keeps the path dictionary of the
+ * file, so the records of a file must be decoded in order by the same decoder.
+ */
+public class WALRecordDecoder {
+
+  private List<String> dictionary = new ArrayList<>();
+
+  /**
+   * forget the dictionary, called before decoding another log file.
+   */
+  public void reset() {
+    dictionary.clear();
+  }
+
+  /**
+   * decode a record into the plans it holds. wal-header and path-dictionary records hold no plan.
+   *
+   * @param bytes the record
+   * @param length length of the record in bytes
+   * @param plans the decoded plans are added to this list
+   * @throws IOException if the record is malformed or of an unsupported version
+   */
+  public void decode(byte[] bytes, int length, List<PhysicalPlan> plans) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+    try {
+      int opCode = buffer.get();
+      switch (opCode) {
+        case SystemLogOperator.WAL_HEADER:
+          int version = buffer.get();
+          if (version != WALRecordEncoder.FORMAT_VERSION) {
+            throw new IOException("Unsupported WAL format version " + version);
+          }
+          dictionary.clear();
+          break;
+        case SystemLogOperator.PATH_DICTIONARY:
+          int count = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+          for (int i = 0; i < count; i++) {
+            dictionary.add(BytesUtils.bytesToString(readBytes(buffer)));
+          }
+          break;
+        case SystemLogOperator.BATCH_INSERT:
+          decodeBatchInsert(buffer, plans);
+          break;
+        default:
+          plans.add(PhysicalPlanLogTransfer.logToOperator(bytes));
+      }
+    } catch (BufferUnderflowException | IndexOutOfBoundsException
+        | UnSupportedDataTypeException e) {
+      throw new IOException("Malformed WAL record", e);
+    }
+  }
+
+  private void decodeBatchInsert(ByteBuffer buffer, List<PhysicalPlan> plans) throws IOException {
+    int insertType = buffer.get();
+    String device = getPath(ReadWriteForEncodingUtils.readUnsignedVarInt(buffer));
+    int measurementNum = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    String[] measurements = new String[measurementNum];
+    TSDataType[] dataTypes = new TSDataType[measurementNum];
+    for (int i = 0; i < measurementNum; i++) {
+      measurements[i] = getPath(ReadWriteForEncodingUtils.readUnsignedVarInt(buffer));
+      dataTypes[i] = TSDataType.deserialize(buffer.get());
+    }
+
+    int rowNum = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    long time = 0;
+    for (int i = 0; i < rowNum; i++) {
+      long zigzagDelta = ReadWriteForEncodingUtils.readUnsignedVarLong(buffer);
+      time += (zigzagDelta >>> 1) ^ -(zigzagDelta & 1);
+      TSRecord record = new TSRecord(time, device);
+      for (int j = 0; j < measurementNum; j++) {
+        record.addTuple(decodeValue(dataTypes[j], measurements[j], buffer));
+      }
+      plans.add(new InsertPlan(insertType, record));
+    }
+  }
+
+  private String getPath(int id) throws IOException {
+    if (id >= dictionary.size()) {
+      throw new IOException("Path id " + id + " is not in the WAL dictionary");
+    }
+    return dictionary.get(id);
+  }
+
+  private static DataPoint decodeValue(TSDataType dataType, String measurement,
+      ByteBuffer buffer) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new BooleanDataPoint(measurement, buffer.get() != 0);
+      case INT32:
+        int zigzagInt = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+        return new IntDataPoint(measurement, (zigzagInt >>> 1) ^ -(zigzagInt & 1));
+      case INT64:
+        long zigzagLong = ReadWriteForEncodingUtils.readUnsignedVarLong(buffer);
+        return new LongDataPoint(measurement, (zigzagLong >>> 1) ^ -(zigzagLong & 1));
+      case FLOAT:
+        return new FloatDataPoint(measurement, ReadWriteIOUtils.readFloat(buffer));
+      case DOUBLE:
+        return new DoubleDataPoint(measurement, ReadWriteIOUtils.readDouble(buffer));
+      case TEXT:
+        return new StringDataPoint(measurement, new Binary(readBytes(buffer)));
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    int length = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.WALOverSizedException;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+
+/**
+ * Encodes the plans written to a WAL file into log records. InsertPlans carrying typed values are
+ * written as typed records, other plans are written in the legacy format of {@link
+ * PhysicalPlanLogTransfer}. Typed records follow the grammar:
+ *
+ * <pre>
+ * {@code
+ * wal-header := WAL_HEADER <version:byte>
+ * path-dictionary := PATH_DICTIONARY <count:varint> (<length:varint> <utf8-bytes>)*
+ * batch-insert := BATCH_INSERT <insert-type:byte> <device-id:varint> <measurement-num:varint>
+ *                 (<measurement-id:varint> <data-type:byte>)* <row-num:varint> <row>*
+ * row := <time-delta:zigzag varlong> <value>*
+ * }
+ * </pre>
+ *
+ * Device and measurement ids index the dictionary, which is built by the path-dictionary records
+ * since the last wal-header. A wal-header is written before the first dictionary of a log file or
+ * after {@link #reset()}, so a reader restarts the dictionary there. Consecutive rows of the same
+ * device, insert type, measurements and data types are batched into one batch-insert record, the
+ * time of a row is stored as the difference to the time of the previous row in the batch. Values
+ * are stored natively: BOOLEAN as one byte, INT32 and INT64 as zigzag var ints, FLOAT and DOUBLE
+ * as 4 and 8 bytes and TEXT as a var int length followed by the bytes.
+ */
+public class WALRecordEncoder {
+
+  public static final byte FORMAT_VERSION = 1;
+
+  /**
+   * bytes reserved for the row number of a batch-insert record.
+   */
+  private static final int ROW_NUM_RESERVED_SIZE = 5;
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * dictionary ids of the paths written since the last wal-header.
+   */
+  private Map<String, Integer> pathIds = new HashMap<>();
+  private boolean headerWritten;
+
+  /**
+   * encoded records which are not taken by {@link #flush()} yet.
+   */
+  private List<byte[]> records = new ArrayList<>();
+  private int planCount;
+
+  /**
+   * the batch-insert record being built, batchDevice is null if there is no such record.
+   */
+  private String batchDevice;
+  private int batchInsertType;
+  private List<String> batchMeasurements;
+  private TSDataType[] batchTypes;
+  private int batchRowCount;
+  private long batchPreTime;
+  private PublicBAOS batchHeader = new PublicBAOS();
+  private PublicBAOS batchRows = new PublicBAOS();
+  private PublicBAOS rowBuffer = new PublicBAOS();
+
+  /**
+   * encode a plan, the records are taken by {@link #flush()}.
+   *
+   * @param plan the plan to write to WAL
+   * @throws WALOverSizedException if the plan is larger than maxLogEntrySize
+   */
+  public void append(PhysicalPlan plan) throws WALOverSizedException {
+    if (plan instanceof InsertPlan && ((InsertPlan) plan).getDataPoints() != null) {
+      appendInsert((InsertPlan) plan);
+    } else {
+      closeBatch();
+      records.add(PhysicalPlanLogTransfer.operatorToLog(plan));
+    }
+    planCount++;
+  }
+
+  /**
+   * number of plans appended since the last {@link #flush()}.
+   */
+  public int getPlanCount() {
+    return planCount;
+  }
+
+  /**
+   * take the records of the plans appended since the last flush.
+   *
+   * @return records in the order they should be written to the log file
+   */
+  public List<byte[]> flush() {
+    closeBatch();
+    List<byte[]> ret = records;
+    records = new ArrayList<>();
+    planCount = 0;
+    return ret;
+  }
+
+  /**
+   * discard the appended plans and start a new dictionary, called when the log file is switched or
+   * the records could not be written.
+   */
+  public void reset() {
+    pathIds.clear();
+    headerWritten = false;
+    records.clear();
+    planCount = 0;
+    batchDevice = null;
+  }
+
+  private void appendInsert(InsertPlan plan) throws WALOverSizedException {
+    if (!isInBatch(plan)) {
+      closeBatch();
+      openBatch(plan);
+    }
+    encodeRow(plan);
+    if (isRowOverSized() && batchRowCount > 0) {
+      // the row starts a new batch and its time delta is relative to the new batch
+      closeBatch();
+      openBatch(plan);
+      encodeRow(plan);
+    }
+    if (isRowOverSized()) {
+      batchDevice = null;
+      throw new WALOverSizedException("Plan " + plan.toString() + " is too big to write to WAL");
+    }
+    batchRows.write(rowBuffer.getBuf(), 0, rowBuffer.size());
+    batchRowCount++;
+    batchPreTime = plan.getTime();
+  }
+
+  private boolean isRowOverSized() {
+    return batchHeader.size() + ROW_NUM_RESERVED_SIZE + batchRows.size() + rowBuffer.size()
+        > config.maxLogEntrySize;
+  }
+
+  private boolean isInBatch(InsertPlan plan) {
+    if (batchDevice == null || !batchDevice.equals(plan.getDeviceId())
+        || batchInsertType != plan.getInsertType()) {
+      return false;
+    }
+    List<DataPoint> dataPoints = plan.getDataPoints();
+    if (dataPoints.size() != batchTypes.length) {
+      return false;
+    }
+    for (int i = 0; i < batchTypes.length; i++) {
+      DataPoint dataPoint = dataPoints.get(i);
+      if (dataPoint.getType() != batchTypes[i]
+          || !dataPoint.getMeasurementId().equals(batchMeasurements.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void openBatch(InsertPlan plan) {
+    List<DataPoint> dataPoints = plan.getDataPoints();
+    List<String> newPaths = new ArrayList<>();
+    int deviceId = getPathId(plan.getDeviceId(), newPaths);
+    int[] measurementIds = new int[dataPoints.size()];
+    batchTypes = new TSDataType[dataPoints.size()];
+    batchMeasurements = new ArrayList<>(dataPoints.size());
+    for (int i = 0; i < dataPoints.size(); i++) {
+      DataPoint dataPoint = dataPoints.get(i);
+      measurementIds[i] = getPathId(dataPoint.getMeasurementId(), newPaths);
+      batchTypes[i] = dataPoint.getType();
+      batchMeasurements.add(dataPoint.getMeasurementId());
+    }
+    if (!newPaths.isEmpty()) {
+      writeDictionary(newPaths);
+    }
+
+    batchDevice = plan.getDeviceId();
+    batchInsertType = plan.getInsertType();
+    batchRowCount = 0;
+    batchPreTime = 0;
+    batchRows.reset();
+    batchHeader.reset();
+    batchHeader.write(SystemLogOperator.BATCH_INSERT);
+    batchHeader.write(batchInsertType);
+    try {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(deviceId, batchHeader);
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(measurementIds.length, batchHeader);
+      for (int i = 0; i < measurementIds.length; i++) {
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(measurementIds[i], batchHeader);
+        batchHeader.write(batchTypes[i].serialize());
+      }
+    } catch (IOException e) {
+      // ByteArrayOutputStream never throws IOException
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private int getPathId(String path, List<String> newPaths) {
+    Integer id = pathIds.get(path);
+    if (id == null) {
+      id = pathIds.size();
+      pathIds.put(path, id);
+      newPaths.add(path);
+    }
+    return id;
+  }
+
+  private void writeDictionary(List<String> newPaths) {
+    if (!headerWritten) {
+      records.add(new byte[]{(byte) SystemLogOperator.WAL_HEADER, FORMAT_VERSION});
+      headerWritten = true;
+    }
+    PublicBAOS out = new PublicBAOS();
+    out.write(SystemLogOperator.PATH_DICTIONARY);
+    try {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(newPaths.size(), out);
+      for (String path : newPaths) {
+        byte[] pathBytes = BytesUtils.stringToBytes(path);
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(pathBytes.length, out);
+        out.write(pathBytes);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    records.add(out.toByteArray());
+  }
+
+  private void encodeRow(InsertPlan plan) {
+    rowBuffer.reset();
+    try {
+      long timeDelta = plan.getTime() - batchPreTime;
+      ReadWriteForEncodingUtils
+          .writeUnsignedVarLong((timeDelta << 1) ^ (timeDelta >> 63), rowBuffer);
+      for (DataPoint dataPoint : plan.getDataPoints()) {
+        encodeValue(dataPoint, rowBuffer);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void encodeValue(DataPoint dataPoint, OutputStream out) throws IOException {
+    switch (dataPoint.getType()) {
+      case BOOLEAN:
+        out.write((Boolean) dataPoint.getValue() ? 1 : 0);
+        break;
+      case INT32:
+        int intValue = (Integer) dataPoint.getValue();
+        ReadWriteForEncodingUtils.writeUnsignedVarInt((intValue << 1) ^ (intValue >> 31), out);
+        break;
+      case INT64:
+        long longValue = (Long) dataPoint.getValue();
+        ReadWriteForEncodingUtils.writeUnsignedVarLong((longValue << 1) ^ (longValue >> 63), out);
+        break;
+      case FLOAT:
+        ReadWriteIOUtils.write((Float) dataPoint.getValue(), out);
+        break;
+      case DOUBLE:
+        ReadWriteIOUtils.write((Double) dataPoint.getValue(), out);
+        break;
+      case TEXT:
+        Binary binary = (Binary) dataPoint.getValue();
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(binary.getLength(), out);
+        out.write(binary.getValues());
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataPoint.getType()));
+    }
+  }
+
+  private void closeBatch() {
+    if (batchDevice == null) {
+      return;
+    }
+    PublicBAOS out = new PublicBAOS(
+        batchHeader.size() + ROW_NUM_RESERVED_SIZE + batchRows.size());
+    out.write(batchHeader.getBuf(), 0, batchHeader.size());
+    try {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(batchRowCount, out);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    out.write(batchRows.getBuf(), 0, batchRows.size());
+    records.add(out.toByteArray());
+    batchDevice = null;
+  }
+}
@@ -23,7 +23,15 @@ typedef i16 short
 typedef i64 long
 service ServerService{
 	bool getUUID(1:string uuid, 2:string address)
+	// authenticate another connection of the postback started by getUUID
+	bool joinTransfer(1:string uuid, 2:string address)
 	string startReceiving(1:string md5, 2:list<string> filename, 3:binary buff, 4:int status)
+	// length of the part of a file received before, a transfer resumes from it
+	long getReceivedLength(1:list<string> filename, 2:long fileLength)
+	// append a chunk at offset, false if its CRC32 checksum or its offset is wrong
+	bool receiveChunk(1:list<string> filename, 2:long offset, 3:binary buff, 4:long checksum)
+	// check the MD5 of a whole received file, a mismatched file is deleted
+	bool finishReceiving(1:list<string> filename, 2:string md5)
 	void getFileNodeInfo()
 	void mergeOldData(1:string path)
 	void mergeData()
@@ -28,20 +28,37 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.Directories;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.engine.PathUtils;
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.exception.ProcessorException;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.db.utils.FileSchemaUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.db.writelog.io.RAFLogReader;
+import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
+import org.apache.iotdb.db.writelog.node.WriteLogNode;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 import org.junit.After;
 import org.junit.Assert;
@@ -194,11 +211,16 @@ public class BufferWriteProcessorTest {
     assertEquals(0, bufferwrite.memoryUsage());
     assertEquals(TsFileIOWriter.magicStringBytes.length, bufferwrite.getFileSize());
     assertEquals(0, bufferwrite.getMetaSize());
-    for (int i = 1; i <= 85; i++) {
+    // the memory usage is the bytes allocated by the memtable, the arrays of the 65th point make
+    // it exceed groupSizeInByte
+    IMemTable memTable = new PrimitiveMemTable();
+    long memSize = 0;
+    for (int i = 1; i <= 64; i++) {
       bufferwrite.write(deviceId, measurementId, i, dataType, String.valueOf(i));
-      assertEquals(i * 12, bufferwrite.memoryUsage());
+      memSize += memTable.write(deviceId, measurementId, dataType, i, String.valueOf(i));
+      assertEquals(memSize, bufferwrite.memoryUsage());
     }
-    bufferwrite.write(deviceId, measurementId, 86, dataType, String.valueOf(86));
+    bufferwrite.write(deviceId, measurementId, 65, dataType, String.valueOf(65));
     assertEquals(true, bufferwrite.isFlush());
     // sleep to the end of flush
     TimeUnit.SECONDS.sleep(2);
@@ -213,19 +235,22 @@ public class BufferWriteProcessorTest {
     ChunkMetaData chunkMetaData = pair.right.get(0);
     assertEquals(measurementId, chunkMetaData.getMeasurementUid());
     assertEquals(dataType, chunkMetaData.getTsDataType());
-    for (int i = 87; i <= 100; i++) {
+    memTable = new PrimitiveMemTable();
+    memSize = 0;
+    for (int i = 66; i <= 100; i++) {
       bufferwrite.write(deviceId, measurementId, i, dataType, String.valueOf(i));
-      assertEquals((i - 86) * 12, bufferwrite.memoryUsage());
+      memSize += memTable.write(deviceId, measurementId, dataType, i, String.valueOf(i));
+      assertEquals(memSize, bufferwrite.memoryUsage());
     }
     pair = bufferwrite.queryBufferWriteData(deviceId, measurementId, dataType);
     ReadOnlyMemChunk rawSeriesChunk = (ReadOnlyMemChunk) pair.left;
     assertEquals(false, rawSeriesChunk.isEmpty());
-    assertEquals(87, rawSeriesChunk.getMinTimestamp());
-    Assert.assertEquals(87, rawSeriesChunk.getValueAtMinTime().getInt());
+    assertEquals(66, rawSeriesChunk.getMinTimestamp());
+    Assert.assertEquals(66, rawSeriesChunk.getValueAtMinTime().getInt());
     assertEquals(100, rawSeriesChunk.getMaxTimestamp());
     Assert.assertEquals(100, rawSeriesChunk.getValueAtMaxTime().getInt());
     Iterator<TimeValuePair> iterator = rawSeriesChunk.getIterator();
-    for (int i = 87; i <= 100; i++) {
+    for (int i = 66; i <= 100; i++) {
       iterator.hasNext();
       TimeValuePair timeValuePair = iterator.next();
       assertEquals(i, timeValuePair.getTimestamp());
@@ -233,4 +258,154 @@ public class BufferWriteProcessorTest {
     }
     bufferwrite.close();
   }
+
+  @Test
+  public void testFlushKeepsReorderWindow()
+      throws WriteProcessException, InterruptedException, ProcessorException {
+    bufferwrite = new BufferWriteProcessor(directories.getFolderForTest(), deviceId, insertPath,
+        parameters,
+        FileSchemaUtils.constructFileSchema(deviceId));
+    bufferwrite.setReorderWindow(10);
+    for (int i = 1; i <= 65; i++) {
+      bufferwrite.write(deviceId, measurementId, i, dataType, String.valueOf(i));
+    }
+    // the points within 10 of the latest point are kept in memory
+    assertEquals(56L, (long) bufferwrite.getReorderBoundaries().get(deviceId));
+    IMemTable memTable = new PrimitiveMemTable();
+    long memSize = 0;
+    for (int i = 56; i <= 65; i++) {
+      memSize += memTable.write(deviceId, measurementId, dataType, i, String.valueOf(i));
+    }
+    assertEquals(memSize, bufferwrite.memoryUsage());
+    // sleep to the end of flush
+    TimeUnit.SECONDS.sleep(2);
+    assertEquals(false, bufferwrite.isFlush());
+    // a late point within the window joins the kept points
+    bufferwrite.write(deviceId, measurementId, 60, dataType, String.valueOf(600));
+    Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair = bufferwrite
+        .queryBufferWriteData(deviceId, measurementId, dataType);
+    assertEquals(1, pair.right.size());
+    assertEquals(55, pair.right.get(0).getEndTime());
+    ReadOnlyMemChunk rawSeriesChunk = pair.left;
+    assertEquals(56, rawSeriesChunk.getMinTimestamp());
+    assertEquals(65, rawSeriesChunk.getMaxTimestamp());
+    Iterator<TimeValuePair> iterator = rawSeriesChunk.getIterator();
+    for (int i = 56; i <= 65; i++) {
+      TimeValuePair timeValuePair = iterator.next();
+      assertEquals(i, timeValuePair.getTimestamp());
+      assertEquals(i == 60 ? 600 : i, timeValuePair.getValue().getInt());
+    }
+    bufferwrite.close();
+    assertEquals(true, bufferwrite.getReorderBoundaries().isEmpty());
+  }
+
+  @Test
+  public void testFlushKeepsTypedPointsOfEveryMeasurement() throws Exception {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableWal = config.enableWal;
+    config.enableWal = true;
+    // the memtable is only flushed explicitly
+    TsFileConf.groupSizeInByte = 64 * 1024 * 1024;
+    try {
+      bufferwrite = new BufferWriteProcessor(directories.getFolderForTest(), deviceId,
+          insertPath, parameters, FileSchemaUtils.constructFileSchema(deviceId));
+      bufferwrite.setReorderWindow(10);
+      for (int i = 1; i <= 50; i++) {
+        bufferwrite.write(newMixedRecord(i));
+      }
+      bufferwrite.flush();
+      assertEquals(41L, (long) bufferwrite.getReorderBoundaries().get(deviceId));
+      waitForFlushEnd();
+
+      // the kept points are logged again, one insertion per timestamp with all its measurements
+      WriteLogNode logNode = bufferwrite.getLogNode();
+      logNode.forceSync();
+      List<File> segments = ExclusiveWriteLogNode.getSegmentFiles(logNode.getLogDirectory());
+      RAFLogReader reader = new RAFLogReader(segments.get(segments.size() - 1));
+      try {
+        for (int i = 41; i <= 50; i++) {
+          InsertPlan plan = (InsertPlan) reader.next();
+          assertEquals(deviceId, plan.getDeviceId());
+          assertEquals(i, plan.getTime());
+          TSRecord expected = newMixedRecord(i);
+          Map<String, String> values = new HashMap<>();
+          for (int j = 0; j < plan.getMeasurements().size(); j++) {
+            values.put(plan.getMeasurements().get(j), plan.getValues().get(j));
+          }
+          assertEquals(expected.dataPointList.size(), values.size());
+          for (DataPoint dataPoint : expected.dataPointList) {
+            assertEquals(dataPoint.getValue().toString(),
+                values.get(dataPoint.getMeasurementId()));
+          }
+        }
+        assertEquals(false, reader.hasNext());
+      } finally {
+        reader.close();
+      }
+      assertMixedSeries(41, 50, 40);
+
+      // the kept points are flushed once by the next flush
+      for (int i = 51; i <= 100; i++) {
+        bufferwrite.write(newMixedRecord(i));
+      }
+      bufferwrite.flush();
+      waitForFlushEnd();
+      assertMixedSeries(91, 100, 90);
+      bufferwrite.close();
+    } finally {
+      config.enableWal = enableWal;
+    }
+  }
+
+  /**
+   * a record of all the measurements of the device, s0 to s5 are INT32, INT64, FLOAT, DOUBLE,
+   * BOOLEAN and TEXT.
+   */
+  private TSRecord newMixedRecord(int time) {
+    TSRecord record = new TSRecord(time, deviceId);
+    record.addTuple(new IntDataPoint("s0", -7 * time));
+    record.addTuple(new LongDataPoint("s1", 10_000_000_000L * time));
+    record.addTuple(new FloatDataPoint("s2", time + 0.1f));
+    record.addTuple(new DoubleDataPoint("s3", time / 3.0));
+    record.addTuple(new BooleanDataPoint("s4", time % 2 == 0));
+    record.addTuple(new StringDataPoint("s5", new Binary("text" + time)));
+    return record;
+  }
+
+  /**
+   * check that every series keeps exactly the points from keptStart to keptEnd in memory, with
+   * their values, and that its chunks hold each of the points from 1 to flushedEnd once.
+   */
+  private void assertMixedSeries(int keptStart, int keptEnd, int flushedEnd) {
+    TSDataType[] dataTypes = {TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT,
+        TSDataType.DOUBLE, TSDataType.BOOLEAN, TSDataType.TEXT};
+    for (int s = 0; s < dataTypes.length; s++) {
+      String measurement = "s" + s;
+      Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair = bufferwrite
+          .queryBufferWriteData(deviceId, measurement, dataTypes[s]);
+      Iterator<TimeValuePair> iterator = pair.left.getIterator();
+      for (int i = keptStart; i <= keptEnd; i++) {
+        assertEquals(true, iterator.hasNext());
+        TimeValuePair timeValuePair = iterator.next();
+        assertEquals(i, timeValuePair.getTimestamp());
+        DataPoint expected = newMixedRecord(i).dataPointList.get(s);
+        assertEquals(expected.getValue(), timeValuePair.getValue().getValue());
+      }
+      assertEquals(false, iterator.hasNext());
+
+      long nextTime = 1;
+      for (ChunkMetaData chunkMetaData : pair.right) {
+        assertEquals(nextTime, chunkMetaData.getStartTime());
+        nextTime = chunkMetaData.getEndTime() + 1;
+        assertEquals(nextTime - chunkMetaData.getStartTime(), chunkMetaData.getNumOfPoints());
+      }
+      assertEquals(flushedEnd + 1, nextTime);
+    }
+  }
+
+  private void waitForFlushEnd() throws InterruptedException {
+    while (bufferwrite.isFlush()) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
 }
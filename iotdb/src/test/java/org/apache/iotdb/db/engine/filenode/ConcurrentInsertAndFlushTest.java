@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.filenode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.engine.memcontrol.BasicMemController.UsageLevel;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.query.control.QueryContext;
+import org.apache.iotdb.db.query.control.QueryContextManager;
+import org.apache.iotdb.db.query.executor.EngineQueryRouter;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * records of different devices are inserted under the read lock of the filenode processor, while
+ * flushes take its write lock.
+ */
+public class ConcurrentInsertAndFlushTest {
+
+  private static final String STORAGE_GROUP = "root.vehicle";
+  private static final String MEASUREMENT = "s0";
+  private static final int DEVICE_NUM = 4;
+  private static final long POINT_NUM = 5000;
+
+  private TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+  private int groupSizeInByte;
+
+  @Before
+  public void setUp() throws Exception {
+    groupSizeInByte = tsFileConfig.groupSizeInByte;
+    // the memtables are also flushed by the insertions themselves
+    tsFileConfig.groupSizeInByte = 16 * 1024;
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.closeMemControl();
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageLevelToMTree(STORAGE_GROUP);
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      MManager.getInstance()
+          .addPathToMTree(getDevice(i) + "." + MEASUREMENT, "INT64", "RLE", new String[0]);
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    tsFileConfig.groupSizeInByte = groupSizeInByte;
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testInsertWhileFlushing() throws Exception {
+    FileNodeManager manager = FileNodeManager.getInstance();
+    ExecutorService pool = Executors.newFixedThreadPool(DEVICE_NUM + 1);
+    AtomicBoolean inserting = new AtomicBoolean(true);
+    AtomicInteger flushNum = new AtomicInteger();
+    try {
+      Future<?> flusher = pool.submit(() -> {
+        while (inserting.get()) {
+          manager.forceFlush(UsageLevel.DANGEROUS);
+          flushNum.incrementAndGet();
+        }
+        return null;
+      });
+      List<Future<?>> inserters = new ArrayList<>();
+      for (int i = 0; i < DEVICE_NUM; i++) {
+        String device = getDevice(i);
+        inserters.add(pool.submit(() -> {
+          for (long time = 1; time <= POINT_NUM; time++) {
+            TSRecord record = new TSRecord(time, device);
+            record.addTuple(new LongDataPoint(MEASUREMENT, time));
+            manager.insert(record, false);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> inserter : inserters) {
+        inserter.get();
+      }
+      inserting.set(false);
+      flusher.get();
+    } finally {
+      inserting.set(false);
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    assertTrue(flushNum.get() > 0);
+
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      assertEquals(POINT_NUM, countPoints(getDevice(i)));
+    }
+  }
+
+  private String getDevice(int index) {
+    return STORAGE_GROUP + ".d" + index;
+  }
+
+  /**
+   * count the points of the device, checking that they are 1, 2, ... with the time as the value.
+   */
+  private long countPoints(String device) throws Exception {
+    QueryExpression expression = QueryExpression
+        .create(Collections.singletonList(new Path(device, MEASUREMENT)), null);
+    QueryContext context = QueryContextManager.getInstance().beginQuery(0);
+    try {
+      QueryDataSet dataSet = new EngineQueryRouter().query(expression, context);
+      long count = 0;
+      while (dataSet.hasNext()) {
+        RowRecord record = dataSet.next();
+        count++;
+        assertEquals(count, record.getTimestamp());
+        assertEquals(count, record.getFields().get(0).getLongV());
+      }
+      return count;
+    } finally {
+      QueryContextManager.getInstance().endQuery(context);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.filenode;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.query.control.QueryContext;
+import org.apache.iotdb.db.query.control.QueryContextManager;
+import org.apache.iotdb.db.query.executor.EngineQueryRouter;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeletionAndTTLQueryTest {
+
+  private static final String STORAGE_GROUP = "root.vehicle";
+  private static final String DEVICE = "root.vehicle.d0";
+  private static final String MEASUREMENT = "s0";
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.closeMemControl();
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageLevelToMTree(STORAGE_GROUP);
+    MManager.getInstance()
+        .addPathToMTree(DEVICE + "." + MEASUREMENT, "INT64", "RLE", new String[0]);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    config.dataTTLOfStorageGroups.remove(STORAGE_GROUP);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testQueryAfterDelete() throws Exception {
+    FileNodeManager manager = FileNodeManager.getInstance();
+    insert(1, 100);
+    manager.closeOneFileNode(STORAGE_GROUP);
+    insert(101, 150);
+    // the overflow insert file also holds deleted points
+    insert(50, 60);
+
+    manager.delete(DEVICE, MEASUREMENT, 120, TSDataType.INT64);
+    assertEquals(range(121, 150), queryTimes());
+
+    // points written after the delete are not affected by it
+    insert(110, 115);
+    insert(151, 160);
+    List<Long> expected = range(110, 115);
+    expected.addAll(range(121, 160));
+    assertEquals(expected, queryTimes());
+  }
+
+  @Test
+  public void testQueryAfterTTLExpired() throws Exception {
+    FileNodeManager manager = FileNodeManager.getInstance();
+    long now = System.currentTimeMillis();
+    long hour = 3600 * 1000L;
+    insert(now - 3 * hour, now - 2 * hour, hour / 2);
+    manager.closeOneFileNode(STORAGE_GROUP);
+    insert(now - hour / 2, now, hour / 4);
+    assertEquals(2, countTsFiles());
+
+    config.dataTTLOfStorageGroups.put(STORAGE_GROUP, hour);
+    List<Long> expected = range(now - hour / 2, now, hour / 4);
+    assertEquals(expected, queryTimes());
+
+    // the expired sealed tsfile is dropped, the result of queries does not change
+    manager.checkTTLAll();
+    assertEquals(1, countTsFiles());
+    assertEquals(expected, queryTimes());
+  }
+
+  private void insert(long startTime, long endTime) throws Exception {
+    insert(startTime, endTime, 1);
+  }
+
+  private void insert(long startTime, long endTime, long step) throws Exception {
+    for (long time = startTime; time <= endTime; time += step) {
+      TSRecord record = new TSRecord(time, DEVICE);
+      record.addTuple(new LongDataPoint(MEASUREMENT, time));
+      FileNodeManager.getInstance().insert(record, false);
+    }
+  }
+
+  private List<Long> range(long startTime, long endTime) {
+    return range(startTime, endTime, 1);
+  }
+
+  private List<Long> range(long startTime, long endTime, long step) {
+    List<Long> times = new ArrayList<>();
+    for (long time = startTime; time <= endTime; time += step) {
+      times.add(time);
+    }
+    return times;
+  }
+
+  private List<Long> queryTimes() throws Exception {
+    QueryExpression expression = QueryExpression
+        .create(Collections.singletonList(new Path(DEVICE, MEASUREMENT)), null);
+    QueryContext context = QueryContextManager.getInstance().beginQuery(0);
+    try {
+      QueryDataSet dataSet = new EngineQueryRouter().query(expression, context);
+      List<Long> times = new ArrayList<>();
+      while (dataSet.hasNext()) {
+        times.add(dataSet.next().getTimestamp());
+      }
+      return times;
+    } finally {
+      // the processor can not be closed while a query pins its files
+      QueryContextManager.getInstance().endQuery(context);
+    }
+  }
+
+  /**
+   * number of the sealed and unsealed tsfiles of the storage group.
+   */
+  private int countTsFiles() {
+    int count = 0;
+    for (String dir : config.bufferWriteDirs) {
+      File[] files = new File(dir, STORAGE_GROUP).listFiles();
+      if (files == null) {
+        continue;
+      }
+      for (File file : files) {
+        if (!file.getName().contains(".")) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.filenode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSetVersionManagerTest {
+
+  private File dir = new File("fileSetVersionTest");
+
+  @Before
+  public void setUp() {
+    dir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testObsoleteFilesWaitForOlderQueries() throws IOException {
+    FileSetVersionManager manager = new FileSetVersionManager("root.test");
+    File firstMerged = new File(dir, "1.tsfile");
+    File secondMerged = new File(dir, "2.tsfile");
+    assertTrue(firstMerged.createNewFile());
+    assertTrue(secondMerged.createNewFile());
+
+    int longQuery = manager.pin();
+    manager.publish(Collections.singletonList(firstMerged));
+    assertEquals(1, manager.getCurrentVersionNumber());
+    int shortQuery = manager.pin();
+    manager.publish(Collections.singletonList(secondMerged));
+    assertTrue(firstMerged.exists());
+    assertTrue(secondMerged.exists());
+
+    // the files of the newer version wait for the query pinning an older version
+    assertTrue(manager.unpin(shortQuery));
+    assertTrue(firstMerged.exists());
+    assertTrue(secondMerged.exists());
+    assertTrue(manager.isPinned());
+
+    assertTrue(manager.unpin(longQuery));
+    assertFalse(firstMerged.exists());
+    assertFalse(secondMerged.exists());
+    assertFalse(manager.isPinned());
+    assertFalse(manager.unpin(longQuery));
+  }
+
+  @Test
+  public void testPublishWithoutQuery() throws IOException {
+    FileSetVersionManager manager = new FileSetVersionManager("root.test");
+    File merged = new File(dir, "1.tsfile");
+    assertTrue(merged.createNewFile());
+    manager.publish(Collections.singletonList(merged));
+    assertFalse(merged.exists());
+
+    // a query begun after the publication does not keep the file set of the old version
+    int query = manager.pin();
+    File mergedLater = new File(dir, "2.tsfile");
+    assertTrue(mergedLater.createNewFile());
+    manager.publish(Collections.singletonList(mergedLater));
+    assertTrue(mergedLater.exists());
+    manager.unpin(query);
+    assertFalse(mergedLater.exists());
+  }
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.filenode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Collections;
+import org.apache.iotdb.db.exception.ProcessorException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.executor.OverflowQPExecutor;
+import org.apache.iotdb.db.qp.physical.sys.LoadFilesPlan;
+import org.apache.iotdb.db.query.executor.EngineQueryRouter;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TsFileLoaderTest {
+
+  private static final String STORAGE_GROUP = "root.vehicle";
+  private static final String DEVICE = "root.vehicle.d0";
+  private static final String MEASUREMENT = "s0";
+
+  private TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+  private int groupSizeInByte;
+  private File source = new File("tsFileLoaderTest.tsfile");
+  private File directory = new File("tsFileLoaderTest");
+
+  @Before
+  public void setUp() throws Exception {
+    groupSizeInByte = tsFileConfig.groupSizeInByte;
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.closeMemControl();
+    EnvironmentUtils.envSetUp();
+    MManager.getInstance().setStorageLevelToMTree(STORAGE_GROUP);
+    MManager.getInstance()
+        .addPathToMTree(DEVICE + "." + MEASUREMENT, "INT64", "RLE", new String[0]);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    tsFileConfig.groupSizeInByte = groupSizeInByte;
+    source.delete();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testAttachWholeFile() throws Exception {
+    writeSource(1, 100);
+    new TsFileLoader(STORAGE_GROUP).load(source, true);
+
+    assertTrue(source.exists());
+    assertEquals(100, FileNodeManager.getInstance().getLastUpdateTime(STORAGE_GROUP, DEVICE));
+    assertEquals(100, countRows());
+  }
+
+  @Test
+  public void testSplitOverlappedFile() throws Exception {
+    for (long time = 1; time <= 50; time++) {
+      FileNodeManager.getInstance().insert(newRecord(time), false);
+    }
+    // the first chunk group holds 31 to 130, every later point is in its own chunk group
+    tsFileConfig.groupSizeInByte = 1;
+    writeSource(31, 200);
+    tsFileConfig.groupSizeInByte = groupSizeInByte;
+    new TsFileLoader(STORAGE_GROUP).load(source, false);
+
+    assertFalse(source.exists());
+    assertEquals(200, FileNodeManager.getInstance().getLastUpdateTime(STORAGE_GROUP, DEVICE));
+    assertEquals(200, countRows());
+  }
+
+  @Test
+  public void testLoadFilesPlan() throws Exception {
+    String otherDevice = "root.other.d0";
+    MManager.getInstance().setStorageLevelToMTree("root.other");
+    writeSource(1, 100, DEVICE, otherDevice);
+    new OverflowQPExecutor().processNonQuery(new LoadFilesPlan(source.getPath()));
+
+    // the timeseries of a device in another storage group is registered and its chunks are split
+    assertTrue(MManager.getInstance().pathExist(otherDevice + "." + MEASUREMENT));
+    assertTrue(source.exists());
+    assertEquals(100, countRows(DEVICE));
+    assertEquals(100, countRows(otherDevice));
+  }
+
+  @Test
+  public void testValidateAllFilesFirst() throws Exception {
+    String otherDevice = "root.other.d0";
+    MManager.getInstance().setStorageLevelToMTree("root.other");
+    directory.mkdir();
+    writeSource(new File(directory, "0.tsfile"), 1, 100, DEVICE, otherDevice);
+    writeSource(new File(directory, "1.tsfile"), 101, 200, "root.missing.d0");
+    try {
+      new OverflowQPExecutor().processNonQuery(new LoadFilesPlan(directory.getPath()));
+      fail();
+    } catch (ProcessorException e) {
+      assertTrue(e.getMessage().contains("root.missing.d0"));
+    }
+
+    // the second file has no storage group, so nothing of the first one is registered or loaded
+    assertFalse(MManager.getInstance().pathExist(otherDevice + "." + MEASUREMENT));
+    assertEquals(0, countRows(DEVICE));
+  }
+
+  private void writeSource(long startTime, long endTime) throws Exception {
+    writeSource(startTime, endTime, DEVICE);
+  }
+
+  private void writeSource(long startTime, long endTime, String... devices) throws Exception {
+    writeSource(source, startTime, endTime, devices);
+  }
+
+  private void writeSource(File file, long startTime, long endTime, String... devices)
+      throws Exception {
+    TsFileWriter writer = new TsFileWriter(file);
+    writer.addMeasurement(new MeasurementSchema(MEASUREMENT, TSDataType.INT64, TSEncoding.RLE));
+    for (long time = startTime; time <= endTime; time++) {
+      for (String device : devices) {
+        writer.write(newRecord(device, time));
+      }
+    }
+    writer.close();
+  }
+
+  private TSRecord newRecord(long time) {
+    return newRecord(DEVICE, time);
+  }
+
+  private TSRecord newRecord(String device, long time) {
+    TSRecord record = new TSRecord(time, device);
+    record.addTuple(new LongDataPoint(MEASUREMENT, time));
+    return record;
+  }
+
+  private int countRows() throws Exception {
+    return countRows(DEVICE);
+  }
+
+  private int countRows(String device) throws Exception {
+    QueryExpression expression = QueryExpression
+        .create(Collections.singletonList(new Path(device, MEASUREMENT)), null);
+    QueryDataSet dataSet = new EngineQueryRouter().query(expression);
+    int count = 0;
+    long expectedTime = 1;
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      assertEquals(expectedTime++, record.getTimestamp());
+      count++;
+    }
+    return count;
+  }
+}
@@ -19,10 +19,15 @@
 package org.apache.iotdb.db.engine.memcontrol;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
 import org.apache.iotdb.db.exception.BufferWriteProcessorException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.junit.Test;
 
 public class MemControllerTest {
@@ -33,14 +38,11 @@ public class MemControllerTest {
 
   @Test
   public void test() throws BufferWriteProcessorException {
-    BasicMemController memController = BasicMemController.getInstance();
-    if (memController instanceof RecordMemController) {
-      testRecordMemController();
-    }
+    testRecordMemController();
   }
 
   private void testRecordMemController() {
-    BasicMemController memController = BasicMemController.getInstance();
+    BasicMemController memController = RecordMemController.getInstance();
     memController.clear();
     memController.setWarningThreshold(8 * GB);
     memController.setDangerousThreshold(16 * GB);
@@ -92,4 +94,72 @@ public class MemControllerTest {
       assertEquals(BasicMemController.UsageLevel.DANGEROUS, level);
     }
   }
+
+  @Test
+  public void testWriteBufferManager() throws InterruptedException {
+    WriteBufferManager manager = WriteBufferManager.getInstance();
+    manager.clear();
+    manager.setWarningThreshold(1000);
+    manager.setDangerousThreshold(2000);
+    manager.setMaxWriteDelay(400);
+    manager.setWriteStallTimeout(100);
+    Object user = new Object();
+    try {
+      // the usage is accounted even beyond the dangerous threshold
+      assertEquals(BasicMemController.UsageLevel.SAFE, manager.reportUse(user, 500));
+      assertTrue(manager.admitWrite());
+      assertEquals(BasicMemController.UsageLevel.WARNING, manager.reportUse(user, 1000));
+      assertEquals(BasicMemController.UsageLevel.WARNING, manager.reportUse(user, 600));
+      assertEquals(2100, manager.getTotalUsage());
+      assertEquals(BasicMemController.UsageLevel.DANGEROUS, manager.getCurrLevel());
+
+      // a write stalls and is rejected if no memory is freed
+      long startTime = System.currentTimeMillis();
+      assertFalse(manager.admitWrite());
+      assertTrue(System.currentTimeMillis() - startTime >= 100);
+
+      // a stalled write goes on once a flush frees memory
+      manager.setWriteStallTimeout(10000);
+      Thread flush = new Thread(() -> {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        manager.reportFree(user, 600);
+      });
+      flush.start();
+      assertTrue(manager.admitWrite());
+      flush.join();
+
+      // between the thresholds, a write is delayed in proportion to the usage
+      assertEquals(1500, manager.getTotalUsage());
+      startTime = System.currentTimeMillis();
+      assertTrue(manager.admitWrite());
+      assertTrue(System.currentTimeMillis() - startTime >= 200);
+    } finally {
+      manager.clear();
+      manager.setWarningThreshold(config.memThresholdWarning);
+      manager.setDangerousThreshold(config.memThresholdDangerous);
+      manager.setMaxWriteDelay(config.maxWriteDelay);
+      manager.setWriteStallTimeout(config.writeStallTimeout);
+    }
+  }
+
+  @Test
+  public void testMemTableAccounting() {
+    IMemTable memTable = new PrimitiveMemTable();
+    long memSize = 0;
+    for (int i = 0; i < 1000; i++) {
+      memSize += memTable.write("d0", "s0", TSDataType.INT64, i, String.valueOf(i));
+    }
+    // 1000 timestamps and values of 8 bytes, in two arrays of 512 slots
+    assertTrue(memSize >= 1000 * 16);
+    assertTrue(memSize < 1100 * 16);
+
+    // the arrays are allocated when they are full, the other writes allocate nothing
+    assertEquals(0, memTable.write("d0", "s0", TSDataType.INT64, 1000, "1000"));
+    long textSize = memTable.write("d0", "s1", TSDataType.TEXT, 0, "abcdefghij");
+    assertTrue(textSize > 10);
+  }
 }
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.footer.ChunkGroupFooter;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.write.schema.FileSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.DefaultTsFileOutput;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemTableFlushUtilTest {
+
+  private static final int ENCODING_THREAD_NUM = IoTDBDescriptor.getInstance().getConfig()
+      .concurrentFlushEncodingThread;
+  private static final int DEVICE_NUM = 3;
+
+  private File file = new File("target/memTableFlushUtilTest.tsfile");
+
+  @After
+  public void tearDown() {
+    if (file.exists()) {
+      file.delete();
+    }
+  }
+
+  /**
+   * create a memtable whose devices and series are iterated in insertion order.
+   */
+  private static IMemTable mockMemTable(Map<String, Map<String, IWritableMemChunk>> memTableMap) {
+    IMemTable memTable = mock(IMemTable.class);
+    when(memTable.getMemTableMap()).thenReturn(memTableMap);
+    return memTable;
+  }
+
+  @Test
+  public void testFlushOrder() throws IOException {
+    // more series than the encoded series kept ahead of the writer
+    int seriesNumOfDevice = 2 * ENCODING_THREAD_NUM + 1;
+    FileSchema fileSchema = new FileSchema();
+    for (int j = 0; j < seriesNumOfDevice; j++) {
+      fileSchema.registerMeasurement(new MeasurementSchema("s" + j, TSDataType.INT64,
+          TSEncoding.RLE));
+    }
+    Map<String, Map<String, IWritableMemChunk>> memTableMap = new LinkedHashMap<>();
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      Map<String, IWritableMemChunk> seriesMap = new LinkedHashMap<>();
+      for (int j = 0; j < seriesNumOfDevice; j++) {
+        // the earlier series are larger, so the later ones are likely to be encoded first
+        WritableMemChunk series = new WritableMemChunk(TSDataType.INT64);
+        int pointNum = (seriesNumOfDevice - j) * 1000;
+        for (int t = pointNum; t > 0; t--) {
+          series.putLong(t, t * 10L);
+        }
+        seriesMap.put("s" + j, series);
+      }
+      memTableMap.put("d" + i, seriesMap);
+    }
+
+    TsFileIOWriter writer = new TsFileIOWriter(file);
+    MemTableFlushUtil.flushMemTable(fileSchema, writer, mockMemTable(memTableMap));
+    writer.endFile(fileSchema);
+
+    TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath());
+    try {
+      for (int i = 0; i < DEVICE_NUM; i++) {
+        for (int j = 0; j < seriesNumOfDevice; j++) {
+          Assert.assertEquals(MetaMarker.CHUNK_HEADER, reader.readMarker());
+          ChunkHeader header = reader.readChunkHeader();
+          Assert.assertEquals("s" + j, header.getMeasurementID());
+          reader.readChunk(header);
+        }
+        Assert.assertEquals(MetaMarker.CHUNK_GROUP_FOOTER, reader.readMarker());
+        ChunkGroupFooter footer = reader.readChunkGroupFooter();
+        Assert.assertEquals("d" + i, footer.getDeviceID());
+        Assert.assertEquals(seriesNumOfDevice, footer.getNumberOfChunks());
+      }
+      Assert.assertEquals(MetaMarker.SEPARATOR, reader.readMarker());
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(DEVICE_NUM, writer.getChunkGroupMetaDatas().size());
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      ChunkGroupMetaData chunkGroupMetaData = writer.getChunkGroupMetaDatas().get(i);
+      Assert.assertEquals("d" + i, chunkGroupMetaData.getDeviceID());
+      Assert.assertEquals(seriesNumOfDevice, chunkGroupMetaData.getChunkMetaDataList().size());
+    }
+  }
+
+  @Test
+  public void testEncodingFailure() throws IOException, InterruptedException {
+    // the encoded series kept ahead of the writer, all submitted before the first is written
+    int seriesNum = 4 * ENCODING_THREAD_NUM;
+    FileSchema fileSchema = new FileSchema();
+    fileSchema.registerMeasurement(new MeasurementSchema("s", TSDataType.INT64, TSEncoding.RLE));
+
+    UnSupportedDataTypeException failure = new UnSupportedDataTypeException("test");
+    IWritableMemChunk failedSeries = mock(IWritableMemChunk.class);
+    when(failedSeries.getSortedTimeValuePairList()).thenThrow(failure);
+    // the other series hold the encoding threads until the flush fails
+    CountDownLatch flushFailed = new CountDownLatch(1);
+    AtomicInteger startedEncodingNum = new AtomicInteger();
+    IWritableMemChunk blockedSeries = mock(IWritableMemChunk.class);
+    when(blockedSeries.getSortedTimeValuePairList()).thenAnswer(invocation -> {
+      startedEncodingNum.incrementAndGet();
+      flushFailed.await(10, TimeUnit.SECONDS);
+      return Collections.emptyList();
+    });
+
+    Map<String, Map<String, IWritableMemChunk>> memTableMap = new LinkedHashMap<>();
+    Map<String, IWritableMemChunk> seriesMap = new LinkedHashMap<>();
+    seriesMap.put("s", failedSeries);
+    memTableMap.put("d0", seriesMap);
+    for (int i = 1; i < seriesNum; i++) {
+      memTableMap.put("d" + i, Collections.singletonMap("s", blockedSeries));
+    }
+
+    DefaultTsFileOutput output = new DefaultTsFileOutput(file);
+    TsFileIOWriter writer = new TsFileIOWriter(output, new ArrayList<>());
+    try {
+      MemTableFlushUtil.flushMemTable(fileSchema, writer, mockMemTable(memTableMap));
+      Assert.fail("the failure of encoding should be thrown");
+    } catch (IOException e) {
+      Assert.assertSame(failure, e.getCause());
+    } finally {
+      flushFailed.countDown();
+      output.close();
+    }
+    // let the encoding threads run the series which are not cancelled
+    TimeUnit.MILLISECONDS.sleep(500);
+    // only the series being encoded when the flush failed are run, the queued ones are cancelled
+    Assert.assertTrue(startedEncodingNum.get() <= ENCODING_THREAD_NUM);
+  }
+}
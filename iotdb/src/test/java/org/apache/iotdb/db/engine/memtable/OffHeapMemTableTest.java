@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import java.util.Iterator;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapMemTableTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private long offHeapMemTableSize;
+
+  @Before
+  public void setUp() {
+    offHeapMemTableSize = config.offHeapMemTableSize;
+    config.offHeapMemTableSize = 16L * MemTableArena.SLAB_SIZE;
+  }
+
+  @After
+  public void tearDown() {
+    config.offHeapMemTableSize = offHeapMemTableSize;
+  }
+
+  @Test
+  public void testWriteAndQuery() {
+    IMemTable memTable = MemTableFactory.create();
+    Assert.assertTrue(memTable instanceof OffHeapMemTable);
+    int dataSize = 10000;
+    for (int i = 0; i < dataSize; i++) {
+      memTable.write("d1", "s1", TSDataType.INT64, dataSize - i - 1, String.valueOf(i + 10));
+      memTable.write("d1", "s2", TSDataType.TEXT, i, "text" + i);
+    }
+    // the later point of the same time is kept
+    for (int i = 0; i < dataSize; i++) {
+      memTable.write("d1", "s1", TSDataType.INT64, i, String.valueOf(i));
+    }
+    memTable.write("d1", "s3", TSDataType.BOOLEAN, 1, "true");
+    memTable.write("d1", "s4", TSDataType.DOUBLE, 1, "1.5");
+    Assert.assertEquals(3 * dataSize + 2, memTable.size());
+
+    Iterator<TimeValuePair> iterator = memTable.query("d1", "s1", TSDataType.INT64)
+        .getSortedTimeValuePairList().iterator();
+    for (int i = 0; i < dataSize; i++) {
+      TimeValuePair timeValuePair = iterator.next();
+      Assert.assertEquals(i, timeValuePair.getTimestamp());
+      Assert.assertEquals((long) i, timeValuePair.getValue().getValue());
+    }
+    Assert.assertFalse(iterator.hasNext());
+    List<TimeValuePair> texts = memTable.query("d1", "s2", TSDataType.TEXT)
+        .getSortedTimeValuePairList();
+    Assert.assertEquals(dataSize, texts.size());
+    Assert.assertEquals(new Binary("text" + 9999), texts.get(9999).getValue().getBinary());
+    Assert.assertTrue(memTable.query("d1", "s3", TSDataType.BOOLEAN).getSortedTimeValuePairList()
+        .get(0).getValue().getBoolean());
+    Assert.assertEquals(1.5, memTable.query("d1", "s4", TSDataType.DOUBLE)
+        .getSortedTimeValuePairList().get(0).getValue().getDouble(), 0);
+    memTable.clear();
+  }
+
+  @Test
+  public void testQueryAfterClear() {
+    IMemTable memTable = MemTableFactory.create();
+    for (int i = 0; i < 100; i++) {
+      memTable.write("d1", "s1", TSDataType.INT32, i, String.valueOf(i));
+    }
+    TimeValuePairSorter sorter = memTable.query("d1", "s1", TSDataType.INT32);
+    memTable.clear();
+    // the slabs of the cleared memtable are reused by another one
+    IMemTable nextMemTable = MemTableFactory.create();
+    for (int i = 0; i < 100; i++) {
+      nextMemTable.write("d1", "s1", TSDataType.INT32, i, String.valueOf(-i));
+    }
+    List<TimeValuePair> sortedList = sorter.getSortedTimeValuePairList();
+    Assert.assertEquals(100, sortedList.size());
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i, sortedList.get(i).getValue().getInt());
+    }
+    nextMemTable.clear();
+  }
+
+  @Test
+  public void testDelete() {
+    IMemTable memTable = MemTableFactory.create();
+    for (int i = 0; i < 1000; i++) {
+      memTable.write("d1", "s1", TSDataType.FLOAT, i, String.valueOf(i));
+    }
+    memTable.delete("d1", "s1", 499);
+    List<TimeValuePair> sortedList = memTable.query("d1", "s1", TSDataType.FLOAT)
+        .getSortedTimeValuePairList();
+    Assert.assertEquals(500, sortedList.size());
+    Assert.assertEquals(500, sortedList.get(0).getTimestamp());
+    Assert.assertEquals(500, memTable.size());
+    memTable.clear();
+  }
+
+  @Test
+  public void testArena() {
+    MemTableArena arena = new MemTableArena();
+    OffHeapMemChunk chunk = new OffHeapMemChunk(TSDataType.INT64, arena);
+    long memSize = 0;
+    for (int i = 0; i < 100000; i++) {
+      memSize += chunk.write(i, String.valueOf(i));
+    }
+    // the pages hold 100000 points of 16 bytes
+    Assert.assertTrue(memSize >= 100000 * 16);
+    Assert.assertTrue(memSize <= arena.getSize());
+    long slabNum = arena.getSize() / MemTableArena.SLAB_SIZE;
+    Assert.assertTrue(slabNum >= 2);
+    // all the slabs are kept for the next memtables
+    int freeSlabNum = MemTableArena.getFreeSlabNum();
+    arena.release();
+    Assert.assertEquals(0, arena.getSize());
+    Assert.assertEquals(freeSlabNum + slabNum, MemTableArena.getFreeSlabNum());
+  }
+}
@@ -75,6 +75,44 @@ public class PrimitiveMemTableTest {
     }
   }
 
+  @Test
+  public void concurrentWriteTest() throws InterruptedException {
+    IMemTable memTable = new PrimitiveMemTable();
+    int threadNum = 8;
+    int dataSize = 10000;
+    Thread[] threads = new Thread[threadNum];
+    for (int t = 0; t < threadNum; t++) {
+      // two threads write each device, the measurements of the device are shared
+      String deviceId = "d" + (t % (threadNum / 2));
+      int offset = t < threadNum / 2 ? 0 : dataSize;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < dataSize; i++) {
+          memTable.write(deviceId, "s" + (i % 4), TSDataType.INT64, offset + i,
+              String.valueOf(offset + i));
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(threadNum * dataSize, memTable.size());
+    for (int d = 0; d < threadNum / 2; d++) {
+      for (int s = 0; s < 4; s++) {
+        Iterator<TimeValuePair> tvPair = memTable.query("d" + d, "s" + s, TSDataType.INT64)
+            .getSortedTimeValuePairList().iterator();
+        for (long time = s; time < 2 * dataSize; time += 4) {
+          TimeValuePair timeValuePair = tvPair.next();
+          Assert.assertEquals(time, timeValuePair.getTimestamp());
+          Assert.assertEquals(time, timeValuePair.getValue().getValue());
+        }
+        Assert.assertFalse(tvPair.hasNext());
+      }
+    }
+  }
+
   private void write(IMemTable memTable, String deviceId, String sensorId, TSDataType dataType,
       int size) {
     int dataSize = 100;
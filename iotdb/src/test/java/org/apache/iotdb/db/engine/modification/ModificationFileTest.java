@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModificationFileTest {
+
+  private File dir = new File("modificationFileTest");
+  private String dataFilePath = new File(dir, "1.tsfile").getPath();
+
+  @Before
+  public void setUp() {
+    dir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    ModificationFile modFile = new ModificationFile(dataFilePath);
+    modFile.write(new Deletion("root.sg.d1.s1", 100, Long.MAX_VALUE));
+    modFile.write(new Deletion("root.sg.d1.s1", 50, Long.MAX_VALUE));
+    modFile.write(new Deletion("root.sg.d1.s2", 200, 1024));
+
+    ModificationFile reloaded = new ModificationFile(dataFilePath);
+    List<Deletion> deletions = reloaded.getDeletions();
+    assertEquals(3, deletions.size());
+    assertEquals("root.sg.d1.s2", deletions.get(2).getPath());
+    assertEquals(200, deletions.get(2).getTimestamp());
+    assertEquals(1024, deletions.get(2).getFileOffset());
+    assertEquals(100, reloaded.getDeletedTime("root.sg.d1.s1"));
+    // a deletion bounded by an offset does not cover the chunks written after it
+    assertEquals(Long.MIN_VALUE, reloaded.getDeletedTime("root.sg.d1.s2"));
+  }
+
+  @Test
+  public void testIdenticalDeletionNotAppended() throws IOException {
+    ModificationFile modFile = new ModificationFile(dataFilePath);
+    assertTrue(modFile.write(new Deletion("root.sg.d1.s1", 100, 1024)));
+    // a replayed deletion is the same as the one written before the restart
+    ModificationFile reloaded = new ModificationFile(dataFilePath);
+    assertFalse(reloaded.write(new Deletion("root.sg.d1.s1", 100, 1024)));
+    assertTrue(reloaded.write(new Deletion("root.sg.d1.s1", 100, 2048)));
+    assertFalse(reloaded.write(new Deletion("root.sg.d1.s1", 100, 2048)));
+
+    List<String> lines = FileUtils
+        .readLines(new File(modFile.getFilePath()), StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    assertEquals(2, new ModificationFile(dataFilePath).getDeletions().size());
+  }
+
+  @Test
+  public void testTornRecordIgnored() throws IOException {
+    ModificationFile modFile = new ModificationFile(dataFilePath);
+    modFile.write(new Deletion("root.sg.d1.s1", 100, Long.MAX_VALUE));
+    try (FileOutputStream out = new FileOutputStream(modFile.getFilePath(), true)) {
+      out.write("root.sg.d1.s2,20".getBytes(StandardCharsets.UTF_8));
+    }
+    List<Deletion> deletions = new ModificationFile(dataFilePath).getDeletions();
+    assertEquals(1, deletions.size());
+    assertEquals("root.sg.d1.s1", deletions.get(0).getPath());
+  }
+
+  @Test
+  public void testApplyTo() throws IOException {
+    ModificationFile modFile = new ModificationFile(dataFilePath);
+    modFile.write(new Deletion("root.sg.d1.s1", 100, 500));
+    modFile.write(new Deletion("root.sg.d1.s1", 30, Long.MAX_VALUE));
+    modFile.write(new Deletion("root.sg.d1.s2", 1000, Long.MAX_VALUE));
+
+    List<ChunkMetaData> chunks = new ArrayList<>();
+    chunks.add(new ChunkMetaData("s1", TSDataType.INT64, 10, 0, 150));
+    chunks.add(new ChunkMetaData("s1", TSDataType.INT64, 600, 20, 300));
+    chunks.get(1).setMaxTombstoneTime(50);
+    modFile.applyTo("root.sg.d1.s1", chunks);
+    assertEquals(100, chunks.get(0).getMaxTombstoneTime());
+    // the tombstone is never lowered
+    assertEquals(50, chunks.get(1).getMaxTombstoneTime());
+
+    ModificationFile.applyTombstone(chunks, 80);
+    assertEquals(100, chunks.get(0).getMaxTombstoneTime());
+    assertEquals(80, chunks.get(1).getMaxTombstoneTime());
+  }
+}
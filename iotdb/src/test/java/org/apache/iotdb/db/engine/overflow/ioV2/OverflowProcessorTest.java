@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.engine.overflow.ioV2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.File;
 import java.io.IOException;
@@ -192,4 +193,27 @@ public class OverflowProcessorTest {
     overflowProcessor.close();
     overflowProcessor.clear();
   }
+
+  @Test
+  public void testRecoveryWithDeferredMergedDir() throws OverflowProcessorException, IOException {
+    processor = new OverflowProcessor(processorName, parameters, OverflowTestUtils.getFileSchema());
+    processor.switchWorkToMerge();
+    // the merged directory is kept for the queries which may still read it
+    File mergedDir = processor.switchMergeToWork();
+    processor.switchWorkToMerge();
+    File processorDir = mergedDir.getParentFile();
+    assertEquals(3, processorDir.list().length);
+    processor.clear();
+
+    // restart before the merged directory is deleted
+    OverflowProcessor overflowProcessor = new OverflowProcessor(processorName, parameters,
+        OverflowTestUtils.getFileSchema());
+    assertFalse(mergedDir.exists());
+    assertEquals(2, processorDir.list().length);
+    File workDir = overflowProcessor.getWorkResource().getResourceDir();
+    assertEquals("2", workDir.getName());
+    assertEquals("1", overflowProcessor.switchMergeToWork().getName());
+    overflowProcessor.close();
+    overflowProcessor.clear();
+  }
 }
@@ -28,7 +28,8 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import org.apache.iotdb.db.exception.FileNodeManagerException;
-import org.apache.iotdb.db.query.control.OpenedFilePathsManager;
+import org.apache.iotdb.db.query.control.QueryContext;
+import org.apache.iotdb.db.query.control.QueryContextManager;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
@@ -202,8 +203,8 @@ public class IoTDBEngineTimeGeneratorIT {
 
     SingleSeriesExpression singleSeriesExpression = new SingleSeriesExpression(pd0s0,
         FilterFactory.and(valueGtEq, timeGt));
-    OpenedFilePathsManager.getInstance().setJobIdForCurrentRequestThread(0);
-    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(0, singleSeriesExpression);
+    QueryContext context = QueryContextManager.getInstance().beginQuery(0);
+    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(context, singleSeriesExpression);
 
     int cnt = 0;
     while (timeGenerator.hasNext()) {
@@ -225,9 +226,9 @@ public class IoTDBEngineTimeGeneratorIT {
     Path pd1s0 = new Path(Constant.d1s0);
     ValueFilter.ValueGtEq valueGtEq = ValueFilter.gtEq(5);
 
-    OpenedFilePathsManager.getInstance().setJobIdForCurrentRequestThread(0);
+    QueryContext context = QueryContextManager.getInstance().beginQuery(0);
     IExpression singleSeriesExpression = new SingleSeriesExpression(pd1s0, valueGtEq);
-    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(0, singleSeriesExpression);
+    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(context, singleSeriesExpression);
 
     int cnt = 0;
     while (timeGenerator.hasNext()) {
@@ -259,8 +260,8 @@ public class IoTDBEngineTimeGeneratorIT {
     IExpression andExpression = BinaryExpression
         .and(singleSeriesExpression1, singleSeriesExpression2);
 
-    OpenedFilePathsManager.getInstance().setJobIdForCurrentRequestThread(0);
-    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(0, andExpression);
+    QueryContext context = QueryContextManager.getInstance().beginQuery(0);
+    EngineTimeGenerator timeGenerator = new EngineTimeGenerator(context, andExpression);
     int cnt = 0;
     while (timeGenerator.hasNext()) {
       long time = timeGenerator.next();
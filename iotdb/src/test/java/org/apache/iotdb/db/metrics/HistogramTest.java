@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void testBuckets() {
+    for (long value : new long[]{0, 1, 7, 8, 15, 16, 17, 100, 1023, 1024, 123456789L,
+        Long.MAX_VALUE}) {
+      int index = Histogram.bucketIndex(value);
+      assertTrue(index < Histogram.BUCKET_NUM);
+      assertTrue(Histogram.bucketLowerBound(index) <= value);
+      assertTrue(Histogram.bucketUpperBound(index) >= value);
+      // the width of a bucket is bounded by the relative error
+      assertTrue(Histogram.bucketUpperBound(index) - Histogram.bucketLowerBound(index)
+          <= value / Histogram.SUB_BUCKET_NUM);
+    }
+    for (int i = 1; i < Histogram.BUCKET_NUM; i++) {
+      assertEquals(Histogram.bucketUpperBound(i - 1) + 1, Histogram.bucketLowerBound(i));
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getValueAtPercentile(50));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500, histogram.getSum());
+    assertEquals(1000, histogram.getMax());
+    assertEquals(500.5, histogram.getMean(), 0.001);
+    assertError(500, histogram.getValueAtPercentile(50));
+    assertError(990, histogram.getValueAtPercentile(99));
+    assertEquals(1000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testConcurrentRecord() throws InterruptedException {
+    Histogram histogram = new Histogram();
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          histogram.record(j);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(40000, histogram.getCount());
+    assertEquals(9999, histogram.getMax());
+  }
+
+  @Test
+  public void testText() {
+    Metrics.getInstance().record(Metric.FLUSH_SIZE, 1024);
+    String text = Metrics.getInstance().toText();
+    assertTrue(text.contains("# TYPE iotdb_flush_size_bytes summary"));
+    assertTrue(text.contains("iotdb_flush_size_bytes_count "));
+    // the max follows the summary samples as a gauge family of its own
+    int max = text.indexOf("# TYPE iotdb_flush_size_bytes_max gauge\niotdb_flush_size_bytes_max ");
+    assertTrue(max > text.indexOf("iotdb_flush_size_bytes_count "));
+    assertTrue(text.contains("iotdb_cache_hits{cache=\"tsfile_metadata\"} "));
+  }
+
+  private static void assertError(long expected, long actual) {
+    assertTrue(actual + " is not close to " + expected,
+        Math.abs(actual - expected) <= expected / Histogram.SUB_BUCKET_NUM);
+  }
+}
@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.postback.sender;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.FileNodeManagerException;
+import org.apache.iotdb.db.postback.receiver.ServerServiceImpl;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.thrift.TException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test sending a file in chunks from {@link FileSenderImpl} to {@link ServerServiceImpl} in the
+ * same process, and the checks of the receiver which let an interrupted transfer resume.
+ */
+public class FileSenderImplTest {
+
+  private static final String STORAGE_GROUP = "root.sg";
+  private static final String FILE_NAME = "1.tsfile";
+  private static final int CHUNK_SIZE = 1024;
+  private static final int FILE_LENGTH = 10 * CHUNK_SIZE + 100;
+  private static final String IP = "127.0.0.1";
+
+  private FileSenderImpl sender = FileSenderImpl.getInstance();
+  private ServerServiceImpl receiver;
+  private String uuid;
+  private File senderDir;
+  private File sourceFile;
+  private byte[] content;
+  private List<String> filePathSplit = Arrays.asList("data", STORAGE_GROUP, FILE_NAME);
+
+  @Before
+  public void setUp() throws IOException, TException {
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.closeMemControl();
+    senderDir = Files.createTempDirectory("FileSenderImplTest").toFile();
+    sourceFile = new File(senderDir, STORAGE_GROUP + File.separator + FILE_NAME);
+    content = new byte[FILE_LENGTH];
+    new Random(1).nextBytes(content);
+    FileUtils.writeByteArrayToFile(sourceFile, content);
+
+    uuid = UUID.randomUUID().toString();
+    receiver = new ServerServiceImpl();
+    Assert.assertTrue(receiver.getUUID(uuid, IP));
+    receiver.init(STORAGE_GROUP);
+  }
+
+  @After
+  public void tearDown() throws IOException, FileNodeManagerException {
+    receiver.afterReceiving();
+    FileUtils.deleteDirectory(senderDir);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private File getReceivedFile() {
+    return new File(new File(IoTDBDescriptor.getInstance().getConfig().dataDir)
+        .getAbsolutePath(), "postback" + File.separator + uuid + File.separator + String
+        .join(File.separator, filePathSplit));
+  }
+
+  private static long crc32(byte[] bytes, int offset, int length) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes, offset, length);
+    return crc32.getValue();
+  }
+
+  private static String md5(byte[] bytes) throws NoSuchAlgorithmException {
+    MessageDigest md = MessageDigest.getInstance("MD5");
+    return new BigInteger(1, md.digest(bytes)).toString(16);
+  }
+
+  private boolean receiveChunk(long offset, int length) throws TException {
+    return receiver.receiveChunk(filePathSplit, offset,
+        ByteBuffer.wrap(content, (int) offset, length), crc32(content, (int) offset, length));
+  }
+
+  @Test
+  public void testSendInChunks() throws Exception {
+    Assert.assertTrue(sender.sendFile(receiver, sourceFile.getPath(), new byte[CHUNK_SIZE]));
+    Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(getReceivedFile()));
+    // a file received completely is not sent again
+    Assert.assertEquals(FILE_LENGTH, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+  }
+
+  @Test
+  public void testResumeInterruptedTransfer() throws Exception {
+    int chunksBeforeInterruption = 3;
+    ServerServiceImpl interruptedReceiver = spy(receiver);
+    AtomicInteger receivedChunkNum = new AtomicInteger();
+    doAnswer(invocation -> {
+      if (receivedChunkNum.getAndIncrement() == chunksBeforeInterruption) {
+        throw new TException("connection reset");
+      }
+      return invocation.callRealMethod();
+    }).when(interruptedReceiver)
+        .receiveChunk(any(List.class), anyLong(), any(ByteBuffer.class), anyLong());
+    try {
+      sender.sendFile(interruptedReceiver, sourceFile.getPath(), new byte[CHUNK_SIZE]);
+      Assert.fail("the transfer should be interrupted");
+    } catch (TException e) {
+      // expected
+    }
+    Assert.assertFalse(getReceivedFile().exists());
+    Assert.assertEquals(chunksBeforeInterruption * CHUNK_SIZE,
+        receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+
+    // only the chunks after the acknowledged ones are sent again
+    ServerServiceImpl resumedReceiver = spy(receiver);
+    List<Long> offsets = new ArrayList<>();
+    doAnswer(invocation -> {
+      offsets.add((Long) invocation.getArguments()[1]);
+      return invocation.callRealMethod();
+    }).when(resumedReceiver)
+        .receiveChunk(any(List.class), anyLong(), any(ByteBuffer.class), anyLong());
+    Assert.assertTrue(sender.sendFile(resumedReceiver, sourceFile.getPath(),
+        new byte[CHUNK_SIZE]));
+    Assert.assertEquals((long) chunksBeforeInterruption * CHUNK_SIZE, (long) offsets.get(0));
+    Assert.assertEquals(FILE_LENGTH / CHUNK_SIZE + 1 - chunksBeforeInterruption, offsets.size());
+    Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(getReceivedFile()));
+  }
+
+  @Test
+  public void testResendCorruptedChunk() throws Exception {
+    ServerServiceImpl corruptingReceiver = spy(receiver);
+    AtomicBoolean corrupted = new AtomicBoolean();
+    doAnswer(invocation -> {
+      Object[] args = invocation.getArguments();
+      if ((Long) args[1] == CHUNK_SIZE && corrupted.compareAndSet(false, true)) {
+        // flip a byte of the second chunk on its first sending
+        ByteBuffer chunk = (ByteBuffer) args[2];
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.duplicate().get(bytes);
+        bytes[0] ^= 1;
+        return receiver.receiveChunk(filePathSplit, CHUNK_SIZE, ByteBuffer.wrap(bytes),
+            (Long) args[3]);
+      }
+      return invocation.callRealMethod();
+    }).when(corruptingReceiver)
+        .receiveChunk(any(List.class), anyLong(), any(ByteBuffer.class), anyLong());
+    Assert.assertTrue(sender.sendFile(corruptingReceiver, sourceFile.getPath(),
+        new byte[CHUNK_SIZE]));
+    Assert.assertTrue(corrupted.get());
+    Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(getReceivedFile()));
+  }
+
+  @Test
+  public void testRejectCorruptedChunk() throws Exception {
+    Assert.assertTrue(receiveChunk(0, CHUNK_SIZE));
+    long wrongChecksum = crc32(content, CHUNK_SIZE, CHUNK_SIZE) + 1;
+    Assert.assertFalse(receiver.receiveChunk(filePathSplit, CHUNK_SIZE,
+        ByteBuffer.wrap(content, CHUNK_SIZE, CHUNK_SIZE), wrongChecksum));
+    Assert.assertEquals(CHUNK_SIZE, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+  }
+
+  @Test
+  public void testRejectChunkAfterGap() throws Exception {
+    Assert.assertTrue(receiveChunk(0, CHUNK_SIZE));
+    Assert.assertFalse(receiveChunk(2 * CHUNK_SIZE, CHUNK_SIZE));
+    Assert.assertEquals(CHUNK_SIZE, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+  }
+
+  @Test
+  public void testTruncateAtOffset() throws Exception {
+    Assert.assertTrue(receiveChunk(0, CHUNK_SIZE));
+    Assert.assertTrue(receiveChunk(CHUNK_SIZE, CHUNK_SIZE));
+    // the acknowledgement of the second chunk is lost, it is sent again with the rest
+    Assert.assertTrue(receiveChunk(CHUNK_SIZE, FILE_LENGTH - CHUNK_SIZE));
+    Assert.assertEquals(FILE_LENGTH, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+    // a shorter chunk at an offset drops what was received after it
+    Assert.assertTrue(receiveChunk(0, 100));
+    Assert.assertEquals(100, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+    // a received part longer than the file is not of the same file
+    Assert.assertEquals(0, receiver.getReceivedLength(filePathSplit, 50));
+  }
+
+  @Test
+  public void testDigestMismatch() throws Exception {
+    Assert.assertTrue(receiveChunk(0, FILE_LENGTH));
+    byte[] otherContent = content.clone();
+    otherContent[0] ^= 1;
+    Assert.assertFalse(receiver.finishReceiving(filePathSplit, md5(otherContent)));
+    // the mismatched file is discarded, it is sent again from the beginning
+    Assert.assertFalse(getReceivedFile().exists());
+    Assert.assertEquals(0, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+
+    Assert.assertTrue(receiveChunk(0, FILE_LENGTH));
+    Assert.assertTrue(receiver.finishReceiving(filePathSplit, md5(content)));
+    Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(getReceivedFile()));
+  }
+
+  @Test
+  public void testSenderResendsMismatchedFile() throws Exception {
+    // the receiver checks a wrong digest, as if the file were modified during the transfer
+    ServerServiceImpl mismatchingReceiver = spy(receiver);
+    doAnswer(invocation -> receiver.finishReceiving(filePathSplit, md5(new byte[0])))
+        .when(mismatchingReceiver).finishReceiving(any(List.class), anyString());
+    Assert.assertFalse(sender.sendFile(mismatchingReceiver, sourceFile.getPath(),
+        new byte[CHUNK_SIZE]));
+    Assert.assertEquals(0, receiver.getReceivedLength(filePathSplit, FILE_LENGTH));
+    Assert.assertTrue(sender.sendFile(receiver, sourceFile.getPath(), new byte[CHUNK_SIZE]));
+    Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(getReceivedFile()));
+  }
+
+  @Test
+  public void testReceiveOnJoinedConnection() throws Exception {
+    // files of a postback are received in other threads than the one which started it
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    AtomicBoolean sent = new AtomicBoolean();
+    Thread thread = new Thread(() -> {
+      try {
+        Assert.assertTrue(receiver.joinTransfer(uuid, IP));
+        sent.set(sender.sendFile(receiver, sourceFile.getPath(), new byte[CHUNK_SIZE]));
+      } catch (Exception e) {
+        failure.set(e);
+      }
+    });
+    thread.start();
+    thread.join();
+    Assert.assertNull(failure.get());
+    Assert.assertTrue(sent.get());
+    Assert.assertArrayEquals(content, FileUtils.readFileToByteArray(getReceivedFile()));
+  }
+}
@@ -26,12 +26,14 @@ import org.apache.iotdb.db.exception.ArgsErrorException;
 import org.apache.iotdb.db.exception.ProcessorException;
 import org.apache.iotdb.db.exception.qp.QueryProcessorException;
 import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
 import org.apache.iotdb.db.qp.physical.crud.FillQueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
+import org.apache.iotdb.db.qp.physical.sys.LoadFilesPlan;
 import org.apache.iotdb.db.qp.physical.sys.MetadataPlan;
 import org.apache.iotdb.db.qp.physical.sys.PropertyPlan;
 import org.apache.iotdb.db.qp.utils.MemIntQpExecutor;
@@ -85,6 +87,16 @@ public class PhysicalPlanTest {
         + "namespace type: ADD_PATH\n" + "args: ", plan.toString());
   }
 
+  @Test
+  public void testLoadFiles()
+      throws QueryProcessorException, ArgsErrorException, ProcessorException {
+    String sql = "load '/data/tsfiles'";
+    QueryProcessor processor = new QueryProcessor(new MemIntQpExecutor());
+    LoadFilesPlan plan = (LoadFilesPlan) processor.parseSQLToPhysicalPlan(sql);
+    assertEquals(OperatorType.LOAD_FILES, plan.getOperatorType());
+    assertEquals("/data/tsfiles", plan.getFilePath());
+  }
+
   @Test
   public void testAuthor() throws QueryProcessorException, ArgsErrorException, ProcessorException {
     String sql = "grant role xm privileges 'SET_STORAGE_GROUP','DELETE_TIMESERIES' on root.vehicle.d1.s1";
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.plan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.db.exception.ArgsErrorException;
+import org.apache.iotdb.db.exception.ProcessorException;
+import org.apache.iotdb.db.exception.qp.QueryProcessorException;
+import org.apache.iotdb.db.qp.PreparedPlan;
+import org.apache.iotdb.db.qp.QueryProcessor;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.qp.utils.MemIntQpExecutor;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PreparedPlanTest {
+
+  private QueryProcessor processor = new QueryProcessor(new MemIntQpExecutor());
+  private ZoneId zoneId = ZoneId.systemDefault();
+
+  @Before
+  public void before() throws ProcessorException {
+    processor.getExecutor().insert(new Path("root.vehicle.d1.s1"), 10, "10");
+    processor.getExecutor().insert(new Path("root.vehicle.d1.s2"), 10, "10");
+  }
+
+  @Test
+  public void testQuery() throws QueryProcessorException, ArgsErrorException, ProcessorException {
+    PreparedPlan preparedPlan = processor.prepare(
+        "select s1 from root.vehicle.d1 where time > ? and s1 < ? or s2 = ?", zoneId);
+    assertTrue(preparedPlan.isQuery());
+    assertEquals(3, preparedPlan.getParameterNum());
+
+    // each execution binds the parameters to the same prepared statement
+    for (int i = 0; i < 3; i++) {
+      QueryPlan plan = (QueryPlan) processor
+          .bind(preparedPlan, Arrays.<Object>asList(100L + i, 24 + i, 7), zoneId);
+      QueryPlan expected = (QueryPlan) processor.parseSQLToPhysicalPlan(String.format(
+          "select s1 from root.vehicle.d1 where time > %d and s1 < %d or s2 = 7", 100 + i, 24 + i),
+          zoneId);
+      assertEquals(expected.getPaths(), plan.getPaths());
+      assertEquals(expected.getExpression().toString(), plan.getExpression().toString());
+    }
+  }
+
+  @Test
+  public void testFetchKey() throws QueryProcessorException, ArgsErrorException {
+    String sql = "select s1 from root.vehicle.d1 where s1 < ?";
+    PreparedPlan first = processor.prepare(sql, zoneId);
+    PreparedPlan second = processor.prepare(sql, zoneId);
+    // every execution of the statements with the same sql is fetched by a key of its own
+    assertEquals("1#1", first.newFetchKey(1));
+    assertEquals("2#1", second.newFetchKey(2));
+    assertEquals("1#2", first.newFetchKey(1));
+    assertEquals("1#2", first.getFetchKey());
+  }
+
+  @Test
+  public void testWildcardResolvedByEachExecution()
+      throws QueryProcessorException, ArgsErrorException, ProcessorException {
+    Map<String, List<String>> allPaths = new HashMap<>();
+    allPaths.put("root.vehicle.d1.s1", Collections.singletonList("root.vehicle.d1.s1"));
+    allPaths.put("root.vehicle.*.s1", Collections.singletonList("root.vehicle.d1.s1"));
+    ((MemIntQpExecutor) processor.getExecutor()).setFakeAllPaths(allPaths);
+    PreparedPlan preparedPlan = processor
+        .prepare("select s1 from root.vehicle.* where time > ?", zoneId);
+    QueryPlan plan = (QueryPlan) processor
+        .bind(preparedPlan, Arrays.<Object>asList(100L), zoneId);
+    assertEquals(Collections.singletonList(new Path("root.vehicle.d1.s1")), plan.getPaths());
+
+    // a series created after the statement is prepared is selected by the next execution
+    allPaths.put("root.vehicle.d2.s1", Collections.singletonList("root.vehicle.d2.s1"));
+    allPaths.put("root.vehicle.*.s1", Arrays.asList("root.vehicle.d1.s1", "root.vehicle.d2.s1"));
+    plan = (QueryPlan) processor.bind(preparedPlan, Arrays.<Object>asList(200L), zoneId);
+    assertEquals(Arrays.asList(new Path("root.vehicle.d1.s1"), new Path("root.vehicle.d2.s1")),
+        plan.getPaths());
+    QueryPlan expected = (QueryPlan) processor
+        .parseSQLToPhysicalPlan("select s1 from root.vehicle.* where time > 200", zoneId);
+    assertEquals(expected.getExpression().toString(), plan.getExpression().toString());
+  }
+
+  @Test
+  public void testQueryWithDatetime()
+      throws QueryProcessorException, ArgsErrorException, ProcessorException {
+    PreparedPlan preparedPlan = processor
+        .prepare("select s1 from root.vehicle.d1 where time < ?", zoneId);
+    QueryPlan plan = (QueryPlan) processor
+        .bind(preparedPlan, Arrays.<Object>asList("2017-11-01T00:13:00"), zoneId);
+    QueryPlan expected = (QueryPlan) processor.parseSQLToPhysicalPlan(
+        "select s1 from root.vehicle.d1 where time < 2017-11-01T00:13:00", zoneId);
+    assertEquals(expected.getExpression().toString(), plan.getExpression().toString());
+  }
+
+  @Test
+  public void testInsert() throws QueryProcessorException, ArgsErrorException, ProcessorException {
+    PreparedPlan preparedPlan = processor
+        .prepare("insert into root.vehicle.d1(timestamp,s1,s2) values(?,?,'a?b')", zoneId);
+    assertFalse(preparedPlan.isQuery());
+    assertEquals(2, preparedPlan.getParameterNum());
+
+    InsertPlan first = (InsertPlan) processor
+        .bind(preparedPlan, Arrays.<Object>asList(1L, 101), zoneId);
+    InsertPlan second = (InsertPlan) processor
+        .bind(preparedPlan, Arrays.<Object>asList(2L, 102), zoneId);
+    assertEquals(1L, first.getTime());
+    assertEquals("101", first.getValues().get(0));
+    assertEquals(2L, second.getTime());
+    assertEquals("102", second.getValues().get(0));
+    // a quoted '?' is not a parameter marker
+    assertTrue(second.getValues().get(1).contains("a?b"));
+    assertEquals("root.vehicle.d1", second.getDeviceId());
+  }
+
+  @Test
+  public void testWrongParameters() throws QueryProcessorException, ArgsErrorException {
+    PreparedPlan preparedPlan = processor
+        .prepare("select s1 from root.vehicle.d1 where s1 < ?", zoneId);
+    try {
+      processor.bind(preparedPlan, Arrays.<Object>asList(1, 2), zoneId);
+      fail();
+    } catch (QueryProcessorException | ProcessorException e) {
+      assertEquals("The statement needs 1 parameters, but 2 are given", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testUnsupportedPosition() throws ArgsErrorException {
+    try {
+      processor.prepare("select s1 from root.vehicle.d1 where s1 < ? limit ?", zoneId);
+      fail();
+    } catch (QueryProcessorException e) {
+      // the parameter of limit cannot be bound
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.QueryAbortedException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.controller.ChunkLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccountedChunkLoaderTest {
+
+  private static final int CHUNK_SIZE = 40;
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private QueryContextManager manager = QueryContextManager.getInstance();
+  private long queryMemoryBudget;
+  private QueryContext context;
+
+  @Before
+  public void setUp() throws QueryAbortedException {
+    queryMemoryBudget = config.queryMemoryBudget;
+    config.queryMemoryBudget = 100;
+    context = manager.beginQuery(0);
+  }
+
+  @After
+  public void tearDown() {
+    manager.endQuery(context);
+    config.queryMemoryBudget = queryMemoryBudget;
+  }
+
+  @Test
+  public void testScanMoreThanBudget() throws IOException {
+    AccountedChunkLoader chunkLoader = new AccountedChunkLoader(new FixedSizeChunkLoader(),
+        context);
+    // the chunks read one after another take more than the budget in total
+    for (int i = 0; i < 10; i++) {
+      chunkLoader.getChunk(chunkMetaData(i));
+      assertEquals(CHUNK_SIZE, context.getUsedMemory());
+    }
+    context.checkAborted();
+    chunkLoader.close();
+    assertEquals(0, context.getUsedMemory());
+  }
+
+  @Test
+  public void testHoldAllChunks() throws IOException {
+    AccountedChunkLoader chunkLoader = new AccountedChunkLoader(new FixedSizeChunkLoader(),
+        context, true);
+    chunkLoader.getChunk(chunkMetaData(0));
+    chunkLoader.getChunk(chunkMetaData(1));
+    assertEquals(2 * CHUNK_SIZE, context.getUsedMemory());
+    try {
+      chunkLoader.getChunk(chunkMetaData(2));
+      fail();
+    } catch (QueryAbortedException e) {
+      assertTrue(context.isAborted());
+    }
+  }
+
+  private ChunkMetaData chunkMetaData(long time) {
+    return new ChunkMetaData("s0", TSDataType.INT64, time * CHUNK_SIZE, time, time);
+  }
+
+  private static class FixedSizeChunkLoader implements ChunkLoader {
+
+    @Override
+    public Chunk getChunk(ChunkMetaData chunkMetaData) {
+      return new Chunk(null, ByteBuffer.allocate(CHUNK_SIZE));
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+  }
+}
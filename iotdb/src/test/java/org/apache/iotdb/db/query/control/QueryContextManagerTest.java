@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.QueryAbortedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryContextManagerTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private QueryContextManager manager = QueryContextManager.getInstance();
+  private int maxConcurrentQueries;
+  private long queryMemoryBudget;
+
+  @Before
+  public void setUp() {
+    maxConcurrentQueries = config.maxConcurrentQueries;
+    queryMemoryBudget = config.queryMemoryBudget;
+  }
+
+  @After
+  public void tearDown() {
+    manager.endQueriesOfCurrentRequestThread();
+    config.maxConcurrentQueries = maxConcurrentQueries;
+    config.queryMemoryBudget = queryMemoryBudget;
+  }
+
+  @Test
+  public void testCancel() throws QueryAbortedException {
+    QueryContext context = manager.beginQuery(0);
+    context.checkAborted();
+    context.cancel();
+    try {
+      manager.beginFetch(context);
+      fail();
+    } catch (QueryAbortedException e) {
+      assertTrue(context.isAborted());
+    }
+  }
+
+  @Test
+  public void testCancelQuery() throws QueryAbortedException {
+    QueryContext idleContext = manager.beginQuery("user1", 0);
+    QueryContext fetchedContext = manager.beginQuery("user1", 0);
+    int runningQueryNum = manager.getRunningQueryNum();
+    // only the user of a query may cancel it
+    assertFalse(manager.cancelQuery(idleContext.getJobId(), "user2"));
+    assertFalse(idleContext.isAborted());
+
+    // the idle query is ended at once, the other one is left running
+    assertTrue(manager.cancelQuery(idleContext.getJobId(), "user1"));
+    assertTrue(idleContext.isAborted());
+    assertFalse(fetchedContext.isAborted());
+    assertEquals(runningQueryNum - 1, manager.getRunningQueryNum());
+    assertFalse(manager.cancelQuery(idleContext.getJobId(), "user1"));
+
+    // the query being fetched keeps its resources until the fetch ends
+    manager.beginFetch(fetchedContext);
+    try {
+      assertTrue(manager.cancelQuery(fetchedContext.getJobId(), "user1"));
+      assertEquals(runningQueryNum - 1, manager.getRunningQueryNum());
+      try {
+        fetchedContext.checkAborted();
+        fail();
+      } catch (QueryAbortedException e) {
+        assertTrue(fetchedContext.isAborted());
+      }
+    } finally {
+      manager.endFetch(fetchedContext);
+    }
+    manager.endQuery(fetchedContext);
+    assertEquals(runningQueryNum - 2, manager.getRunningQueryNum());
+  }
+
+  @Test
+  public void testTimeout() throws QueryAbortedException, InterruptedException {
+    QueryContext context = manager.beginQuery(1);
+    int runningQueryNum = manager.getRunningQueryNum();
+    Thread.sleep(10);
+    // the idle query past its deadline is ended
+    manager.endExpiredQueries();
+    assertEquals(runningQueryNum - 1, manager.getRunningQueryNum());
+    try {
+      context.checkAborted();
+      fail();
+    } catch (QueryAbortedException e) {
+      assertTrue(context.isAborted());
+    }
+  }
+
+  @Test
+  public void testMemoryBudget() throws QueryAbortedException {
+    config.queryMemoryBudget = 100;
+    QueryContext context = manager.beginQuery(0);
+    context.allocateMemory(60);
+    context.releaseMemory(60);
+    context.allocateMemory(80);
+    assertEquals(80, context.getUsedMemory());
+    try {
+      context.allocateMemory(40);
+      fail();
+    } catch (QueryAbortedException e) {
+      assertTrue(context.isAborted());
+    }
+  }
+
+  @Test
+  public void testMaxConcurrentQueries() throws QueryAbortedException {
+    config.maxConcurrentQueries = manager.getRunningQueryNum() + 1;
+    QueryContext context = manager.beginQuery(0);
+    try {
+      manager.beginQuery(0);
+      fail();
+    } catch (QueryAbortedException e) {
+      // expected
+    }
+    manager.endQuery(context);
+    manager.endQuery(manager.beginQuery(0));
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.QueryAbortedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QuerySchedulerTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private QueryScheduler scheduler = QueryScheduler.getInstance();
+  private int concurrentQueryTasks;
+  private List<Long> grantedJobs = Collections.synchronizedList(new ArrayList<>());
+  private List<Thread> threads = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    concurrentQueryTasks = config.concurrentQueryTasks;
+    config.concurrentQueryTasks = 1;
+  }
+
+  @After
+  public void tearDown() {
+    config.concurrentQueryTasks = concurrentQueryTasks;
+  }
+
+  @Test
+  public void testInteractiveBeforeBatch() throws Exception {
+    QueryContext running = new QueryContext(0, "u1", QueryPriority.INTERACTIVE, 0, 0);
+    scheduler.acquire(running);
+    submit(new QueryContext(1, "u1", QueryPriority.BATCH, 0, 0));
+    submit(new QueryContext(2, "u1", QueryPriority.INTERACTIVE, 0, 0));
+    scheduler.release();
+    joinAll();
+    assertEquals(Arrays.asList(2L, 1L), grantedJobs);
+    assertEquals(0, scheduler.getRunningTaskNum());
+  }
+
+  @Test
+  public void testUsersTakeTurns() throws Exception {
+    QueryContext running = new QueryContext(0, "u1", QueryPriority.INTERACTIVE, 0, 0);
+    scheduler.acquire(running);
+    submit(new QueryContext(1, "u1", QueryPriority.INTERACTIVE, 0, 0));
+    submit(new QueryContext(2, "u1", QueryPriority.INTERACTIVE, 0, 0));
+    submit(new QueryContext(3, "u2", QueryPriority.INTERACTIVE, 0, 0));
+    scheduler.release();
+    joinAll();
+    assertEquals(Arrays.asList(1L, 3L, 2L), grantedJobs);
+  }
+
+  @Test
+  public void testCancelWaitingTask() throws Exception {
+    QueryContext running = new QueryContext(0, "u1", QueryPriority.INTERACTIVE, 0, 0);
+    scheduler.acquire(running);
+    QueryContext cancelled = new QueryContext(1, "u1", QueryPriority.INTERACTIVE, 0, 0);
+    submit(cancelled);
+    cancelled.cancel();
+    joinAll();
+    assertEquals(0, scheduler.getWaitingTaskNum());
+    assertEquals(Collections.emptyList(), grantedJobs);
+    scheduler.release();
+    assertEquals(0, scheduler.getRunningTaskNum());
+  }
+
+  /**
+   * run a task of the query in a new thread, and return after the task is queued.
+   */
+  private void submit(QueryContext context) throws InterruptedException {
+    int waitingTaskNum = scheduler.getWaitingTaskNum();
+    Thread thread = new Thread(() -> {
+      try {
+        scheduler.acquire(context);
+        grantedJobs.add(context.getJobId());
+        scheduler.release();
+      } catch (QueryAbortedException e) {
+        // the query is cancelled
+      }
+    });
+    thread.start();
+    threads.add(thread);
+    while (scheduler.getWaitingTaskNum() == waitingTaskNum) {
+      Thread.sleep(1);
+    }
+  }
+
+  private void joinAll() throws InterruptedException {
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+public class EngineDataSetWithM4DownsamplingTest {
+
+  @Test
+  public void testNumericSeries() throws IOException {
+    // interval [0, 10): 3 5 1 9 4 7, interval [10, 20): 2, interval [30, 40): 6 6
+    long[] times = {0, 2, 4, 5, 7, 9, 12, 30, 31};
+    int[] values = {3, 5, 1, 9, 4, 7, 2, 6, 6};
+    List<RowRecord> records = new ArrayList<>();
+    for (int i = 0; i < times.length; i++) {
+      RowRecord record = new RowRecord(times[i]);
+      Field field = new Field(TSDataType.INT32);
+      field.setIntV(values[i]);
+      record.addField(field);
+      records.add(record);
+    }
+    QueryDataSet dataSet = new EngineDataSetWithM4Downsampling(
+        new ListDataSet(Arrays.asList(TSDataType.INT32), records), 10, 0);
+
+    String[] expected = {"0\t3", "4\t1", "5\t9", "9\t7", "12\t2", "30\t6", "31\t6"};
+    for (String row : expected) {
+      assertEquals(row, dataSet.next().toString());
+    }
+    assertFalse(dataSet.hasNext());
+  }
+
+  @Test
+  public void testSeriesOfDifferentTypes() throws IOException {
+    List<RowRecord> records = new ArrayList<>();
+    for (long time = -5; time < 5; time++) {
+      RowRecord record = new RowRecord(time);
+      Field doubleField = new Field(TSDataType.DOUBLE);
+      doubleField.setDoubleV(time * time);
+      record.addField(time == -5 ? new Field(null) : doubleField);
+      Field textField = new Field(TSDataType.TEXT);
+      textField.setBinaryV(new Binary("t" + time));
+      record.addField(textField);
+      records.add(record);
+    }
+    QueryDataSet dataSet = new EngineDataSetWithM4Downsampling(
+        new ListDataSet(Arrays.asList(TSDataType.DOUBLE, TSDataType.TEXT), records), 5, 0);
+
+    // the interval [-5, 0) starts at a negative time, text series keep the first and last points
+    String[] expected = {"-5\tnull\tt-5", "-4\t16.0\tnull", "-1\t1.0\tt-1", "0\t0.0\tt0",
+        "4\t16.0\tt4"};
+    for (String row : expected) {
+      assertEquals(row, dataSet.next().toString());
+    }
+    assertFalse(dataSet.hasNext());
+  }
+
+  private static class ListDataSet extends QueryDataSet {
+
+    private Iterator<RowRecord> iterator;
+
+    private ListDataSet(List<TSDataType> dataTypes, List<RowRecord> records) {
+      super(new ArrayList<>(), dataTypes);
+      for (int i = 0; i < dataTypes.size(); i++) {
+        paths.add(new Path("root.test.d0.s" + i));
+      }
+      iterator = records.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public RowRecord next() {
+      return iterator.next();
+    }
+  }
+}
@@ -117,10 +117,12 @@ public class IoTDBLogFileSizeTest {
           WriteLogNode logNode = MultiFileLogNodeManager.getInstance().getNode(
               "root.logFileTest.bufferwrite" + IoTDBConstant.BUFFERWRITE_LOG_NODE_SUFFIX, null,
               null);
-          File bufferWriteWALFile = new File(
-              logNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME);
-          if (bufferWriteWALFile.exists() && bufferWriteWALFile.length() > maxLength[0]) {
-            maxLength[0] = bufferWriteWALFile.length();
+          long walLength = 0;
+          for (File segment : ExclusiveWriteLogNode.getSegmentFiles(logNode.getLogDirectory())) {
+            walLength += segment.length();
+          }
+          if (walLength > maxLength[0]) {
+            maxLength[0] = walLength;
           }
         }
         statement.close();
@@ -179,10 +181,12 @@ public class IoTDBLogFileSizeTest {
           WriteLogNode logNode = MultiFileLogNodeManager.getInstance()
               .getNode("root.logFileTest.overflow" + IoTDBConstant.OVERFLOW_LOG_NODE_SUFFIX, null,
                   null);
-          File WALFile = new File(
-              logNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME);
-          if (WALFile.exists() && WALFile.length() > maxLength[0]) {
-            maxLength[0] = WALFile.length();
+          long walLength = 0;
+          for (File segment : ExclusiveWriteLogNode.getSegmentFiles(logNode.getLogDirectory())) {
+            walLength += segment.length();
+          }
+          if (walLength > maxLength[0]) {
+            maxLength[0] = walLength;
           }
         }
         statement.close();
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,6 +43,7 @@ import org.apache.iotdb.db.writelog.recover.ExclusiveLogRecoverPerformer;
 import org.apache.iotdb.db.writelog.recover.RecoverPerformer;
 import org.apache.iotdb.db.writelog.replay.LogReplayer;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -129,6 +131,76 @@ public class RecoverTest {
     }
   }
 
+  @Test
+  public void testRecoverAfterCheckpoint() throws IOException, RecoverException {
+    // this test flushes a memtable whose restore information is written but the end of whose flush
+    // is not noticed, and checks that only the logs after the flushed memtable are replayed.
+    File tempRestore = new File("testtemp", "restore");
+    File tempProcessorStore = new File("testtemp", "processorStore");
+    File tempTsFile = new File("testtemp", "1.tsfile");
+    File tempTsFileRestore = new File("testtemp", "1.tsfile.restore");
+    tempRestore.getParentFile().mkdirs();
+    tempRestore.createNewFile();
+    tempProcessorStore.createNewFile();
+    tempTsFile.createNewFile();
+
+    try {
+      MManager.getInstance().setStorageLevelToMTree("root.testLogNode");
+    } catch (PathErrorException ignored) {
+    }
+    ExclusiveWriteLogNode logNode = new ExclusiveWriteLogNode("root.testLogNode",
+        tempRestore.getPath(),
+        tempProcessorStore.getPath());
+
+    try {
+      InsertPlan bwInsertPlan = new InsertPlan(1, "logTestDevice", 100,
+          Arrays.asList("s1", "s2", "s3", "s4"),
+          Arrays.asList("1.0", "15", "str", "false"));
+      UpdatePlan updatePlan = new UpdatePlan(0, 100, "2.0", new Path("root.logTestDevice.s1"));
+      DeletePlan deletePlan = new DeletePlan(50, new Path("root.logTestDevice.s1"));
+
+      List<PhysicalPlan> plansToCheck = new ArrayList<>();
+      plansToCheck.add(deletePlan);
+
+      logNode.write(bwInsertPlan);
+      logNode.write(updatePlan);
+      logNode.notifyStartFlush(tempTsFile.getPath(), 10);
+      logNode.write(deletePlan);
+      logNode.forceSync();
+      // the flush wrote its restore information
+      try (FileOutputStream out = new FileOutputStream(tempTsFileRestore)) {
+        out.write(BytesUtils.longToBytes(20));
+      }
+
+      ExclusiveLogRecoverPerformer performer = new ExclusiveLogRecoverPerformer(
+          tempRestore.getPath(),
+          tempProcessorStore.getPath(), logNode);
+      DummyLogReplayer dummyLogReplayer = new DummyLogReplayer();
+      dummyLogReplayer.plansToCheck = plansToCheck;
+      performer.setReplayer(dummyLogReplayer);
+      DummyFileNodeRecoverPerformer fileNodeRecoverPerformer = new DummyFileNodeRecoverPerformer();
+      performer.setFileNodeRecoverPerformer(fileNodeRecoverPerformer);
+      logNode.setRecoverPerformer(performer);
+
+      logNode.recover();
+      assertTrue(fileNodeRecoverPerformer.called);
+      // only the logs after the flushed memtable are replayed
+      assertEquals(plansToCheck.size(), dummyLogReplayer.currPos);
+
+      // the log diretory should be empty now
+      File logDir = new File(logNode.getLogDirectory());
+      File[] files = logDir.listFiles();
+      assertTrue(files == null || files.length == 0);
+    } finally {
+      logNode.delete();
+      tempRestore.delete();
+      tempProcessorStore.delete();
+      tempTsFile.delete();
+      tempTsFileRestore.delete();
+      tempRestore.getParentFile().delete();
+    }
+  }
+
   @Test
   public void testRecoverFromRecoverFiles() throws IOException, RecoverException {
     // this test write a log file and try to recover from these logs as if a previous attempt is interrupted when
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.UpdatePlan;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.writelog.io.LogWriter;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
 import org.apache.iotdb.db.writelog.transfer.PhysicalPlanLogTransfer;
@@ -86,7 +87,7 @@ public class WriteLogNodeTest {
     logNode.forceSync();
 
     File walFile = new File(
-        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
+        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-0");
     assertTrue(walFile.exists());
 
     RandomAccessFile raf = new RandomAccessFile(walFile, "r");
@@ -160,18 +161,28 @@ public class WriteLogNodeTest {
     logNode.forceSync();
 
     File walFile = new File(
-        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
+        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-0");
     assertTrue(walFile.exists());
 
     logNode.notifyStartFlush();
-    File oldWalFile = new File(
-        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-old");
-    assertTrue(oldWalFile.exists());
-    assertTrue(oldWalFile.length() > 0);
+    assertTrue(walFile.exists());
+    assertTrue(walFile.length() > 0);
+    LogCheckpoint checkpoint = LogCheckpoint.deserializeFrom(logNode.getLogDirectory());
+    assertEquals(0, checkpoint.getFirstSegment());
+    assertEquals(1, checkpoint.getFlushingSegmentEnd());
+
+    logNode.write(deletePlan);
+    logNode.forceSync();
+    File newWalFile = new File(
+        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-1");
+    assertTrue(newWalFile.length() > 0);
 
     logNode.notifyEndFlush(null);
-    assertTrue(!oldWalFile.exists());
-    assertEquals(0, walFile.length());
+    assertTrue(!walFile.exists());
+    assertTrue(newWalFile.exists());
+    checkpoint = LogCheckpoint.deserializeFrom(logNode.getLogDirectory());
+    assertEquals(1, checkpoint.getFirstSegment());
+    assertTrue(!checkpoint.isFlushing());
 
     logNode.delete();
     tempRestore.delete();
@@ -203,7 +214,7 @@ public class WriteLogNodeTest {
     logNode.write(updatePlan);
 
     File walFile = new File(
-        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
+        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-0");
     assertTrue(!walFile.exists());
 
     logNode.write(deletePlan);
@@ -216,6 +227,36 @@ public class WriteLogNodeTest {
     tempRestore.getParentFile().delete();
   }
 
+  @Test
+  public void testSegmentSize() throws IOException {
+    // this test checks that a new segment is started when the current one exceeds the size
+    long walSegmentSize = config.walSegmentSize;
+    config.walSegmentSize = 1;
+    File tempRestore = new File("testtemp", "restore");
+    File tempProcessorStore = new File("testtemp", "processorStore");
+    tempRestore.getParentFile().mkdirs();
+    tempRestore.createNewFile();
+    tempProcessorStore.createNewFile();
+
+    WriteLogNode logNode = new ExclusiveWriteLogNode("root.logTestDevice", tempRestore.getPath(),
+        tempProcessorStore.getPath());
+    try {
+      for (int i = 0; i < 3; i++) {
+        logNode.write(new InsertPlan(1, "root.logTestDevice", 100 + i, Arrays.asList("s1", "s2"),
+            Arrays.asList("1.0", "15")));
+        logNode.forceSync();
+      }
+      assertEquals(3, ExclusiveWriteLogNode.getSegmentFiles(logNode.getLogDirectory()).size());
+      assertTrue(logNode.getWorkingLogSize() > 3 * LogWriter.LOG_HEADER_SIZE);
+    } finally {
+      logNode.delete();
+      tempRestore.delete();
+      tempProcessorStore.delete();
+      config.walSegmentSize = walSegmentSize;
+      tempRestore.getParentFile().delete();
+    }
+  }
+
   @Test
   public void testDelete() throws IOException {
     // this test uses a dummy write log node to write a few logs and flushes them
@@ -242,7 +283,7 @@ public class WriteLogNodeTest {
     logNode.forceSync();
 
     File walFile = new File(
-        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
+        config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-0");
     assertTrue(walFile.exists());
 
     assertTrue(new File(logNode.getLogDirectory()).exists());
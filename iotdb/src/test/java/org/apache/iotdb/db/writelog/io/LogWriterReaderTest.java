@@ -19,6 +19,9 @@
 package org.apache.iotdb.db.writelog.io;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
@@ -31,7 +34,16 @@ import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.UpdatePlan;
 import org.apache.iotdb.db.writelog.transfer.PhysicalPlanLogTransfer;
+import org.apache.iotdb.db.writelog.transfer.WALRecordEncoder;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -81,4 +93,80 @@ public class LogWriterReaderTest {
       new File(filePath).delete();
     }
   }
+
+  @Test
+  public void testTypedRecords() throws IOException {
+    List<PhysicalPlan> typedPlans = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      TSRecord record = new TSRecord(1000L + i * 10, "root.vehicle.d" + i % 2);
+      record.addTuple(new BooleanDataPoint("s0", i % 3 == 0));
+      record.addTuple(new IntDataPoint("s1", -i));
+      record.addTuple(new LongDataPoint("s2", Long.MAX_VALUE - i));
+      record.addTuple(new FloatDataPoint("s3", i * 0.5f));
+      record.addTuple(new DoubleDataPoint("s4", -i * 0.25));
+      record.addTuple(new StringDataPoint("s5", new Binary("v" + i)));
+      typedPlans.add(new InsertPlan(2, record));
+      if (i == 50) {
+        typedPlans.add(new DeletePlan(10L, new Path("root.vehicle.d0.s1")));
+      }
+    }
+
+    WALRecordEncoder encoder = new WALRecordEncoder();
+    LogWriter writer = new LogWriter(filePath);
+    try {
+      for (PhysicalPlan plan : typedPlans.subList(0, 60)) {
+        encoder.append(plan);
+      }
+      writer.write(encoder.flush());
+      // a new encoder appending to the same file starts a new dictionary
+      encoder = new WALRecordEncoder();
+      for (PhysicalPlan plan : typedPlans.subList(60, typedPlans.size())) {
+        encoder.append(plan);
+      }
+      writer.write(encoder.flush());
+      writer.close();
+
+      RAFLogReader reader = new RAFLogReader(new File(filePath));
+      for (PhysicalPlan expected : typedPlans) {
+        assertTrue(reader.hasNext());
+        PhysicalPlan actual = reader.next();
+        if (expected instanceof InsertPlan) {
+          InsertPlan expectedInsert = (InsertPlan) expected;
+          InsertPlan actualInsert = (InsertPlan) actual;
+          assertEquals(expectedInsert, actualInsert);
+          assertEquals(expectedInsert.getInsertType(), actualInsert.getInsertType());
+          for (int i = 0; i < expectedInsert.getDataPoints().size(); i++) {
+            assertEquals(expectedInsert.getDataPoints().get(i).getType(),
+                actualInsert.getDataPoints().get(i).getType());
+          }
+        } else {
+          assertArrayEquals(PhysicalPlanLogTransfer.operatorToLog(expected),
+              PhysicalPlanLogTransfer.operatorToLog(actual));
+        }
+      }
+      assertFalse(reader.hasNext());
+      reader.close();
+    } finally {
+      new File(filePath).delete();
+    }
+  }
+
+  @Test
+  public void testTypedRecordSize() throws IOException {
+    WALRecordEncoder encoder = new WALRecordEncoder();
+    int typedSize = 0;
+    int legacySize = 0;
+    for (int i = 0; i < 1000; i++) {
+      TSRecord record = new TSRecord(1546272000000L + i * 1000, "root.vehicle.d0");
+      record.addTuple(new IntDataPoint("s0", i));
+      record.addTuple(new DoubleDataPoint("s1", i * 1.5));
+      InsertPlan plan = new InsertPlan(2, record);
+      encoder.append(plan);
+      legacySize += PhysicalPlanLogTransfer.operatorToLog(plan).length;
+    }
+    for (byte[] bytes : encoder.flush()) {
+      typedSize += bytes.length;
+    }
+    assertTrue(typedSize * 3 < legacySize);
+  }
 }
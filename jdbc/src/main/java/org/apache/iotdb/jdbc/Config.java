@@ -42,12 +42,37 @@ public class Config {
   public static final String AUTH_PASSWORD = "password";
   public static final String DEFALUT_PASSWORD = "password";
 
+  /**
+   * the number of result batches a query result set fetches ahead of the application, 0 disables
+   * prefetching.
+   */
+  public static final String PREFETCH_BATCH_NUM = "prefetch_batch_num";
+  public static final int DEFAULT_PREFETCH_BATCH_NUM = 0;
+
+  /**
+   * whether a prepared statement is parsed once by the server and executed with bound parameters,
+   * false makes it substitute the parameters into the SQL and send it for every execution.
+   */
+  public static final String SERVER_SIDE_PREPARE = "server_side_prepare";
+  public static final boolean DEFAULT_SERVER_SIDE_PREPARE = true;
+
   public static final int RETRY_NUM = 3;
   public static final long RETRY_INTERVAL = 1000;
 
   public static int fetchSize = 10000;
   public static int connectionTimeoutInMs = 0;
 
+  /**
+   * a prefetching result set enlarges the fetch size when a batch is fetched faster than half of
+   * this latency and shrinks it when a batch is fetched slower than this latency.
+   */
+  public static long prefetchTargetLatencyInMs = 100;
+  /**
+   * the fetch size of a prefetching result set stays within [fetchSize / factor, fetchSize *
+   * factor], where fetchSize is the fetch size of the statement.
+   */
+  public static int prefetchFetchSizeFactor = 8;
+
   public static String JDBC_DRIVER_NAME = "org.apache.iotdb.jdbc.IoTDBDriver";
 
 }
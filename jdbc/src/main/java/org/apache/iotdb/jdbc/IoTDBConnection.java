@@ -46,11 +46,14 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import org.apache.iotdb.service.rpc.thrift.ServerProperties;
+import org.apache.iotdb.service.rpc.thrift.TSCancelOperationReq;
+import org.apache.iotdb.service.rpc.thrift.TSCancelOperationResp;
 import org.apache.iotdb.service.rpc.thrift.TSCloseSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSGetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
+import org.apache.iotdb.service.rpc.thrift.TSOperationHandle;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneResp;
@@ -444,6 +447,36 @@ public class IoTDBConnection implements Connection {
     isClosed = false;
   }
 
+  /**
+   * cancel a query of this connection through a new session on its own transport, as the RPC
+   * calls of this connection are serialized and one of them may be fetching the query results.
+   */
+  void cancelOperation(TSOperationHandle operationHandle) throws SQLException {
+    TSocket cancelTransport = new TSocket(params.getHost(), params.getPort(),
+        Config.connectionTimeoutInMs);
+    try {
+      cancelTransport.open();
+      TSIService.Iface cancelClient = new TSIService.Client(new TBinaryProtocol(cancelTransport));
+      TSOpenSessionReq openReq = new TSOpenSessionReq(
+          TSProtocolVersion.TSFILE_SERVICE_PROTOCOL_V1);
+      openReq.setUsername(params.getUsername());
+      openReq.setPassword(params.getPassword());
+      TSOpenSessionResp openResp = cancelClient.openSession(openReq);
+      Utils.verifySuccess(openResp.getStatus());
+      try {
+        TSCancelOperationResp cancelResp = cancelClient
+            .cancelOperation(new TSCancelOperationReq(operationHandle));
+        Utils.verifySuccess(cancelResp.getStatus());
+      } finally {
+        cancelClient.closeSession(new TSCloseSessionReq(openResp.getSessionHandle()));
+      }
+    } catch (TException e) {
+      throw new SQLException("Error occurs when canceling statement because " + e.getMessage());
+    } finally {
+      cancelTransport.close();
+    }
+  }
+
   public boolean reconnect() {
     boolean flag = false;
     for (int i = 1; i <= Config.RETRY_NUM; i++) {
@@ -485,6 +518,21 @@ public class IoTDBConnection implements Connection {
     this.zoneId = ZoneId.of(zoneId);
   }
 
+  /**
+   * the number of result batches the result sets of this connection fetch ahead, 0 if they do not
+   * prefetch.
+   */
+  public int getPrefetchBatchNum() {
+    return params == null ? Config.DEFAULT_PREFETCH_BATCH_NUM : params.getPrefetchBatchNum();
+  }
+
+  /**
+   * whether the prepared statements of this connection are prepared by the server.
+   */
+  public boolean isServerSidePrepare() {
+    return params == null ? Config.DEFAULT_SERVER_SIDE_PREPARE : params.isServerSidePrepare();
+  }
+
   public ServerProperties getServerProperties() throws TException {
     return client.getProperties();
   }
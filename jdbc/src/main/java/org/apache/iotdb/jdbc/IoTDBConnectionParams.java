@@ -26,6 +26,8 @@ public class IoTDBConnectionParams {
   private String seriesName = Config.DEFAULT_SERIES_NAME;
   private String username = Config.DEFAULT_USER;
   private String password = Config.DEFALUT_PASSWORD;
+  private int prefetchBatchNum = Config.DEFAULT_PREFETCH_BATCH_NUM;
+  private boolean serverSidePrepare = Config.DEFAULT_SERVER_SIDE_PREPARE;
 
   public IoTDBConnectionParams(String url) {
     this.jdbcUriString = url;
@@ -79,4 +81,20 @@ public class IoTDBConnectionParams {
     this.password = password;
   }
 
+  public int getPrefetchBatchNum() {
+    return prefetchBatchNum;
+  }
+
+  public void setPrefetchBatchNum(int prefetchBatchNum) {
+    this.prefetchBatchNum = prefetchBatchNum;
+  }
+
+  public boolean isServerSidePrepare() {
+    return serverSidePrepare;
+  }
+
+  public void setServerSidePrepare(boolean serverSidePrepare) {
+    this.serverSidePrepare = serverSidePrepare;
+  }
+
 }
@@ -46,22 +46,54 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.iotdb.service.rpc.thrift.TSClosePreparedStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSDataValue;
+import org.apache.iotdb.service.rpc.thrift.TSExecutePreparedStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TS_SessionHandle;
+import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
 
+/**
+ * A prepared statement. If the connection enables server side prepare, the statement is parsed
+ * and optimized by the server on its first execution and later executions only send the typed
+ * parameters. Otherwise, or if the server cannot prepare the statement, the parameters are
+ * substituted into the SQL which is sent for every execution.
+ */
 public class IoTDBPrepareStatement extends IoTDBStatement implements PreparedStatement {
 
+  private static final long NOT_PREPARED = -1;
+
+  private final IoTDBConnection connection;
   private final String sql;
   /**
    * save the SQL parameters as (paramLoc,paramValue) pairs.
    */
   private final Map<Integer, String> parameters = new HashMap<Integer, String>();
+  /**
+   * the typed values of the parameters, sent to the server for a statement prepared by it.
+   */
+  private final Map<Integer, TSDataValue> typedParameters = new HashMap<>();
+
+  private boolean serverSidePrepare;
+  private long statementId = NOT_PREPARED;
+  private int parameterNum;
+  private boolean isQuery;
 
   public IoTDBPrepareStatement(IoTDBConnection connection, Iface client,
       TS_SessionHandle sessionHandle, String sql,
       ZoneId zoneId) {
     super(connection, client, sessionHandle, zoneId);
+    this.connection = connection;
     this.sql = sql;
+    this.serverSidePrepare = connection.isServerSidePrepare();
+    if (serverSidePrepare) {
+      columnTypeCache = new HashMap<>();
+    }
   }
 
   @Override
@@ -72,23 +104,133 @@ public class IoTDBPrepareStatement extends IoTDBStatement implements PreparedSta
   @Override
   public void clearParameters() throws SQLException {
     this.parameters.clear();
+    this.typedParameters.clear();
   }
 
   @Override
   public boolean execute() throws SQLException {
+    checkConnection("execute");
+    if (prepareOnServer()) {
+      return executeOnServer();
+    }
     return super.execute(createCompleteSql(sql, parameters));
   }
 
   @Override
   public ResultSet executeQuery() throws SQLException {
+    checkConnection("execute query");
+    if (prepareOnServer()) {
+      if (!isQuery) {
+        throw new SQLException("Statement " + sql + " is not a query");
+      }
+      executeOnServer();
+      return getResultSet();
+    }
     return super.executeQuery(createCompleteSql(sql, parameters));
   }
 
   @Override
   public int executeUpdate() throws SQLException {
+    checkConnection("execute update");
+    if (prepareOnServer()) {
+      if (isQuery) {
+        throw new SQLException("Statement " + sql + " is a query, use executeQuery instead");
+      }
+      executeOnServer();
+      return 0;
+    }
     return super.executeUpdate(createCompleteSql(sql, parameters));
   }
 
+  @Override
+  public void close() throws SQLException {
+    if (statementId != NOT_PREPARED) {
+      try {
+        getClient().closePreparedStatement(
+            new TSClosePreparedStatementReq(getSessionHandle(), statementId));
+      } catch (TException e) {
+        // the server drops the prepared statements of a session when the session is closed
+      }
+      statementId = NOT_PREPARED;
+    }
+    super.close();
+  }
+
+  /**
+   * prepare the statement on the server if it is not prepared yet.
+   *
+   * @return false if the statement is executed by substituting the parameters into the SQL
+   */
+  private boolean prepareOnServer() {
+    if (!serverSidePrepare) {
+      return false;
+    }
+    if (statementId != NOT_PREPARED) {
+      return true;
+    }
+    try {
+      TSPrepareStatementResp resp = getClient()
+          .prepareStatement(new TSPrepareStatementReq(getSessionHandle(), sql));
+      if (resp.getStatus().getStatusCode() != TS_StatusCode.SUCCESS_STATUS) {
+        // e.g. a parameter at a position the server cannot bind, which the SQL substitution does
+        serverSidePrepare = false;
+        return false;
+      }
+      statementId = resp.getStatementId();
+      parameterNum = resp.getParameterNum();
+      isQuery = resp.isIsQuery();
+      return true;
+    } catch (TApplicationException e) {
+      // the server is older and does not know prepareStatement
+      serverSidePrepare = false;
+      return false;
+    } catch (TException e) {
+      // try again in the next execution, the SQL substitution reconnects for this one
+      return false;
+    }
+  }
+
+  private boolean executeOnServer() throws SQLException {
+    List<TSDataValue> values = new ArrayList<>(parameterNum);
+    for (int i = 1; i <= parameterNum; i++) {
+      TSDataValue value = typedParameters.get(i);
+      if (value == null) {
+        throw new SQLException("Parameter #" + i + " is unset");
+      }
+      values.add(value);
+    }
+    try {
+      return executePreparedReq(sql,
+          new TSExecutePreparedStatementReq(getSessionHandle(), statementId, values));
+    } catch (TException e) {
+      // the prepared statement is lost with the session, so prepare it again after reconnecting
+      statementId = NOT_PREPARED;
+      boolean flag = connection.reconnect();
+      reInit();
+      if (!flag) {
+        throw new SQLException(String
+            .format("Fail to reconnect to server when executing %s. please check server status",
+                sql));
+      }
+      if (!prepareOnServer()) {
+        return super.execute(createCompleteSql(sql, parameters));
+      }
+      try {
+        return executePreparedReq(sql,
+            new TSExecutePreparedStatementReq(getSessionHandle(), statementId, values));
+      } catch (TException e2) {
+        throw new SQLException(
+            String.format("Fail to execute %s after reconnecting. please check server status",
+                sql));
+      }
+    }
+  }
+
+  private void setTypedParameter(int parameterIndex, String type, TSDataValue value) {
+    value.setType(type);
+    typedParameters.put(parameterIndex, value);
+  }
+
   @Override
   public ResultSetMetaData getMetaData() throws SQLException {
     throw new SQLException("Method not supported");
@@ -158,6 +300,7 @@ public class IoTDBPrepareStatement extends IoTDBStatement implements PreparedSta
   @Override
   public void setBoolean(int parameterIndex, boolean x) throws SQLException {
     this.parameters.put(parameterIndex, "" + x);
+    setTypedParameter(parameterIndex, "BOOLEAN", new TSDataValue(false).setBool_val(x));
   }
 
   @Override
@@ -215,21 +358,25 @@ public class IoTDBPrepareStatement extends IoTDBStatement implements PreparedSta
   @Override
   public void setDouble(int parameterIndex, double x) throws SQLException {
     this.parameters.put(parameterIndex, "" + x);
+    setTypedParameter(parameterIndex, "DOUBLE", new TSDataValue(false).setDouble_val(x));
   }
 
   @Override
   public void setFloat(int parameterIndex, float x) throws SQLException {
     this.parameters.put(parameterIndex, "" + x);
+    setTypedParameter(parameterIndex, "FLOAT", new TSDataValue(false).setFloat_val(x));
   }
 
   @Override
   public void setInt(int parameterIndex, int x) throws SQLException {
     this.parameters.put(parameterIndex, "" + x);
+    setTypedParameter(parameterIndex, "INT32", new TSDataValue(false).setInt_val(x));
   }
 
   @Override
   public void setLong(int parameterIndex, long x) throws SQLException {
     this.parameters.put(parameterIndex, "" + x);
+    setTypedParameter(parameterIndex, "INT64", new TSDataValue(false).setLong_val(x));
   }
 
   @Override
@@ -331,6 +478,8 @@ public class IoTDBPrepareStatement extends IoTDBStatement implements PreparedSta
 
   @Override
   public void setString(int parameterIndex, String x) throws SQLException {
+    setTypedParameter(parameterIndex, "TEXT",
+        new TSDataValue(false).setBinary_val(new Binary(x).getValues()));
     x = x.replace("'", "\\'");
     this.parameters.put(parameterIndex, "'" + x + "'");
   }
@@ -351,6 +500,7 @@ public class IoTDBPrepareStatement extends IoTDBStatement implements PreparedSta
         super.zoneId);
     this.parameters.put(parameterIndex, zonedDateTime
         .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    setTypedParameter(parameterIndex, "INT64", new TSDataValue(false).setLong_val(x.getTime()));
   }
 
   @Override
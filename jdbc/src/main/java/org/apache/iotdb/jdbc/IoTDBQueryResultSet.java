@@ -64,6 +64,10 @@ public class IoTDBQueryResultSet implements ResultSet {
   private final String OFFSET_STR = "OFFSET";
   private Statement statement = null;
   private String sql;
+  /**
+   * the key by which the results are fetched, the sql unless the server gives another one.
+   */
+  private String fetchKey;
   private SQLWarning warningChain = null;
   private boolean wasNull = false;
   private boolean isClosed = false;
@@ -78,6 +82,11 @@ public class IoTDBQueryResultSet implements ResultSet {
   private int maxRows; // defined in TsfileStatement
   private int fetchSize;
   private boolean emptyResultSet = false;
+  /**
+   * the number of batches fetched ahead by prefetcher, 0 if the batches are fetched on demand.
+   */
+  private int prefetchBatchNum = 0;
+  private ResultBatchPrefetcher prefetcher;
   private String operationType;
   // 0 means it is not constrained in sql
   private int rowsLimit = 0;
@@ -111,6 +120,7 @@ public class IoTDBQueryResultSet implements ResultSet {
     this.client = client;
     this.operationHandle = operationHandle;
     this.sql = sql;
+    this.fetchKey = sql;
     this.operationType = aggregations;
     this.columnTypeList = columnTypeList;
 
@@ -198,6 +208,7 @@ public class IoTDBQueryResultSet implements ResultSet {
       return;
     }
 
+    stopPrefetch();
     closeOperationHandle();
     client = null;
     isClosed = true;
@@ -692,10 +703,46 @@ public class IoTDBQueryResultSet implements ResultSet {
     throw new SQLException("Method not supported");
   }
 
+  /**
+   * fetch the result batches ahead of the application, called before the first record is read.
+   *
+   * @param prefetchBatchNum the max number of batches fetched ahead, 0 to fetch on demand
+   */
+  void setPrefetchBatchNum(int prefetchBatchNum) {
+    this.prefetchBatchNum = prefetchBatchNum;
+  }
+
+  void setFetchKey(String fetchKey) {
+    this.fetchKey = fetchKey;
+  }
+
+  /**
+   * stop fetching ahead. If the prefetching has begun, the result set returns no more records.
+   */
+  void stopPrefetch() {
+    prefetchBatchNum = 0;
+    if (prefetcher != null) {
+      prefetcher.close();
+      prefetcher = null;
+      emptyResultSet = true;
+    }
+  }
+
   // the next record rule without constraints
   private boolean nextWithoutConstraints() throws SQLException {
+    if ((recordItr == null || !recordItr.hasNext()) && !emptyResultSet && prefetchBatchNum > 0) {
+      if (prefetcher == null) {
+        prefetcher = new ResultBatchPrefetcher(client, fetchKey, fetchSize, prefetchBatchNum);
+      }
+      List<RowRecord> records = prefetcher.next();
+      if (records == null) {
+        emptyResultSet = true;
+      } else {
+        recordItr = records.iterator();
+      }
+    }
     if ((recordItr == null || !recordItr.hasNext()) && !emptyResultSet) {
-      TSFetchResultsReq req = new TSFetchResultsReq(sql, fetchSize);
+      TSFetchResultsReq req = new TSFetchResultsReq(fetchKey, fetchSize);
 
       try {
         TSFetchResultsResp resp = client.fetchResults(req);
@@ -28,12 +28,12 @@ import java.sql.Statement;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.iotdb.service.rpc.thrift.TSCancelOperationReq;
-import org.apache.iotdb.service.rpc.thrift.TSCancelOperationResp;
+import java.util.Map;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationReq;
 import org.apache.iotdb.service.rpc.thrift.TSCloseOperationResp;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSExecutePreparedStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataReq;
@@ -53,11 +53,16 @@ public class IoTDBStatement implements Statement {
   private ResultSet resultSet = null;
   private IoTDBConnection connection;
   private int fetchSize = Config.fetchSize;
-  private int queryTimeout = 10;
+  private int queryTimeout = 0;
   private TSIService.Iface client = null;
   private TS_SessionHandle sessionHandle = null;
   private TSOperationHandle operationHandle = null;
   private List<String> batchSQLList;
+  /**
+   * the data types of the columns queried before, null if they are fetched for every query. A
+   * prepared statement caches them, as its executions query the same columns.
+   */
+  Map<String, String> columnTypeCache = null;
   /**
    * Keep state so we can fail certain calls made after close().
    */
@@ -124,14 +129,10 @@ public class IoTDBStatement implements Statement {
     if (isCancelled) {
       return;
     }
-    try {
-      if (operationHandle != null) {
-        TSCancelOperationReq closeReq = new TSCancelOperationReq(operationHandle);
-        TSCancelOperationResp closeResp = client.cancelOperation(closeReq);
-        Utils.verifySuccess(closeResp.getStatus());
-      }
-    } catch (Exception e) {
-      throw new SQLException("Error occurs when canceling statement because " + e.getMessage());
+    // the cancellation is sent on another session, as the client of the connection may be busy
+    // fetching the results of the query from another thread
+    if (operationHandle != null && operationHandle.isSetQueryId()) {
+      connection.cancelOperation(operationHandle);
     }
     isCancelled = true;
   }
@@ -149,6 +150,21 @@ public class IoTDBStatement implements Statement {
     warningChain = null;
   }
 
+  private int getPrefetchBatchNum() {
+    return connection == null ? Config.DEFAULT_PREFETCH_BATCH_NUM
+        : connection.getPrefetchBatchNum();
+  }
+
+  /**
+   * stop the result set of the last query from fetching ahead, as the server side results of its
+   * statement are about to be closed or replaced.
+   */
+  private void stopPrefetch() {
+    if (resultSet instanceof IoTDBQueryResultSet) {
+      ((IoTDBQueryResultSet) resultSet).stopPrefetch();
+    }
+  }
+
   private void closeClientOperation() throws SQLException {
     try {
       if (operationHandle != null) {
@@ -167,6 +183,7 @@ public class IoTDBStatement implements Statement {
       return;
     }
 
+    stopPrefetch();
     closeClientOperation();
     // client = null;
     isClosed = true;
@@ -226,6 +243,7 @@ public class IoTDBStatement implements Statement {
    */
   private boolean executeSQL(String sql) throws TException, SQLException {
     isCancelled = false;
+    stopPrefetch();
     String sqlToLowerCase = sql.toLowerCase().trim();
     if (sqlToLowerCase.startsWith(SHOW_TIMESERIES_COMMAND_LOWERCASE)) {
       String[] cmdSplited = sql.split("\\s+");
@@ -242,14 +260,16 @@ public class IoTDBStatement implements Statement {
       resultSet = databaseMetaData.getColumns(Constant.CatalogStorageGroup, null, null, null);
       return true;
     } else {
-      TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionHandle, sql);
+      TSExecuteStatementReq execReq = createExecuteReq(sql);
       TSExecuteStatementResp execResp = client.executeStatement(execReq);
       operationHandle = execResp.getOperationHandle();
       Utils.verifySuccess(execResp.getStatus());
       if (execResp.getOperationHandle().hasResultSet) {
-        resultSet = new IoTDBQueryResultSet(this, execResp.getColumns(), client, sessionHandle,
-            operationHandle,
+        IoTDBQueryResultSet queryResultSet = new IoTDBQueryResultSet(this,
+            execResp.getColumns(), client, sessionHandle, operationHandle,
             sql, execResp.getOperationType(), getColumnsType(execResp.getColumns()));
+        queryResultSet.setPrefetchBatchNum(getPrefetchBatchNum());
+        resultSet = queryResultSet;
         return true;
       }
       return false;
@@ -339,13 +359,16 @@ public class IoTDBStatement implements Statement {
 
   private ResultSet executeQuerySQL(String sql) throws TException, SQLException {
     isCancelled = false;
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionHandle, sql);
+    stopPrefetch();
+    TSExecuteStatementReq execReq = createExecuteReq(sql);
     TSExecuteStatementResp execResp = client.executeQueryStatement(execReq);
     operationHandle = execResp.getOperationHandle();
     Utils.verifySuccess(execResp.getStatus());
-    resultSet = new IoTDBQueryResultSet(this, execResp.getColumns(), client, sessionHandle,
-        operationHandle, sql,
+    IoTDBQueryResultSet queryResultSet = new IoTDBQueryResultSet(this, execResp.getColumns(),
+        client, sessionHandle, operationHandle, sql,
         execResp.getOperationType(), getColumnsType(execResp.getColumns()));
+    queryResultSet.setPrefetchBatchNum(getPrefetchBatchNum());
+    resultSet = queryResultSet;
     return resultSet;
   }
 
@@ -383,6 +406,17 @@ public class IoTDBStatement implements Statement {
     throw new SQLException("Method not supported");
   }
 
+  /**
+   * create the request of a statement, which carries the query timeout if one is set.
+   */
+  private TSExecuteStatementReq createExecuteReq(String sql) {
+    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionHandle, sql);
+    if (queryTimeout > 0) {
+      execReq.setTimeout(queryTimeout * 1000L);
+    }
+    return execReq;
+  }
+
   @Override
   public int executeUpdate(String arg0, String[] arg1) throws SQLException {
     throw new SQLException("Method not supported");
@@ -546,17 +580,56 @@ public class IoTDBStatement implements Statement {
     throw new SQLException("Method not supported");
   }
 
-  private void checkConnection(String action) throws SQLException {
+  void checkConnection(String action) throws SQLException {
     if (connection == null || connection.isClosed()) {
       throw new SQLException(String.format("Cannot %s after connection has been closed!", action));
     }
   }
 
-  private void reInit() {
+  void reInit() {
     this.client = connection.client;
     this.sessionHandle = connection.sessionHandle;
   }
 
+  TSIService.Iface getClient() {
+    return client;
+  }
+
+  TS_SessionHandle getSessionHandle() {
+    return sessionHandle;
+  }
+
+  /**
+   * execute a statement prepared on the server side.
+   *
+   * @param sql the statement with parameter markers
+   * @return true if the statement is a query, whose result set is got by {@link #getResultSet()}
+   */
+  boolean executePreparedReq(String sql, TSExecutePreparedStatementReq execReq)
+      throws TException, SQLException {
+    isClosed = false;
+    isCancelled = false;
+    stopPrefetch();
+    if (queryTimeout > 0) {
+      execReq.setTimeout(queryTimeout * 1000L);
+    }
+    TSExecuteStatementResp execResp = client.executePreparedStatement(execReq);
+    operationHandle = execResp.getOperationHandle();
+    Utils.verifySuccess(execResp.getStatus());
+    if (!execResp.getOperationHandle().hasResultSet) {
+      return false;
+    }
+    IoTDBQueryResultSet queryResultSet = new IoTDBQueryResultSet(this, execResp.getColumns(),
+        client, sessionHandle, operationHandle, sql, execResp.getOperationType(),
+        getColumnsType(execResp.getColumns()));
+    if (execResp.isSetFetchKey()) {
+      queryResultSet.setFetchKey(execResp.getFetchKey());
+    }
+    queryResultSet.setPrefetchBatchNum(getPrefetchBatchNum());
+    resultSet = queryResultSet;
+    return true;
+  }
+
   private List<String> getColumnsType(List<String> columns) throws SQLException {
     List<String> columnTypes = new ArrayList<>();
     for (String column : columns) {
@@ -566,6 +639,9 @@ public class IoTDBStatement implements Statement {
   }
 
   private String getColumnType(String columnName) throws SQLException {
+    if (columnTypeCache != null && columnTypeCache.containsKey(columnName)) {
+      return columnTypeCache.get(columnName);
+    }
     TSFetchMetadataReq req;
 
     req = new TSFetchMetadataReq(Constant.GLOBAL_COLUMN_REQ);
@@ -575,6 +651,9 @@ public class IoTDBStatement implements Statement {
     try {
       resp = client.fetchMetadata(req);
       Utils.verifySuccess(resp.getStatus());
+      if (columnTypeCache != null) {
+        columnTypeCache.put(columnName, resp.getDataType());
+      }
       return resp.getDataType();
     } catch (TException | IoTDBSQLException e) {
       throw new SQLException(
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.thrift.TException;
+
+/**
+ * Fetches the result batches of a query in a background thread, so the next batches are on the
+ * way while the application iterates the current one. At most prefetchBatchNum fetched batches
+ * wait for the application, the thread stops fetching when they are not taken.
+ *
+ * <p>The fetch size adapts to the measured latency of the fetches: it is doubled when a batch
+ * arrives faster than half of {@link Config#prefetchTargetLatencyInMs} and halved when a batch
+ * arrives slower than it, within [fetchSize / factor, fetchSize * factor] where factor is {@link
+ * Config#prefetchFetchSizeFactor}.
+ */
+public class ResultBatchPrefetcher {
+
+  private static final Batch END = new Batch(null, null);
+
+  private final TSIService.Iface client;
+  private final String sql;
+  private final int minFetchSize;
+  private final int maxFetchSize;
+  private volatile int fetchSize;
+
+  private final BlockingQueue<Batch> batches;
+  private final Thread fetchThread;
+  private volatile boolean closed = false;
+  private boolean finished = false;
+
+  /**
+   * create a prefetcher and start fetching.
+   *
+   * @param client the client of the connection, which must serialize concurrent calls
+   * @param sql the statement of the query, or the key by which its results are fetched
+   * @param fetchSize the initial fetch size
+   * @param prefetchBatchNum the max number of fetched batches not taken yet, positive
+   */
+  public ResultBatchPrefetcher(TSIService.Iface client, String sql, int fetchSize,
+      int prefetchBatchNum) {
+    this.client = client;
+    this.sql = sql;
+    this.fetchSize = fetchSize;
+    int factor = Math.max(1, Config.prefetchFetchSizeFactor);
+    this.minFetchSize = Math.max(1, fetchSize / factor);
+    this.maxFetchSize = (int) Math.min(Integer.MAX_VALUE, (long) fetchSize * factor);
+    this.batches = new ArrayBlockingQueue<>(prefetchBatchNum);
+    this.fetchThread = new Thread(this::fetchLoop, "IoTDB-Prefetch-" + sql.hashCode());
+    this.fetchThread.setDaemon(true);
+    this.fetchThread.start();
+  }
+
+  /**
+   * take the next batch, waiting for it if it has not arrived.
+   *
+   * @return the records of the batch, null if the query has no more results
+   * @throws SQLException if the batch cannot be fetched
+   */
+  public List<RowRecord> next() throws SQLException {
+    if (finished) {
+      return null;
+    }
+    Batch batch;
+    try {
+      batch = batches.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted when waiting for the results from server");
+    }
+    if (batch.records == null) {
+      finished = true;
+      if (batch.error != null) {
+        throw batch.error;
+      }
+    }
+    return batch.records;
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * stop fetching. The fetch in progress is waited for, so no request of the query is sent after
+   * this method returns.
+   */
+  public void close() {
+    closed = true;
+    fetchThread.interrupt();
+    try {
+      fetchThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fetchLoop() {
+    try {
+      while (!closed) {
+        long startTime = System.nanoTime();
+        TSFetchResultsResp resp = client.fetchResults(new TSFetchResultsReq(sql, fetchSize));
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        Utils.verifySuccess(resp.getStatus());
+        if (!resp.hasResultSet) {
+          batches.put(END);
+          return;
+        }
+        List<RowRecord> records = Utils.convertRowRecords(resp.getQueryDataSet());
+        adaptFetchSize(latency);
+        batches.put(new Batch(records, null));
+      }
+    } catch (InterruptedException e) {
+      // closed by the result set
+    } catch (SQLException e) {
+      offerError(e);
+    } catch (TException e) {
+      offerError(
+          new SQLException("Cannot fetch result from server, because of network connection"));
+    } catch (RuntimeException e) {
+      offerError(new SQLException("Cannot fetch result from server, because " + e.getMessage()));
+    }
+  }
+
+  private void adaptFetchSize(long latency) {
+    if (latency * 2 < Config.prefetchTargetLatencyInMs) {
+      fetchSize = (int) Math.min(maxFetchSize, (long) fetchSize * 2);
+    } else if (latency > Config.prefetchTargetLatencyInMs) {
+      fetchSize = Math.max(minFetchSize, fetchSize / 2);
+    }
+  }
+
+  private void offerError(SQLException e) {
+    try {
+      batches.put(new Batch(null, e));
+    } catch (InterruptedException interrupted) {
+      // closed by the result set, nobody takes the error
+    }
+  }
+
+  private static class Batch {
+
+    private final List<RowRecord> records;
+    private final SQLException error;
+
+    private Batch(List<RowRecord> records, SQLException error) {
+      this.records = records;
+      this.error = error;
+    }
+  }
+}
@@ -68,6 +68,28 @@ public class Utils {
     if (info.containsKey(Config.AUTH_PASSWORD)) {
       params.setPassword(info.getProperty(Config.AUTH_PASSWORD));
     }
+    if (info.containsKey(Config.PREFETCH_BATCH_NUM)) {
+      int prefetchBatchNum;
+      try {
+        prefetchBatchNum = Integer.parseInt(info.getProperty(Config.PREFETCH_BATCH_NUM).trim());
+      } catch (NumberFormatException e) {
+        prefetchBatchNum = -1;
+      }
+      if (prefetchBatchNum < 0) {
+        throw new IoTDBURLException(String.format("%s should be a non-negative integer, but is %s",
+            Config.PREFETCH_BATCH_NUM, info.getProperty(Config.PREFETCH_BATCH_NUM)));
+      }
+      params.setPrefetchBatchNum(prefetchBatchNum);
+    }
+    if (info.containsKey(Config.SERVER_SIDE_PREPARE)) {
+      String serverSidePrepare = info.getProperty(Config.SERVER_SIDE_PREPARE).trim();
+      if (!"true".equalsIgnoreCase(serverSidePrepare)
+          && !"false".equalsIgnoreCase(serverSidePrepare)) {
+        throw new IoTDBURLException(String.format("%s should be true or false, but is %s",
+            Config.SERVER_SIDE_PREPARE, serverSidePrepare));
+      }
+      params.setServerSidePrepare(Boolean.parseBoolean(serverSidePrepare));
+    }
 
     return params;
   }
@@ -20,17 +20,30 @@ package org.apache.iotdb.jdbc;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.service.rpc.thrift.TSDataValue;
+import org.apache.iotdb.service.rpc.thrift.TSExecutePreparedStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
 import org.apache.iotdb.service.rpc.thrift.TSGetOperationStatusResp;
+import org.apache.iotdb.service.rpc.thrift.TSHandleIdentifier;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
 import org.apache.iotdb.service.rpc.thrift.TSOperationHandle;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TS_SessionHandle;
 import org.apache.iotdb.service.rpc.thrift.TS_Status;
 import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
@@ -312,4 +325,116 @@ public class IoTDBPrepareStatementTest {
         "INSERT INTO root.ln.wf01.wt01(timestamp,a,b,c,d,e,f) VALUES(2017-11-01T00:13:00,false,123,123234345,123.423,-1323.0,'abc')",
         argument.getValue().getStatement());
   }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void testServerSidePrepare() throws Exception {
+    String sql = "INSERT INTO root.ln.wf01.wt01(timestamp,a,b) VALUES(?,?,?)";
+    TSPrepareStatementResp prepareResp = new TSPrepareStatementResp(Status_SUCCESS);
+    prepareResp.setStatementId(7);
+    prepareResp.setParameterNum(3);
+    prepareResp.setIsQuery(false);
+    when(connection.isServerSidePrepare()).thenReturn(true);
+    when(client.prepareStatement(any(TSPrepareStatementReq.class))).thenReturn(prepareResp);
+    when(client.executePreparedStatement(any(TSExecutePreparedStatementReq.class)))
+        .thenReturn(execStatementResp);
+
+    IoTDBPrepareStatement ps = new IoTDBPrepareStatement(connection, client, sessHandle, sql,
+        zoneId);
+    ps.setLong(1, 12324);
+    ps.setInt(2, 123);
+    ps.setString(3, "abc");
+    ps.execute();
+    ps.setLong(1, 12325);
+    ps.execute();
+
+    // the statement is parsed once and executed twice with the typed parameters
+    verify(client, times(1)).prepareStatement(any(TSPrepareStatementReq.class));
+    verify(client, never()).executeStatement(any(TSExecuteStatementReq.class));
+    ArgumentCaptor<TSExecutePreparedStatementReq> argument = ArgumentCaptor
+        .forClass(TSExecutePreparedStatementReq.class);
+    verify(client, times(2)).executePreparedStatement(argument.capture());
+    TSExecutePreparedStatementReq req = argument.getAllValues().get(1);
+    assertEquals(7, req.getStatementId());
+    List<TSDataValue> parameters = req.getParameters();
+    assertEquals(3, parameters.size());
+    assertEquals("INT64", parameters.get(0).getType());
+    assertEquals(12325, parameters.get(0).getLong_val());
+    assertEquals("INT32", parameters.get(1).getType());
+    assertEquals(123, parameters.get(1).getInt_val());
+    assertEquals("TEXT", parameters.get(2).getType());
+    assertEquals("abc", new String(parameters.get(2).getBinary_val(), "UTF-8"));
+  }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void testServerSidePrepareFallback() throws Exception {
+    String sql = "SELECT status FROM root.ln.wf01.wt01 WHERE temperature < ? limit ?";
+    TS_Status errorStatus = new TS_Status(TS_StatusCode.ERROR_STATUS);
+    errorStatus.setErrorMessage("Parameter markers are not supported in limit");
+    when(connection.isServerSidePrepare()).thenReturn(true);
+    when(client.prepareStatement(any(TSPrepareStatementReq.class)))
+        .thenReturn(new TSPrepareStatementResp(errorStatus));
+
+    IoTDBPrepareStatement ps = new IoTDBPrepareStatement(connection, client, sessHandle, sql,
+        zoneId);
+    ps.setInt(1, 24);
+    ps.setInt(2, 10);
+    ps.execute();
+    ps.execute();
+
+    // a statement the server cannot prepare falls back to substituting the parameters
+    verify(client, times(1)).prepareStatement(any(TSPrepareStatementReq.class));
+    ArgumentCaptor<TSExecuteStatementReq> argument = ArgumentCaptor
+        .forClass(TSExecuteStatementReq.class);
+    verify(client, times(2)).executeStatement(argument.capture());
+    assertEquals("SELECT status FROM root.ln.wf01.wt01 WHERE temperature < 24 limit 10",
+        argument.getValue().getStatement());
+  }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void testServerSidePreparedQueriesOfSameSql() throws Exception {
+    String sql = "SELECT status FROM root.ln.wf01.wt01 WHERE temperature < ?";
+    when(connection.isServerSidePrepare()).thenReturn(true);
+    TSPrepareStatementResp prepareResp1 = new TSPrepareStatementResp(Status_SUCCESS);
+    prepareResp1.setStatementId(1);
+    prepareResp1.setParameterNum(1);
+    prepareResp1.setIsQuery(true);
+    TSPrepareStatementResp prepareResp2 = prepareResp1.deepCopy();
+    prepareResp2.setStatementId(2);
+    when(client.prepareStatement(any(TSPrepareStatementReq.class))).thenReturn(prepareResp1)
+        .thenReturn(prepareResp2);
+    when(client.executePreparedStatement(any(TSExecutePreparedStatementReq.class)))
+        .thenReturn(newQueryResp("1#1")).thenReturn(newQueryResp("2#1"));
+    when(client.fetchResults(any(TSFetchResultsReq.class)))
+        .thenReturn(new TSFetchResultsResp(Status_SUCCESS, false));
+
+    IoTDBPrepareStatement ps1 = new IoTDBPrepareStatement(connection, client, sessHandle, sql,
+        zoneId);
+    IoTDBPrepareStatement ps2 = new IoTDBPrepareStatement(connection, client, sessHandle, sql,
+        zoneId);
+    ps1.setInt(1, 24);
+    ps2.setInt(1, 25);
+    ResultSet resultSet1 = ps1.executeQuery();
+    ResultSet resultSet2 = ps2.executeQuery();
+    resultSet2.next();
+    resultSet1.next();
+
+    // each result set fetches by the key of its own execution, not by the shared sql
+    ArgumentCaptor<TSFetchResultsReq> argument = ArgumentCaptor.forClass(TSFetchResultsReq.class);
+    verify(client, times(2)).fetchResults(argument.capture());
+    assertEquals("2#1", argument.getAllValues().get(0).getStatement());
+    assertEquals("1#1", argument.getAllValues().get(1).getStatement());
+  }
+
+  private TSExecuteStatementResp newQueryResp(String fetchKey) {
+    TSExecuteStatementResp resp = new TSExecuteStatementResp(Status_SUCCESS);
+    resp.setOperationHandle(new TSOperationHandle(new TSHandleIdentifier(
+        ByteBuffer.wrap("root".getBytes()), ByteBuffer.wrap("PASS".getBytes())), true));
+    resp.setColumns(new ArrayList<>());
+    resp.setOperationType("QUERY");
+    resp.setFetchKey(fetchKey);
+    return resp;
+  }
 }
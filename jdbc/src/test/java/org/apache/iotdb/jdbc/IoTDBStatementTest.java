@@ -19,9 +19,13 @@
 package org.apache.iotdb.jdbc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -30,9 +34,14 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.apache.iotdb.service.rpc.thrift.TSCancelOperationReq;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataReq;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataResp;
+import org.apache.iotdb.service.rpc.thrift.TSHandleIdentifier;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.iotdb.service.rpc.thrift.TSOperationHandle;
 import org.apache.iotdb.service.rpc.thrift.TS_SessionHandle;
 import org.apache.iotdb.service.rpc.thrift.TS_Status;
 import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
@@ -215,4 +224,24 @@ public class IoTDBStatementTest {
     IoTDBStatement stmt = new IoTDBStatement(connection, client, sessHandle, zoneID);
     stmt.setMaxRows(-1);
   }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void testCancelOnAnotherSession() throws SQLException, TException {
+    TSOperationHandle operationHandle = new TSOperationHandle(new TSHandleIdentifier(
+        ByteBuffer.wrap("root".getBytes()), ByteBuffer.wrap("PASS".getBytes())), true);
+    operationHandle.setQueryId(42);
+    TSExecuteStatementResp execResp = new TSExecuteStatementResp(Status_SUCCESS);
+    execResp.setOperationHandle(operationHandle);
+    execResp.setColumns(new ArrayList<>());
+    execResp.setOperationType("QUERY");
+    when(client.executeStatement(any(TSExecuteStatementReq.class))).thenReturn(execResp);
+
+    IoTDBStatement stmt = new IoTDBStatement(connection, client, sessHandle, zoneID);
+    assertTrue(stmt.execute("select s1 from root.vehicle.d0"));
+    stmt.cancel();
+    // the query is cancelled by its id through the connection, not on the busy client
+    verify(connection).cancelOperation(operationHandle);
+    verify(client, never()).cancelOperation(any(TSCancelOperationReq.class));
+  }
 }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jdbc;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.service.rpc.thrift.TSRowRecord;
+import org.apache.iotdb.service.rpc.thrift.TS_Status;
+import org.apache.iotdb.service.rpc.thrift.TS_StatusCode;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ResultBatchPrefetcherTest {
+
+  @Mock
+  private TSIService.Iface client;
+
+  private TS_Status Status_SUCCESS = new TS_Status(TS_StatusCode.SUCCESS_STATUS);
+
+  @Before
+  public void before() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testFetchInOrder() throws Exception {
+    TSFetchResultsResp end = new TSFetchResultsResp(Status_SUCCESS, false);
+    when(client.fetchResults(any(TSFetchResultsReq.class)))
+        .thenReturn(batch(0, 3), batch(3, 3), batch(6, 2), end);
+
+    ResultBatchPrefetcher prefetcher = new ResultBatchPrefetcher(client, "select", 3, 2);
+    long expectedTime = 0;
+    List<RowRecord> records;
+    while ((records = prefetcher.next()) != null) {
+      for (RowRecord record : records) {
+        Assert.assertEquals(expectedTime++, record.getTimestamp());
+      }
+    }
+    Assert.assertEquals(8, expectedTime);
+    Assert.assertNull(prefetcher.next());
+    prefetcher.close();
+  }
+
+  @Test
+  public void testFetchSizeBounds() throws Exception {
+    when(client.fetchResults(any(TSFetchResultsReq.class))).thenReturn(batch(0, 1));
+
+    ResultBatchPrefetcher prefetcher = new ResultBatchPrefetcher(client, "select", 10, 1);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(1, prefetcher.next().size());
+      Assert.assertTrue(prefetcher.getFetchSize() >= 10 / Config.prefetchFetchSizeFactor);
+      Assert.assertTrue(prefetcher.getFetchSize() <= 10 * Config.prefetchFetchSizeFactor);
+    }
+    prefetcher.close();
+  }
+
+  @Test(expected = SQLException.class)
+  public void testFetchError() throws Exception {
+    TS_Status errorStatus = new TS_Status(TS_StatusCode.ERROR_STATUS);
+    errorStatus.setErrorMessage("Has not executed statement");
+    when(client.fetchResults(any(TSFetchResultsReq.class)))
+        .thenReturn(new TSFetchResultsResp(errorStatus, false));
+
+    ResultBatchPrefetcher prefetcher = new ResultBatchPrefetcher(client, "select", 3, 2);
+    try {
+      prefetcher.next();
+    } finally {
+      prefetcher.close();
+    }
+  }
+
+  private TSFetchResultsResp batch(long startTime, int size) {
+    TSQueryDataSet dataSet = new TSQueryDataSet(new ArrayList<>());
+    for (int i = 0; i < size; i++) {
+      TSRowRecord record = new TSRowRecord();
+      record.setTimestamp(startTime + i);
+      record.setValues(new ArrayList<>());
+      dataSet.getRecords().add(record);
+    }
+    TSFetchResultsResp resp = new TSFetchResultsResp(Status_SUCCESS, true);
+    resp.setQueryDataSet(dataSet);
+    return resp;
+  }
+}
@@ -65,6 +65,10 @@ struct TSOperationHandle {
   // GetResultSetMetadata or FetchResults against
   // this OperationHandle will generate an error.
   2: required bool hasResultSet
+
+  // The server side id of the query, by which the query is cancelled.
+  // Only set if hasResultSet = TRUE.
+  3: optional i64 queryId
 }
 
 struct TSExecuteStatementResp {
@@ -73,6 +77,9 @@ struct TSExecuteStatementResp {
   // Column names in select statement of SQL
 	3: optional list<string> columns
 	4: optional string operationType
+  // The key by which the results are fetched, if it is not the executed statement. An execution of a
+  // prepared statement has a key of its own.
+	5: optional string fetchKey
 }
 
 enum TSProtocolVersion {
@@ -130,6 +137,9 @@ struct TSExecuteStatementReq {
 
   // The statement to be executed (DML, DDL, SET, etc)
   2: required string statement
+
+  // The time in milliseconds a query may run, the server default is used if it is not set or not positive
+  3: optional i64 timeout
 }
 
 
@@ -148,6 +158,51 @@ struct TSExecuteBatchStatementReq{
 }
 
 
+// PrepareStatement()
+//
+// Prepares a statement whose parameters are marked by '?'. The server keeps the optimized plan of the
+// statement in the session, so an execution only binds the parameters.
+struct TSPrepareStatementReq {
+  1: required TS_SessionHandle sessionHandle
+
+  // The statement to be prepared, a query or an insert
+  2: required string statement
+}
+
+struct TSPrepareStatementResp {
+  1: required TS_Status status
+
+  // The id of the prepared statement in the session
+  2: optional i64 statementId
+
+  3: optional i32 parameterNum
+
+  4: optional bool isQuery
+}
+
+// ExecutePreparedStatement()
+//
+// Executes a prepared statement. Its results are fetched by the fetchKey of the response.
+struct TSExecutePreparedStatementReq {
+  1: required TS_SessionHandle sessionHandle
+
+  2: required i64 statementId
+
+  // The parameters in order. A parameter compared with time or taken as the timestamp of an insert is an
+  // INT64 or a TEXT datetime.
+  3: required list<TSDataValue> parameters
+
+  // The time in milliseconds a query may run, the server default is used if it is not set or not positive
+  4: optional i64 timeout
+}
+
+struct TSClosePreparedStatementReq {
+  1: required TS_SessionHandle sessionHandle
+
+  2: required i64 statementId
+}
+
+
 struct TSGetOperationStatusReq {
   // Session to run this request against
   1: required TSOperationHandle operationHandle
@@ -263,6 +318,12 @@ service TSIService {
 
 	TSExecuteStatementResp executeUpdateStatement(1:TSExecuteStatementReq req);
 
+	TSPrepareStatementResp prepareStatement(1:TSPrepareStatementReq req);
+
+	TSExecuteStatementResp executePreparedStatement(1:TSExecutePreparedStatementReq req);
+
+	TS_Status closePreparedStatement(1:TSClosePreparedStatementReq req);
+
 	TSFetchResultsResp fetchResults(1:TSFetchResultsReq req)
 
 	TSFetchMetadataResp fetchMetadata(1:TSFetchMetadataReq req)
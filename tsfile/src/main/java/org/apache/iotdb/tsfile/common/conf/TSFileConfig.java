@@ -82,20 +82,31 @@ public class TSFileConfig {
    * Max length limitation of input string.
    */
   public static int maxStringLength = 128;
+  /**
+   * Max number of distinct values in a page encoded by PLAIN_DICTIONARY, a page with more distinct
+   * values falls back to plain encoding.
+   */
+  public static int maxDictionarySize = 1024;
+  /**
+   * Number of points sampled at the beginning of each chunk of a series encoded by AUTO, the
+   * encoding of the chunk is the one that encodes the sample into the fewest bytes.
+   */
+  public static int autoEncodingSampleSize = 1024;
   /**
    * Floating-point precision.
    */
   public static int floatPrecision = 2;
   /**
-   * Encoder of time series, TsFile supports TS_2DIFF, PLAIN and RLE(run-length encoding) Default
-   * value is TS_2DIFF.
+   * Encoder of time series, TsFile supports TS_2DIFF, PLAIN, RLE(run-length encoding) and
+   * GORILLA(delta-of-delta). Default value is TS_2DIFF.
    */
   public static String timeSeriesEncoder = "TS_2DIFF";
   /**
    * Encoder of value series. default value is PLAIN. For int, long data type, TsFile also supports
-   * TS_2DIFF and RLE(run-length encoding). For float, double data type, TsFile also supports
-   * TS_2DIFF, RLE(run-length encoding) and GORILLA. For text data type, TsFile only supports
-   * PLAIN.
+   * TS_2DIFF, RLE(run-length encoding) and GORILLA(delta-of-delta). For float, double data type,
+   * TsFile also supports TS_2DIFF, RLE(run-length encoding) and GORILLA. For text data type, TsFile
+   * supports PLAIN and PLAIN_DICTIONARY. For low-cardinality int and boolean data type, TsFile also
+   * supports BITMAP.
    */
   public static String valueEncoder = "PLAIN";
 
@@ -127,8 +138,10 @@ public class TSFileConfig {
    */
   public static double dftSatisfyRate = 0.1;
   /**
-   * Data compression method, TsFile supports UNCOMPRESSED or SNAPPY. Default value is UNCOMPRESSED
-   * which means no compression
+   * Data compression method, TsFile supports UNCOMPRESSED, SNAPPY, LZ4 or GZIP. Default value is
+   * UNCOMPRESSED which means no compression. LZ4 is the fastest codec, GZIP (DEFLATE in zlib
+   * format) has the best compression ratio but costs more CPU. It can be overridden for each series
+   * by the compressor property.
    */
   public static String compressor = "UNCOMPRESSED";
   /**
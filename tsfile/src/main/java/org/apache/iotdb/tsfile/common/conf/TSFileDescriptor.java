@@ -116,6 +116,10 @@ public class TSFileDescriptor {
           .getProperty("time_series_data_type", conf.timeSeriesDataType);
       conf.maxStringLength = Integer
           .parseInt(properties.getProperty("max_string_length", conf.maxStringLength + ""));
+      conf.maxDictionarySize = Integer
+          .parseInt(properties.getProperty("max_dictionary_size", conf.maxDictionarySize + ""));
+      conf.autoEncodingSampleSize = Integer.parseInt(properties
+          .getProperty("auto_encoding_sample_size", conf.autoEncodingSampleSize + ""));
       conf.floatPrecision = Integer
           .parseInt(properties.getProperty("float_precision", conf.floatPrecision + ""));
       conf.timeSeriesEncoder = properties
@@ -34,6 +34,7 @@ public class JsonFormatConstant {
   public static final String FREQ_TYPE = "freq_type";
   public static final String TSRECORD_SEPARATOR = ",";
   public static final String MAX_STRING_LENGTH = "max_string_length";
+  public static final String MAX_DICTIONARY_SIZE = "max_dictionary_size";
 
   public static final String ROW_GROUP_SIZE = "row_group_size";
   public static final String PAGE_SIZE = "page_size";
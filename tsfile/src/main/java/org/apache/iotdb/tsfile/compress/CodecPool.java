@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * a bounded pool of codecs such as Deflater and Inflater, which hold native memory and are
+ * expensive to create. A codec which is returned to a full pool, or left in the pool when it is
+ * cleared, is released at once instead of waiting for the garbage collector.
+ */
+class CodecPool<T> {
+
+  private final BlockingQueue<T> idleCodecs;
+  private final Supplier<T> factory;
+  private final Consumer<T> releaser;
+
+  CodecPool(int capacity, Supplier<T> factory, Consumer<T> releaser) {
+    this.idleCodecs = new ArrayBlockingQueue<>(capacity);
+    this.factory = factory;
+    this.releaser = releaser;
+  }
+
+  T borrow() {
+    T codec = idleCodecs.poll();
+    return codec == null ? factory.get() : codec;
+  }
+
+  void giveBack(T codec) {
+    if (!idleCodecs.offer(codec)) {
+      releaser.accept(codec);
+    }
+  }
+
+  /**
+   * release the idle codecs, e.g. when the codecs are not needed any more. The codecs which are
+   * borrowed at the moment are given back as usual.
+   */
+  void clear() {
+    T codec;
+    while ((codec = idleCodecs.poll()) != null) {
+      releaser.accept(codec);
+    }
+  }
+
+  int getIdleNum() {
+    return idleCodecs.size();
+  }
+}
@@ -20,8 +20,11 @@ package org.apache.iotdb.tsfile.compress;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import net.jpountz.lz4.LZ4Factory;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.xerial.snappy.Snappy;
 
 /**
@@ -48,6 +51,10 @@ public abstract class Compressor {
         return new NoCompressor();
       case SNAPPY:
         return new SnappyCompressor();
+      case LZ4:
+        return new LZ4Compressor();
+      case GZIP:
+        return new GZIPCompressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -137,4 +144,188 @@ public abstract class Compressor {
       return CompressionType.SNAPPY;
     }
   }
+
+  /**
+   * LZ4 is much faster than GZIP while the compression ratio is lower, which fits recently written
+   * data that is read and written frequently. The compressed data is prefixed with the
+   * uncompressed length stored in 4 bytes, see {@link UnCompressor.LZ4UnCompressor}.
+   */
+  public static class LZ4Compressor extends Compressor {
+
+    /**
+     * the compressor is thread safe and has no state, so it is shared by all instances.
+     */
+    private static final net.jpountz.lz4.LZ4Compressor LZ4 = LZ4Factory.fastestInstance()
+        .fastCompressor();
+
+    @Override
+    public byte[] compress(byte[] data) throws IOException {
+      if (data == null) {
+        return null;
+      }
+      byte[] compressed = new byte[getMaxBytesForCompression(data.length)];
+      int size = compress(data, 0, data.length, compressed);
+      byte[] result = new byte[size];
+      System.arraycopy(compressed, 0, result, 0, size);
+      return result;
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed) {
+      BytesUtils.intToBytes(length, compressed, 0);
+      return Integer.BYTES + LZ4
+          .compress(data, offset, length, compressed, Integer.BYTES,
+              compressed.length - Integer.BYTES);
+    }
+
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) {
+      int length = data.remaining();
+      compressed.putInt(compressed.position(), length);
+      int size = Integer.BYTES + LZ4
+          .compress(data, data.position(), length, compressed,
+              compressed.position() + Integer.BYTES,
+              compressed.remaining() - Integer.BYTES);
+      compressed.limit(compressed.position() + size);
+      return size;
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      return Integer.BYTES + LZ4.maxCompressedLength(uncompressedDataSize);
+    }
+
+    @Override
+    public CompressionType getType() {
+      return CompressionType.LZ4;
+    }
+  }
+
+  /**
+   * GZIP compresses data with DEFLATE, the algorithm of gzip, through the JDK Deflater, which
+   * trades CPU for a better compression ratio than SNAPPY and LZ4 and fits cold data. The output is
+   * a zlib stream, not a gzip file: it has no gzip header and trailer, and is prefixed with the
+   * uncompressed length stored in 4 bytes instead, see {@link UnCompressor.GZIPUnCompressor}.
+   */
+  public static class GZIPCompressor extends Compressor {
+
+    private static final CodecPool<Deflater> DEFLATERS = new CodecPool<>(
+        Runtime.getRuntime().availableProcessors(), Deflater::new, Deflater::end);
+    /**
+     * 16 default pages, the input and the output of a page share the scratch array.
+     */
+    private static final int MAX_SCRATCH_SIZE = 1 << 20;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[0]);
+
+    /**
+     * release the pooled Deflaters.
+     */
+    public static void releaseCodecs() {
+      DEFLATERS.clear();
+    }
+
+    @Override
+    public byte[] compress(byte[] data) throws IOException {
+      if (data == null) {
+        return null;
+      }
+      byte[] compressed = new byte[getMaxBytesForCompression(data.length)];
+      int size = compress(data, 0, data.length, compressed);
+      byte[] result = new byte[size];
+      System.arraycopy(compressed, 0, result, 0, size);
+      return result;
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed)
+        throws IOException {
+      return compress(data, offset, length, compressed, 0, compressed.length);
+    }
+
+    private int compress(byte[] data, int offset, int length, byte[] compressed,
+        int compressedOffset, int compressedLength) throws IOException {
+      BytesUtils.intToBytes(length, compressed, compressedOffset);
+      Deflater deflater = DEFLATERS.borrow();
+      try {
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        int size = Integer.BYTES;
+        while (!deflater.finished()) {
+          if (size == compressedLength) {
+            throw new IOException(String.format(
+                "tsfile-compression GZIPCompressor: output buffer of size %d is not enough",
+                compressedLength));
+          }
+          size += deflater.deflate(compressed, compressedOffset + size, compressedLength - size);
+        }
+        return size;
+      } finally {
+        deflater.reset();
+        DEFLATERS.giveBack(deflater);
+      }
+    }
+
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) throws IOException {
+      // Deflater works on byte arrays only, direct buffers are copied through the scratch array
+      int length = data.remaining();
+      int scratchSize = data.hasArray() ? 0 : length;
+      int outputOffset = scratchSize;
+      if (!compressed.hasArray()) {
+        scratchSize += getMaxBytesForCompression(length);
+      }
+      byte[] scratch = getScratch(scratchSize);
+
+      byte[] input;
+      int inputOffset;
+      if (data.hasArray()) {
+        input = data.array();
+        inputOffset = data.arrayOffset() + data.position();
+      } else {
+        data.duplicate().get(scratch, 0, length);
+        input = scratch;
+        inputOffset = 0;
+      }
+      int size;
+      if (compressed.hasArray()) {
+        size = compress(input, inputOffset, length, compressed.array(),
+            compressed.arrayOffset() + compressed.position(), compressed.remaining());
+      } else {
+        size = compress(input, inputOffset, length, scratch, outputOffset,
+            scratch.length - outputOffset);
+        compressed.duplicate().put(scratch, outputOffset, size);
+      }
+      compressed.limit(compressed.position() + size);
+      return size;
+    }
+
+    /**
+     * get the scratch array of this thread, which is grown to the size needed so that pages of
+     * direct buffers are not copied into new arrays. Sizes above MAX_SCRATCH_SIZE get an array of
+     * their own, so no thread keeps an unusually large page.
+     */
+    private static byte[] getScratch(int size) {
+      if (size > MAX_SCRATCH_SIZE) {
+        return new byte[size];
+      }
+      byte[] scratch = SCRATCH.get();
+      if (scratch.length < size) {
+        scratch = new byte[size];
+        SCRATCH.set(scratch);
+      }
+      return scratch;
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      // the bound of zlib (compressBound) plus the length prefix
+      return Integer.BYTES + uncompressedDataSize + (uncompressedDataSize >> 12)
+          + (uncompressedDataSize >> 14) + (uncompressedDataSize >> 25) + 13;
+    }
+
+    @Override
+    public CompressionType getType() {
+      return CompressionType.GZIP;
+    }
+  }
 }
@@ -20,8 +20,13 @@ package org.apache.iotdb.tsfile.compress;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
@@ -46,6 +51,10 @@ public abstract class UnCompressor {
         return new NoUnCompressor();
       case SNAPPY:
         return new SnappyUnCompressor();
+      case LZ4:
+        return new LZ4UnCompressor();
+      case GZIP:
+        return new GZIPUnCompressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -187,4 +196,187 @@ public abstract class UnCompressor {
       return CompressionType.SNAPPY;
     }
   }
+
+  /**
+   * base class of codecs whose compressed data is prefixed with the uncompressed length, see
+   * {@link Compressor.LZ4Compressor} and {@link Compressor.GZIPCompressor}.
+   */
+  abstract static class LengthPrefixedUnCompressor extends UnCompressor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LengthPrefixedUnCompressor.class);
+    /**
+     * 16 default pages, the input and the output of a page share the scratch array.
+     */
+    private static final int MAX_SCRATCH_SIZE = 1 << 20;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[0]);
+
+    @Override
+    public int getUncompressedLength(byte[] array, int offset, int length) {
+      return BytesUtils.bytesToInt(array, offset);
+    }
+
+    @Override
+    public int getUncompressedLength(ByteBuffer buffer) {
+      return buffer.getInt(buffer.position());
+    }
+
+    @Override
+    public byte[] uncompress(byte[] bytes) {
+      if (bytes == null) {
+        return null;
+      }
+      try {
+        byte[] uncompressed = new byte[getUncompressedLength(bytes, 0, bytes.length)];
+        uncompress(bytes, 0, bytes.length, uncompressed, 0);
+        return uncompressed;
+      } catch (IOException e) {
+        LOGGER.error("tsfile-compression {}: errors occurs when uncompress input byte",
+            getCodecName(), e);
+      }
+      return null;
+    }
+
+    @Override
+    public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset)
+        throws IOException {
+      int uncompressedLength = getUncompressedLength(byteArray, offset, length);
+      if (output.length - outOffset < uncompressedLength) {
+        throw new IOException(String.format(
+            "tsfile-compression %s: output buffer of size %d is less than %d", getCodecName(),
+            output.length - outOffset, uncompressedLength));
+      }
+      uncompress(byteArray, offset + Integer.BYTES, length - Integer.BYTES, output, outOffset,
+          uncompressedLength);
+      return uncompressedLength;
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed == null || !compressed.hasRemaining()) {
+        return 0;
+      }
+      // direct buffers are copied through the scratch array
+      int length = compressed.remaining();
+      int uncompressedLength = getUncompressedLength(compressed);
+      int scratchSize = compressed.hasArray() ? 0 : length;
+      int outputOffset = scratchSize;
+      if (!uncompressed.hasArray()) {
+        scratchSize += uncompressedLength;
+      }
+      byte[] scratch = getScratch(scratchSize);
+
+      byte[] input;
+      int inputOffset;
+      if (compressed.hasArray()) {
+        input = compressed.array();
+        inputOffset = compressed.arrayOffset() + compressed.position();
+      } else {
+        compressed.duplicate().get(scratch, 0, length);
+        input = scratch;
+        inputOffset = 0;
+      }
+      if (uncompressed.hasArray()) {
+        uncompress(input, inputOffset, length, uncompressed.array(),
+            uncompressed.arrayOffset() + uncompressed.position());
+      } else {
+        uncompress(input, inputOffset, length, scratch, outputOffset);
+        uncompressed.duplicate().put(scratch, outputOffset, uncompressedLength);
+      }
+      uncompressed.limit(uncompressed.position() + uncompressedLength);
+      return uncompressedLength;
+    }
+
+    /**
+     * get the scratch array of this thread, which is grown to the size needed so that pages of
+     * direct buffers are not copied into new arrays. Sizes above MAX_SCRATCH_SIZE get an array of
+     * their own, so no thread keeps an unusually large page.
+     */
+    private static byte[] getScratch(int size) {
+      if (size > MAX_SCRATCH_SIZE) {
+        return new byte[size];
+      }
+      byte[] scratch = SCRATCH.get();
+      if (scratch.length < size) {
+        scratch = new byte[size];
+        SCRATCH.set(scratch);
+      }
+      return scratch;
+    }
+
+    /**
+     * uncompress the data without the length prefix.
+     */
+    abstract void uncompress(byte[] input, int offset, int length, byte[] output, int outOffset,
+        int uncompressedLength) throws IOException;
+  }
+
+  public static class LZ4UnCompressor extends LengthPrefixedUnCompressor {
+
+    private static final LZ4FastDecompressor LZ4 = LZ4Factory.fastestInstance()
+        .fastDecompressor();
+
+    @Override
+    void uncompress(byte[] input, int offset, int length, byte[] output, int outOffset,
+        int uncompressedLength) throws IOException {
+      try {
+        LZ4.decompress(input, offset, output, outOffset, uncompressedLength);
+      } catch (RuntimeException e) {
+        throw new IOException("tsfile-compression LZ4UnCompressor: malformed input", e);
+      }
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.LZ4;
+    }
+  }
+
+  /**
+   * uncompresses the length prefixed zlib streams written by {@link Compressor.GZIPCompressor}.
+   */
+  public static class GZIPUnCompressor extends LengthPrefixedUnCompressor {
+
+    private static final CodecPool<Inflater> INFLATERS = new CodecPool<>(
+        Runtime.getRuntime().availableProcessors(), Inflater::new, Inflater::end);
+
+    /**
+     * release the pooled Inflaters.
+     */
+    public static void releaseCodecs() {
+      INFLATERS.clear();
+    }
+
+    @Override
+    void uncompress(byte[] input, int offset, int length, byte[] output, int outOffset,
+        int uncompressedLength) throws IOException {
+      Inflater inflater = INFLATERS.borrow();
+      try {
+        inflater.setInput(input, offset, length);
+        int size = 0;
+        while (size < uncompressedLength && !inflater.finished()) {
+          int inflated = inflater
+              .inflate(output, outOffset + size, uncompressedLength - size);
+          if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          size += inflated;
+        }
+        if (size != uncompressedLength) {
+          throw new IOException(String.format(
+              "tsfile-compression GZIPUnCompressor: expected %d bytes but got %d",
+              uncompressedLength, size));
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("tsfile-compression GZIPUnCompressor: malformed input", e);
+      } finally {
+        inflater.reset();
+        INFLATERS.giveBack(inflater);
+      }
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.GZIP;
+    }
+  }
 }
@@ -38,7 +38,6 @@ import org.slf4j.LoggerFactory;
  * Decoder switch or enums value using bitmap, bitmap-encoding:. {@code <length> <num>
  * <encoded-data>}
  */
-@Deprecated
 public class BitmapDecoder extends Decoder {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BitmapDecoder.class);
@@ -68,6 +67,11 @@ public class BitmapDecoder extends Decoder {
    */
   private Map<Integer, byte[]> buffer;
 
+  /**
+   * values of current page resolved from the bitmap index.
+   */
+  private int[] decodedValues = new int[0];
+
   /**
    * BitmapDecoder constructor.
    *
@@ -93,15 +97,7 @@ public class BitmapDecoder extends Decoder {
             length, number, currentCount, this.buffer, e);
       }
     }
-    int result = 0;
-    int index = (number - currentCount) / 8;
-    int offset = 7 - ((number - currentCount) % 8);
-    for (Map.Entry<Integer, byte[]> entry : this.buffer.entrySet()) {
-      byte[] tmp = entry.getValue();
-      if ((tmp[index] & ((byte) 1 << offset)) != 0) {
-        result = entry.getKey();
-      }
-    }
+    int result = decodedValues[number - currentCount];
     currentCount--;
     return result;
   }
@@ -116,7 +112,8 @@ public class BitmapDecoder extends Decoder {
   }
 
   /**
-   * Decode all data from buffer and save them.
+   * Decode all data from buffer and save them. Values are also resolved from the bitmaps once, so
+   * that reading a value doesn't have to probe the bitmap of every distinct value.
    */
   private void readNext() throws IOException {
     int len = (this.number + 7) / 8;
@@ -126,6 +123,18 @@ public class BitmapDecoder extends Decoder {
       byteCache.get(tmp, 0, len);
       buffer.put(value, tmp);
     }
+    if (decodedValues.length < number) {
+      decodedValues = new int[number];
+    }
+    for (Map.Entry<Integer, byte[]> entry : buffer.entrySet()) {
+      int value = entry.getKey();
+      byte[] bitmap = entry.getValue();
+      for (int i = 0; i < number; i++) {
+        if ((bitmap[i / 8] & (1 << (7 - (i % 8)))) != 0) {
+          decodedValues[i] = value;
+        }
+      }
+    }
     currentCount = number;
   }
 
@@ -201,14 +210,13 @@ public class BitmapDecoder extends Decoder {
   }
 
   /**
-   * In current version, boolean value is equal to Enums value in schema.
+   * boolean value is encoded as 1 for true and 0 for false.
    *
    * @param buffer : decoded data saved in InputStream
-   * @throws TsFileDecodingException cannot read next value
    */
   @Override
   public boolean readBoolean(ByteBuffer buffer) {
-    throw new TsFileDecodingException("Method readBoolean is not supported by BitmapDecoder");
+    return readInt(buffer) != 0;
   }
 
   @Override
@@ -63,6 +63,15 @@ public abstract class Decoder {
       return new SinglePrecisionDecoder();
     } else if (type == TSEncoding.GORILLA && dataType == TSDataType.DOUBLE) {
       return new DoublePrecisionDecoder();
+    } else if (type == TSEncoding.GORILLA && dataType == TSDataType.INT32) {
+      return new DeltaOfDeltaDecoder.IntDeltaOfDeltaDecoder();
+    } else if (type == TSEncoding.GORILLA && dataType == TSDataType.INT64) {
+      return new DeltaOfDeltaDecoder.LongDeltaOfDeltaDecoder();
+    } else if (type == TSEncoding.PLAIN_DICTIONARY && dataType == TSDataType.TEXT) {
+      return new DictionaryDecoder();
+    } else if (type == TSEncoding.BITMAP && (dataType == TSDataType.INT32
+        || dataType == TSDataType.BOOLEAN)) {
+      return new BitmapDecoder(EndianType.LITTLE_ENDIAN);
     } else {
       throw new TsFileDecodingException(
           "Decoder not found:" + type + " , DataType is :" + dataType);
@@ -101,6 +110,66 @@ public abstract class Decoder {
     throw new TsFileDecodingException("Method readBigDecimal is not supproted by Decoder");
   }
 
+  /**
+   * decode values into the given array, starting from index 0, until the array is full or there
+   * is no value left. Subclasses override it to decode a batch without a virtual call per value.
+   *
+   * @param buffer encoded data
+   * @param values array to fill
+   * @return number of values decoded
+   */
+  public int decodeLongs(ByteBuffer buffer, long[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && hasNext(buffer)) {
+      values[count++] = readLong(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #decodeLongs(ByteBuffer, long[])}.
+   */
+  public int decodeInts(ByteBuffer buffer, int[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && hasNext(buffer)) {
+      values[count++] = readInt(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #decodeLongs(ByteBuffer, long[])}.
+   */
+  public int decodeBooleans(ByteBuffer buffer, boolean[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && hasNext(buffer)) {
+      values[count++] = readBoolean(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #decodeLongs(ByteBuffer, long[])}.
+   */
+  public int decodeFloats(ByteBuffer buffer, float[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && hasNext(buffer)) {
+      values[count++] = readFloat(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * see {@link #decodeLongs(ByteBuffer, long[])}.
+   */
+  public int decodeDoubles(ByteBuffer buffer, double[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && hasNext(buffer)) {
+      values[count++] = readDouble(buffer);
+    }
+    return count;
+  }
+
   public abstract boolean hasNext(ByteBuffer buffer) throws IOException;
 
   public abstract void reset();
@@ -116,6 +116,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    /**
+     * copy decoded values of each pack in bulk instead of reading them one by one.
+     */
+    @Override
+    public int decodeInts(ByteBuffer buffer, int[] values) {
+      int count = 0;
+      while (count < values.length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (buffer.remaining() == 0) {
+            break;
+          }
+          values[count++] = loadIntBatch(buffer);
+          continue;
+        }
+        int length = Math.min(values.length - count, readIntTotalCount - nextReadIndex);
+        System.arraycopy(data, nextReadIndex, values, count, length);
+        nextReadIndex += length;
+        count += length;
+      }
+      return count;
+    }
+
     /**
      * if remaining data has been run out, load next pack from InputStream.
      *
@@ -232,6 +254,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    /**
+     * copy decoded values of each pack in bulk instead of reading them one by one.
+     */
+    @Override
+    public int decodeLongs(ByteBuffer buffer, long[] values) {
+      int count = 0;
+      while (count < values.length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (buffer.remaining() == 0) {
+            break;
+          }
+          values[count++] = loadIntBatch(buffer);
+          continue;
+        }
+        int length = Math.min(values.length - count, readIntTotalCount - nextReadIndex);
+        System.arraycopy(data, nextReadIndex, values, count, length);
+        nextReadIndex += length;
+        count += length;
+      }
+      return count;
+    }
+
     @Override
     protected void readHeader(ByteBuffer buffer) {
       minDeltaBase = ReadWriteIOUtils.readLong(buffer);
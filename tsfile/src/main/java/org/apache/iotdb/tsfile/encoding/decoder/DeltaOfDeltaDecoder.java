@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.tsfile.encoding.encoder.DeltaOfDeltaEncoder;
+import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * Decoder for values encoded by {@link DeltaOfDeltaEncoder}.
+ */
+public abstract class DeltaOfDeltaDecoder extends GorillaDecoder {
+
+  private static final int[] BUCKET_BITS = {7, 9, 12};
+
+  /**
+   * number of values left in current page.
+   */
+  protected int currentCount;
+  private long preValue;
+  private long preDelta;
+
+  @Override
+  public void reset() {
+    super.reset();
+    currentCount = 0;
+  }
+
+  @Override
+  public boolean hasNext(ByteBuffer buffer) throws IOException {
+    return currentCount > 0 || buffer.remaining() > 0;
+  }
+
+  protected long readValue(ByteBuffer buffer) {
+    if (currentCount == 0) {
+      readHeader(buffer);
+      currentCount--;
+      return preValue;
+    }
+    long delta = preDelta + readDeltaOfDelta(buffer);
+    preValue += delta;
+    preDelta = delta;
+    currentCount--;
+    if (currentCount == 0) {
+      // the encoded data of a page is padded to a full byte
+      numberLeftInBuffer = 0;
+    }
+    return preValue;
+  }
+
+  private void readHeader(ByteBuffer buffer) {
+    currentCount = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    long firstValue = 0;
+    for (int i = 0; i < 8; i++) {
+      firstValue |= ((long) ReadWriteIOUtils.read(buffer)) << (i * 8);
+    }
+    preValue = firstValue;
+    preDelta = 0;
+    numberLeftInBuffer = 0;
+  }
+
+  private long readDeltaOfDelta(ByteBuffer buffer) {
+    try {
+      if (!readBit(buffer)) {
+        return 0;
+      }
+      for (int bits : BUCKET_BITS) {
+        if (!readBit(buffer)) {
+          return signExtend(readLongFromStream(buffer, bits), bits);
+        }
+      }
+      return readLongFromStream(buffer, Long.SIZE);
+    } catch (IOException e) {
+      throw new TsFileDecodingException(
+          "tsfile-encoding DeltaOfDeltaDecoder: cannot read delta of delta: " + e.getMessage());
+    }
+  }
+
+  private static long signExtend(long value, int bits) {
+    return (value << (Long.SIZE - bits)) >> (Long.SIZE - bits);
+  }
+
+  @Override
+  public int decodeLongs(ByteBuffer buffer, long[] values) {
+    int count = 0;
+    while (count < values.length && (currentCount > 0 || buffer.remaining() > 0)) {
+      values[count++] = readValue(buffer);
+    }
+    return count;
+  }
+
+  public static class IntDeltaOfDeltaDecoder extends DeltaOfDeltaDecoder {
+
+    @Override
+    public int readInt(ByteBuffer buffer) {
+      return (int) readValue(buffer);
+    }
+
+    @Override
+    public int decodeInts(ByteBuffer buffer, int[] values) {
+      int count = 0;
+      while (count < values.length && (currentCount > 0 || buffer.remaining() > 0)) {
+        values[count++] = (int) readValue(buffer);
+      }
+      return count;
+    }
+  }
+
+  public static class LongDeltaOfDeltaDecoder extends DeltaOfDeltaDecoder {
+
+    @Override
+    public long readLong(ByteBuffer buffer) {
+      return readValue(buffer);
+    }
+  }
+}
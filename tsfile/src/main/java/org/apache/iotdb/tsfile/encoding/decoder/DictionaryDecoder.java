@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.tsfile.encoding.common.EndianType;
+import org.apache.iotdb.tsfile.encoding.encoder.DictionaryEncoder;
+import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * Decoder for TEXT values encoded by {@link DictionaryEncoder}. Besides {@link
+ * #readBinary(ByteBuffer)}, it exposes the dictionary of the current page and the raw dictionary
+ * ids, so that a reader can evaluate value predicates once per distinct value instead of once per
+ * point.
+ */
+public class DictionaryDecoder extends Decoder {
+
+  /**
+   * whether the mode and number of current block have been read.
+   */
+  private boolean isHeaderRead;
+
+  /**
+   * number of values left in current block.
+   */
+  private int currentCount;
+
+  /**
+   * dictionary of current block, null if the block is plain encoded.
+   */
+  private Binary[] dictionary;
+
+  private IntRleDecoder idDecoder;
+
+  private PlainDecoder plainDecoder;
+
+  public DictionaryDecoder() {
+    super(TSEncoding.PLAIN_DICTIONARY);
+    this.idDecoder = new IntRleDecoder(EndianType.LITTLE_ENDIAN);
+    this.plainDecoder = new PlainDecoder(EndianType.LITTLE_ENDIAN);
+    reset();
+  }
+
+  @Override
+  public Binary readBinary(ByteBuffer buffer) {
+    readHeaderIfNecessary(buffer);
+    Binary result;
+    if (dictionary != null) {
+      result = dictionary[idDecoder.readInt(buffer)];
+    } else {
+      result = plainDecoder.readBinary(buffer);
+    }
+    finishOneValue();
+    return result;
+  }
+
+  /**
+   * get the dictionary of the block that the next value belongs to.
+   *
+   * @param buffer encoded data
+   * @return the dictionary indexed by dictionary id, or null if the block is plain encoded
+   */
+  public Binary[] readDictionary(ByteBuffer buffer) {
+    readHeaderIfNecessary(buffer);
+    return dictionary;
+  }
+
+  /**
+   * read the dictionary id of the next value. Only valid when {@link #readDictionary(ByteBuffer)}
+   * returns non-null for the current block.
+   *
+   * @param buffer encoded data
+   * @return dictionary id of the next value
+   */
+  public int readDictionaryId(ByteBuffer buffer) {
+    readHeaderIfNecessary(buffer);
+    if (dictionary == null) {
+      throw new TsFileDecodingException(
+          "tsfile-encoding DictionaryDecoder: current block is not dictionary encoded");
+    }
+    int id = idDecoder.readInt(buffer);
+    finishOneValue();
+    return id;
+  }
+
+  private void readHeaderIfNecessary(ByteBuffer buffer) {
+    if (isHeaderRead) {
+      return;
+    }
+    byte mode = (byte) ReadWriteIOUtils.read(buffer);
+    currentCount = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    if (mode == DictionaryEncoder.DICTIONARY_MODE) {
+      int dictionarySize = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+      dictionary = new Binary[dictionarySize];
+      for (int i = 0; i < dictionarySize; i++) {
+        int length = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        dictionary[i] = new Binary(bytes);
+      }
+      idDecoder.reset();
+    } else if (mode == DictionaryEncoder.PLAIN_MODE) {
+      dictionary = null;
+    } else {
+      throw new TsFileDecodingException(
+          String.format("tsfile-encoding DictionaryDecoder: unknown mode %d", mode));
+    }
+    isHeaderRead = true;
+  }
+
+  private void finishOneValue() {
+    currentCount--;
+    if (currentCount == 0) {
+      isHeaderRead = false;
+      dictionary = null;
+    }
+  }
+
+  @Override
+  public boolean hasNext(ByteBuffer buffer) throws IOException {
+    return currentCount > 0 || buffer.remaining() > 0;
+  }
+
+  @Override
+  public void reset() {
+    isHeaderRead = false;
+    currentCount = 0;
+    dictionary = null;
+    idDecoder.reset();
+  }
+}
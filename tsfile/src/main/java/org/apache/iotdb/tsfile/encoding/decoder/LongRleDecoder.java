@@ -20,6 +20,7 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.iotdb.tsfile.encoding.bitpacking.LongPacker;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
@@ -97,6 +98,43 @@ public class LongRleDecoder extends RleDecoder {
     return result;
   }
 
+  /**
+   * fill a whole rle run or copy a whole bit-packed run at a time.
+   */
+  @Override
+  public int decodeLongs(ByteBuffer buffer, long[] values) throws IOException {
+    int count = 0;
+    while (count < values.length) {
+      if (!isLengthAndBitWidthReaded) {
+        if (buffer.remaining() == 0) {
+          break;
+        }
+        readLengthAndBitWidth(buffer);
+      }
+      if (currentCount == 0) {
+        readNext();
+      }
+      int num = Math.min(currentCount, values.length - count);
+      switch (mode) {
+        case RLE:
+          Arrays.fill(values, count, count + num, currentValue);
+          break;
+        case BIT_PACKED:
+          System.arraycopy(currentBuffer, bitPackingNum - currentCount, values, count, num);
+          break;
+        default:
+          throw new TsFileDecodingException(
+              String.format("tsfile-encoding LongRleDecoder: not a valid mode %s", mode));
+      }
+      currentCount -= num;
+      count += num;
+      if (!hasNextPackage()) {
+        isLengthAndBitWidthReaded = false;
+      }
+    }
+    return count;
+  }
+
   @Override
   protected void initPacker() {
     packer = new LongPacker(bitWidth);
@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -104,6 +105,61 @@ public class PlainDecoder extends Decoder {
     return Double.longBitsToDouble(readLong(buffer));
   }
 
+  /**
+   * values are stored in fixed width, so a batch can be copied through a little endian view of the
+   * buffer instead of being assembled byte by byte.
+   */
+  @Override
+  public int decodeLongs(ByteBuffer buffer, long[] values) {
+    int count = Math.min(values.length, buffer.remaining() / 8);
+    littleEndianView(buffer).asLongBuffer().get(values, 0, count);
+    buffer.position(buffer.position() + count * 8);
+    return count;
+  }
+
+  @Override
+  public int decodeDoubles(ByteBuffer buffer, double[] values) {
+    int count = Math.min(values.length, buffer.remaining() / 8);
+    littleEndianView(buffer).asDoubleBuffer().get(values, 0, count);
+    buffer.position(buffer.position() + count * 8);
+    return count;
+  }
+
+  @Override
+  public int decodeInts(ByteBuffer buffer, int[] values) throws IOException {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      return super.decodeInts(buffer, values);
+    }
+    int count = Math.min(values.length, buffer.remaining() / 4);
+    littleEndianView(buffer).asIntBuffer().get(values, 0, count);
+    buffer.position(buffer.position() + count * 4);
+    return count;
+  }
+
+  @Override
+  public int decodeFloats(ByteBuffer buffer, float[] values) throws IOException {
+    if (endianType != EndianType.LITTLE_ENDIAN) {
+      return super.decodeFloats(buffer, values);
+    }
+    int count = Math.min(values.length, buffer.remaining() / 4);
+    littleEndianView(buffer).asFloatBuffer().get(values, 0, count);
+    buffer.position(buffer.position() + count * 4);
+    return count;
+  }
+
+  @Override
+  public int decodeBooleans(ByteBuffer buffer, boolean[] values) {
+    int count = Math.min(values.length, buffer.remaining());
+    for (int i = 0; i < count; i++) {
+      values[i] = buffer.get() != 0;
+    }
+    return count;
+  }
+
+  private static ByteBuffer littleEndianView(ByteBuffer buffer) {
+    return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
   @Override
   public Binary readBinary(ByteBuffer buffer) {
     int length = readInt(buffer);
@@ -44,8 +44,9 @@ import org.slf4j.LoggerFactory;
  * bit-index := a list of 01 sequence to record the position of the value above
  * }
  * </pre>.
+ * Bitmap encoding only pays off for low-cardinality INT32 or BOOLEAN series, since every distinct
+ * value of a page costs one bit per point.
  */
-@Deprecated
 public class BitmapEncoder extends Encoder {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BitmapEncoder.class);
@@ -55,6 +56,11 @@ public class BitmapEncoder extends Encoder {
    */
   private List<Integer> values;
 
+  /**
+   * distinct values in {@code values}.
+   */
+  private Set<Integer> valueType;
+
   /**
    * BitmapEncoder constructor.
    *
@@ -63,6 +69,7 @@ public class BitmapEncoder extends Encoder {
   public BitmapEncoder(EndianType endianType) {
     super(TSEncoding.BITMAP);
     this.values = new ArrayList<Integer>();
+    this.valueType = new HashSet<Integer>();
     LOGGER.debug("tsfile-encoding BitmapEncoder: init bitmap encoder");
   }
 
@@ -79,6 +86,12 @@ public class BitmapEncoder extends Encoder {
   @Override
   public void encode(int value, ByteArrayOutputStream out) throws IOException {
     values.add(value);
+    valueType.add(value);
+  }
+
+  @Override
+  public void encode(boolean value, ByteArrayOutputStream out) throws IOException {
+    encode(value ? 1 : 0, out);
   }
 
   /**
@@ -92,7 +105,6 @@ public class BitmapEncoder extends Encoder {
   public void flush(ByteArrayOutputStream out) throws IOException {
     // byteCache stores all <encoded-data> and we know its size
     ByteArrayOutputStream byteCache = new ByteArrayOutputStream();
-    Set<Integer> valueType = new HashSet<Integer>(values);
     int byteNum = (values.size() + 7) / 8;
     if (byteNum == 0) {
       reset();
@@ -121,6 +133,7 @@ public class BitmapEncoder extends Encoder {
 
   private void reset() {
     values.clear();
+    valueType.clear();
   }
 
   @Override
@@ -130,7 +143,7 @@ public class BitmapEncoder extends Encoder {
 
   @Override
   public long getMaxByteSize() {
-    // byteCacheSize + byteDictSize + (byte array + array length) * byteDictSize
-    return 4 + 4 + ((values.size() + 7) / 8 + 4) * values.size();
+    // byteCacheSize + byteDictSize + (byte array + value) * distinct value number
+    return 4 + 4 + ((values.size() + 7) / 8 + 4) * (long) valueType.size();
   }
 }
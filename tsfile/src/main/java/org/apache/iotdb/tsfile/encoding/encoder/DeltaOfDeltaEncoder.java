@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+
+/**
+ * Gorilla delta-of-delta encoding for INT32 and INT64 values, mostly used for timestamps. For
+ * nearly regular timestamps most deltas-of-deltas are 0 and take only one bit. Encoded data of a
+ * page follows the grammar:
+ *
+ * <pre>
+ * {@code
+ * delta-of-delta-encoding: <num> <first-value> <encoded-data>
+ * num := number of values stored as unsigned var int
+ * first-value := first value stored as 8 bytes little endian
+ * encoded-data := <dod>* padded with '0' to a full byte
+ * dod := '0' | '10' 7bits | '110' 9bits | '1110' 12bits | '1111' 64bits
+ * }
+ * </pre>
+ *
+ * Delta-of-delta values in the buckets are stored in two's complement, the delta before the
+ * second value is regarded as 0.
+ */
+public abstract class DeltaOfDeltaEncoder extends GorillaEncoder {
+
+  private static final int[] BUCKET_BITS = {7, 9, 12};
+
+  /**
+   * bits of delta-of-delta values, the header is written in {@link #flush}.
+   */
+  private PublicBAOS bitOut;
+  private int valueCount;
+  private long firstValue;
+  private long preValue;
+  private long preDelta;
+
+  public DeltaOfDeltaEncoder() {
+    this.bitOut = new PublicBAOS();
+  }
+
+  protected void encodeValue(long value) {
+    if (valueCount == 0) {
+      firstValue = value;
+      preDelta = 0;
+    } else {
+      long delta = value - preValue;
+      writeDeltaOfDelta(delta - preDelta);
+      preDelta = delta;
+    }
+    preValue = value;
+    valueCount++;
+  }
+
+  private void writeDeltaOfDelta(long deltaOfDelta) {
+    if (deltaOfDelta == 0) {
+      writeBit(false, bitOut);
+      return;
+    }
+    for (int bits : BUCKET_BITS) {
+      writeBit(true, bitOut);
+      if (deltaOfDelta >= -(1L << (bits - 1)) && deltaOfDelta < (1L << (bits - 1))) {
+        writeBit(false, bitOut);
+        writeBits(deltaOfDelta, bits);
+        return;
+      }
+    }
+    writeBit(true, bitOut);
+    writeBits(deltaOfDelta, Long.SIZE);
+  }
+
+  /**
+   * write the lowest len bits of value, from high to low.
+   */
+  private void writeBits(long value, int len) {
+    for (int i = len - 1; i >= 0; i--) {
+      writeBit((value >>> i) & 1, bitOut);
+    }
+  }
+
+  @Override
+  public void flush(ByteArrayOutputStream out) throws IOException {
+    if (valueCount == 0) {
+      return;
+    }
+    clearBuffer(bitOut);
+    ReadWriteForEncodingUtils.writeUnsignedVarInt(valueCount, out);
+    for (int i = 0; i < 8; i++) {
+      out.write((int) ((firstValue >> (i * 8)) & 0xFF));
+    }
+    out.write(bitOut.getBuf(), 0, bitOut.size());
+    reset();
+  }
+
+  @Override
+  protected void reset() {
+    super.reset();
+    bitOut.reset();
+    valueCount = 0;
+  }
+
+  @Override
+  public int getOneItemMaxSize() {
+    // '1111' + 64bit = 68bit
+    return 9;
+  }
+
+  @Override
+  public long getMaxByteSize() {
+    // num + first value + written bits + bits in buffer
+    return 5 + 8 + bitOut.size() + 1;
+  }
+
+  public static class IntDeltaOfDeltaEncoder extends DeltaOfDeltaEncoder {
+
+    @Override
+    public void encode(int value, ByteArrayOutputStream out) {
+      encodeValue(value);
+    }
+  }
+
+  public static class LongDeltaOfDeltaEncoder extends DeltaOfDeltaEncoder {
+
+    @Override
+    public void encode(long value, ByteArrayOutputStream out) {
+      encodeValue(value);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.encoding.common.EndianType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+
+/**
+ * Encodes TEXT values of a page with a page-level dictionary, according to the following grammar:
+ *
+ * <pre>
+ * {@code
+ * dictionary-encoding: <mode> <num> <encoded-data>
+ * mode := 0 for plain fallback, 1 for dictionary, stored as one byte
+ * num := number of values in <encoded-data> stored as unsigned var int
+ * encoded-data := <plain-data> | <dictionary-data>
+ * plain-data := values encoded the same way as PlainEncoder
+ * dictionary-data := <dictionary-size> <entry>* <ids>
+ * dictionary-size := number of distinct values stored as unsigned var int
+ * entry := <length> <bytes>, length is stored as unsigned var int
+ * ids := dictionary ids of all values, encoded by IntRleEncoder
+ * }
+ * </pre>
+ *
+ * Values are buffered until {@link #flush(ByteArrayOutputStream)}, so that the encoder can fall
+ * back to plain encoding when the page has too many distinct values or when the dictionary would
+ * not be smaller than the plain representation.
+ */
+public class DictionaryEncoder extends Encoder {
+
+  public static final byte PLAIN_MODE = 0;
+  public static final byte DICTIONARY_MODE = 1;
+
+  private final int maxDictionarySize;
+  private final int maxStringLength;
+
+  /**
+   * all values of current page.
+   */
+  private List<Binary> values;
+
+  /**
+   * value -> dictionary id, in the order the values first appear.
+   */
+  private Map<Binary, Integer> dictionary;
+
+  /**
+   * dictionary id of each buffered value.
+   */
+  private List<Integer> ids;
+
+  /**
+   * size of the buffered values if they were plain encoded.
+   */
+  private long plainSize;
+
+  /**
+   * size of the dictionary entries.
+   */
+  private long dictionaryEntrySize;
+
+  public DictionaryEncoder(int maxDictionarySize, int maxStringLength) {
+    super(TSEncoding.PLAIN_DICTIONARY);
+    this.maxDictionarySize = maxDictionarySize;
+    this.maxStringLength = maxStringLength;
+    this.values = new ArrayList<>();
+    this.dictionary = new HashMap<>();
+    this.ids = new ArrayList<>();
+  }
+
+  @Override
+  public void encode(Binary value, ByteArrayOutputStream out) {
+    values.add(value);
+    plainSize += 4 + value.getLength();
+    Integer id = dictionary.get(value);
+    if (id == null) {
+      id = dictionary.size();
+      dictionary.put(value, id);
+      dictionaryEntrySize += 5 + value.getLength();
+    }
+    ids.add(id);
+  }
+
+  @Override
+  public void flush(ByteArrayOutputStream out) throws IOException {
+    if (values.isEmpty()) {
+      return;
+    }
+    if (useDictionary()) {
+      out.write(DICTIONARY_MODE);
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(values.size(), out);
+      Binary[] entries = new Binary[dictionary.size()];
+      for (Map.Entry<Binary, Integer> entry : dictionary.entrySet()) {
+        entries[entry.getValue()] = entry.getKey();
+      }
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(entries.length, out);
+      for (Binary entry : entries) {
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(entry.getLength(), out);
+        out.write(entry.values);
+      }
+      IntRleEncoder idEncoder = new IntRleEncoder(EndianType.LITTLE_ENDIAN);
+      for (int id : ids) {
+        idEncoder.encode(id, out);
+      }
+      idEncoder.flush(out);
+    } else {
+      out.write(PLAIN_MODE);
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(values.size(), out);
+      PlainEncoder plainEncoder = new PlainEncoder(EndianType.LITTLE_ENDIAN, TSDataType.TEXT,
+          maxStringLength);
+      for (Binary value : values) {
+        plainEncoder.encode(value, out);
+      }
+    }
+    reset();
+  }
+
+  /**
+   * the dictionary is used only if it is small enough and makes the page smaller.
+   */
+  private boolean useDictionary() {
+    if (dictionary.size() > maxDictionarySize) {
+      return false;
+    }
+    int idBitWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionary.size() - 1));
+    long idSize = ((long) values.size() * idBitWidth + 7) / 8;
+    return dictionaryEntrySize + idSize < plainSize;
+  }
+
+  private void reset() {
+    values.clear();
+    dictionary.clear();
+    ids.clear();
+    plainSize = 0;
+    dictionaryEntrySize = 0;
+  }
+
+  @Override
+  public int getOneItemMaxSize() {
+    // refer to PlainEncoder, the plain fallback is the worst case
+    return 4 + TSFileConfig.BYTE_SIZE_PER_CHAR * maxStringLength;
+  }
+
+  @Override
+  public long getMaxByteSize() {
+    // mode + num + the larger of plain data and dictionary data with ids
+    return 1 + 5 + Math.max(plainSize, 5 + dictionaryEntrySize + 4L * values.size());
+  }
+}
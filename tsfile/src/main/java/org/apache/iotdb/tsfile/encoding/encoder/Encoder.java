@@ -35,6 +35,7 @@ public abstract class Encoder {
 
   public static final String MAX_STRING_LENGTH = "max_string_length";
   public static final String MAX_POINT_NUMBER = "max_point_number";
+  public static final String MAX_DICTIONARY_SIZE = "max_dictionary_size";
 
   public TSEncoding type;
 
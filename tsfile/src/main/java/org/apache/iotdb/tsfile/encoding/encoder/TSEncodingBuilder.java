@@ -61,6 +61,12 @@ public abstract class TSEncodingBuilder {
         return new TS_2DIFF();
       case GORILLA:
         return new GORILLA();
+      case PLAIN_DICTIONARY:
+        return new PLAIN_DICTIONARY();
+      case BITMAP:
+        return new BITMAP();
+      case AUTO:
+        return new AUTO();
       default:
         throw new UnsupportedOperationException(type.toString());
     }
@@ -215,7 +221,7 @@ public abstract class TSEncodingBuilder {
   }
 
   /**
-   * for ENUMS.
+   * for FLOAT, DOUBLE, and INT32, INT64 (including the time column) with delta-of-delta.
    */
   public static class GORILLA extends TSEncodingBuilder {
 
@@ -226,6 +232,10 @@ public abstract class TSEncodingBuilder {
           return new SinglePrecisionEncoder();
         case DOUBLE:
           return new DoublePrecisionEncoder();
+        case INT32:
+          return new DeltaOfDeltaEncoder.IntDeltaOfDeltaEncoder();
+        case INT64:
+          return new DeltaOfDeltaEncoder.LongDeltaOfDeltaEncoder();
         default:
           throw new UnSupportedDataTypeException("GORILLA doesn't support data type: " + type);
       }
@@ -237,4 +247,80 @@ public abstract class TSEncodingBuilder {
     }
 
   }
+
+  /**
+   * for TEXT.
+   */
+  public static class PLAIN_DICTIONARY extends TSEncodingBuilder {
+
+    private int maxDictionarySize = conf.maxDictionarySize;
+    private int maxStringLength = conf.maxStringLength;
+
+    @Override
+    public Encoder getEncoder(TSDataType type) {
+      if (type == TSDataType.TEXT) {
+        return new DictionaryEncoder(maxDictionarySize, maxStringLength);
+      }
+      throw new UnSupportedDataTypeException("PLAIN_DICTIONARY doesn't support data type: " + type);
+    }
+
+    /**
+     * PLAIN_DICTIONARY could specify <b>max_dictionary_size</b>, a page with more distinct values
+     * falls back to plain encoding.
+     */
+    @Override
+    public void initFromProps(Map<String, String> props) {
+      if (props == null || !props.containsKey(Encoder.MAX_DICTIONARY_SIZE)) {
+        maxDictionarySize = conf.maxDictionarySize;
+      } else {
+        maxDictionarySize = Integer.valueOf(props.get(Encoder.MAX_DICTIONARY_SIZE));
+        if (maxDictionarySize < 0) {
+          maxDictionarySize = conf.maxDictionarySize;
+          LOG.warn(
+              "cannot set max dictionary size to negative value, replaced with default value:{}",
+              maxDictionarySize);
+        }
+      }
+      if (props != null && props.containsKey(Encoder.MAX_STRING_LENGTH)) {
+        maxStringLength = Integer.valueOf(props.get(Encoder.MAX_STRING_LENGTH));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return JsonFormatConstant.MAX_DICTIONARY_SIZE + ":" + maxDictionarySize;
+    }
+  }
+
+  /**
+   * for low-cardinality INT32, BOOLEAN.
+   */
+  public static class BITMAP extends TSEncodingBuilder {
+
+    @Override
+    public Encoder getEncoder(TSDataType type) {
+      switch (type) {
+        case INT32:
+        case BOOLEAN:
+          return new BitmapEncoder(EndianType.LITTLE_ENDIAN);
+        default:
+          throw new UnSupportedDataTypeException("BITMAP doesn't support data type: " + type);
+      }
+    }
+
+    @Override
+    public void initFromProps(Map<String, String> props) {
+
+    }
+
+  }
+
+  /**
+   * for all TSDataType. The encoding of each chunk is chosen by {@linkplain
+   * org.apache.iotdb.tsfile.write.chunk.EncodingSelector EncodingSelector} when the chunk is
+   * written, the encoder returned here is PLAIN and only used by writers that do not choose.
+   */
+  public static class AUTO extends PLAIN {
+
+  }
 }
@@ -49,7 +49,7 @@ public class ChunkMetaData {
    * The maximum time of the tombstones that take effect on this chunk. Only data with larger.
    * timestamps than this should be exposed to user.
    */
-  private long maxTombstoneTime;
+  private long maxTombstoneTime = Long.MIN_VALUE;
 
   private TsDigest valuesStatistics;
 
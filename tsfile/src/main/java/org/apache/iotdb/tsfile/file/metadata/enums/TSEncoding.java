@@ -20,7 +20,12 @@ package org.apache.iotdb.tsfile.file.metadata.enums;
 
 public enum TSEncoding {
 
-  PLAIN, PLAIN_DICTIONARY, RLE, DIFF, TS_2DIFF, BITMAP, GORILLA;
+  PLAIN, PLAIN_DICTIONARY, RLE, DIFF, TS_2DIFF, BITMAP, GORILLA,
+  /**
+   * the encoding of each chunk is chosen when the chunk is written, so AUTO only appears in
+   * schemas and never in a ChunkHeader.
+   */
+  AUTO;
 
   /**
    * judge the encoding deserialize type.
@@ -44,6 +49,8 @@ public enum TSEncoding {
         return BITMAP;
       case 6:
         return GORILLA;
+      case 7:
+        return AUTO;
       default:
         return PLAIN;
     }
@@ -74,6 +81,8 @@ public enum TSEncoding {
         return 5;
       case GORILLA:
         return 6;
+      case AUTO:
+        return 7;
       default:
         return 0;
     }
@@ -267,6 +267,10 @@ public class TsFileSequenceReader {
     return tsFileInput.position();
   }
 
+  /**
+   * read and uncompress a page. The page is returned in a new buffer owned by the caller, only
+   * ChunkReader reads pages into reused buffers.
+   */
   public ByteBuffer readPage(PageHeader header, CompressionType type) throws IOException {
     return readPage(header, type, -1);
   }
@@ -274,18 +278,21 @@ public class TsFileSequenceReader {
   private ByteBuffer readPage(PageHeader header, CompressionType type, long position)
       throws IOException {
     ByteBuffer buffer = readData(position, header.getCompressedSize());
+    if (type == CompressionType.UNCOMPRESSED) {
+      return buffer;
+    }
     UnCompressor unCompressor = UnCompressor.getUnCompressor(type);
-    ByteBuffer uncompressedBuffer = ByteBuffer.allocate(header.getUncompressedSize());
-    switch (type) {
-      case UNCOMPRESSED:
-        return buffer;
-      default:
-        // FIXME if the buffer is not array-implemented.
-        unCompressor.uncompress(buffer.array(), buffer.position(), buffer.remaining(),
-            uncompressedBuffer.array(),
-            0);
-        return uncompressedBuffer;
+    // the uncompressed page is returned to the caller, so it can not be reused here
+    byte[] uncompressed = new byte[header.getUncompressedSize()];
+    if (buffer.hasArray()) {
+      unCompressor.uncompress(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining(), uncompressed, 0);
+    } else {
+      byte[] compressed = new byte[buffer.remaining()];
+      buffer.get(compressed);
+      unCompressor.uncompress(compressed, 0, compressed.length, uncompressed, 0);
     }
+    return ByteBuffer.wrap(uncompressed);
   }
 
   /**
@@ -348,6 +348,120 @@ public class BatchData {
     valueLength++;
   }
 
+  /**
+   * put timestamps in bulk.
+   *
+   * @param vs timestamps
+   * @param length number of timestamps to put from the beginning of vs
+   */
+  public void putTimes(long[] vs, int length) {
+    int idx = 0;
+    while (idx < length) {
+      // putTime grows or switches the current array when it is full
+      putTime(vs[idx++]);
+      int num = Math.min(length - idx, timeCapacity - curTimeIdx);
+      System.arraycopy(vs, idx, timeRet.get(timeArrayIdx), curTimeIdx, num);
+      curTimeIdx += num;
+      timeLength += num;
+      idx += num;
+    }
+  }
+
+  /**
+   * put boolean data in bulk.
+   *
+   * @param vs boolean data
+   * @param length number of values to put from the beginning of vs
+   */
+  public void putBooleans(boolean[] vs, int length) {
+    int idx = 0;
+    while (idx < length) {
+      // putBoolean grows or switches the current array when it is full
+      putBoolean(vs[idx++]);
+      int num = Math.min(length - idx, valueCapacity - curValueIdx);
+      System.arraycopy(vs, idx, booleanRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      idx += num;
+    }
+  }
+
+  /**
+   * put int data in bulk.
+   *
+   * @param vs int data
+   * @param length number of values to put from the beginning of vs
+   */
+  public void putInts(int[] vs, int length) {
+    int idx = 0;
+    while (idx < length) {
+      // putInt grows or switches the current array when it is full
+      putInt(vs[idx++]);
+      int num = Math.min(length - idx, valueCapacity - curValueIdx);
+      System.arraycopy(vs, idx, intRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      idx += num;
+    }
+  }
+
+  /**
+   * put long data in bulk.
+   *
+   * @param vs long data
+   * @param length number of values to put from the beginning of vs
+   */
+  public void putLongs(long[] vs, int length) {
+    int idx = 0;
+    while (idx < length) {
+      // putLong grows or switches the current array when it is full
+      putLong(vs[idx++]);
+      int num = Math.min(length - idx, valueCapacity - curValueIdx);
+      System.arraycopy(vs, idx, longRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      idx += num;
+    }
+  }
+
+  /**
+   * put float data in bulk.
+   *
+   * @param vs float data
+   * @param length number of values to put from the beginning of vs
+   */
+  public void putFloats(float[] vs, int length) {
+    int idx = 0;
+    while (idx < length) {
+      // putFloat grows or switches the current array when it is full
+      putFloat(vs[idx++]);
+      int num = Math.min(length - idx, valueCapacity - curValueIdx);
+      System.arraycopy(vs, idx, floatRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      idx += num;
+    }
+  }
+
+  /**
+   * put double data in bulk.
+   *
+   * @param vs double data
+   * @param length number of values to put from the beginning of vs
+   */
+  public void putDoubles(double[] vs, int length) {
+    int idx = 0;
+    while (idx < length) {
+      // putDouble grows or switches the current array when it is full
+      putDouble(vs[idx++]);
+      int num = Math.min(length - idx, valueCapacity - curValueIdx);
+      System.arraycopy(vs, idx, doubleRet.get(valueArrayIdx), curValueIdx, num);
+      curValueIdx += num;
+      valueLength += num;
+      idx += num;
+    }
+  }
+
   /**
    * Checks if the given index is in range. If not, throws an appropriate runtime exception.
    */
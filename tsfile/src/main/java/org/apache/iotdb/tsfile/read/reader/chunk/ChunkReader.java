@@ -20,12 +20,12 @@ package org.apache.iotdb.tsfile.read.reader.chunk;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.compress.UnCompressor;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -39,6 +39,12 @@ public abstract class ChunkReader {
   private ByteBuffer chunkDataBuffer;
 
   private UnCompressor unCompressor;
+
+  /**
+   * reused by all pages of this chunk to hold the uncompressed page, because a page is completely
+   * decoded before the next one is read.
+   */
+  private byte[] uncompressedPage = new byte[0];
   private Decoder valueDecoder;
   private Decoder timeDecoder = Decoder.getDecoderByType(
       TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().timeSeriesEncoder),
@@ -48,7 +54,10 @@ public abstract class ChunkReader {
 
   private BatchData data;
 
-  private long maxTombstoneTime;
+  /**
+   * data no later than this time are deleted and not returned.
+   */
+  private long maxTombstoneTime = Long.MIN_VALUE;
 
   public ChunkReader(Chunk chunk) {
     this(chunk, null);
@@ -93,6 +102,9 @@ public abstract class ChunkReader {
         PageReader pageReader = constructPageReaderForNextPage(pageHeader.getCompressedSize());
         if (pageReader.hasNextBatch()) {
           data = pageReader.nextBatch();
+          if (pageHeader.getMinTimestamp() <= maxTombstoneTime) {
+            data = removeDeletedData(data);
+          }
           return data;
         }
       } else {
@@ -103,6 +115,22 @@ public abstract class ChunkReader {
     return data;
   }
 
+  /**
+   * copy the data later than maxTombstoneTime, only pages partially covered by the tombstone are
+   * copied.
+   */
+  private BatchData removeDeletedData(BatchData pageData) {
+    BatchData remaining = new BatchData(pageData.getDataType(), true);
+    while (pageData.hasNext()) {
+      if (pageData.currentTime() > maxTombstoneTime) {
+        remaining.putTime(pageData.currentTime());
+        remaining.putAnObject(pageData.currentValue());
+      }
+      pageData.next();
+    }
+    return remaining;
+  }
+
   public BatchData currentBatch() {
     return data;
   }
@@ -115,21 +143,42 @@ public abstract class ChunkReader {
 
   private PageReader constructPageReaderForNextPage(int compressedPageBodyLength)
       throws IOException {
-    byte[] compressedPageBody = new byte[compressedPageBodyLength];
 
     // already in memory
     if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
       throw new IOException(
           "unexpected byte read length when read compressedPageBody. Expected:"
-              + Arrays.toString(compressedPageBody) + ". Actual:" + chunkDataBuffer
-              .remaining());
+              + compressedPageBodyLength + ". Actual:" + chunkDataBuffer.remaining());
+    }
+
+    ByteBuffer pageBody;
+    if (chunkHeader.getCompressionType() == CompressionType.UNCOMPRESSED) {
+      pageBody = chunkDataBuffer.slice();
+      pageBody.limit(compressedPageBodyLength);
+    } else {
+      byte[] compressedPageBody;
+      int offset;
+      if (chunkDataBuffer.hasArray()) {
+        compressedPageBody = chunkDataBuffer.array();
+        offset = chunkDataBuffer.arrayOffset() + chunkDataBuffer.position();
+      } else {
+        compressedPageBody = new byte[compressedPageBodyLength];
+        chunkDataBuffer.duplicate().get(compressedPageBody);
+        offset = 0;
+      }
+      int uncompressedLength = unCompressor
+          .getUncompressedLength(compressedPageBody, offset, compressedPageBodyLength);
+      if (uncompressedPage.length < uncompressedLength) {
+        uncompressedPage = new byte[uncompressedLength];
+      }
+      unCompressor.uncompress(compressedPageBody, offset, compressedPageBodyLength,
+          uncompressedPage, 0);
+      pageBody = ByteBuffer.wrap(uncompressedPage, 0, uncompressedLength);
     }
+    skipBytesInStreamByLength(compressedPageBodyLength);
 
-    chunkDataBuffer.get(compressedPageBody, 0, compressedPageBodyLength);
     valueDecoder.reset();
-    return new PageReader(ByteBuffer.wrap(unCompressor.uncompress(compressedPageBody)),
-        chunkHeader.getDataType(),
-        valueDecoder, timeDecoder, filter);
+    return new PageReader(pageBody, chunkHeader.getDataType(), valueDecoder, timeDecoder, filter);
   }
 
   public void close() {
@@ -21,15 +21,23 @@ package org.apache.iotdb.tsfile.read.reader.page;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.encoding.decoder.DictionaryDecoder;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 
 public class PageReader {
 
+  /** number of points decoded at a time when there is no filter */
+  private static final int DECODE_BATCH_SIZE = 1024;
+
   private TSDataType dataType;
 
   /** decoder for value column */
@@ -48,6 +56,15 @@ public class PageReader {
 
   private Filter filter = null;
 
+  /** dictionary whose filter results are cached in dictionaryFilterResults */
+  private Binary[] currentDictionary;
+
+  /**
+   * filter result of each dictionary id of currentDictionary, null if the filter depends on time
+   * and has to be evaluated for every point
+   */
+  private boolean[] dictionaryFilterResults;
+
   public PageReader(ByteBuffer pageData, TSDataType dataType, Decoder valueDecoder,
       Decoder timeDecoder,
       Filter filter) {
@@ -100,36 +117,67 @@ public class PageReader {
     return data;
   }
 
+  /**
+   * decode the page in batches of {@link #DECODE_BATCH_SIZE} points, times first and then the same
+   * number of values, so that decoders can decode a whole batch in one call.
+   */
   private BatchData getAllPageData() throws IOException {
 
     BatchData pageData = new BatchData(dataType, true);
-
-    while (timeDecoder.hasNext(timeBuffer)) {
-      long timestamp = timeDecoder.readLong(timeBuffer);
-
-      pageData.putTime(timestamp);
-      switch (dataType) {
-        case BOOLEAN:
-          pageData.putBoolean(valueDecoder.readBoolean(valueBuffer));
-          break;
-        case INT32:
-          pageData.putInt(valueDecoder.readInt(valueBuffer));
-          break;
-        case INT64:
-          pageData.putLong(valueDecoder.readLong(valueBuffer));
-          break;
-        case FLOAT:
-          pageData.putFloat(valueDecoder.readFloat(valueBuffer));
-          break;
-        case DOUBLE:
-          pageData.putDouble(valueDecoder.readDouble(valueBuffer));
-          break;
-        case TEXT:
-          pageData.putBinary(valueDecoder.readBinary(valueBuffer));
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
-      }
+    long[] times = new long[DECODE_BATCH_SIZE];
+    int count;
+
+    switch (dataType) {
+      case BOOLEAN:
+        boolean[] booleans = new boolean[DECODE_BATCH_SIZE];
+        while ((count = timeDecoder.decodeLongs(timeBuffer, times)) > 0) {
+          pageData.putTimes(times, count);
+          booleans = count == booleans.length ? booleans : new boolean[count];
+          pageData.putBooleans(booleans, valueDecoder.decodeBooleans(valueBuffer, booleans));
+        }
+        break;
+      case INT32:
+        int[] ints = new int[DECODE_BATCH_SIZE];
+        while ((count = timeDecoder.decodeLongs(timeBuffer, times)) > 0) {
+          pageData.putTimes(times, count);
+          ints = count == ints.length ? ints : new int[count];
+          pageData.putInts(ints, valueDecoder.decodeInts(valueBuffer, ints));
+        }
+        break;
+      case INT64:
+        long[] longs = new long[DECODE_BATCH_SIZE];
+        while ((count = timeDecoder.decodeLongs(timeBuffer, times)) > 0) {
+          pageData.putTimes(times, count);
+          longs = count == longs.length ? longs : new long[count];
+          pageData.putLongs(longs, valueDecoder.decodeLongs(valueBuffer, longs));
+        }
+        break;
+      case FLOAT:
+        float[] floats = new float[DECODE_BATCH_SIZE];
+        while ((count = timeDecoder.decodeLongs(timeBuffer, times)) > 0) {
+          pageData.putTimes(times, count);
+          floats = count == floats.length ? floats : new float[count];
+          pageData.putFloats(floats, valueDecoder.decodeFloats(valueBuffer, floats));
+        }
+        break;
+      case DOUBLE:
+        double[] doubles = new double[DECODE_BATCH_SIZE];
+        while ((count = timeDecoder.decodeLongs(timeBuffer, times)) > 0) {
+          pageData.putTimes(times, count);
+          doubles = count == doubles.length ? doubles : new double[count];
+          pageData.putDoubles(doubles, valueDecoder.decodeDoubles(valueBuffer, doubles));
+        }
+        break;
+      case TEXT:
+        while ((count = timeDecoder.decodeLongs(timeBuffer, times)) > 0) {
+          pageData.putTimes(times, count);
+          for (int i = 0; i < count; i++) {
+            pageData.putBinary(valueDecoder.readBinary(valueBuffer));
+          }
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
     }
     return pageData;
   }
@@ -157,7 +205,11 @@ public class PageReader {
           readDouble(pageData, timestamp);
           break;
         case TEXT:
-          readText(pageData, timestamp);
+          if (valueDecoder instanceof DictionaryDecoder) {
+            readDictionaryText(pageData, timestamp);
+          } else {
+            readText(pageData, timestamp);
+          }
           break;
         default:
           throw new UnSupportedDataTypeException(String.valueOf(dataType));
@@ -215,6 +267,53 @@ public class PageReader {
     }
   }
 
+  /**
+   * read a dictionary encoded value. If the filter only concerns values, it is evaluated once for
+   * each dictionary entry and points are then filtered by their dictionary ids.
+   */
+  private void readDictionaryText(BatchData pageData, long timestamp) {
+    DictionaryDecoder dictionaryDecoder = (DictionaryDecoder) valueDecoder;
+    Binary[] dictionary = dictionaryDecoder.readDictionary(valueBuffer);
+    if (dictionary == null) {
+      // the page falls back to plain encoding
+      readText(pageData, timestamp);
+      return;
+    }
+    if (dictionary != currentDictionary) {
+      currentDictionary = dictionary;
+      dictionaryFilterResults = null;
+      if (!containsTimeFilter(filter)) {
+        dictionaryFilterResults = new boolean[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++) {
+          dictionaryFilterResults[i] = filter.satisfy(timestamp, dictionary[i]);
+        }
+      }
+    }
+    int id = dictionaryDecoder.readDictionaryId(valueBuffer);
+    boolean satisfied = dictionaryFilterResults != null ? dictionaryFilterResults[id]
+        : filter.satisfy(timestamp, dictionary[id]);
+    if (satisfied) {
+      pageData.putTime(timestamp);
+      pageData.putBinary(dictionary[id]);
+    }
+  }
+
+  /**
+   * whether the result of the filter may depend on the time of a point. Unknown filters are
+   * regarded as time dependent.
+   */
+  private static boolean containsTimeFilter(Filter filter) {
+    if (filter instanceof UnaryFilter) {
+      return ((UnaryFilter<?>) filter).getFilterType() == FilterType.TIME_FILTER;
+    } else if (filter instanceof BinaryFilter) {
+      return containsTimeFilter(((BinaryFilter) filter).getLeft())
+          || containsTimeFilter(((BinaryFilter) filter).getRight());
+    } else if (filter instanceof NotFilter) {
+      return containsTimeFilter(((NotFilter) filter).getFilter());
+    }
+    return true;
+  }
+
   public void close() {
     timeBuffer = null;
     valueBuffer = null;
@@ -78,7 +78,9 @@ public abstract class FileSeriesReader {
     while (chunkToRead < chunkMetaDataList.size()) {
 
       ChunkMetaData chunkMetaData = chunkMetaDataList.get(chunkToRead++);
-      if (chunkSatisfied(chunkMetaData)) {
+      // a chunk whose data are all deleted is not loaded
+      if (chunkMetaData.getEndTime() > chunkMetaData.getMaxTombstoneTime()
+          && chunkSatisfied(chunkMetaData)) {
         // chunk metadata satisfy the condition
         initChunkReader(chunkMetaData);
 
@@ -121,7 +121,8 @@ public class SeriesReaderByTimestamp {
   }
 
   private boolean chunkSatisfied(ChunkMetaData chunkMetaData) {
-    return chunkMetaData.getEndTime() >= currentTimestamp;
+    return chunkMetaData.getEndTime() >= currentTimestamp
+        && chunkMetaData.getEndTime() > chunkMetaData.getMaxTombstoneTime();
   }
 
 }
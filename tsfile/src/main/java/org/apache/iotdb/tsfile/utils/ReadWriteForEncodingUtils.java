@@ -161,6 +161,39 @@ public class ReadWriteForEncodingUtils {
     return position;
   }
 
+  /**
+   * write a long value to stream using unsigned var int format, see {@link
+   * #writeUnsignedVarInt(int, OutputStream)}.
+   *
+   * @param value value to write into stream
+   * @param out output stream
+   * @throws IOException exception in IO
+   */
+  public static void writeUnsignedVarLong(long value, OutputStream out) throws IOException {
+    while ((value & 0xFFFFFFFFFFFFFF80L) != 0L) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) (value & 0x7F));
+  }
+
+  /**
+   * read an unsigned var long in buffer.
+   *
+   * @param buffer stream to read an unsigned var long
+   * @return long value
+   */
+  public static long readUnsignedVarLong(ByteBuffer buffer) {
+    long value = 0;
+    int i = 0;
+    long b = 0;
+    while (buffer.hasRemaining() && ((b = buffer.get()) & 0x80) != 0) {
+      value |= (b & 0x7F) << i;
+      i += 7;
+    }
+    return value | (b << i);
+  }
+
   /**
    * write integer value using special bit to output stream.
    *
@@ -26,6 +26,7 @@ import org.apache.iotdb.tsfile.compress.Compressor;
 import org.apache.iotdb.tsfile.exception.write.PageException;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
@@ -44,6 +45,11 @@ public class ChunkBuffer {
   private final Compressor compressor;
   private final MeasurementSchema schema;
 
+  /**
+   * encoding recorded in the chunk header, differs from the schema if the schema is AUTO.
+   */
+  private TSEncoding encoding;
+
   private int numOfPages;
 
   /**
@@ -56,6 +62,11 @@ public class ChunkBuffer {
   private long minTimestamp = -1;
   private ByteBuffer compressedData;// DirectByteBuffer
 
+  /**
+   * reused by all pages of this column to hold the compressed page, grows when a page needs more.
+   */
+  private byte[] compressedBytes = new byte[0];
+
   /**
    * constructor of ChunkBuffer.
    *
@@ -65,6 +76,21 @@ public class ChunkBuffer {
     this.schema = schema;
     this.compressor = schema.getCompressor();
     this.pageBuffer = new PublicBAOS();
+    // values are encoded by PLAIN until an encoding is chosen for an AUTO series
+    this.encoding = schema.getEncodingType() == TSEncoding.AUTO ? TSEncoding.PLAIN
+        : schema.getEncodingType();
+  }
+
+  public TSEncoding getEncodingType() {
+    return encoding;
+  }
+
+  /**
+   * set the encoding of the pages of current chunk, must be called before the first page is
+   * written.
+   */
+  public void setEncodingType(TSEncoding encoding) {
+    this.encoding = encoding;
   }
 
   public int getNumOfPages() {
@@ -101,12 +127,14 @@ public class ChunkBuffer {
     int uncompressedSize = data.remaining();
     int compressedSize = 0;
     int compressedPosition = 0;
-    byte[] compressedBytes = null;
 
     if (compressor.getType().equals(CompressionType.UNCOMPRESSED)) {
       compressedSize = data.remaining();
     } else {
-      compressedBytes = new byte[compressor.getMaxBytesForCompression(uncompressedSize)];
+      int maxCompressedSize = compressor.getMaxBytesForCompression(uncompressedSize);
+      if (compressedBytes.length < maxCompressedSize) {
+        compressedBytes = new byte[maxCompressedSize];
+      }
       try {
         compressedPosition = 0;
         // data is never a directByteBuffer now, so we can use data.array()
@@ -181,7 +209,7 @@ public class ChunkBuffer {
 
     // start to write this column chunk
     int headerSize = writer.startFlushChunk(schema, compressor.getType(), schema.getType(),
-        schema.getEncodingType(), statistics, maxTimestamp, minTimestamp, pageBuffer.size(),
+        encoding, statistics, maxTimestamp, minTimestamp, pageBuffer.size(),
         numOfPages);
 
     long totalByteSize = writer.getPos();
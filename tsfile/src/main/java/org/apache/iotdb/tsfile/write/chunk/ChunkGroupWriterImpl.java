@@ -106,7 +106,7 @@ public class ChunkGroupWriterImpl implements IChunkGroupWriter {
   /**
    * seal all the chunks which may has un-sealed pages in force.
    */
-  private void sealAllChunks() {
+  private void sealAllChunks() throws IOException {
     for (IChunkWriter writer : chunkWriters.values()) {
       writer.sealCurrentPage();
     }
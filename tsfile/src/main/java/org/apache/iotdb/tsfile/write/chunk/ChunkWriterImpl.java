@@ -21,9 +21,11 @@ package org.apache.iotdb.tsfile.write.chunk;
 import java.io.IOException;
 import java.math.BigDecimal;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
 import org.apache.iotdb.tsfile.exception.write.PageException;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -80,6 +82,15 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   private MeasurementSchema measurementSchema;
 
+  /**
+   * chooses the encoding of each chunk, null unless the series is encoded by AUTO.
+   */
+  private EncodingSelector encodingSelector;
+  /**
+   * whether the encoding of current chunk has been chosen, only used for AUTO.
+   */
+  private boolean encodingChosen;
+
   /**
    * constructor of ChunkWriterImpl.
    *
@@ -106,6 +117,33 @@ public class ChunkWriterImpl implements IChunkWriter {
 
     this.dataPageWriter.setTimeEncoder(measurementSchema.getTimeEncoder());
     this.dataPageWriter.setValueEncoder(measurementSchema.getValueEncoder());
+    if (measurementSchema.getEncodingType() == TSEncoding.AUTO) {
+      this.encodingSelector = new EncodingSelector(dataType,
+          TSFileDescriptor.getInstance().getConfig().autoEncodingSampleSize);
+    }
+  }
+
+  /**
+   * whether points should be buffered in the sample because the encoding of current chunk is not
+   * chosen yet.
+   */
+  private boolean isSampling() {
+    return encodingSelector != null && !encodingChosen;
+  }
+
+  /**
+   * choose the encoding of current chunk from the sample and write the sampled points.
+   */
+  private void chooseEncoding() throws IOException {
+    TSEncoding encoding = encodingSelector.select(measurementSchema.getProps());
+    TSEncodingBuilder builder = TSEncodingBuilder.getConverter(encoding);
+    builder.initFromProps(measurementSchema.getProps());
+    dataPageWriter.setValueEncoder(builder.getEncoder(dataType));
+    chunkBuffer.setEncodingType(encoding);
+    encodingChosen = true;
+    LOG.debug("choose encoding {} for a chunk of {}", encoding,
+        measurementSchema.getMeasurementId());
+    encodingSelector.replay(this);
   }
 
   /**
@@ -117,6 +155,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, long value) throws IOException {
+    if (isSampling()) {
+      encodingSelector.add(time, value);
+      if (encodingSelector.isFull()) {
+        chooseEncoding();
+      }
+      return;
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -129,6 +174,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, int value) throws IOException {
+    if (isSampling()) {
+      encodingSelector.add(time, value);
+      if (encodingSelector.isFull()) {
+        chooseEncoding();
+      }
+      return;
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -141,6 +193,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, boolean value) throws IOException {
+    if (isSampling()) {
+      encodingSelector.add(time, value);
+      if (encodingSelector.isFull()) {
+        chooseEncoding();
+      }
+      return;
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -153,6 +212,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, float value) throws IOException {
+    if (isSampling()) {
+      encodingSelector.add(time, value);
+      if (encodingSelector.isFull()) {
+        chooseEncoding();
+      }
+      return;
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -165,6 +231,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, double value) throws IOException {
+    if (isSampling()) {
+      encodingSelector.add(time, value);
+      if (encodingSelector.isFull()) {
+        chooseEncoding();
+      }
+      return;
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -177,6 +250,10 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, BigDecimal value) throws IOException {
+    if (isSampling()) {
+      // BigDecimal values are not sampled, choose with the points sampled so far
+      chooseEncoding();
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -189,6 +266,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, Binary value) throws IOException {
+    if (isSampling()) {
+      encodingSelector.add(time, value);
+      if (encodingSelector.isFull()) {
+        chooseEncoding();
+      }
+      return;
+    }
     this.time = time;
     ++valueCountInOnePage;
     dataPageWriter.write(time, value);
@@ -267,11 +351,17 @@ public class ChunkWriterImpl implements IChunkWriter {
     chunkBuffer.reset();
     // reset series_statistics
     this.chunkStatistics = Statistics.getStatsByType(dataType);
+    // the encoding of the next chunk is chosen again
+    encodingChosen = false;
   }
 
   @Override
   public long estimateMaxSeriesMemSize() {
-    return dataPageWriter.estimateMaxMemSize() + chunkBuffer.estimateMaxPageMemSize();
+    long size = dataPageWriter.estimateMaxMemSize() + chunkBuffer.estimateMaxPageMemSize();
+    if (isSampling()) {
+      size += encodingSelector.estimateMemSize();
+    }
+    return size;
   }
 
   @Override
@@ -282,7 +372,11 @@ public class ChunkWriterImpl implements IChunkWriter {
   }
 
   @Override
-  public void sealCurrentPage() {
+  public void sealCurrentPage() throws IOException {
+    if (isSampling() && !encodingSelector.isEmpty()) {
+      // the sampled points are only in the selector, they must not be dropped silently
+      chooseEncoding();
+    }
     if (valueCountInOnePage > 0) {
       writePage();
     }
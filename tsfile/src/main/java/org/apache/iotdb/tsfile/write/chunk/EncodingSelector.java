@@ -0,0 +1,278 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.chunk;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+/**
+ * Chooses the encoding of a chunk whose series is encoded by {@link TSEncoding#AUTO}. The first
+ * points of the chunk are buffered as a sample, then the sample is encoded by every candidate
+ * encoding of the data type and the one producing the fewest bytes is chosen. Measuring the encoded
+ * size covers the properties that make an encoding fit, e.g. monotonic values for TS_2DIFF, narrow
+ * deltas for RLE, small XOR results for GORILLA and low cardinality for BITMAP and
+ * PLAIN_DICTIONARY. After the choice, the sample is replayed into the chunk writer.
+ *
+ * <p>Only lossless encodings are candidates, so RLE and TS_2DIFF, which round FLOAT and DOUBLE
+ * values to a fixed precision, are not tried for floating point series.
+ */
+public class EncodingSelector {
+
+  /**
+   * BITMAP writes one bitmap per distinct value, so it is tried only for few distinct values.
+   */
+  private static final int MAX_BITMAP_CARDINALITY = 8;
+
+  private final TSDataType dataType;
+  private final int capacity;
+  private int size;
+  private long valueBytes;
+
+  private long[] times;
+  private boolean[] booleans;
+  private int[] ints;
+  private long[] longs;
+  private float[] floats;
+  private double[] doubles;
+  private Binary[] binaries;
+
+  private PublicBAOS trialBuffer = new PublicBAOS();
+
+  /**
+   * constructor of EncodingSelector.
+   *
+   * @param dataType data type of the series
+   * @param capacity number of points to sample before choosing
+   */
+  public EncodingSelector(TSDataType dataType, int capacity) {
+    this.dataType = dataType;
+    this.capacity = Math.max(1, capacity);
+    this.times = new long[this.capacity];
+    switch (dataType) {
+      case BOOLEAN:
+        booleans = new boolean[this.capacity];
+        break;
+      case INT32:
+        ints = new int[this.capacity];
+        break;
+      case INT64:
+        longs = new long[this.capacity];
+        break;
+      case FLOAT:
+        floats = new float[this.capacity];
+        break;
+      case DOUBLE:
+        doubles = new double[this.capacity];
+        break;
+      case TEXT:
+        binaries = new Binary[this.capacity];
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  public void add(long time, boolean value) {
+    times[size] = time;
+    booleans[size++] = value;
+    valueBytes += 1;
+  }
+
+  public void add(long time, int value) {
+    times[size] = time;
+    ints[size++] = value;
+    valueBytes += 4;
+  }
+
+  public void add(long time, long value) {
+    times[size] = time;
+    longs[size++] = value;
+    valueBytes += 8;
+  }
+
+  public void add(long time, float value) {
+    times[size] = time;
+    floats[size++] = value;
+    valueBytes += 4;
+  }
+
+  public void add(long time, double value) {
+    times[size] = time;
+    doubles[size++] = value;
+    valueBytes += 8;
+  }
+
+  public void add(long time, Binary value) {
+    times[size] = time;
+    binaries[size++] = value;
+    valueBytes += value.getLength();
+  }
+
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * choose the encoding which encodes the sample into the fewest bytes.
+   *
+   * @param props properties of the series, used to initialize the candidate encoders
+   * @return the chosen encoding, never {@link TSEncoding#AUTO}
+   */
+  public TSEncoding select(Map<String, String> props) throws IOException {
+    TSEncoding best = TSEncoding.PLAIN;
+    if (size == 0) {
+      return best;
+    }
+    long bestSize = Long.MAX_VALUE;
+    for (TSEncoding candidate : getCandidates()) {
+      long encodedSize = getEncodedSize(candidate, props);
+      if (encodedSize < bestSize) {
+        best = candidate;
+        bestSize = encodedSize;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * candidates in the order of preference when they produce the same size.
+   */
+  private TSEncoding[] getCandidates() {
+    switch (dataType) {
+      case BOOLEAN:
+        return new TSEncoding[]{TSEncoding.RLE, TSEncoding.PLAIN};
+      case INT32:
+        if (getIntCardinality() <= MAX_BITMAP_CARDINALITY) {
+          return new TSEncoding[]{TSEncoding.RLE, TSEncoding.TS_2DIFF, TSEncoding.GORILLA,
+              TSEncoding.BITMAP, TSEncoding.PLAIN};
+        }
+        return new TSEncoding[]{TSEncoding.RLE, TSEncoding.TS_2DIFF, TSEncoding.GORILLA,
+            TSEncoding.PLAIN};
+      case INT64:
+        return new TSEncoding[]{TSEncoding.RLE, TSEncoding.TS_2DIFF, TSEncoding.GORILLA,
+            TSEncoding.PLAIN};
+      case FLOAT:
+      case DOUBLE:
+        return new TSEncoding[]{TSEncoding.GORILLA, TSEncoding.PLAIN};
+      case TEXT:
+        return new TSEncoding[]{TSEncoding.PLAIN_DICTIONARY, TSEncoding.PLAIN};
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  /**
+   * number of distinct values in the sample, counting stops once it exceeds the BITMAP limit.
+   */
+  private int getIntCardinality() {
+    Set<Integer> distinct = new HashSet<>();
+    for (int i = 0; i < size && distinct.size() <= MAX_BITMAP_CARDINALITY; i++) {
+      distinct.add(ints[i]);
+    }
+    return distinct.size();
+  }
+
+  private long getEncodedSize(TSEncoding encoding, Map<String, String> props) throws IOException {
+    TSEncodingBuilder builder = TSEncodingBuilder.getConverter(encoding);
+    builder.initFromProps(props);
+    Encoder encoder = builder.getEncoder(dataType);
+    trialBuffer.reset();
+    for (int i = 0; i < size; i++) {
+      switch (dataType) {
+        case BOOLEAN:
+          encoder.encode(booleans[i], trialBuffer);
+          break;
+        case INT32:
+          encoder.encode(ints[i], trialBuffer);
+          break;
+        case INT64:
+          encoder.encode(longs[i], trialBuffer);
+          break;
+        case FLOAT:
+          encoder.encode(floats[i], trialBuffer);
+          break;
+        case DOUBLE:
+          encoder.encode(doubles[i], trialBuffer);
+          break;
+        case TEXT:
+          encoder.encode(binaries[i], trialBuffer);
+          break;
+        default:
+          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+      }
+    }
+    encoder.flush(trialBuffer);
+    return trialBuffer.size();
+  }
+
+  /**
+   * write the sampled points into the chunk writer and clear the sample.
+   *
+   * @param chunkWriter chunk writer whose encoding has been chosen
+   */
+  public void replay(IChunkWriter chunkWriter) throws IOException {
+    for (int i = 0; i < size; i++) {
+      switch (dataType) {
+        case BOOLEAN:
+          chunkWriter.write(times[i], booleans[i]);
+          break;
+        case INT32:
+          chunkWriter.write(times[i], ints[i]);
+          break;
+        case INT64:
+          chunkWriter.write(times[i], longs[i]);
+          break;
+        case FLOAT:
+          chunkWriter.write(times[i], floats[i]);
+          break;
+        case DOUBLE:
+          chunkWriter.write(times[i], doubles[i]);
+          break;
+        case TEXT:
+          chunkWriter.write(times[i], binaries[i]);
+          binaries[i] = null;
+          break;
+        default:
+          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+      }
+    }
+    size = 0;
+    valueBytes = 0;
+  }
+
+  /**
+   * estimate the memory occupied by the sampled points.
+   */
+  public long estimateMemSize() {
+    return size * 8L + valueBytes;
+  }
+}
@@ -84,8 +84,10 @@ public interface IChunkWriter {
 
   /**
    * seal the current page which may has not enough data points in force.
+   *
+   * @throws IOException if the buffered points cannot be encoded
    */
-  void sealCurrentPage();
+  void sealCurrentPage() throws IOException;
 
   int getNumOfPages();
 }
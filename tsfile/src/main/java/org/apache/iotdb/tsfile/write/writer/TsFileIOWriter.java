@@ -41,6 +41,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -174,6 +175,37 @@ public class TsFileIOWriter {
     return header.getSerializedSize();
   }
 
+  /**
+   * write an encoded chunk read from another tsfile into the current chunk group without decoding
+   * it.
+   *
+   * @param chunk header and pages of the chunk
+   * @param chunkMetaData metadata of the chunk in the tsfile it is read from
+   * @return the serialized size of the chunk, including its header
+   * @throws IOException if I/O error occurs
+   */
+  public long writeChunk(Chunk chunk, ChunkMetaData chunkMetaData) throws IOException {
+    long startPos = out.getPosition();
+    ChunkMetaData newChunkMetaData = new ChunkMetaData(chunkMetaData.getMeasurementUid(),
+        chunkMetaData.getTsDataType(), startPos, chunkMetaData.getStartTime(),
+        chunkMetaData.getEndTime());
+    newChunkMetaData.setDigest(chunkMetaData.getDigest());
+    newChunkMetaData.setNumOfPoints(chunkMetaData.getNumOfPoints());
+    chunk.getHeader().serializeTo(out.wrapAsStream());
+    ByteBuffer data = chunk.getData().duplicate();
+    if (data.hasArray()) {
+      out.wrapAsStream()
+          .write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+    } else {
+      byte[] bytes = new byte[data.remaining()];
+      data.get(bytes);
+      out.write(bytes);
+    }
+    currentChunkGroupMetaData.addTimeSeriesChunkMetaData(newChunkMetaData);
+    LOG.debug("write chunk:{}, file position {}", newChunkMetaData, out.getPosition());
+    return out.getPosition() - startPos;
+  }
+
   /**
    * end chunk and write some log.
    *
@@ -18,10 +18,18 @@
  */
 package org.apache.iotdb.tsfile.compress;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.junit.After;
 import org.junit.Before;
@@ -81,4 +89,164 @@ public class CompressTest {
     assertEquals(inputString, result);
   }
 
+  @Test
+  public void lz4CompressorTest1() throws IOException {
+    PublicBAOS out = new PublicBAOS();
+    out.write(inputString.getBytes("UTF-8"));
+    Compressor.LZ4Compressor compressor = new Compressor.LZ4Compressor();
+    UnCompressor.LZ4UnCompressor unCompressor = new UnCompressor.LZ4UnCompressor();
+    byte[] compressed = compressor.compress(out.toByteArray());
+    byte[] uncompressed = unCompressor.uncompress(compressed);
+    String result = new String(uncompressed, "UTF-8");
+    assertEquals(inputString, result);
+  }
+
+  @Test
+  public void lz4CompressorTest2() throws IOException {
+    PublicBAOS out = new PublicBAOS();
+    out.write(inputString.getBytes("UTF-8"));
+    Compressor.LZ4Compressor compressor = new Compressor.LZ4Compressor();
+    UnCompressor.LZ4UnCompressor unCompressor = new UnCompressor.LZ4UnCompressor();
+    byte[] compressed = new byte[compressor.getMaxBytesForCompression(out.size())];
+    int size = compressor.compress(out.getBuf(), 0, out.size(), compressed);
+    assertEquals(out.size(), unCompressor.getUncompressedLength(compressed, 0, size));
+    byte[] uncompressed = new byte[out.size()];
+    assertEquals(out.size(), unCompressor.uncompress(compressed, 0, size, uncompressed, 0));
+    String result = new String(uncompressed, "UTF-8");
+    assertEquals(inputString, result);
+  }
+
+  @Test
+  public void gzipCompressorTest1() throws IOException {
+    PublicBAOS out = new PublicBAOS();
+    out.write(inputString.getBytes("UTF-8"));
+    Compressor.GZIPCompressor compressor = new Compressor.GZIPCompressor();
+    UnCompressor.GZIPUnCompressor unCompressor = new UnCompressor.GZIPUnCompressor();
+    byte[] compressed = compressor.compress(out.toByteArray());
+    byte[] uncompressed = unCompressor.uncompress(compressed);
+    String result = new String(uncompressed, "UTF-8");
+    assertEquals(inputString, result);
+  }
+
+  @Test
+  public void gzipCompressorTest2() throws IOException {
+    PublicBAOS out = new PublicBAOS();
+    for (int i = 0; i < 1000; i++) {
+      out.write(inputString.getBytes("UTF-8"));
+    }
+    Compressor.GZIPCompressor compressor = new Compressor.GZIPCompressor();
+    UnCompressor.GZIPUnCompressor unCompressor = new UnCompressor.GZIPUnCompressor();
+    // the compressor and the uncompressor reuse their buffers between calls
+    for (int i = 0; i < 3; i++) {
+      byte[] compressed = new byte[compressor.getMaxBytesForCompression(out.size())];
+      int size = compressor.compress(out.getBuf(), 0, out.size(), compressed);
+      assertTrue(size < out.size());
+      byte[] uncompressed = new byte[out.size()];
+      assertEquals(out.size(), unCompressor.uncompress(compressed, 0, size, uncompressed, 0));
+      assertArrayEquals(out.toByteArray(), uncompressed);
+    }
+  }
+
+  @Test
+  public void gzipByteBufferTest() throws IOException {
+    byte[] input = inputString.getBytes("UTF-8");
+    Compressor.GZIPCompressor compressor = new Compressor.GZIPCompressor();
+    UnCompressor.GZIPUnCompressor unCompressor = new UnCompressor.GZIPUnCompressor();
+    ByteBuffer compressed = ByteBuffer
+        .allocateDirect(compressor.getMaxBytesForCompression(input.length));
+    int size = compressor.compress(ByteBuffer.wrap(input), compressed);
+    assertEquals(size, compressed.remaining());
+    assertEquals(input.length, unCompressor.getUncompressedLength(compressed));
+    ByteBuffer uncompressed = ByteBuffer.allocate(input.length);
+    assertEquals(input.length, unCompressor.uncompress(compressed, uncompressed));
+    assertArrayEquals(input, uncompressed.array());
+  }
+
+  @Test
+  public void gzipByteBufferKindsTest() throws IOException {
+    Compressor.GZIPCompressor compressor = new Compressor.GZIPCompressor();
+    UnCompressor.GZIPUnCompressor unCompressor = new UnCompressor.GZIPUnCompressor();
+    // pages of growing sizes, in heap and direct buffers which do not start at 0
+    for (int repeat : new int[]{1, 100, 10, 1000}) {
+      byte[] input = new byte[inputString.length() * repeat];
+      for (int i = 0; i < repeat; i++) {
+        System.arraycopy(inputString.getBytes("UTF-8"), 0, input, i * inputString.length(),
+            inputString.length());
+      }
+      for (boolean directInput : new boolean[]{false, true}) {
+        for (boolean directOutput : new boolean[]{false, true}) {
+          ByteBuffer data = allocate(input.length + 3, directInput);
+          data.position(3);
+          data.put(input);
+          data.position(3);
+
+          int maxSize = compressor.getMaxBytesForCompression(input.length);
+          ByteBuffer compressed = allocate(maxSize + 5, directOutput);
+          compressed.position(5);
+          int size = compressor.compress(data, compressed);
+          assertEquals(3, data.position());
+          assertEquals(5, compressed.position());
+          assertEquals(size, compressed.remaining());
+          assertEquals(input.length, unCompressor.getUncompressedLength(compressed));
+
+          ByteBuffer uncompressed = allocate(input.length + 7, directInput);
+          uncompressed.position(7);
+          assertEquals(input.length, unCompressor.uncompress(compressed, uncompressed));
+          assertEquals(5, compressed.position());
+          assertEquals(7, uncompressed.position());
+          assertEquals(input.length, uncompressed.remaining());
+          byte[] result = new byte[input.length];
+          uncompressed.get(result);
+          assertArrayEquals(input, result);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void gzipLargeDirectPageTest() throws IOException {
+    // a page larger than the scratch arrays kept by a thread is copied through its own array
+    byte[] input = new byte[3 << 20];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (byte) (i % 251 * (i / 4096));
+    }
+    Compressor.GZIPCompressor compressor = new Compressor.GZIPCompressor();
+    UnCompressor.GZIPUnCompressor unCompressor = new UnCompressor.GZIPUnCompressor();
+    ByteBuffer data = ByteBuffer.allocateDirect(input.length);
+    data.put(input);
+    data.flip();
+    ByteBuffer compressed = ByteBuffer
+        .allocateDirect(compressor.getMaxBytesForCompression(input.length));
+    compressor.compress(data, compressed);
+    ByteBuffer uncompressed = ByteBuffer.allocateDirect(input.length);
+    assertEquals(input.length, unCompressor.uncompress(compressed, uncompressed));
+    byte[] result = new byte[input.length];
+    uncompressed.get(result);
+    assertArrayEquals(input, result);
+  }
+
+  @Test
+  public void codecPoolTest() {
+    List<StringBuilder> released = new ArrayList<>();
+    CodecPool<StringBuilder> pool = new CodecPool<>(1, StringBuilder::new, released::add);
+    StringBuilder first = pool.borrow();
+    StringBuilder second = pool.borrow();
+    assertNotSame(first, second);
+
+    pool.giveBack(first);
+    assertSame(first, pool.borrow());
+    pool.giveBack(first);
+    // the pool is full, so the codec is released
+    pool.giveBack(second);
+    assertEquals(Collections.singletonList(second), released);
+    assertEquals(1, pool.getIdleNum());
+
+    pool.clear();
+    assertEquals(Arrays.asList(second, first), released);
+    assertEquals(0, pool.getIdleNum());
+  }
+
+  private static ByteBuffer allocate(int capacity, boolean direct) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
 }
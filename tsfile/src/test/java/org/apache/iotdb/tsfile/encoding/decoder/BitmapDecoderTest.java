@@ -33,7 +33,6 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@Deprecated
 public class BitmapDecoderTest {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BitmapDecoderTest.class);
@@ -71,6 +70,32 @@ public class BitmapDecoderTest {
     }
   }
 
+  @Test
+  public void testBitmapReadBoolean() throws Exception {
+    for (int i = 1; i < 10; i++) {
+      testBoolean(booleanList, i);
+    }
+  }
+
+  private void testBoolean(List<Boolean> list, int repeatCount) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    Encoder encoder = new BitmapEncoder(EndianType.LITTLE_ENDIAN);
+    for (int i = 0; i < repeatCount; i++) {
+      for (boolean value : list) {
+        encoder.encode(value, baos);
+      }
+      encoder.flush(baos);
+    }
+
+    ByteBuffer bais = ByteBuffer.wrap(baos.toByteArray());
+    Decoder decoder = new BitmapDecoder(EndianType.LITTLE_ENDIAN);
+    for (int i = 0; i < repeatCount; i++) {
+      for (boolean value : list) {
+        assertEquals(value, decoder.readBoolean(bais));
+      }
+    }
+  }
+
   private void testInt(List<Integer> list, boolean isDebug, int repeatCount) throws Exception {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     Encoder encoder = new BitmapEncoder(EndianType.LITTLE_ENDIAN);
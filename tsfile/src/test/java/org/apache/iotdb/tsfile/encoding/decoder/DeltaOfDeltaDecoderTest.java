@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.DeltaOfDeltaEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.junit.Test;
+
+public class DeltaOfDeltaDecoderTest {
+
+  private static final int ROW_NUM = 10000;
+
+  @Test
+  public void testRegularTimestamp() throws IOException {
+    long[] data = new long[ROW_NUM];
+    for (int i = 0; i < ROW_NUM; i++) {
+      data[i] = 1546300800000L + i * 1000L;
+    }
+    ByteBuffer buffer = encodeLongs(data, 1);
+    // every delta of delta but the first one takes one bit
+    assertTrue(buffer.remaining() < 5 + 8 + 9 + ROW_NUM / 8 + 1);
+    assertLongs(data, 1, buffer);
+  }
+
+  @Test
+  public void testJitteredTimestamp() throws IOException {
+    Random random = new Random(1);
+    long[] data = new long[ROW_NUM];
+    long time = 1546300800000L;
+    for (int i = 0; i < ROW_NUM; i++) {
+      time += 1000 + random.nextInt(5000) - 2500;
+      data[i] = time;
+    }
+    assertLongs(data, 3, encodeLongs(data, 3));
+  }
+
+  @Test
+  public void testExtremeLong() throws IOException {
+    long[] data = {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE, 1, 2, 3};
+    assertLongs(data, 2, encodeLongs(data, 2));
+  }
+
+  @Test
+  public void testSingleValue() throws IOException {
+    long[] data = {42};
+    assertLongs(data, 4, encodeLongs(data, 4));
+  }
+
+  @Test
+  public void testInt() throws IOException {
+    Random random = new Random(2);
+    int[] data = new int[ROW_NUM];
+    for (int i = 0; i < ROW_NUM; i++) {
+      data[i] = i % 100 == 0 ? random.nextInt() : i * 3;
+    }
+    data[1] = Integer.MIN_VALUE;
+    data[2] = Integer.MAX_VALUE;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder encoder = new DeltaOfDeltaEncoder.IntDeltaOfDeltaEncoder();
+    for (int value : data) {
+      encoder.encode(value, out);
+    }
+    encoder.flush(out);
+    ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+    Decoder decoder = new DeltaOfDeltaDecoder.IntDeltaOfDeltaDecoder();
+    for (int value : data) {
+      assertTrue(decoder.hasNext(buffer));
+      assertEquals(value, decoder.readInt(buffer));
+    }
+    assertFalse(decoder.hasNext(buffer));
+  }
+
+  @Test
+  public void testDecodeWholePage() throws IOException {
+    long[] data = new long[ROW_NUM];
+    for (int i = 0; i < ROW_NUM; i++) {
+      data[i] = i * 10L + (i % 7 == 0 ? 3 : 0);
+    }
+    ByteBuffer buffer = encodeLongs(data, 2);
+    DeltaOfDeltaDecoder decoder = new DeltaOfDeltaDecoder.LongDeltaOfDeltaDecoder();
+    long[] result = new long[2 * ROW_NUM + 10];
+    assertEquals(2 * ROW_NUM, decoder.decodeLongs(buffer, result));
+    for (int j = 0; j < 2 * ROW_NUM; j++) {
+      assertEquals(data[j % ROW_NUM], result[j]);
+    }
+    assertFalse(decoder.hasNext(buffer));
+  }
+
+  private ByteBuffer encodeLongs(long[] data, int repeatCount) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder encoder = new DeltaOfDeltaEncoder.LongDeltaOfDeltaEncoder();
+    for (int i = 0; i < repeatCount; i++) {
+      for (long value : data) {
+        encoder.encode(value, out);
+      }
+      encoder.flush(out);
+    }
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  private void assertLongs(long[] data, int repeatCount, ByteBuffer buffer) throws IOException {
+    Decoder decoder = new DeltaOfDeltaDecoder.LongDeltaOfDeltaDecoder();
+    for (int i = 0; i < repeatCount; i++) {
+      for (long value : data) {
+        assertTrue(decoder.hasNext(buffer));
+        assertEquals(value, decoder.readLong(buffer));
+      }
+    }
+    assertFalse(decoder.hasNext(buffer));
+  }
+}
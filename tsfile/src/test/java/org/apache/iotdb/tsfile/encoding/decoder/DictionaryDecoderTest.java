@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.tsfile.encoding.encoder.DictionaryEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+public class DictionaryDecoderTest {
+
+  private static final String[] STATUS = {"running", "stopped", "maintenance", "error"};
+
+  @Test
+  public void testLowCardinality() throws IOException {
+    List<Binary> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      values.add(new Binary(STATUS[i % STATUS.length]));
+    }
+    ByteBuffer buffer = encode(values, 1);
+    // 10000 values of 4 distinct strings are much smaller than plain encoding
+    assertTrue(buffer.remaining() < 10000);
+
+    DictionaryDecoder decoder = new DictionaryDecoder();
+    Binary[] dictionary = decoder.readDictionary(buffer);
+    assertNotNull(dictionary);
+    assertEquals(STATUS.length, dictionary.length);
+    assertDecoded(values, 1, decoder, buffer);
+  }
+
+  @Test
+  public void testHighCardinalityFallsBackToPlain() throws IOException {
+    List<Binary> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      values.add(new Binary("value" + i));
+    }
+    ByteBuffer buffer = encode(values, 1);
+    DictionaryDecoder decoder = new DictionaryDecoder();
+    assertNull(decoder.readDictionary(buffer));
+    assertDecoded(values, 1, decoder, buffer);
+  }
+
+  @Test
+  public void testMultipleBlocks() throws IOException {
+    List<Binary> values = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      values.add(new Binary(STATUS[i % 3]));
+    }
+    ByteBuffer buffer = encode(values, 5);
+    assertDecoded(values, 5, new DictionaryDecoder(), buffer);
+  }
+
+  @Test
+  public void testDictionaryId() throws IOException {
+    List<Binary> values = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      values.add(new Binary(STATUS[i % STATUS.length]));
+    }
+    ByteBuffer buffer = encode(values, 1);
+    DictionaryDecoder decoder = new DictionaryDecoder();
+    Binary[] dictionary = decoder.readDictionary(buffer);
+    for (Binary value : values) {
+      assertEquals(value, dictionary[decoder.readDictionaryId(buffer)]);
+    }
+    assertFalse(decoder.hasNext(buffer));
+  }
+
+  private ByteBuffer encode(List<Binary> values, int repeatCount) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder encoder = new DictionaryEncoder(1024, 128);
+    for (int i = 0; i < repeatCount; i++) {
+      for (Binary value : values) {
+        encoder.encode(value, out);
+      }
+      encoder.flush(out);
+    }
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  private void assertDecoded(List<Binary> values, int repeatCount, Decoder decoder,
+      ByteBuffer buffer) throws IOException {
+    for (int i = 0; i < repeatCount; i++) {
+      for (Binary value : values) {
+        assertTrue(decoder.hasNext(buffer));
+        assertEquals(value, decoder.readBinary(buffer));
+      }
+    }
+    assertFalse(decoder.hasNext(buffer));
+  }
+}
@@ -167,6 +167,15 @@ public class IntRleDecoderTest {
     }
   }
 
+  @Test
+  public void testDecodeInts() throws IOException {
+    for (int i = 1; i < 3; i++) {
+      testDecodeInts(rleList, i);
+      testDecodeInts(bpList, i);
+      testDecodeInts(hybridList, i);
+    }
+  }
+
   @Test
   public void testBitPackingReadHeader() throws IOException {
     for (int i = 1; i < 505; i++) {
@@ -258,4 +267,29 @@ public class IntRleDecoderTest {
       assertEquals(lastBitPackedNum, num % 8);
     }
   }
+
+  private void testDecodeInts(List<Integer> list, int repeatCount) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    RleEncoder<Integer> encoder = new IntRleEncoder(EndianType.LITTLE_ENDIAN);
+    for (int i = 0; i < repeatCount; i++) {
+      for (int value : list) {
+        encoder.encode(value, baos);
+      }
+      encoder.flush(baos);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    RleDecoder decoder = new IntRleDecoder(EndianType.LITTLE_ENDIAN);
+    // a batch size which is not aligned with rle runs and bit-packed groups
+    int[] values = new int[1000];
+    int index = 0;
+    int count;
+    while ((count = decoder.decodeInts(buffer, values)) > 0) {
+      for (int i = 0; i < count; i++) {
+        assertEquals((long) list.get(index % list.size()), values[i]);
+        index++;
+      }
+    }
+    assertEquals(list.size() * repeatCount, index);
+  }
 }
@@ -164,6 +164,15 @@ public class LongRleDecoderTest {
     }
   }
 
+  @Test
+  public void testDecodeLongs() throws IOException {
+    for (int i = 1; i < 3; i++) {
+      testDecodeLongs(rleList, i);
+      testDecodeLongs(bpList, i);
+      testDecodeLongs(hybridList, i);
+    }
+  }
+
   @Test
   public void testBitPackingReadHeader() throws IOException {
     for (int i = 1; i < 505; i++) {
@@ -222,4 +231,29 @@ public class LongRleDecoderTest {
       }
     }
   }
+
+  private void testDecodeLongs(List<Long> list, int repeatCount) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    RleEncoder<Long> encoder = new LongRleEncoder(EndianType.LITTLE_ENDIAN);
+    for (int i = 0; i < repeatCount; i++) {
+      for (long value : list) {
+        encoder.encode(value, baos);
+      }
+      encoder.flush(baos);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    RleDecoder decoder = new LongRleDecoder(EndianType.LITTLE_ENDIAN);
+    // a batch size which is not aligned with rle runs and bit-packed groups
+    long[] values = new long[1000];
+    int index = 0;
+    int count;
+    while ((count = decoder.decodeLongs(buffer, values)) > 0) {
+      for (int i = 0; i < count; i++) {
+        assertEquals((long) list.get(index % list.size()), values[i]);
+        index++;
+      }
+    }
+    assertEquals(list.size() * repeatCount, index);
+  }
 }
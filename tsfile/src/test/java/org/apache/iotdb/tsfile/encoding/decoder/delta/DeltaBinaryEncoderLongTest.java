@@ -92,6 +92,26 @@ public class DeltaBinaryEncoderLongTest {
     shouldReadAndWrite(data, ROW_NUM);
   }
 
+  @Test
+  public void testDecodeLongs() throws IOException {
+    long data[] = new long[ROW_NUM];
+    for (int i = 0; i < ROW_NUM; i++) {
+      data[i] = i * BASIC_FACTOR + ran.nextInt(1000);
+    }
+    out = new ByteArrayOutputStream();
+    writeData(data, ROW_NUM);
+    buffer = ByteBuffer.wrap(out.toByteArray());
+    long[] values = new long[300];
+    int index = 0;
+    int count;
+    while ((count = reader.decodeLongs(buffer, values)) > 0) {
+      for (int i = 0; i < count; i++) {
+        assertEquals(data[index++], values[i]);
+      }
+    }
+    assertEquals(ROW_NUM, index);
+  }
+
   private void writeData(long[] data, int length) throws IOException {
     for (int i = 0; i < length; i++) {
       writer.encode(data[i], out);
@@ -23,12 +23,16 @@ import java.nio.ByteBuffer;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.encoding.decoder.DeltaBinaryDecoder;
+import org.apache.iotdb.tsfile.encoding.decoder.DeltaOfDeltaDecoder;
+import org.apache.iotdb.tsfile.encoding.decoder.DictionaryDecoder;
 import org.apache.iotdb.tsfile.encoding.decoder.DoublePrecisionDecoder;
 import org.apache.iotdb.tsfile.encoding.decoder.IntRleDecoder;
 import org.apache.iotdb.tsfile.encoding.decoder.LongRleDecoder;
 import org.apache.iotdb.tsfile.encoding.decoder.PlainDecoder;
 import org.apache.iotdb.tsfile.encoding.decoder.SinglePrecisionDecoder;
 import org.apache.iotdb.tsfile.encoding.encoder.DeltaBinaryEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.DeltaOfDeltaEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.DictionaryEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.DoublePrecisionEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
 import org.apache.iotdb.tsfile.encoding.encoder.IntRleEncoder;
@@ -37,6 +41,10 @@ import org.apache.iotdb.tsfile.encoding.encoder.PlainEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoder;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -87,6 +95,29 @@ public class PageReaderTest {
     test.test();
   }
 
+  @Test
+  public void testDeltaOfDeltaTime() throws IOException {
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaOfDeltaEncoder.LongDeltaOfDeltaEncoder());
+    pageWriter.setValueEncoder(new DeltaOfDeltaEncoder.LongDeltaOfDeltaEncoder());
+    for (int i = 0; i < POINTS_COUNT_IN_ONE_PAGE; i++) {
+      pageWriter.write(i * 1000L + (i % 100 == 0 ? 7 : 0), (long) i);
+    }
+    ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+    PageReader pageReader = new PageReader(page, TSDataType.INT64,
+        new DeltaOfDeltaDecoder.LongDeltaOfDeltaDecoder(),
+        new DeltaOfDeltaDecoder.LongDeltaOfDeltaDecoder());
+    BatchData data = pageReader.nextBatch();
+    int index = 0;
+    while (data.hasNext()) {
+      Assert.assertEquals(index * 1000L + (index % 100 == 0 ? 7 : 0), data.currentTime());
+      Assert.assertEquals((long) index, data.currentValue());
+      data.next();
+      index++;
+    }
+    Assert.assertEquals(POINTS_COUNT_IN_ONE_PAGE, index);
+  }
+
   @Test
   public void testFloat() {
     LoopWriteReadTest test = new LoopWriteReadTest("Test FLOAT", new SinglePrecisionEncoder(),
@@ -142,6 +173,47 @@ public class PageReaderTest {
     test.test();
   }
 
+  @Test
+  public void testDictionaryBinary() {
+    LoopWriteReadTest test = new LoopWriteReadTest("Test Dictionary",
+        new DictionaryEncoder(1024, 1000), new DictionaryDecoder(), TSDataType.TEXT,
+        POINTS_COUNT_IN_ONE_PAGE) {
+      @Override
+      public Object generateValueByIndex(int i) {
+        return new Binary("STATUS" + i % 10);
+      }
+    };
+    test.test();
+  }
+
+  @Test
+  public void testDictionaryBinaryWithFilter() throws IOException {
+    testDictionaryFilter(ValueFilter.eq(new Binary("STATUS3")), 100);
+    testDictionaryFilter(
+        FilterFactory.and(TimeFilter.lt(500), ValueFilter.eq(new Binary("STATUS3"))), 50);
+    testDictionaryFilter(ValueFilter.not(ValueFilter.eq(new Binary("STATUS3"))), 900);
+  }
+
+  private void testDictionaryFilter(Filter filter, int expectedCount) throws IOException {
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.setValueEncoder(new DictionaryEncoder(1024, 1000));
+    for (int i = 0; i < 1000; i++) {
+      pageWriter.write(i, new Binary("STATUS" + i % 10));
+    }
+    ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+    PageReader pageReader = new PageReader(page, TSDataType.TEXT, new DictionaryDecoder(),
+        new DeltaBinaryDecoder.LongDeltaDecoder(), filter);
+    BatchData data = pageReader.nextBatch();
+    int count = 0;
+    while (data.hasNext()) {
+      Assert.assertTrue(filter.satisfy(data.currentTime(), data.currentValue()));
+      data.next();
+      count++;
+    }
+    Assert.assertEquals(expectedCount, count);
+  }
+
   private abstract static class LoopWriteReadTest {
 
     private Encoder encoder;
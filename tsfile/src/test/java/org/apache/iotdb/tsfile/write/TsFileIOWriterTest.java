@@ -20,15 +20,30 @@ package org.apache.iotdb.tsfile.write;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.footer.ChunkGroupFooter;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.TimeSeriesMetadataTest;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.file.metadata.utils.TestHelper;
+import org.apache.iotdb.tsfile.read.ReadOnlyTsFile;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
 import org.apache.iotdb.tsfile.write.schema.FileSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
@@ -41,6 +56,7 @@ public class TsFileIOWriterTest {
 
   private static String tsfile = "target/tsfileIOWriterTest.tsfile";
   private static String deviceId = "device1";
+  private static String sourceFile = "target/tsfileIOWriterSourceTest.tsfile";
 
   @Before
   public void before() throws IOException {
@@ -73,6 +89,10 @@ public class TsFileIOWriterTest {
     if (file.exists()) {
       file.delete();
     }
+    file = new File(sourceFile);
+    if (file.exists()) {
+      file.delete();
+    }
   }
 
   @Test
@@ -103,4 +123,50 @@ public class TsFileIOWriterTest {
     Assert.assertEquals(TimeSeriesMetadataTest.measurementUID, actual.getMeasurementId());
     Assert.assertEquals(1, metaData.getDeviceMap().size());
   }
+
+  @Test
+  public void writeChunkTest() throws IOException, WriteProcessException {
+    TsFileWriter tsFileWriter = new TsFileWriter(new File(sourceFile));
+    tsFileWriter
+        .addMeasurement(new MeasurementSchema("sensor_1", TSDataType.INT64, TSEncoding.RLE));
+    for (long i = 1; i <= 1000; i++) {
+      TSRecord tsRecord = new TSRecord(i, deviceId);
+      tsRecord.addTuple(new LongDataPoint("sensor_1", i * 10));
+      tsFileWriter.write(tsRecord);
+    }
+    tsFileWriter.close();
+
+    // copy the chunks of the source file without decoding them
+    TsFileSequenceReader sourceReader = new TsFileSequenceReader(sourceFile);
+    TsFileMetaData sourceMetaData = sourceReader.readFileMetadata();
+    TsDeviceMetadata deviceMetadata = sourceReader
+        .readTsDeviceMetaData(sourceMetaData.getDeviceMetadataIndex(deviceId));
+    TsFileIOWriter writer = new TsFileIOWriter(new File(tsfile));
+    for (ChunkGroupMetaData chunkGroupMetaData : deviceMetadata.getChunkGroups()) {
+      writer.startFlushChunkGroup(deviceId);
+      long dataSize = 0;
+      for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+        dataSize += writer.writeChunk(sourceReader.readMemChunk(chunkMetaData), chunkMetaData);
+      }
+      writer.endChunkGroup(new ChunkGroupFooter(deviceId, dataSize,
+          chunkGroupMetaData.getChunkMetaDataList().size()));
+    }
+    writer.endFile(new FileSchema(sourceMetaData.getMeasurementSchema()));
+    sourceReader.close();
+
+    TsFileSequenceReader reader = new TsFileSequenceReader(tsfile);
+    List<Path> paths = new ArrayList<>();
+    paths.add(new Path(deviceId + ".sensor_1"));
+    QueryDataSet queryDataSet = new ReadOnlyTsFile(reader)
+        .query(QueryExpression.create(paths, null));
+    long i = 1;
+    while (queryDataSet.hasNext()) {
+      RowRecord record = queryDataSet.next();
+      Assert.assertEquals(i, record.getTimestamp());
+      Assert.assertEquals(i * 10, record.getFields().get(0).getLongV());
+      i++;
+    }
+    Assert.assertEquals(1001, i);
+    reader.close();
+  }
 }
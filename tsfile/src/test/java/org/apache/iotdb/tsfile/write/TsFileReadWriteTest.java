@@ -32,12 +32,14 @@ import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.QueryExpression;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.junit.After;
 import org.junit.Before;
@@ -216,4 +218,46 @@ public class TsFileReadWriteTest {
     reader.close();
   }
 
+  @Test
+  public void autoEncodingTest() throws IOException, WriteProcessException {
+    int count = 100000;
+    tsFileWriter
+        .addMeasurement(new MeasurementSchema("sensor_1", TSDataType.INT64, TSEncoding.AUTO));
+    tsFileWriter
+        .addMeasurement(new MeasurementSchema("sensor_2", TSDataType.INT32, TSEncoding.AUTO));
+    tsFileWriter
+        .addMeasurement(new MeasurementSchema("sensor_3", TSDataType.DOUBLE, TSEncoding.AUTO));
+    tsFileWriter
+        .addMeasurement(new MeasurementSchema("sensor_4", TSDataType.TEXT, TSEncoding.AUTO));
+    for (long i = 1; i < count; i++) {
+      TSRecord tsRecord = new TSRecord(i, "device_1");
+      tsRecord.addTuple(new LongDataPoint("sensor_1", i * 1000));
+      tsRecord.addTuple(new IntDataPoint("sensor_2", (int) (i % 3)));
+      tsRecord.addTuple(new DoubleDataPoint("sensor_3", i / 7.0));
+      tsRecord.addTuple(new StringDataPoint("sensor_4", new Binary("s" + i % 5)));
+      tsFileWriter.write(tsRecord);
+    }
+    tsFileWriter.close();
+    TsFileSequenceReader reader = new TsFileSequenceReader(path);
+    ReadOnlyTsFile readTsFile = new ReadOnlyTsFile(reader);
+    ArrayList<Path> paths = new ArrayList<>();
+    paths.add(new Path("device_1.sensor_1"));
+    paths.add(new Path("device_1.sensor_2"));
+    paths.add(new Path("device_1.sensor_3"));
+    paths.add(new Path("device_1.sensor_4"));
+    QueryDataSet queryDataSet = readTsFile.query(QueryExpression.create(paths, null));
+
+    long i = 1;
+    while (queryDataSet.hasNext()) {
+      RowRecord r = queryDataSet.next();
+      assertEquals(i, r.getTimestamp());
+      assertEquals(i * 1000, r.getFields().get(0).getLongV());
+      assertEquals(i % 3, r.getFields().get(1).getIntV());
+      assertEquals(i / 7.0, r.getFields().get(2).getDoubleV(), delta);
+      assertEquals("s" + i % 5, r.getFields().get(3).getBinaryV().getStringValue());
+      i++;
+    }
+    assertEquals(count, i);
+    reader.close();
+  }
 }
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+public class EncodingSelectorTest {
+
+  private static final int SAMPLE_SIZE = 1024;
+
+  @Test
+  public void testRegularLong() throws IOException {
+    EncodingSelector selector = new EncodingSelector(TSDataType.INT64, SAMPLE_SIZE);
+    for (int i = 0; i < SAMPLE_SIZE; i++) {
+      selector.add(i, 1546272000000L + i * 1000L);
+    }
+    assertTrue(selector.isFull());
+    TSEncoding encoding = selector.select(Collections.emptyMap());
+    assertNotEquals(TSEncoding.PLAIN, encoding);
+    assertNotEquals(TSEncoding.AUTO, encoding);
+  }
+
+  @Test
+  public void testLowCardinalityText() throws IOException {
+    EncodingSelector selector = new EncodingSelector(TSDataType.TEXT, SAMPLE_SIZE);
+    for (int i = 0; i < SAMPLE_SIZE; i++) {
+      selector.add(i, new Binary("status_" + i % 4));
+    }
+    assertEquals(TSEncoding.PLAIN_DICTIONARY, selector.select(Collections.emptyMap()));
+  }
+
+  @Test
+  public void testRandomDouble() throws IOException {
+    EncodingSelector selector = new EncodingSelector(TSDataType.DOUBLE, SAMPLE_SIZE);
+    Random random = new Random(1);
+    for (int i = 0; i < SAMPLE_SIZE; i++) {
+      selector.add(i, random.nextDouble());
+    }
+    TSEncoding encoding = selector.select(Collections.emptyMap());
+    // only lossless encodings are chosen for floating point values
+    assertTrue(encoding == TSEncoding.PLAIN || encoding == TSEncoding.GORILLA);
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    EncodingSelector selector = new EncodingSelector(TSDataType.INT32, SAMPLE_SIZE);
+    assertTrue(selector.isEmpty());
+    assertEquals(TSEncoding.PLAIN, selector.select(Collections.emptyMap()));
+  }
+}